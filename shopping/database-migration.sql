@@ -68,3 +68,265 @@ SELECT
 -- After running this script, restart your application
 -- The application should now work correctly with email OTP verification
 -- ============================================
+
+-- ============================================
+-- Unique usernames and emails (signup single-insert path)
+-- ============================================
+-- Signup relies on these constraints instead of findByEmail/findByUsername pre-checks.
+-- Resolve any existing duplicates first, otherwise the statements below fail:
+--   SELECT username, COUNT(*) FROM users GROUP BY username HAVING COUNT(*) > 1;
+--   SELECT email, COUNT(*) FROM users WHERE email IS NOT NULL GROUP BY email HAVING COUNT(*) > 1;
+-- (and the same for sellers)
+
+ALTER TABLE users ADD CONSTRAINT uk_users_username UNIQUE (username);
+ALTER TABLE users ADD CONSTRAINT uk_users_email UNIQUE (email);
+ALTER TABLE sellers ADD CONSTRAINT uk_sellers_username UNIQUE (username);
+ALTER TABLE sellers ADD CONSTRAINT uk_sellers_email UNIQUE (email);
+
+-- ============================================
+-- One cart line per user and product (atomic add-to-cart upsert)
+-- ============================================
+-- Add-to-cart is INSERT ... ON CONFLICT (user_id, product_id) DO UPDATE, which needs this constraint.
+-- Fold existing duplicate lines into the oldest one first:
+
+UPDATE cart c SET quantity = d.total
+FROM (SELECT MIN(id) AS keep_id, SUM(quantity) AS total
+      FROM cart GROUP BY user_id, product_id HAVING COUNT(*) > 1) d
+WHERE c.id = d.keep_id;
+
+DELETE FROM cart c USING cart k
+WHERE c.user_id = k.user_id AND c.product_id = k.product_id AND c.id > k.id;
+
+ALTER TABLE cart ADD CONSTRAINT uk_cart_user_product UNIQUE (user_id, product_id);
+
+-- ============================================
+-- One wishlist line per user and product
+-- ============================================
+-- Adding to the wishlist is INSERT ... ON CONFLICT (user_id, product_id) DO NOTHING, which needs
+-- this constraint. Drop existing duplicate lines, keeping the oldest:
+
+DELETE FROM wishlist w USING wishlist k
+WHERE w.user_id = k.user_id AND w.product_id = k.product_id AND w.id > k.id;
+
+ALTER TABLE wishlist ADD CONSTRAINT uk_wishlist_user_product UNIQUE (user_id, product_id);
+
+-- ============================================
+-- Stock reservations (no oversell at checkout)
+-- ============================================
+-- create-order takes stock with conditional updates and records the hold here; the hold is
+-- committed on payment success or released on cancel/expiry. Hibernate creates the table with
+-- ddl-auto=update; this is the equivalent DDL for managed schemas.
+
+CREATE TABLE IF NOT EXISTS stock_reservation (
+    id BIGSERIAL PRIMARY KEY,
+    reference VARCHAR(64) NOT NULL,
+    user_id BIGINT,
+    product_id BIGINT NOT NULL,
+    variant_id BIGINT,
+    quantity INTEGER NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    expires_at BIGINT NOT NULL,
+    created_at BIGINT NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_stock_reservation_reference ON stock_reservation (reference);
+CREATE INDEX IF NOT EXISTS idx_stock_reservation_status_expires ON stock_reservation (status, expires_at);
+
+-- Stock can no longer go negative through checkout; fix rows that already have
+UPDATE product SET available_quantity = 0 WHERE available_quantity < 0;
+UPDATE product_variants SET stock_quantity = 0 WHERE stock_quantity < 0;
+
+-- ============================================
+-- Order line items (checkout pipeline)
+-- ============================================
+-- Payment success snapshots each purchased line here. Ids come from a sequence that hands out
+-- 50 values per call (allocationSize = 50), so the inserts can be JDBC-batched.
+
+CREATE SEQUENCE IF NOT EXISTS order_items_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS order_items (
+    id BIGINT PRIMARY KEY,
+    order_id BIGINT NOT NULL REFERENCES orders (id),
+    product_id BIGINT NOT NULL,
+    variant_id BIGINT,
+    seller_id BIGINT,
+    product_name VARCHAR(255),
+    quantity INTEGER NOT NULL,
+    unit_price_paise BIGINT NOT NULL,
+    line_total_paise BIGINT NOT NULL,
+    tax_paise BIGINT NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_order_items_order ON order_items (order_id);
+
+-- ============================================
+-- Idempotent payment success
+-- ============================================
+-- A retried /payment/success used to insert a second order. Keep the first order of every
+-- Razorpay order, then make the column unique.
+
+DELETE FROM order_items WHERE order_id IN (
+    SELECT o.id FROM orders o
+    WHERE EXISTS (SELECT 1 FROM orders d WHERE d.razorpay_order_id = o.razorpay_order_id AND d.id < o.id)
+);
+DELETE FROM orders o
+WHERE EXISTS (SELECT 1 FROM orders d WHERE d.razorpay_order_id = o.razorpay_order_id AND d.id < o.id);
+
+ALTER TABLE orders ADD CONSTRAINT uk_orders_razorpay_order_id UNIQUE (razorpay_order_id);
+
+-- idem_key is "<user id>:<client key>"; result is NULL while the first request is running
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idem_key VARCHAR(160) PRIMARY KEY,
+    user_id BIGINT,
+    result VARCHAR(255),
+    created_at BIGINT NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created_at ON idempotency_keys (created_at);
+
+-- ============================================
+-- Transactional outbox
+-- ============================================
+-- Events are written in the transaction of the change they describe and delivered by the
+-- background dispatcher (SELECT ... FOR UPDATE SKIP LOCKED on PostgreSQL).
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGSERIAL PRIMARY KEY,
+    event_type VARCHAR(64) NOT NULL,
+    aggregate_id BIGINT,
+    payload TEXT,
+    status VARCHAR(16) NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    available_at BIGINT NOT NULL,
+    created_at BIGINT NOT NULL,
+    processed_at BIGINT,
+    last_error VARCHAR(500)
+);
+CREATE INDEX IF NOT EXISTS idx_outbox_events_status_available ON outbox_events (status, available_at);
+
+-- Tables created before payloads were unbounded
+ALTER TABLE outbox_events ALTER COLUMN payload TYPE TEXT;
+
+-- ============================================
+-- Order history pagination
+-- ============================================
+-- Order history pages are keyset range scans of this index (newest first per user).
+
+CREATE INDEX IF NOT EXISTS idx_orders_user_order_date ON orders (user_id, order_date DESC);
+
+-- ============================================
+-- Order archive
+-- ============================================
+-- Orders older than orders.archive.horizon-days are moved here by the archiver. The signature
+-- and line items are kept as gzipped JSON in details.
+
+CREATE TABLE IF NOT EXISTS orders_archive (
+    id BIGINT PRIMARY KEY,
+    user_id BIGINT,
+    order_date TIMESTAMP(6) NOT NULL,
+    amount DOUBLE PRECISION NOT NULL,
+    razorpay_order_id VARCHAR(255),
+    razorpay_payment_id VARCHAR(255),
+    email VARCHAR(255),
+    details BYTEA,
+    archived_at BIGINT NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_orders_archive_user_order_date ON orders_archive (user_id, order_date DESC);
+
+-- ============================================
+-- Daily sales rollups
+-- ============================================
+-- Per seller and per product sales by day, updated as orders are placed, for the seller
+-- dashboard. sales_rollup_orders records which orders are counted. Fill them for existing
+-- orders with POST /api/v1/admin/sales-rollups/rebuild.
+
+CREATE TABLE IF NOT EXISTS seller_daily_sales (
+    seller_id BIGINT NOT NULL,
+    sales_date DATE NOT NULL,
+    units BIGINT NOT NULL,
+    revenue_paise BIGINT NOT NULL,
+    orders BIGINT NOT NULL,
+    PRIMARY KEY (seller_id, sales_date)
+);
+
+CREATE TABLE IF NOT EXISTS product_daily_sales (
+    product_id BIGINT NOT NULL,
+    sales_date DATE NOT NULL,
+    seller_id BIGINT,
+    units BIGINT NOT NULL,
+    revenue_paise BIGINT NOT NULL,
+    orders BIGINT NOT NULL,
+    PRIMARY KEY (product_id, sales_date)
+);
+CREATE INDEX IF NOT EXISTS idx_product_daily_sales_seller_date ON product_daily_sales (seller_id, sales_date);
+
+CREATE TABLE IF NOT EXISTS sales_rollup_orders (
+    order_id BIGINT PRIMARY KEY,
+    sales_date DATE NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_sales_rollup_orders_date ON sales_rollup_orders (sales_date);
+
+-- ============================================
+-- Admin listings
+-- ============================================
+-- The admin user, seller and product lists are paged and can be filtered by creation date.
+-- Rows created before this migration keep a NULL created_at and only show up unfiltered.
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS created_at TIMESTAMP(6);
+ALTER TABLE sellers ADD COLUMN IF NOT EXISTS created_at TIMESTAMP(6);
+ALTER TABLE product ADD COLUMN IF NOT EXISTS created_at TIMESTAMP(6);
+CREATE INDEX IF NOT EXISTS idx_users_created_at ON users (created_at);
+CREATE INDEX IF NOT EXISTS idx_sellers_created_at ON sellers (created_at);
+CREATE INDEX IF NOT EXISTS idx_product_created_at ON product (created_at);
+CREATE INDEX IF NOT EXISTS idx_product_seller_id ON product (seller_id);
+
+-- ============================================
+-- Sequence ids for product children, cart and wishlist
+-- ============================================
+-- product_images, product_specifications, product_variants, product_documents, cart and wishlist
+-- take ids from sequences handing out 50 values per call (allocationSize = 50), so Hibernate can
+-- batch their inserts. Each sequence starts past the ids already used, and the identity defaults
+-- are dropped so every insert goes through the sequence. JDBC inserts call nextval() per row.
+
+DO $$
+DECLARE t text;
+BEGIN
+    FOREACH t IN ARRAY ARRAY['product_images', 'product_specifications', 'product_variants',
+                             'product_documents', 'cart', 'wishlist'] LOOP
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I START WITH 1 INCREMENT BY 50', t || '_seq');
+        EXECUTE format('SELECT setval(%L, COALESCE((SELECT MAX(id) FROM %I), 0) + 50)', t || '_seq', t);
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP IDENTITY IF EXISTS', t);
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP DEFAULT', t);
+    END LOOP;
+END $$;
+
+-- ============================================
+-- Product version
+-- ============================================
+-- Bumped by every product edit (PUT, PATCH and the admin update) and returned as the ETag of
+-- PATCH /api/v1/seller/products/{id}, so caches can tell when their copy is stale.
+
+ALTER TABLE product ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+-- ============================================
+-- Upload content hashes
+-- ============================================
+-- SHA-256 (hex) of image and document data, computed while uploads are spooled to disk.
+-- Rows stored before this change keep NULL.
+
+ALTER TABLE product_images ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+ALTER TABLE product_documents ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+
+-- ============================================
+-- Checkout quotes
+-- ============================================
+-- create-order stores the priced lines and the total charged under the Razorpay order id, next to
+-- the stock reservation; payment success orders exactly this quote and ignores lines in the request.
+-- The quote is deleted with the order it became; unpaid quotes after checkout.quote.retention.
+
+CREATE TABLE IF NOT EXISTS checkout_quote (
+    reference VARCHAR(64) PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    buy_now BOOLEAN NOT NULL,
+    amount_paise BIGINT NOT NULL,
+    lines TEXT NOT NULL,
+    created_at BIGINT NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_checkout_quote_created_at ON checkout_quote (created_at);
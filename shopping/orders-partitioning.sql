@@ -0,0 +1,112 @@
+-- ============================================
+-- Monthly partitioning of orders (PostgreSQL, opt-in)
+-- ============================================
+-- NOT part of database-migration.sql: read ORDERS_PARTITIONING.md before running this script.
+--
+-- Converts orders into a table range-partitioned by order_date, one partition per month plus a
+-- default one. Afterwards OrderPartitionService keeps the upcoming months' partitions created and
+-- drops old ones once the archiver has emptied them.
+--
+-- A partitioned table's keys must include the partition column, so:
+--   * the primary key becomes (id, order_date) and ids come from orders_id_seq;
+--   * razorpay_order_id stays globally unique through the order_gateway_ids lookup table, which a
+--     trigger fills on every insert (a unique index on orders could only be per order_date);
+--   * foreign keys into orders (order_items.order_id) are dropped.
+--
+-- Safe to run again: a table that is already partitioned is left as it is, and the lookup table,
+-- trigger, partitions and indexes are only created when missing.
+
+BEGIN;
+
+DO $$
+DECLARE
+    c record;
+    month DATE;
+    last_month DATE;
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = 'orders'::regclass) = 'p' THEN
+        RAISE NOTICE 'orders is already partitioned';
+        RETURN;
+    END IF;
+
+    FOR c IN SELECT conname, conrelid::regclass AS tbl FROM pg_constraint WHERE confrelid = 'orders'::regclass LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', c.tbl, c.conname);
+    END LOOP;
+
+    ALTER TABLE orders RENAME TO orders_unpartitioned;
+
+    CREATE TABLE orders (
+        id BIGINT NOT NULL,
+        amount DOUBLE PRECISION NOT NULL,
+        email VARCHAR(255),
+        order_date TIMESTAMP(6) NOT NULL,
+        razorpay_order_id VARCHAR(255),
+        razorpay_payment_id VARCHAR(255),
+        razorpay_signature VARCHAR(255),
+        user_id BIGINT REFERENCES users (id),
+        PRIMARY KEY (id, order_date)
+    ) PARTITION BY RANGE (order_date);
+
+    SELECT date_trunc('month', COALESCE(MIN(order_date), now()))::date INTO month FROM orders_unpartitioned;
+    last_month := (date_trunc('month', now()) + interval '3 months')::date;
+    WHILE month <= last_month LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF orders FOR VALUES FROM (%L) TO (%L)',
+            'orders_' || to_char(month, 'YYYY_MM'), month, (month + interval '1 month')::date);
+        month := (month + interval '1 month')::date;
+    END LOOP;
+    CREATE TABLE IF NOT EXISTS orders_default PARTITION OF orders DEFAULT;
+
+    INSERT INTO orders (id, amount, email, order_date, razorpay_order_id, razorpay_payment_id, razorpay_signature, user_id)
+    SELECT id, amount, email, COALESCE(order_date, now()), razorpay_order_id, razorpay_payment_id, razorpay_signature, user_id
+    FROM orders_unpartitioned;
+
+    DROP TABLE orders_unpartitioned;
+
+    CREATE SEQUENCE IF NOT EXISTS orders_id_seq;
+    PERFORM setval('orders_id_seq', COALESCE((SELECT MAX(id) FROM orders), 0) + 1, false);
+    ALTER TABLE orders ALTER COLUMN id SET DEFAULT nextval('orders_id_seq');
+    ALTER SEQUENCE orders_id_seq OWNED BY orders.id;
+END $$;
+
+CREATE TABLE IF NOT EXISTS orders_default PARTITION OF orders DEFAULT;
+
+-- Left by earlier versions of this script; uniqueness per order_date only
+DROP INDEX IF EXISTS uk_orders_razorpay_order_id;
+
+CREATE INDEX IF NOT EXISTS idx_orders_user_order_date ON orders (user_id, order_date DESC);
+-- Lookups by gateway order id (payment success, idempotent replays); uniqueness is enforced below
+CREATE INDEX IF NOT EXISTS idx_orders_razorpay_order_id ON orders (razorpay_order_id);
+
+-- One row per gateway order id ever stored in orders. Rows are kept when the order is archived or
+-- its partition dropped, so an archived gateway order id cannot back a new order either.
+CREATE TABLE IF NOT EXISTS order_gateway_ids (
+    razorpay_order_id VARCHAR(255) PRIMARY KEY,
+    order_id BIGINT NOT NULL
+);
+
+INSERT INTO order_gateway_ids (razorpay_order_id, order_id)
+SELECT razorpay_order_id, id FROM orders WHERE razorpay_order_id IS NOT NULL
+ON CONFLICT (razorpay_order_id) DO NOTHING;
+
+-- A second order for the same gateway order id fails on the lookup's primary key with the same
+-- unique-violation error (SQLSTATE 23505) the old UNIQUE (razorpay_order_id) constraint raised
+CREATE OR REPLACE FUNCTION orders_claim_gateway_id() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'UPDATE' THEN
+        IF NEW.razorpay_order_id IS NOT DISTINCT FROM OLD.razorpay_order_id THEN
+            RETURN NEW;
+        END IF;
+        DELETE FROM order_gateway_ids WHERE razorpay_order_id = OLD.razorpay_order_id;
+    END IF;
+    IF NEW.razorpay_order_id IS NOT NULL THEN
+        INSERT INTO order_gateway_ids (razorpay_order_id, order_id) VALUES (NEW.razorpay_order_id, NEW.id);
+    END IF;
+    RETURN NEW;
+END $$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS orders_claim_gateway_id ON orders;
+CREATE TRIGGER orders_claim_gateway_id
+    BEFORE INSERT OR UPDATE OF razorpay_order_id ON orders
+    FOR EACH ROW EXECUTE FUNCTION orders_claim_gateway_id();
+
+COMMIT;
@@ -0,0 +1,29 @@
+package com.Shopping.Shopping.config;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Database the app is running against, for the few statements that need vendor-specific SQL.
+ * PostgreSQL in production, H2 for development and tests.
+ */
+public enum DatabaseDialect {
+    POSTGRESQL,
+    H2,
+    OTHER;
+
+    public static DatabaseDialect detect(JdbcTemplate jdbcTemplate) {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+            connection.getMetaData().getDatabaseProductName());
+        if (product == null) {
+            return OTHER;
+        }
+        if (product.equalsIgnoreCase("PostgreSQL")) {
+            return POSTGRESQL;
+        }
+        if (product.equalsIgnoreCase("H2")) {
+            return H2;
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,67 @@
+package com.Shopping.Shopping.config;
+
+import com.Shopping.Shopping.security.RateLimitFilter;
+import com.Shopping.Shopping.security.RateLimitFilter.Limit;
+import com.Shopping.Shopping.security.RateLimitFilter.RouteGroup;
+import com.Shopping.Shopping.service.MetricsService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Configuration
+public class RateLimitConfig {
+
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+
+    // Render terminates TLS in front of the app, so the client address arrives in X-Forwarded-For
+    @Value("${rate-limit.trust-forwarded-for:true}")
+    private boolean trustForwardedFor;
+
+    @Value("${rate-limit.idle-timeout:600000}")
+    private long idleTimeout;
+
+    @Value("${rate-limit.login.capacity:10}")
+    private int loginCapacity;
+
+    @Value("${rate-limit.login.refill-per-minute:10}")
+    private int loginRefill;
+
+    @Value("${rate-limit.search.capacity:30}")
+    private int searchCapacity;
+
+    @Value("${rate-limit.search.refill-per-minute:60}")
+    private int searchRefill;
+
+    @Value("${rate-limit.upload.capacity:5}")
+    private int uploadCapacity;
+
+    @Value("${rate-limit.upload.refill-per-minute:10}")
+    private int uploadRefill;
+
+    @Bean
+    public RateLimitFilter rateLimitFilter(MetricsService metricsService) {
+        Map<RouteGroup, Limit> limits = new EnumMap<>(RouteGroup.class);
+        limits.put(RouteGroup.LOGIN, new Limit(loginCapacity, loginRefill));
+        limits.put(RouteGroup.SEARCH, new Limit(searchCapacity, searchRefill));
+        limits.put(RouteGroup.UPLOAD, new Limit(uploadCapacity, uploadRefill));
+        return new RateLimitFilter(limits, trustForwardedFor, idleTimeout, metricsService);
+    }
+
+    /**
+     * Runs right after Spring Security so per-principal buckets can use the authenticated user.
+     */
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter rateLimitFilter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        registration.addUrlPatterns("/api/*");
+        registration.setEnabled(enabled);
+        return registration;
+    }
+}
@@ -4,6 +4,7 @@ import com.Shopping.Shopping.security.JwtAuthenticationFilter;
 import com.Shopping.Shopping.service.UserDetailsServiceImpl;
 import com.Shopping.Shopping.service.SellerDetailsService;
 import com.Shopping.Shopping.service.AdminDetailsService;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
@@ -17,6 +18,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfigurationSource;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletResponse;
 
 @Configuration
@@ -71,6 +73,17 @@ public class SecurityConfig {
         return provider;
     }
 
+    /**
+     * The JWT filter is a bean so it can be added to the chains below; stop Spring Boot from also
+     * registering it as a plain servlet filter, which would run it a second time for every request.
+     */
+    @Bean
+    public FilterRegistrationBean<JwtAuthenticationFilter> jwtAuthenticationFilterRegistration() {
+        FilterRegistrationBean<JwtAuthenticationFilter> registration = new FilterRegistrationBean<>(jwtAuthenticationFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
     /**
      * ✅ Admin Security Configuration (JWT-Only, API-Only)
      */
@@ -124,9 +137,15 @@ public class SecurityConfig {
             .httpBasic(basic -> basic.disable())
             .logout(logout -> logout.disable())
             .authorizeHttpRequests(auth -> auth
+                // Streamed responses (catalog exports) finish on an async dispatch; the request
+                // itself was authorized when it came in
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/api/v1/products/**", 
                                  "/api/v1/auth/signup", 
                                  "/api/v1/auth/login",
+                                 "/api/v1/auth/refresh",
+                                 "/api/v1/auth/logout",
+                                 "/api/v1/auth/available",
                                  "/api/v1/seller/signup", 
                                  "/api/v1/seller/login",
                                  "/api/v1/admin/login").permitAll()
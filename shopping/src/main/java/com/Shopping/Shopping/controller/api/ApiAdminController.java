@@ -1,5 +1,9 @@
 package com.Shopping.Shopping.controller.api;
 
+import com.Shopping.Shopping.dto.AdminPage;
+import com.Shopping.Shopping.dto.AdminProductView;
+import com.Shopping.Shopping.dto.AdminSellerView;
+import com.Shopping.Shopping.dto.AdminUserView;
 import com.Shopping.Shopping.dto.ApiResponse;
 import com.Shopping.Shopping.dto.ProductDTO;
 import com.Shopping.Shopping.dto.SellerDTO;
@@ -10,20 +14,30 @@ import com.Shopping.Shopping.model.User;
 import com.Shopping.Shopping.repository.ProductRepository;
 import com.Shopping.Shopping.repository.SellerRepository;
 import com.Shopping.Shopping.repository.UserRepository;
-import com.Shopping.Shopping.security.JwtTokenProvider;
+import com.Shopping.Shopping.security.RefreshTokenService;
+import com.Shopping.Shopping.service.AccountRegistrationService;
+import com.Shopping.Shopping.service.AdminListingService;
 import com.Shopping.Shopping.service.AdminDetailsService;
+import com.Shopping.Shopping.service.CatalogExportService;
+import com.Shopping.Shopping.service.MetricsService;
+import com.Shopping.Shopping.service.PricingEngine;
+import com.Shopping.Shopping.service.SalesRollupService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/v1/admin")
@@ -32,22 +46,40 @@ public class ApiAdminController {
     private final UserRepository userRepository;
     private final SellerRepository sellerRepository;
     private final ProductRepository productRepository;
-    private final JwtTokenProvider tokenProvider;
+    private final RefreshTokenService refreshTokenService;
     private final PasswordEncoder passwordEncoder;
     private final AdminDetailsService adminDetailsService;
+    private final MetricsService metricsService;
+    private final AccountRegistrationService accountRegistrationService;
+    private final PricingEngine pricingEngine;
+    private final SalesRollupService salesRollupService;
+    private final CatalogExportService catalogExportService;
+    private final AdminListingService adminListingService;
 
     public ApiAdminController(UserRepository userRepository,
                              SellerRepository sellerRepository,
                              ProductRepository productRepository,
-                             JwtTokenProvider tokenProvider,
+                             RefreshTokenService refreshTokenService,
                              PasswordEncoder passwordEncoder,
-                             AdminDetailsService adminDetailsService) {
+                             AdminDetailsService adminDetailsService,
+                             MetricsService metricsService,
+                             AccountRegistrationService accountRegistrationService,
+                             PricingEngine pricingEngine,
+                             SalesRollupService salesRollupService,
+                             CatalogExportService catalogExportService,
+                             AdminListingService adminListingService) {
         this.userRepository = userRepository;
         this.sellerRepository = sellerRepository;
         this.productRepository = productRepository;
-        this.tokenProvider = tokenProvider;
+        this.refreshTokenService = refreshTokenService;
         this.passwordEncoder = passwordEncoder;
         this.adminDetailsService = adminDetailsService;
+        this.metricsService = metricsService;
+        this.accountRegistrationService = accountRegistrationService;
+        this.pricingEngine = pricingEngine;
+        this.salesRollupService = salesRollupService;
+        this.catalogExportService = catalogExportService;
+        this.adminListingService = adminListingService;
     }
 
     @PostMapping("/login")
@@ -62,11 +94,13 @@ public class ApiAdminController {
                     .body(ApiResponse.error("Invalid username or password"));
             }
 
-            // Generate token
-            String token = tokenProvider.generateToken(userDetails);
+            // Generate short-lived access token plus refresh token
+            RefreshTokenService.TokenPair tokens = refreshTokenService.issueTokens(userDetails);
 
             Map<String, Object> response = new HashMap<>();
-            response.put("token", token);
+            response.put("token", tokens.getAccessToken());
+            response.put("refreshToken", tokens.getRefreshToken());
+            response.put("expiresIn", tokens.getExpiresIn());
             response.put("type", "Bearer");
             response.put("username", userDetails.getUsername());
             response.put("roles", userDetails.getAuthorities());
@@ -82,13 +116,21 @@ public class ApiAdminController {
     }
 
     @GetMapping("/users")
-    public ResponseEntity<ApiResponse<List<UserDTO>>> getAllUsers() {
+    public ResponseEntity<ApiResponse<AdminPage<AdminUserView>>> getAllUsers(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdTo,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + AdminListingService.DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "true") boolean count) {
         try {
-            List<User> users = userRepository.findAll();
-            List<UserDTO> userDTOs = users.stream()
-                .map(this::convertUserToDTO)
-                .collect(Collectors.toList());
-            return ResponseEntity.ok(ApiResponse.success(userDTOs));
+            return ResponseEntity.ok(ApiResponse.success(adminListingService.users(
+                username, email, createdFrom, createdTo, page, size, sort, count)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(ApiResponse.error("Failed to fetch users: " + e.getMessage()));
@@ -96,13 +138,21 @@ public class ApiAdminController {
     }
 
     @GetMapping("/sellers")
-    public ResponseEntity<ApiResponse<List<SellerDTO>>> getAllSellers() {
+    public ResponseEntity<ApiResponse<AdminPage<AdminSellerView>>> getAllSellers(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdTo,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + AdminListingService.DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "true") boolean count) {
         try {
-            List<Seller> sellers = sellerRepository.findAll();
-            List<SellerDTO> sellerDTOs = sellers.stream()
-                .map(this::convertSellerToDTO)
-                .collect(Collectors.toList());
-            return ResponseEntity.ok(ApiResponse.success(sellerDTOs));
+            return ResponseEntity.ok(ApiResponse.success(adminListingService.sellers(
+                username, email, createdFrom, createdTo, page, size, sort, count)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(ApiResponse.error("Failed to fetch sellers: " + e.getMessage()));
@@ -110,19 +160,75 @@ public class ApiAdminController {
     }
 
     @GetMapping("/products")
-    public ResponseEntity<ApiResponse<List<ProductDTO>>> getAllProducts() {
+    public ResponseEntity<ApiResponse<AdminPage<AdminProductView>>> getAllProducts(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Long sellerId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdTo,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + AdminListingService.DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "true") boolean count) {
         try {
-            List<Product> products = productRepository.findAll();
-            List<ProductDTO> productDTOs = products.stream()
-                .map(this::convertProductToDTO)
-                .collect(Collectors.toList());
-            return ResponseEntity.ok(ApiResponse.success(productDTOs));
+            return ResponseEntity.ok(ApiResponse.success(adminListingService.products(
+                name, category, sellerId, createdFrom, createdTo, page, size, sort, count)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(ApiResponse.error("Failed to fetch products: " + e.getMessage()));
         }
     }
 
+    /**
+     * Streams the whole catalog as csv, jsonl or ndjson; rows are written as they are read.
+     */
+    @GetMapping("/products/export")
+    public ResponseEntity<?> exportProducts(@RequestParam(defaultValue = "csv") String format) {
+        try {
+            CatalogExportService.Format exportFormat = CatalogExportService.Format.of(format);
+            StreamingResponseBody body = out -> catalogExportService.export(null, exportFormat, out);
+            return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=\"catalog." + exportFormat.extension() + "\"")
+                .body(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/metrics")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getMetrics() {
+        return ResponseEntity.ok(ApiResponse.success(metricsService.snapshot()));
+    }
+
+    /**
+     * Recounts the daily sales rollups of from..to (inclusive) from the orders, for backfills.
+     */
+    @PostMapping("/sales-rollups/rebuild")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> rebuildSalesRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            int orders = salesRollupService.rebuild(from, to);
+            Map<String, Object> result = new HashMap<>();
+            result.put("from", from);
+            result.put("to", to);
+            result.put("orders", orders);
+            return ResponseEntity.ok(ApiResponse.success("Sales rollups rebuilt", result));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Failed to rebuild sales rollups: " + e.getMessage()));
+        }
+    }
+
     @PutMapping("/users/{id}")
     @Transactional
     public ResponseEntity<ApiResponse<UserDTO>> updateUser(
@@ -136,6 +242,7 @@ public class ApiAdminController {
             user.setAlternateNumber(request.getAlternateNumber());
             user.setAddress(request.getAddress());
             userRepository.saveAndFlush(user);
+            accountRegistrationService.recordUser(user);
             return ResponseEntity.ok(ApiResponse.success("User updated successfully", convertUserToDTO(user)));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -157,6 +264,7 @@ public class ApiAdminController {
             seller.setBusinessEmail(request.getBusinessEmail());
             seller.setGstNumber(request.getGstNumber());
             sellerRepository.saveAndFlush(seller);
+            accountRegistrationService.recordSeller(seller);
             return ResponseEntity.ok(ApiResponse.success("Seller updated successfully", convertSellerToDTO(seller)));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -175,11 +283,15 @@ public class ApiAdminController {
             product.setName(request.getName());
             product.setDescription(request.getDescription());
             product.setPrice(request.getPrice());
+            // The legacy price maps to the selling price, which is what carts and payments charge
+            product.setSellingPrice(request.getPrice());
             product.setCategory(request.getCategory());
             if (request.getUniqueProductId() != null) {
                 product.setUniqueProductId(request.getUniqueProductId());
             }
+            product.setVersion(product.getVersion() + 1);
             productRepository.saveAndFlush(product);
+            pricingEngine.evict(id);
             return ResponseEntity.ok(ApiResponse.success("Product updated successfully", convertProductToDTO(product)));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -191,6 +303,9 @@ public class ApiAdminController {
     @Transactional
     public ResponseEntity<ApiResponse<String>> deleteUser(@PathVariable Long id) {
         try {
+            // Revoke outstanding tokens so the deletion takes effect before they expire
+            userRepository.findById(id).ifPresent(user ->
+                refreshTokenService.revokeAllTokens(user.getUsername(), "ROLE_USER"));
             userRepository.deleteById(id);
             return ResponseEntity.ok(ApiResponse.success("User deleted successfully"));
         } catch (Exception e) {
@@ -203,6 +318,9 @@ public class ApiAdminController {
     @Transactional
     public ResponseEntity<ApiResponse<String>> deleteSeller(@PathVariable Long id) {
         try {
+            // Revoke outstanding tokens so the deletion takes effect before they expire
+            sellerRepository.findById(id).ifPresent(seller ->
+                refreshTokenService.revokeAllTokens(seller.getUsername(), "ROLE_SELLER"));
             sellerRepository.deleteById(id);
             return ResponseEntity.ok(ApiResponse.success("Seller deleted successfully"));
         } catch (Exception e) {
@@ -222,6 +340,7 @@ public class ApiAdminController {
             // Delete the product - this will cascade delete related entities
             // (ProductImage, ProductSpecification, ProductVariant, ProductDocument)
             productRepository.delete(product);
+            pricingEngine.evict(id);
             
             return ResponseEntity.ok(ApiResponse.success("Product deleted successfully"));
         } catch (RuntimeException e) {
@@ -264,6 +383,7 @@ public class ApiAdminController {
     private ProductDTO convertProductToDTO(Product product) {
         ProductDTO dto = new ProductDTO();
         dto.setId(product.getId());
+        dto.setVersion(product.getVersion());
         dto.setName(product.getName());
         dto.setBrandName(product.getBrandName());
         dto.setDescription(product.getDescription());
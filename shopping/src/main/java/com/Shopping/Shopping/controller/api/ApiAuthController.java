@@ -4,12 +4,14 @@ import com.Shopping.Shopping.dto.ApiResponse;
 import com.Shopping.Shopping.dto.UserDTO;
 import com.Shopping.Shopping.model.User;
 import com.Shopping.Shopping.repository.UserRepository;
-import com.Shopping.Shopping.security.JwtTokenProvider;
+import com.Shopping.Shopping.security.RefreshTokenService;
+import com.Shopping.Shopping.service.AccountRegistrationService;
 import com.Shopping.Shopping.service.UserDetailsServiceImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -29,17 +31,20 @@ public class ApiAuthController {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
-    private final JwtTokenProvider tokenProvider;
+    private final RefreshTokenService refreshTokenService;
     private final UserDetailsServiceImpl userDetailsService;
+    private final AccountRegistrationService accountRegistrationService;
 
     public ApiAuthController(UserRepository userRepository, 
                            PasswordEncoder passwordEncoder,
-                           JwtTokenProvider tokenProvider,
-                           UserDetailsServiceImpl userDetailsService) {
+                           RefreshTokenService refreshTokenService,
+                           UserDetailsServiceImpl userDetailsService,
+                           AccountRegistrationService accountRegistrationService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
-        this.tokenProvider = tokenProvider;
+        this.refreshTokenService = refreshTokenService;
         this.userDetailsService = userDetailsService;
+        this.accountRegistrationService = accountRegistrationService;
     }
 
     @PostMapping("/signup")
@@ -56,20 +61,6 @@ public class ApiAuthController {
                     .body(ApiResponse.error("Invalid email format"));
             }
             
-            // Check if email already exists
-            Optional<User> existingUserByEmail = userRepository.findByEmail(request.getEmail());
-            if (existingUserByEmail.isPresent()) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(ApiResponse.error("Email already registered"));
-            }
-            
-            // Check if username already exists
-            Optional<User> existingUserByUsername = userRepository.findByUsername(request.getUsername());
-            if (existingUserByUsername.isPresent()) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(ApiResponse.error("Username already exists"));
-            }
-
             if (!isValidPassword(request.getPassword())) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(ApiResponse.error("Password must be at least 8 characters long and include an uppercase letter, lowercase letter, digit, and special character."));
@@ -83,7 +74,8 @@ public class ApiAuthController {
             user.setPhoneNumber(request.getPhoneNumber());
             user.setAddress(request.getAddress());
             
-            User savedUser = userRepository.saveAndFlush(user);
+            // Single INSERT; the unique constraints on username/email detect duplicates
+            User savedUser = accountRegistrationService.registerUser(user);
             logger.info("User saved successfully with ID: {}, Email: {}", savedUser.getId(), savedUser.getEmail());
             
             Map<String, Object> response = new HashMap<>();
@@ -93,12 +85,41 @@ public class ApiAuthController {
             
             return ResponseEntity.status(HttpStatus.CREATED)
                 .body(ApiResponse.success("Registration successful", response));
+        } catch (AccountRegistrationService.DuplicateAccountException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse<>(false, e.getMessage(), Map.of("field", e.getField())));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(ApiResponse.error("Registration failed: " + e.getMessage()));
         }
     }
 
+    /**
+     * Username/email availability for signup forms. Names never seen before are answered from memory.
+     */
+    @GetMapping("/available")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> checkAvailability(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String email,
+            @RequestParam(defaultValue = "user") String accountType) {
+        if (username == null && email == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error("Provide a username or email to check"));
+        }
+        boolean seller = "seller".equalsIgnoreCase(accountType);
+
+        Map<String, Object> response = new HashMap<>();
+        if (username != null) {
+            response.put("username", username);
+            response.put("usernameAvailable", accountRegistrationService.isUsernameAvailable(username, seller));
+        }
+        if (email != null) {
+            response.put("email", email);
+            response.put("emailAvailable", accountRegistrationService.isEmailAvailable(email, seller));
+        }
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
     @PostMapping("/login")
     public ResponseEntity<ApiResponse<Map<String, Object>>> login(@RequestBody LoginRequest request) {
         try {
@@ -111,14 +132,16 @@ public class ApiAuthController {
                     .body(ApiResponse.error("Invalid username or password"));
             }
 
-            // Generate token
-            String token = tokenProvider.generateToken(userDetails);
+            // Generate short-lived access token plus refresh token
+            RefreshTokenService.TokenPair tokens = refreshTokenService.issueTokens(userDetails);
 
             Optional<User> userOpt = userRepository.findByUsername(request.getUsername());
             UserDTO userDTO = userOpt.map(this::convertToDTO).orElse(null);
 
             Map<String, Object> response = new HashMap<>();
-            response.put("token", token);
+            response.put("token", tokens.getAccessToken());
+            response.put("refreshToken", tokens.getRefreshToken());
+            response.put("expiresIn", tokens.getExpiresIn());
             response.put("type", "Bearer");
             response.put("user", userDTO);
 
@@ -132,6 +155,38 @@ public class ApiAuthController {
         }
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> refresh(@RequestBody RefreshRequest request) {
+        try {
+            RefreshTokenService.TokenPair tokens = refreshTokenService.rotate(request.getRefreshToken());
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("token", tokens.getAccessToken());
+            response.put("refreshToken", tokens.getRefreshToken());
+            response.put("expiresIn", tokens.getExpiresIn());
+            response.put("type", "Bearer");
+
+            return ResponseEntity.ok(ApiResponse.success("Token refreshed", response));
+        } catch (AuthenticationException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Token refresh failed", e);
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(ApiResponse.error("Invalid or expired refresh token"));
+        }
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<ApiResponse<String>> logout(
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @RequestBody(required = false) RefreshRequest request) {
+        String accessToken = authorization != null && authorization.startsWith("Bearer ")
+            ? authorization.substring(7) : null;
+        refreshTokenService.logout(accessToken, request != null ? request.getRefreshToken() : null);
+        return ResponseEntity.ok(ApiResponse.success("Logged out successfully"));
+    }
+
     @GetMapping("/me")
     public ResponseEntity<ApiResponse<UserDTO>> getCurrentUser(@AuthenticationPrincipal UserDetails userDetails) {
         if (userDetails == null) {
@@ -183,6 +238,11 @@ public class ApiAuthController {
         private String address;
     }
 
+    @lombok.Data
+    static class RefreshRequest {
+        private String refreshToken;
+    }
+
     @lombok.Data
     static class LoginRequest {
         private String username;
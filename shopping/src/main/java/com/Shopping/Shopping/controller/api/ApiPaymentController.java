@@ -1,17 +1,21 @@
 package com.Shopping.Shopping.controller.api;
 
 import com.Shopping.Shopping.dto.ApiResponse;
-import com.Shopping.Shopping.dto.OrderDTO;
-import com.Shopping.Shopping.model.Orders;
+import com.Shopping.Shopping.dto.OrderPage;
+import com.Shopping.Shopping.dto.OrderSummaryDTO;
 import com.Shopping.Shopping.model.Product;
 import com.Shopping.Shopping.model.User;
-import com.Shopping.Shopping.repository.OrdersRepository;
 import com.Shopping.Shopping.repository.ProductRepository;
 import com.Shopping.Shopping.repository.UserRepository;
-import com.razorpay.Order;
-import com.razorpay.RazorpayClient;
-import org.json.JSONObject;
+import com.Shopping.Shopping.service.CheckoutService;
+import com.Shopping.Shopping.service.IdempotencyService;
+import com.Shopping.Shopping.service.InventoryService;
+import com.Shopping.Shopping.service.OrderHistoryService;
+import com.Shopping.Shopping.service.PaymentGateway;
+import com.Shopping.Shopping.service.PaymentSignatureVerifier;
+import com.Shopping.Shopping.service.PricingEngine;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -19,44 +23,65 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDateTime;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/v1/payment")
 public class ApiPaymentController {
 
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
     private final String razorpayKey;
-    private final String razorpaySecret;
-    private final OrdersRepository ordersRepository;
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
+    private final PricingEngine pricingEngine;
+    private final CheckoutService checkoutService;
+    private final InventoryService inventoryService;
+    private final PaymentGateway paymentGateway;
+    private final PaymentSignatureVerifier signatureVerifier;
+    private final IdempotencyService idempotencyService;
+    private final OrderHistoryService orderHistoryService;
 
     public ApiPaymentController(@Value("${razorpay.key}") String razorpayKey,
-                               @Value("${razorpay.secret}") String razorpaySecret,
-                               OrdersRepository ordersRepository,
                                UserRepository userRepository,
-                               ProductRepository productRepository) {
+                               ProductRepository productRepository,
+                               PricingEngine pricingEngine,
+                               CheckoutService checkoutService,
+                               InventoryService inventoryService,
+                               PaymentGateway paymentGateway,
+                               PaymentSignatureVerifier signatureVerifier,
+                               IdempotencyService idempotencyService,
+                               OrderHistoryService orderHistoryService) {
         this.razorpayKey = razorpayKey;
-        this.razorpaySecret = razorpaySecret;
-        this.ordersRepository = ordersRepository;
         this.userRepository = userRepository;
         this.productRepository = productRepository;
+        this.pricingEngine = pricingEngine;
+        this.checkoutService = checkoutService;
+        this.inventoryService = inventoryService;
+        this.paymentGateway = paymentGateway;
+        this.signatureVerifier = signatureVerifier;
+        this.idempotencyService = idempotencyService;
+        this.orderHistoryService = orderHistoryService;
     }
 
     @GetMapping("/buy-now/{productId}")
     public ResponseEntity<ApiResponse<BuyNowResponse>> buyNow(
             @PathVariable Long productId,
             @RequestParam(defaultValue = "1") int quantity,
+            @RequestParam(required = false) Long variantId,
             @AuthenticationPrincipal UserDetails userDetails) {
         try {
             if (userDetails == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(ApiResponse.error("Not authenticated"));
             }
+            if (quantity <= 0) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("Quantity must be positive"));
+            }
 
             Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
@@ -64,10 +89,12 @@ public class ApiPaymentController {
             User user = userRepository.findByUsername(userDetails.getUsername())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-            double amount = product.getPrice() * quantity;
+            long amountPaise = pricingEngine.priceLine(productId, variantId != null ? variantId : 0L, quantity)
+                .getTotalPaise();
             boolean needsAddress = user.getAddress() == null || user.getAddress().trim().isEmpty();
 
-            BuyNowResponse response = new BuyNowResponse(product, quantity, amount, needsAddress);
+            BuyNowResponse response = new BuyNowResponse(product, quantity,
+                PricingEngine.CartPrice.toRupees(amountPaise), amountPaise, needsAddress);
             return ResponseEntity.ok(ApiResponse.success(response));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -99,111 +126,215 @@ public class ApiPaymentController {
         }
     }
 
+    /**
+     * Creates the Razorpay order for the server-side amount: the buy-now line when {@code isBuyNow}
+     * is set, otherwise the user's cart. A client-supplied {@code amount} is ignored.
+     * Stock for the lines is reserved first (409 when it runs out) and held under the Razorpay
+     * order id until the payment succeeds, is cancelled or the reservation expires; the quote is
+     * stored next to it and is what {@code /success} orders.
+     */
     @PostMapping("/create-order")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> createOrder(@RequestBody Map<String, Object> data) {
+    public ResponseEntity<ApiResponse<Map<String, Object>>> createOrder(
+            @RequestBody Map<String, Object> data,
+            @AuthenticationPrincipal UserDetails userDetails) {
         try {
-            int amount = (int) data.get("amount");
-            RazorpayClient client = new RazorpayClient(razorpayKey, razorpaySecret);
-            JSONObject options = new JSONObject();
-            options.put("amount", amount);
-            options.put("currency", "INR");
-            options.put("receipt", "txn_" + System.currentTimeMillis());
-
-            Order order = client.orders.create(options);
+            if (userDetails == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiResponse.error("Not authenticated"));
+            }
+            CheckoutService.Quote quote = checkoutService.quote(userDetails.getUsername(), buyNowLine(data));
+            if (quote.amountPaise() <= 0) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("Nothing to pay for"));
+            }
+            User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+            // Reserve before calling Razorpay so a sold-out checkout never creates an order
+            String receipt = "txn_" + UUID.randomUUID().toString().replace("-", "");
+            inventoryService.reserve(receipt, user.getId(), quote.lines());
+            PaymentGateway.GatewayOrder order;
+            try {
+                order = paymentGateway.createOrder(quote.amountPaise(), "INR", receipt);
+                checkoutService.recordQuote(receipt, order.id(), user.getId(), quote);
+            } catch (RuntimeException e) {
+                inventoryService.release(receipt, user.getId());
+                throw e;
+            }
+
             Map<String, Object> response = new HashMap<>();
-            response.put("id", order.get("id"));
-            response.put("amount", order.get("amount"));
+            response.put("id", order.id());
+            response.put("amount", order.amountPaise());
             response.put("key", razorpayKey);
 
             return ResponseEntity.ok(ApiResponse.success(response));
+        } catch (InventoryService.OutOfStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (PaymentGateway.GatewayUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (PaymentGateway.PaymentGatewayException e) {
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(ApiResponse.error("Failed to create order: " + e.getMessage()));
         }
     }
 
+    /**
+     * Records the order quoted at create-order with its items and commits the reserved stock in one
+     * transaction - see {@link CheckoutService}. Lines in the body are ignored.
+     *
+     * The Razorpay signature must verify. Calls are idempotent per {@code Idempotency-Key} header,
+     * or per Razorpay order when it is absent: a retry returns the recorded order with
+     * {@code Idempotent-Replayed: true} instead of placing it again.
+     */
     @PostMapping("/success")
-    @Transactional
     public ResponseEntity<ApiResponse<String>> handlePaymentSuccess(
             @RequestBody Map<String, Object> data,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @AuthenticationPrincipal UserDetails userDetails) {
         try {
             if (userDetails == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(ApiResponse.error("Not authenticated"));
             }
-
-            User user = userRepository.findByUsername(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-            double amount = 500.0;
-            if (data.containsKey("isBuyNow") && Boolean.TRUE.equals(data.get("isBuyNow"))) {
-                Object productIdObj = data.get("productId");
-                Object quantityObj = data.get("quantity");
-                if (productIdObj != null && quantityObj != null) {
-                    Long productId = Long.valueOf(productIdObj.toString());
-                    Integer quantity = Integer.valueOf(quantityObj.toString());
-                    Product product = productRepository.findById(productId)
-                        .orElseThrow(() -> new RuntimeException("Product not found"));
-                    amount = product.getPrice() * quantity;
-                }
-            } else {
-                if (data.containsKey("amount")) {
-                    amount = Double.parseDouble(data.get("amount").toString()) / 100.0;
-                }
+            Object razorpayOrderId = data.get("razorpay_order_id");
+            Object razorpayPaymentId = data.get("razorpay_payment_id");
+            Object razorpaySignature = data.get("razorpay_signature");
+            if (razorpayOrderId == null || razorpayPaymentId == null || razorpaySignature == null) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("razorpay_order_id, razorpay_payment_id and razorpay_signature are required"));
+            }
+            CheckoutService.Payment payment = new CheckoutService.Payment(
+                razorpayOrderId.toString(), razorpayPaymentId.toString(), razorpaySignature.toString());
+            if (!signatureVerifier.verify(payment.razorpayOrderId(), payment.razorpayPaymentId(), payment.razorpaySignature())) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("Invalid payment signature"));
             }
+            Long userId = userRepository.findIdByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new RuntimeException("User not found"));
 
-            Orders order = new Orders();
-            order.setRazorpayPaymentId(data.get("razorpay_payment_id").toString());
-            order.setRazorpayOrderId(data.get("razorpay_order_id").toString());
-            order.setRazorpaySignature(data.get("razorpay_signature").toString());
-            order.setAmount((int)(amount * 100));
-            order.setOrderDate(LocalDateTime.now());
-            order.setUser(user);
-            order.setEmail(user.getUsername());
-
-            ordersRepository.save(order);
-            return ResponseEntity.ok(ApiResponse.success("Payment successful"));
+            String key = idempotencyKey != null ? idempotencyKey : payment.razorpayOrderId();
+            IdempotencyService.Outcome outcome = idempotencyService.execute(key, userId, () -> String.valueOf(
+                checkoutService.placeOrder(userDetails.getUsername(), payment).order().getId()));
+            return ResponseEntity.ok()
+                .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(outcome.replayed()))
+                .body(ApiResponse.success("Payment successful", outcome.result()));
+        } catch (IdempotencyService.RequestInProgressException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (DataIntegrityViolationException | CheckoutService.OrderAlreadyPlacedException e) {
+            // The Razorpay order was already recorded under another idempotency key
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error("This payment has already been recorded"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(ApiResponse.error("Failed to process payment: " + e.getMessage()));
         }
     }
 
-    @GetMapping("/orders")
-    public ResponseEntity<ApiResponse<List<OrderDTO>>> getUserOrders(
+    /**
+     * Releases the stock held for an unpaid Razorpay order, e.g. when the checkout modal is dismissed.
+     */
+    @PostMapping("/cancel")
+    public ResponseEntity<ApiResponse<Integer>> cancelOrder(
+            @RequestBody Map<String, Object> data,
             @AuthenticationPrincipal UserDetails userDetails) {
         try {
             if (userDetails == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(ApiResponse.error("Not authenticated"));
             }
-
+            Object razorpayOrderId = data.get("razorpay_order_id");
+            if (razorpayOrderId == null) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error("razorpay_order_id is required"));
+            }
             User user = userRepository.findByUsername(userDetails.getUsername())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-            List<Orders> orders = ordersRepository.findByUser(user);
-
-            List<OrderDTO> orderDTOs = orders.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+            int released = inventoryService.release(razorpayOrderId.toString(), user.getId());
+            return ResponseEntity.ok(ApiResponse.success("Reservation released", released));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Failed to cancel order: " + e.getMessage()));
+        }
+    }
 
-            return ResponseEntity.ok(ApiResponse.success(orderDTOs));
+    /**
+     * One page of the user's orders, newest first; pass {@code nextCursor} as {@code cursor} for the next.
+     * {@code /orders/page} is the same endpoint under its earlier name.
+     */
+    @GetMapping({"/orders", "/orders/page"})
+    public ResponseEntity<ApiResponse<OrderPage>> getUserOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + OrderHistoryService.DEFAULT_PAGE_SIZE) int limit,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        try {
+            if (userDetails == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiResponse.error("Not authenticated"));
+            }
+            return ResponseEntity.ok(ApiResponse.success(
+                orderHistoryService.page(requireUserId(userDetails), cursor, limit)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(ApiResponse.error("Failed to fetch orders: " + e.getMessage()));
         }
     }
 
-    private OrderDTO convertToDTO(Orders order) {
-        OrderDTO dto = new OrderDTO();
-        dto.setId(order.getId());
-        dto.setRazorpayOrderId(order.getRazorpayOrderId());
-        dto.setRazorpayPaymentId(order.getRazorpayPaymentId());
-        dto.setAmount(order.getAmount() / 100.0);
-        dto.setOrderDate(order.getOrderDate());
-        dto.setEmail(order.getEmail());
-        return dto;
+    @GetMapping("/orders/summary")
+    public ResponseEntity<ApiResponse<OrderSummaryDTO>> getUserOrderSummary(
+            @AuthenticationPrincipal UserDetails userDetails) {
+        try {
+            if (userDetails == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiResponse.error("Not authenticated"));
+            }
+            return ResponseEntity.ok(ApiResponse.success(orderHistoryService.summary(requireUserId(userDetails))));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Failed to fetch order summary: " + e.getMessage()));
+        }
+    }
+
+    private Long requireUserId(UserDetails userDetails) {
+        return userRepository.findIdByUsername(userDetails.getUsername())
+            .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+
+    /**
+     * The buy-now line of a create-order body ({@code isBuyNow}, {@code productId},
+     * {@code quantity}, optional {@code variantId}), or null when the cart is being bought.
+     */
+    private static InventoryService.StockLine buyNowLine(Map<String, Object> data) {
+        if (!Boolean.TRUE.equals(data.get("isBuyNow"))) {
+            return null;
+        }
+        Object productId = data.get("productId");
+        Object quantity = data.get("quantity");
+        if (productId == null || quantity == null) {
+            throw new IllegalArgumentException("Buy now needs productId and quantity");
+        }
+        int parsedQuantity = Integer.parseInt(quantity.toString());
+        if (parsedQuantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        Object variantId = data.get("variantId");
+        return new InventoryService.StockLine(Long.parseLong(productId.toString()),
+            variantId != null ? Long.parseLong(variantId.toString()) : 0L, parsedQuantity);
     }
 
     @lombok.Data
@@ -212,6 +343,7 @@ public class ApiPaymentController {
         private Product product;
         private int quantity;
         private double amount;
+        private long amountPaise;
         private boolean needsAddress;
     }
 }
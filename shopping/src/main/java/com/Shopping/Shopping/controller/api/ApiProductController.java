@@ -81,6 +81,7 @@ public class ApiProductController {
     private ProductDTO convertToDTO(Product product) {
         ProductDTO dto = new ProductDTO();
         dto.setId(product.getId());
+        dto.setVersion(product.getVersion());
         dto.setName(product.getName());
         dto.setBrandName(product.getBrandName());
         dto.setCategory(product.getCategory());
@@ -1,19 +1,33 @@
 package com.Shopping.Shopping.controller.api;
 
 import com.Shopping.Shopping.dto.ApiResponse;
+import com.Shopping.Shopping.dto.ProductImageView;
 import com.Shopping.Shopping.dto.ProductDTO;
+import com.Shopping.Shopping.dto.ProductImportJobDTO;
+import com.Shopping.Shopping.dto.ProductSalesDTO;
 import com.Shopping.Shopping.dto.SellerDTO;
+import com.Shopping.Shopping.dto.SellerSalesDTO;
 import com.Shopping.Shopping.model.Product;
 import com.Shopping.Shopping.model.Seller;
 import com.Shopping.Shopping.repository.ProductImageRepository;
 import com.Shopping.Shopping.repository.ProductRepository;
 import com.Shopping.Shopping.repository.SellerRepository;
-import com.Shopping.Shopping.security.JwtTokenProvider;
+import com.Shopping.Shopping.security.RefreshTokenService;
+import com.Shopping.Shopping.service.AccountRegistrationService;
+import com.Shopping.Shopping.service.CatalogExportService;
+import com.Shopping.Shopping.service.PricingEngine;
+import com.Shopping.Shopping.service.ProductImportService;
 import com.Shopping.Shopping.service.ProductService;
+import com.Shopping.Shopping.service.ProductUpdateService;
+import com.Shopping.Shopping.service.SalesRollupService;
 import com.Shopping.Shopping.service.SellerDetailsService;
+import com.Shopping.Shopping.service.UploadIngestService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -22,17 +36,23 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -46,24 +66,45 @@ public class ApiSellerController {
     private final ProductRepository productRepository;
     private final ProductService productService;
     private final PasswordEncoder passwordEncoder;
-    private final JwtTokenProvider tokenProvider;
+    private final RefreshTokenService refreshTokenService;
     private final SellerDetailsService sellerDetailsService;
     private final ProductImageRepository productImageRepository;
+    private final AccountRegistrationService accountRegistrationService;
+    private final PricingEngine pricingEngine;
+    private final SalesRollupService salesRollupService;
+    private final ProductImportService productImportService;
+    private final CatalogExportService catalogExportService;
+    private final ProductUpdateService productUpdateService;
+    private final UploadIngestService uploadIngestService;
 
     public ApiSellerController(SellerRepository sellerRepository,
                                ProductRepository productRepository,
                                ProductService productService,
                                PasswordEncoder passwordEncoder,
-                               JwtTokenProvider tokenProvider,
+                               RefreshTokenService refreshTokenService,
                                SellerDetailsService sellerDetailsService,
-                               ProductImageRepository productImageRepository) {
+                               ProductImageRepository productImageRepository,
+                               AccountRegistrationService accountRegistrationService,
+                               PricingEngine pricingEngine,
+                               SalesRollupService salesRollupService,
+                               ProductImportService productImportService,
+                               CatalogExportService catalogExportService,
+                               ProductUpdateService productUpdateService,
+                               UploadIngestService uploadIngestService) {
         this.sellerRepository = sellerRepository;
         this.productRepository = productRepository;
         this.productService = productService;
         this.passwordEncoder = passwordEncoder;
-        this.tokenProvider = tokenProvider;
+        this.refreshTokenService = refreshTokenService;
         this.sellerDetailsService = sellerDetailsService;
         this.productImageRepository = productImageRepository;
+        this.accountRegistrationService = accountRegistrationService;
+        this.pricingEngine = pricingEngine;
+        this.salesRollupService = salesRollupService;
+        this.productImportService = productImportService;
+        this.catalogExportService = catalogExportService;
+        this.productUpdateService = productUpdateService;
+        this.uploadIngestService = uploadIngestService;
     }
 
     @PostMapping("/login")
@@ -78,14 +119,16 @@ public class ApiSellerController {
                     .body(ApiResponse.error("Invalid username or password"));
             }
 
-            // Generate token
-            String token = tokenProvider.generateToken(userDetails);
+            // Generate short-lived access token plus refresh token
+            RefreshTokenService.TokenPair tokens = refreshTokenService.issueTokens(userDetails);
 
             Optional<Seller> sellerOpt = sellerRepository.findByUsername(request.getUsername());
             SellerDTO sellerDTO = sellerOpt.map(this::convertToDTO).orElse(null);
 
             Map<String, Object> response = new HashMap<>();
-            response.put("token", token);
+            response.put("token", tokens.getAccessToken());
+            response.put("refreshToken", tokens.getRefreshToken());
+            response.put("expiresIn", tokens.getExpiresIn());
             response.put("type", "Bearer");
             response.put("seller", sellerDTO);
 
@@ -124,20 +167,6 @@ public class ApiSellerController {
                     .body(ApiResponse.error("Invalid email format"));
             }
 
-            // Check if email already exists
-            Optional<Seller> existingSellerByEmail = sellerRepository.findByEmail(request.getEmail());
-            if (existingSellerByEmail.isPresent()) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(ApiResponse.error("Email already registered"));
-            }
-
-            // Check if username already exists
-            Optional<Seller> existingSellerByUsername = sellerRepository.findByUsername(request.getUsername());
-            if (existingSellerByUsername.isPresent()) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(ApiResponse.error("Username already exists"));
-            }
-
             if (!isValidPassword(request.getPassword())) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(ApiResponse.error("Password must be at least 8 characters long and include an uppercase letter, lowercase letter, digit, and special character."));
@@ -183,7 +212,8 @@ public class ApiSellerController {
                 }
             }
 
-            Seller savedSeller = sellerRepository.saveAndFlush(seller);
+            // Single INSERT; the unique constraints on username/email detect duplicates
+            Seller savedSeller = accountRegistrationService.registerSeller(seller);
             
             Map<String, Object> response = new HashMap<>();
             response.put("sellerId", savedSeller.getId());
@@ -192,6 +222,9 @@ public class ApiSellerController {
             
             return ResponseEntity.status(HttpStatus.CREATED)
                 .body(ApiResponse.success("Registration successful", response));
+        } catch (AccountRegistrationService.DuplicateAccountException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse<>(false, e.getMessage(), Map.of("field", e.getField())));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(ApiResponse.error("Registration failed: " + e.getMessage()));
@@ -231,12 +264,17 @@ public class ApiSellerController {
             seller.setBusinessEmail(request.getBusinessEmail());
             seller.setGstNumber(request.getGstNumber());
 
+            Seller updatedSeller = sellerRepository.saveAndFlush(seller);
+            SellerDTO dto = convertToDTO(updatedSeller);
+
+            // Streamed from disk after the other fields, which the flush above wrote without the photo
             if (request.getPhoto() != null && !request.getPhoto().isEmpty()) {
-                seller.setPhoto(request.getPhoto().getBytes());
+                try (UploadIngestService.SpooledUpload photo = uploadIngestService.spool(request.getPhoto())) {
+                    uploadIngestService.updateSellerPhoto(updatedSeller.getId(), photo);
+                    dto.setPhotoBase64(photo.toBase64());
+                }
             }
-
-            Seller updatedSeller = sellerRepository.saveAndFlush(seller);
-            return ResponseEntity.ok(ApiResponse.success("Profile updated successfully", convertToDTO(updatedSeller)));
+            return ResponseEntity.ok(ApiResponse.success("Profile updated successfully", dto));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(ApiResponse.error("Failed to update profile: " + e.getMessage()));
@@ -254,6 +292,60 @@ public class ApiSellerController {
         }
     }
 
+    /**
+     * The seller's daily units, revenue and orders over from..to (inclusive), by default the last
+     * {@value SalesRollupService#DEFAULT_RANGE_DAYS} days. Read from the daily rollups.
+     */
+    @GetMapping("/dashboard/sales")
+    public ResponseEntity<ApiResponse<SellerSalesDTO>> getDashboardSales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        try {
+            if (userDetails == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiResponse.error("Not authenticated"));
+            }
+            LocalDate end = to != null ? to : LocalDate.now();
+            LocalDate start = from != null ? from : end.minusDays(SalesRollupService.DEFAULT_RANGE_DAYS - 1);
+            return ResponseEntity.ok(ApiResponse.success(
+                salesRollupService.sellerSales(requireSellerId(userDetails), start, end)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Failed to fetch sales: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * The seller's best-selling products by revenue over from..to, as for {@code /dashboard/sales}.
+     */
+    @GetMapping("/dashboard/top-products")
+    public ResponseEntity<ApiResponse<List<ProductSalesDTO>>> getDashboardTopProducts(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "" + SalesRollupService.DEFAULT_TOP_PRODUCTS) int limit,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        try {
+            if (userDetails == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiResponse.error("Not authenticated"));
+            }
+            LocalDate end = to != null ? to : LocalDate.now();
+            LocalDate start = from != null ? from : end.minusDays(SalesRollupService.DEFAULT_RANGE_DAYS - 1);
+            return ResponseEntity.ok(ApiResponse.success(
+                salesRollupService.topProducts(requireSellerId(userDetails), start, end, limit)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Failed to fetch top products: " + e.getMessage()));
+        }
+    }
+
     @PostMapping("/products")
     @Transactional
     public ResponseEntity<ApiResponse<ProductDTO>> uploadProduct(
@@ -327,6 +419,7 @@ public class ApiSellerController {
             product.setSpecifications(request.getSpecifications());
 
             // Save product first
+            product.setVersion(product.getVersion() + 1);
             Product savedProduct = productRepository.save(product);
 
             // Handle multiple images
@@ -378,12 +471,10 @@ public class ApiSellerController {
             // Flush to ensure all changes are committed to database
             productRepository.flush();
             
-            // Reload product with images - explicitly fetch images
-            Product productWithImages = productService.getProductById(savedProduct.getId());
-            
-            // Explicitly load images from repository to ensure they're available for DTO conversion
-            List<com.Shopping.Shopping.model.ProductImage> images = 
-                productImageRepository.findByProductOrderByDisplayOrderAsc(savedProduct);
+            // Reload product; images are read without their data, which the DTO only links to
+            Product productWithImages = productRepository.findById(savedProduct.getId()).orElseThrow();
+            List<com.Shopping.Shopping.model.ProductImage> images =
+                imageRefs(productImageRepository.findViewsByProductId(savedProduct.getId()));
             
             if (!images.isEmpty()) {
                 logger.info("Loaded {} images for product ID: {}", images.size(), savedProduct.getId());
@@ -406,6 +497,84 @@ public class ApiSellerController {
         }
     }
 
+    /**
+     * Starts a bulk import of a CSV or JSONL file of products; poll the returned job for progress
+     * and per-row errors.
+     */
+    @PostMapping("/products/import")
+    public ResponseEntity<ApiResponse<ProductImportJobDTO>> importProducts(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String format,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        try {
+            if (userDetails == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiResponse.error("Not authenticated"));
+            }
+            ProductImportJobDTO job = productImportService.start(requireSellerId(userDetails), file, format);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("Import started", job));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (ProductImportService.ImportRejectedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Failed to start product import", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Failed to start import: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/products/import/{jobId}")
+    public ResponseEntity<ApiResponse<ProductImportJobDTO>> getImportJob(
+            @PathVariable String jobId,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        try {
+            if (userDetails == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiResponse.error("Not authenticated"));
+            }
+            return productImportService.job(jobId, requireSellerId(userDetails))
+                .map(job -> ResponseEntity.ok(ApiResponse.success(job)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("Import job not found")));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Failed to fetch import job: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Streams the seller's products as csv, jsonl or ndjson; rows are written as they are read.
+     */
+    @GetMapping("/products/export")
+    public ResponseEntity<?> exportProducts(
+            @RequestParam(defaultValue = "csv") String format,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        try {
+            if (userDetails == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiResponse.error("Not authenticated"));
+            }
+            CatalogExportService.Format exportFormat = CatalogExportService.Format.of(format);
+            Long sellerId = requireSellerId(userDetails);
+            StreamingResponseBody body = out -> catalogExportService.export(sellerId, exportFormat, out);
+            return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=\"products." + exportFormat.extension() + "\"")
+                .body(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Failed to export products: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/products")
     public ResponseEntity<ApiResponse<List<ProductDTO>>> getMyProducts(
             @AuthenticationPrincipal UserDetails userDetails) {
@@ -455,131 +624,70 @@ public class ApiSellerController {
                     .body(ApiResponse.error("You don't have permission to update this product"));
             }
 
+            // Update the fields that were sent, noting whether any of them differs from what is stored
+            boolean changed = false;
+
             // Update basic product details
-            if (request.getProductName() != null) {
-                product.setName(request.getProductName());
-            }
-            if (request.getBrandName() != null) {
-                product.setBrandName(request.getBrandName());
-            }
-            if (request.getProductCategory() != null) {
-                product.setCategory(request.getProductCategory());
-            }
-            if (request.getSubCategory() != null) {
-                product.setSubCategory(request.getSubCategory());
-            }
-            if (request.getProductDescription() != null) {
-                product.setDescription(request.getProductDescription());
-            }
-            if (request.getLongDescription() != null) {
-                product.setLongDescription(request.getLongDescription());
-            }
-            if (request.getKeyFeatures() != null) {
-                product.setKeyFeatures(request.getKeyFeatures());
-            }
+            changed |= update(request.getProductName(), product::getName, product::setName);
+            changed |= update(request.getBrandName(), product::getBrandName, product::setBrandName);
+            changed |= update(request.getProductCategory(), product::getCategory, product::setCategory);
+            changed |= update(request.getSubCategory(), product::getSubCategory, product::setSubCategory);
+            changed |= update(request.getProductDescription(), product::getDescription, product::setDescription);
+            changed |= update(request.getLongDescription(), product::getLongDescription, product::setLongDescription);
+            changed |= update(request.getKeyFeatures(), product::getKeyFeatures, product::setKeyFeatures);
 
             // Update pricing
-            if (request.getMrp() != null) {
-                product.setMrp(request.getMrp());
-            }
-            if (request.getSellingPrice() != null) {
-                product.setSellingPrice(request.getSellingPrice());
-                product.setPrice(request.getSellingPrice());
-            } else if (request.getProductPrice() != 0) {
-                product.setSellingPrice(request.getProductPrice());
-                product.setPrice(request.getProductPrice());
-            }
-            if (request.getDiscountPercent() != null) {
-                product.setDiscountPercent(request.getDiscountPercent());
-            }
-            if (request.getGstIncluded() != null) {
-                product.setGstIncluded(request.getGstIncluded());
-            }
-            if (request.getMinimumOrderQuantity() != null) {
-                product.setMinimumOrderQuantity(request.getMinimumOrderQuantity());
-            }
+            changed |= update(request.getMrp(), product::getMrp, product::setMrp);
+            Double sellingPrice = request.getSellingPrice() != null ? request.getSellingPrice()
+                : request.getProductPrice() != 0 ? Double.valueOf(request.getProductPrice()) : null;
+            changed |= update(sellingPrice, product::getSellingPrice, product::setSellingPrice);
+            changed |= update(sellingPrice, product::getPrice, product::setPrice);
+            changed |= update(request.getDiscountPercent(), product::getDiscountPercent, product::setDiscountPercent);
+            changed |= update(request.getGstIncluded(), product::getGstIncluded, product::setGstIncluded);
+            changed |= update(request.getMinimumOrderQuantity(), product::getMinimumOrderQuantity, product::setMinimumOrderQuantity);
 
             // Update inventory
-            if (request.getAvailableQuantity() != null) {
-                product.setAvailableQuantity(request.getAvailableQuantity());
-            }
-            if (request.getSkuId() != null) {
-                product.setSkuId(request.getSkuId());
-            }
-            if (request.getStockAvailability() != null) {
-                product.setStockAvailability(request.getStockAvailability());
-            }
+            changed |= update(request.getAvailableQuantity(), product::getAvailableQuantity, product::setAvailableQuantity);
+            changed |= update(request.getSkuId(), product::getSkuId, product::setSkuId);
+            changed |= update(request.getStockAvailability(), product::getStockAvailability, product::setStockAvailability);
 
             // Update shipping
-            if (request.getPackageWeight() != null) {
-                product.setPackageWeight(request.getPackageWeight());
-            }
-            if (request.getPackageLength() != null) {
-                product.setPackageLength(request.getPackageLength());
-            }
-            if (request.getPackageWidth() != null) {
-                product.setPackageWidth(request.getPackageWidth());
-            }
-            if (request.getPackageHeight() != null) {
-                product.setPackageHeight(request.getPackageHeight());
-            }
-            if (request.getPickupAddress() != null) {
-                product.setPickupAddress(request.getPickupAddress());
-            }
-            if (request.getDeliveryMethod() != null) {
-                product.setDeliveryMethod(request.getDeliveryMethod());
-            }
+            changed |= update(request.getPackageWeight(), product::getPackageWeight, product::setPackageWeight);
+            changed |= update(request.getPackageLength(), product::getPackageLength, product::setPackageLength);
+            changed |= update(request.getPackageWidth(), product::getPackageWidth, product::setPackageWidth);
+            changed |= update(request.getPackageHeight(), product::getPackageHeight, product::setPackageHeight);
+            changed |= update(request.getPickupAddress(), product::getPickupAddress, product::setPickupAddress);
+            changed |= update(request.getDeliveryMethod(), product::getDeliveryMethod, product::setDeliveryMethod);
 
             // Update tax & compliance
-            if (request.getGstNumber() != null) {
-                product.setGstNumber(request.getGstNumber());
-            }
-            if (request.getHsnCode() != null) {
-                product.setHsnCode(request.getHsnCode());
-            }
-            if (request.getInvoiceRequired() != null) {
-                product.setInvoiceRequired(request.getInvoiceRequired());
-            }
+            changed |= update(request.getGstNumber(), product::getGstNumber, product::setGstNumber);
+            changed |= update(request.getHsnCode(), product::getHsnCode, product::setHsnCode);
+            changed |= update(request.getInvoiceRequired(), product::getInvoiceRequired, product::setInvoiceRequired);
 
             // Update legal & brand info
-            if (request.getBrandAuthorized() != null) {
-                product.setBrandAuthorized(request.getBrandAuthorized());
-            }
-            if (request.getTrademarkVerified() != null) {
-                product.setTrademarkVerified(request.getTrademarkVerified());
-            }
-            if (request.getComplianceCertificates() != null) {
-                product.setComplianceCertificates(request.getComplianceCertificates());
-            }
+            changed |= update(request.getBrandAuthorized(), product::getBrandAuthorized, product::setBrandAuthorized);
+            changed |= update(request.getTrademarkVerified(), product::getTrademarkVerified, product::setTrademarkVerified);
+            changed |= update(request.getComplianceCertificates(), product::getComplianceCertificates, product::setComplianceCertificates);
 
             // Update seller preferences
-            if (request.getReturnPolicy() != null) {
-                product.setReturnPolicy(request.getReturnPolicy());
-            }
-            if (request.getReplacementAvailable() != null) {
-                product.setReplacementAvailable(request.getReplacementAvailable());
-            }
-            if (request.getWarrantyDetails() != null) {
-                product.setWarrantyDetails(request.getWarrantyDetails());
-            }
+            changed |= update(request.getReturnPolicy(), product::getReturnPolicy, product::setReturnPolicy);
+            changed |= update(request.getReplacementAvailable(), product::getReplacementAvailable, product::setReplacementAvailable);
+            changed |= update(request.getWarrantyDetails(), product::getWarrantyDetails, product::setWarrantyDetails);
 
             // Update unique product ID if provided
             if (request.getUniqueProductId() != null && !request.getUniqueProductId().trim().isEmpty()) {
-                product.setUniqueProductId(request.getUniqueProductId());
+                changed |= update(request.getUniqueProductId(), product::getUniqueProductId, product::setUniqueProductId);
             }
 
-            // Update specifications if provided
-            if (request.getSpecifications() != null) {
-                product.setSpecifications(request.getSpecifications());
+            // A blank specifications field clears the JSON copy; others are diffed against the rows below
+            if (request.getSpecifications() != null && request.getSpecifications().trim().isEmpty()) {
+                changed |= update(request.getSpecifications(), product::getSpecifications, product::setSpecifications);
             }
 
-            // Save product first
-            Product savedProduct = productRepository.save(product);
-
             // Handle images - delete existing and add new ones if provided
             if (request.getProductImages() != null && !request.getProductImages().isEmpty()) {
                 // Delete existing images
-                productService.deleteProductImages(savedProduct);
+                productService.deleteProductImages(product);
                 
                 // Parse image types
                 List<String> imageTypes = new ArrayList<>();
@@ -594,33 +702,29 @@ public class ApiSellerController {
                 }
                 
                 // Save new images
-                productService.saveProductImages(savedProduct, request.getProductImages(), imageTypes);
+                productService.saveProductImages(product, request.getProductImages(), imageTypes);
+                changed = true;
             } else if (request.getProductImage() != null && !request.getProductImage().isEmpty()) {
                 // Legacy: single image - delete existing and save new
-                productService.deleteProductImages(savedProduct);
-                productService.saveProduct(savedProduct, request.getProductImage());
+                productService.deleteProductImages(product);
+                productService.saveProduct(product, request.getProductImage());
+                changed = true;
             }
 
-            // Update specifications (separate table)
+            // Update specifications (separate table), keeping the rows of unchanged keys
             if (request.getSpecifications() != null && !request.getSpecifications().trim().isEmpty()) {
-                // Delete existing specifications
-                productService.deleteProductSpecifications(savedProduct);
-                // Save new specifications
-                productService.saveProductSpecifications(savedProduct, request.getSpecifications());
+                changed |= !productUpdateService.replaceSpecifications(product, request.getSpecifications()).isEmpty();
             }
 
-            // Update variants
+            // Update variants, keeping the ids of variants that stay
             if (request.getVariants() != null && !request.getVariants().trim().isEmpty()) {
-                // Delete existing variants
-                productService.deleteProductVariants(savedProduct);
-                // Save new variants
-                productService.saveProductVariants(savedProduct, request.getVariants());
+                changed |= !productUpdateService.replaceVariants(product, request.getVariants()).isEmpty();
             }
 
             // Update documents
             if (request.getDocuments() != null && !request.getDocuments().isEmpty()) {
                 // Delete existing documents
-                productService.deleteProductDocuments(savedProduct);
+                productService.deleteProductDocuments(product);
                 
                 List<String> docTypes = new ArrayList<>();
                 if (request.getDocumentTypes() != null && !request.getDocumentTypes().trim().isEmpty()) {
@@ -633,16 +737,22 @@ public class ApiSellerController {
                     }
                 }
                 // Save new documents
-                productService.saveProductDocuments(savedProduct, request.getDocuments(), docTypes);
+                productService.saveProductDocuments(product, request.getDocuments(), docTypes);
+                changed = true;
             }
 
-            // Flush to ensure all changes are committed
-            productRepository.flush();
+            // Save and bump the version only when something differs; a repeated PUT writes nothing
+            if (changed) {
+                product.setVersion(product.getVersion() + 1);
+                productRepository.save(product);
+                pricingEngine.evict(product.getId());
+                productRepository.flush();
+            }
 
-            // Reload product with images
-            Product productWithImages = productService.getProductById(savedProduct.getId());
-            List<com.Shopping.Shopping.model.ProductImage> images = 
-                productImageRepository.findByProductOrderByDisplayOrderAsc(savedProduct);
+            // Reload product; images are read without their data, which the DTO only links to
+            Product productWithImages = productRepository.findById(product.getId()).orElseThrow();
+            List<com.Shopping.Shopping.model.ProductImage> images =
+                imageRefs(productImageRepository.findViewsByProductId(product.getId()));
 
             return ResponseEntity.ok(ApiResponse.success("Product updated successfully", 
                 convertProductToDTO(productWithImages, images)));
@@ -660,6 +770,49 @@ public class ApiSellerController {
         }
     }
 
+    /**
+     * JSON merge patch of a product; see {@link ProductUpdateService#apply}. Child rows that do not
+     * change keep their ids, and the ETag is the product version.
+     */
+    @PatchMapping(value = "/products/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<ApiResponse<ProductDTO>> patchProduct(
+            @PathVariable Long id,
+            @RequestBody JsonNode patch,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        try {
+            if (userDetails == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiResponse.error("Not authenticated"));
+            }
+
+            Long sellerId = requireSellerId(userDetails);
+            Product product = productRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+            if (product.getSeller() == null || !product.getSeller().getId().equals(sellerId)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(ApiResponse.error("You don't have permission to update this product"));
+            }
+
+            ProductUpdateService.Changes changes = productUpdateService.apply(id, patch);
+
+            Product updated = productRepository.findById(id).orElseThrow();
+            ProductDTO dto = convertProductToDTO(updated, imageRefs(productImageRepository.findViewsByProductId(id)));
+            return ResponseEntity.ok()
+                .eTag("\"" + updated.getVersion() + "\"")
+                .body(ApiResponse.success(changes.isEmpty() ? "Product unchanged" : "Product updated successfully", dto));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } catch (RuntimeException e) {
+            if (e.getMessage() != null && e.getMessage().contains("not found")) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error(e.getMessage()));
+            }
+            logger.error("Failed to patch product", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Failed to update product: " + e.getMessage()));
+        }
+    }
+
     @DeleteMapping("/products/{id}")
     @Transactional
     public ResponseEntity<ApiResponse<String>> deleteProduct(
@@ -687,6 +840,7 @@ public class ApiSellerController {
             // Delete the product - this will cascade delete related entities
             // (ProductImage, ProductSpecification, ProductVariant, ProductDocument)
             productRepository.delete(product);
+            pricingEngine.evict(id);
 
             return ResponseEntity.ok(ApiResponse.success("Product deleted successfully"));
         } catch (RuntimeException e) {
@@ -744,6 +898,7 @@ public class ApiSellerController {
     private ProductDTO convertProductToDTO(Product product, List<com.Shopping.Shopping.model.ProductImage> imagesParam) {
         ProductDTO dto = new ProductDTO();
         dto.setId(product.getId());
+        dto.setVersion(product.getVersion());
         dto.setName(product.getName());
         dto.setBrandName(product.getBrandName());
         dto.setCategory(product.getCategory());
@@ -855,6 +1010,34 @@ public class ApiSellerController {
         return dto;
     }
 
+    /**
+     * Image rows without their data, enough for building image URLs.
+     */
+    private static List<com.Shopping.Shopping.model.ProductImage> imageRefs(List<ProductImageView> views) {
+        List<com.Shopping.Shopping.model.ProductImage> images = new ArrayList<>(views.size());
+        for (ProductImageView view : views) {
+            com.Shopping.Shopping.model.ProductImage image = new com.Shopping.Shopping.model.ProductImage();
+            image.setId(view.getId());
+            image.setDisplayOrder(view.getDisplayOrder());
+            image.setIsPrimary(view.getIsPrimary());
+            images.add(image);
+        }
+        return images;
+    }
+
+    /**
+     * Sets a form field that was sent (non-null) and differs from the stored value.
+     *
+     * @return whether the product changed
+     */
+    private static <T> boolean update(T value, Supplier<T> current, Consumer<T> setter) {
+        if (value == null || Objects.equals(current.get(), value)) {
+            return false;
+        }
+        setter.accept(value);
+        return true;
+    }
+
     private boolean isValidPassword(String password) {
         if (password == null || password.trim().isEmpty()) {
             return false;
@@ -866,6 +1049,11 @@ public class ApiSellerController {
             password.matches(".*[!@#$%^&*()_+=<>?].*");
     }
 
+    private Long requireSellerId(UserDetails userDetails) {
+        return sellerRepository.findIdByUsername(userDetails.getUsername())
+            .orElseThrow(() -> new RuntimeException("Seller not found"));
+    }
+
     @lombok.Data
     static class SellerSignupRequest {
         private String username;
@@ -7,6 +7,7 @@ import com.Shopping.Shopping.model.Product;
 import com.Shopping.Shopping.model.User;
 import com.Shopping.Shopping.repository.UserRepository;
 import com.Shopping.Shopping.service.ProductService;
+import com.Shopping.Shopping.service.UploadIngestService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -32,10 +33,13 @@ public class ApiUserController {
 
     private final UserRepository userRepository;
     private final ProductService productService;
+    private final UploadIngestService uploadIngestService;
 
-    public ApiUserController(UserRepository userRepository, ProductService productService) {
+    public ApiUserController(UserRepository userRepository, ProductService productService,
+                             UploadIngestService uploadIngestService) {
         this.userRepository = userRepository;
         this.productService = productService;
+        this.uploadIngestService = uploadIngestService;
     }
 
     @GetMapping("/profile")
@@ -74,8 +78,9 @@ public class ApiUserController {
             user.setAlternateNumber(request.getAlternateNumber());
             user.setAddress(request.getAddress());
 
-            // Handle photo upload with validation
-            if (request.getPhoto() != null && !request.getPhoto().isEmpty()) {
+            // Validate the photo up front; it is streamed from disk once the other fields are saved
+            boolean hasPhoto = request.getPhoto() != null && !request.getPhoto().isEmpty();
+            if (hasPhoto) {
                 logger.info("Processing profile photo - Name: {}, Size: {} bytes, Content Type: {}", 
                     request.getPhoto().getOriginalFilename(), 
                     request.getPhoto().getSize(), 
@@ -83,23 +88,25 @@ public class ApiUserController {
                 
                 // Validate photo file
                 validatePhotoFile(request.getPhoto());
-                
-                try {
-                    byte[] photoBytes = request.getPhoto().getBytes();
-                    user.setPhoto(photoBytes);
-                    logger.info("Profile photo processed successfully ({} bytes)", photoBytes.length);
-                } catch (IOException e) {
-                    logger.error("Failed to read photo file bytes: {}", e.getMessage(), e);
-                    return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body(ApiResponse.error("Failed to process photo file: " + e.getMessage()));
-                }
             } else {
                 logger.info("No photo provided in update request");
             }
 
             User updatedUser = userRepository.saveAndFlush(user);
+            UserDTO dto = convertToDTO(updatedUser);
+            if (hasPhoto) {
+                try (UploadIngestService.SpooledUpload photo = uploadIngestService.spool(request.getPhoto())) {
+                    uploadIngestService.updateUserPhoto(updatedUser.getId(), photo);
+                    dto.setPhotoBase64(photo.toBase64());
+                    logger.info("Profile photo processed successfully ({} bytes)", photo.getSize());
+                } catch (IOException e) {
+                    logger.error("Failed to read photo file: {}", e.getMessage(), e);
+                    return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(ApiResponse.error("Failed to process photo file: " + e.getMessage()));
+                }
+            }
             logger.info("Profile updated successfully for user: {}", userDetails.getUsername());
-            return ResponseEntity.ok(ApiResponse.success("Profile updated successfully", convertToDTO(updatedUser)));
+            return ResponseEntity.ok(ApiResponse.success("Profile updated successfully", dto));
         } catch (IllegalArgumentException e) {
             // Validation errors (invalid format, size, etc.) return 400 Bad Request
             logger.warn("Profile update validation failed: {}", e.getMessage());
@@ -194,6 +201,7 @@ public class ApiUserController {
     private ProductDTO convertProductToDTO(Product product) {
         ProductDTO dto = new ProductDTO();
         dto.setId(product.getId());
+        dto.setVersion(product.getVersion());
         dto.setName(product.getName());
         dto.setBrandName(product.getBrandName());
         dto.setDescription(product.getDescription());
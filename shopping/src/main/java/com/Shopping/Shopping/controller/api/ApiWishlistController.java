@@ -7,31 +7,31 @@ import com.Shopping.Shopping.model.User;
 import com.Shopping.Shopping.model.Product;
 import com.Shopping.Shopping.repository.WishlistRepository;
 import com.Shopping.Shopping.repository.UserRepository;
-import com.Shopping.Shopping.service.ProductService;
+import com.Shopping.Shopping.service.WishlistService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/v1/wishlist")
 public class ApiWishlistController {
 
-    private final ProductService productService;
     private final WishlistRepository wishlistRepository;
     private final UserRepository userRepository;
+    private final WishlistService wishlistService;
 
-    public ApiWishlistController(ProductService productService,
-                                WishlistRepository wishlistRepository,
-                                UserRepository userRepository) {
-        this.productService = productService;
+    public ApiWishlistController(WishlistRepository wishlistRepository,
+                                UserRepository userRepository,
+                                WishlistService wishlistService) {
         this.wishlistRepository = wishlistRepository;
         this.userRepository = userRepository;
+        this.wishlistService = wishlistService;
     }
 
     private User getCurrentUser(Authentication authentication) {
@@ -69,24 +69,17 @@ public class ApiWishlistController {
             @PathVariable Long productId,
             Authentication authentication) {
         try {
-            User user = getCurrentUser(authentication);
-            Product product = productService.getProductById(productId);
-            
-            if (product == null) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body(ApiResponse.error("Product not found"));
+            String username = ((UserDetails) authentication.getPrincipal()).getUsername();
+            switch (wishlistService.add(username, productId)) {
+                case PRODUCT_NOT_FOUND:
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("Product not found"));
+                case ALREADY_PRESENT:
+                    return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(ApiResponse.error("Product already in wishlist"));
+                default:
+                    return ResponseEntity.ok(ApiResponse.success("Item added to wishlist"));
             }
-
-            // Check if already in wishlist
-            if (wishlistRepository.existsByUserAndProductId(user, productId)) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(ApiResponse.error("Product already in wishlist"));
-            }
-
-            Wishlist wishlist = new Wishlist(user, product);
-            wishlistRepository.save(wishlist);
-
-            return ResponseEntity.ok(ApiResponse.success("Item added to wishlist"));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(ApiResponse.error("Failed to add item: " + e.getMessage()));
@@ -95,13 +88,12 @@ public class ApiWishlistController {
 
     // DELETE /api/v1/wishlist/remove/{productId} - Remove from wishlist
     @DeleteMapping("/remove/{productId}")
-    @Transactional
     public ResponseEntity<ApiResponse<String>> removeFromWishlist(
             @PathVariable Long productId,
             Authentication authentication) {
         try {
-            User user = getCurrentUser(authentication);
-            wishlistRepository.deleteByUserAndProductId(user, productId);
+            String username = ((UserDetails) authentication.getPrincipal()).getUsername();
+            wishlistService.remove(username, productId);
             return ResponseEntity.ok(ApiResponse.success("Item removed from wishlist"));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -115,9 +107,26 @@ public class ApiWishlistController {
             @PathVariable Long productId,
             Authentication authentication) {
         try {
-            User user = getCurrentUser(authentication);
-            boolean exists = wishlistRepository.existsByUserAndProductId(user, productId);
-            return ResponseEntity.ok(ApiResponse.success(exists));
+            String username = ((UserDetails) authentication.getPrincipal()).getUsername();
+            return ResponseEntity.ok(ApiResponse.success(wishlistService.contains(username, productId)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Failed to check wishlist: " + e.getMessage()));
+        }
+    }
+
+    // POST /api/v1/wishlist/check - Check many products at once (e.g. every card of a product grid)
+    @PostMapping("/check")
+    public ResponseEntity<ApiResponse<Map<Long, Boolean>>> checkWishlistBulk(
+            @RequestBody WishlistCheckRequest request,
+            Authentication authentication) {
+        try {
+            String username = ((UserDetails) authentication.getPrincipal()).getUsername();
+            List<Long> productIds = request.getProductIds() != null ? request.getProductIds() : List.of();
+            return ResponseEntity.ok(ApiResponse.success(wishlistService.check(username, productIds)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(ApiResponse.error("Failed to check wishlist: " + e.getMessage()));
@@ -127,6 +136,7 @@ public class ApiWishlistController {
     private ProductDTO convertProductToDTO(Product product) {
         ProductDTO dto = new ProductDTO();
         dto.setId(product.getId());
+        dto.setVersion(product.getVersion());
         dto.setName(product.getName());
         dto.setBrandName(product.getBrandName());
         dto.setDescription(product.getDescription());
@@ -153,6 +163,11 @@ public class ApiWishlistController {
         return dto;
     }
 
+    @lombok.Data
+    static class WishlistCheckRequest {
+        private List<Long> productIds;
+    }
+
     @lombok.Data
     static class WishlistItemDTO {
         private Long id;
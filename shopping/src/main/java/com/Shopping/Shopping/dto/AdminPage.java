@@ -0,0 +1,21 @@
+package com.Shopping.Shopping.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of an admin listing. {@code totalElements} and {@code totalPages} are null when the
+ * count was skipped.
+ */
+@Data
+@AllArgsConstructor
+public class AdminPage<T> {
+    private List<T> items;
+    private int page;
+    private int size;
+    private boolean hasNext;
+    private Long totalElements;
+    private Integer totalPages;
+}
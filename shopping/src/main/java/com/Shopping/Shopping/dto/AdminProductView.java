@@ -0,0 +1,27 @@
+package com.Shopping.Shopping.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Admin listing row for a product, loaded without images, descriptions or child collections.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdminProductView {
+    private Long id;
+    private String name;
+    private String brandName;
+    private String category;
+    private double price;
+    private Double sellingPrice;
+    private Integer availableQuantity;
+    private String uniqueProductId;
+    private Long sellerId;
+    private String sellerUsername;
+    private LocalDateTime createdAt;
+}
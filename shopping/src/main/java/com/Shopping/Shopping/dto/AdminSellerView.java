@@ -0,0 +1,23 @@
+package com.Shopping.Shopping.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Admin listing row for a seller, loaded without the photo.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdminSellerView {
+    private Long id;
+    private String username;
+    private String email;
+    private String whatsappNumber;
+    private String businessEmail;
+    private String gstNumber;
+    private LocalDateTime createdAt;
+}
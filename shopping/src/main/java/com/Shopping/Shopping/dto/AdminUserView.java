@@ -0,0 +1,21 @@
+package com.Shopping.Shopping.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Admin listing row for a user, loaded without the photo.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdminUserView {
+    private Long id;
+    private String username;
+    private String email;
+    private String phoneNumber;
+    private LocalDateTime createdAt;
+}
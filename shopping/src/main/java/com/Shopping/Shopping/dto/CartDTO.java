@@ -0,0 +1,18 @@
+package com.Shopping.Shopping.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CartDTO {
+    private List<CartItemDTO> items;
+    private double total;
+    // Server-side amounts: total in paise (what the payment is charged) and the GST share in rupees
+    private long totalPaise;
+    private double tax;
+}
@@ -0,0 +1,28 @@
+package com.Shopping.Shopping.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * One row of the cart read query: a cart line, its product summary and at most one image id.
+ * A line with several images appears once per image.
+ */
+@Data
+@AllArgsConstructor
+public class CartLineView {
+    private Long cartId;
+    private int quantity;
+    private Long productId;
+    private String name;
+    private String brandName;
+    private String description;
+    private double price;
+    private Double sellingPrice;
+    private Double mrp;
+    private Double discountPercent;
+    private Boolean gstIncluded;
+    private String category;
+    private String uniqueProductId;
+    private Long imageId;
+    private Integer imageDisplayOrder;
+}
@@ -0,0 +1,14 @@
+package com.Shopping.Shopping.dto;
+
+import lombok.Data;
+
+/**
+ * One operation of a batch cart update.
+ * op is "add" (increase by quantity, default 1), "set" (quantity 0 removes) or "remove".
+ */
+@Data
+public class CartOperationDTO {
+    private String op;
+    private Long productId;
+    private Integer quantity;
+}
@@ -0,0 +1,12 @@
+package com.Shopping.Shopping.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CartQuantityView {
+    private Long cartId;
+    private Long productId;
+    private int quantity;
+}
@@ -0,0 +1,21 @@
+package com.Shopping.Shopping.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * A cart line as checkout snapshots it: product name, seller and pricing columns, no images.
+ */
+@Data
+@AllArgsConstructor
+public class CheckoutLineView {
+    private Long productId;
+    private String name;
+    private Long sellerId;
+    private int quantity;
+    private double price;
+    private Double sellingPrice;
+    private Double mrp;
+    private Double discountPercent;
+    private Boolean gstIncluded;
+}
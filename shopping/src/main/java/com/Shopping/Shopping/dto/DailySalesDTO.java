@@ -0,0 +1,20 @@
+package com.Shopping.Shopping.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * A seller's sales on one day.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailySalesDTO {
+    private LocalDate date;
+    private long units;
+    private double revenue; // rupees
+    private long orders;
+}
@@ -1,9 +1,12 @@
 package com.Shopping.Shopping.dto;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
+
 import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
 public class OrderDTO {
     private Long id;
     private String razorpayOrderId;
@@ -11,4 +14,17 @@ public class OrderDTO {
     private double amount;
     private LocalDateTime orderDate;
     private String email;
+
+    /**
+     * Projection constructor for order queries; {@code amountPaise} is the stored amount.
+     */
+    public OrderDTO(Long id, String razorpayOrderId, String razorpayPaymentId, double amountPaise,
+                    LocalDateTime orderDate, String email) {
+        this.id = id;
+        this.razorpayOrderId = razorpayOrderId;
+        this.razorpayPaymentId = razorpayPaymentId;
+        this.amount = amountPaise / 100.0;
+        this.orderDate = orderDate;
+        this.email = email;
+    }
 }
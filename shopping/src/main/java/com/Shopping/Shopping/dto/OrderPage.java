@@ -0,0 +1,17 @@
+package com.Shopping.Shopping.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of a user's orders, newest first. Pass {@code nextCursor} back to get the next page;
+ * it is null on the last page.
+ */
+@Data
+@AllArgsConstructor
+public class OrderPage {
+    private List<OrderDTO> orders;
+    private String nextCursor;
+}
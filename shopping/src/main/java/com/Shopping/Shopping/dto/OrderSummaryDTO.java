@@ -0,0 +1,20 @@
+package com.Shopping.Shopping.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Totals of a user's orders, for the order history header.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryDTO {
+    private long orderCount;
+    private double totalAmount; // rupees
+    private LocalDateTime firstOrderDate;
+    private LocalDateTime lastOrderDate;
+}
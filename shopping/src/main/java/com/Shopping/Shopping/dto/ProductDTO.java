@@ -8,6 +8,7 @@ import java.util.Map;
 public class ProductDTO {
     // Basic fields
     private Long id;
+    private long version; // Changes whenever the product is edited
     private String name;
     private String brandName;
     private String category;
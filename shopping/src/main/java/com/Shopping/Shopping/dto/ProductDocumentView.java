@@ -0,0 +1,12 @@
+package com.Shopping.Shopping.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ProductDocumentView {
+    private Long id;
+    private String documentName;
+    private String documentType;
+}
@@ -0,0 +1,13 @@
+package com.Shopping.Shopping.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ProductImageView {
+    private Long id;
+    private String imageType;
+    private Integer displayOrder;
+    private Boolean isPrimary;
+}
@@ -0,0 +1,36 @@
+package com.Shopping.Shopping.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Progress of a bulk product import. Poll until {@code status} is DONE or FAILED.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportJobDTO {
+    private String jobId;
+    private String fileName;
+    private String format; // CSV or JSONL
+    private String status; // QUEUED, RUNNING, DONE, FAILED
+    private int progressPercent; // share of the file read
+    private long rowsRead;
+    private long imported;
+    private long failed;
+    private List<RowError> errors; // the first product.import.max-errors failures
+    private String message; // why the job FAILED
+    private Long startedAt;
+    private Long finishedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private long line;
+        private String error;
+    }
+}
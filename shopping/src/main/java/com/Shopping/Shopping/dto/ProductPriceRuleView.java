@@ -0,0 +1,18 @@
+package com.Shopping.Shopping.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Columns the pricing engine needs from a product.
+ */
+@Data
+@AllArgsConstructor
+public class ProductPriceRuleView {
+    private Long id;
+    private double price;
+    private Double sellingPrice;
+    private Double mrp;
+    private Double discountPercent;
+    private Boolean gstIncluded;
+}
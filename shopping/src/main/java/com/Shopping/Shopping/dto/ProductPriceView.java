@@ -0,0 +1,15 @@
+package com.Shopping.Shopping.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Price-only view of a product, loaded without the image or child collections.
+ */
+@Data
+@AllArgsConstructor
+public class ProductPriceView {
+    private Long id;
+    private String name;
+    private double price;
+}
@@ -0,0 +1,19 @@
+package com.Shopping.Shopping.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One product's sales over a date range.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSalesDTO {
+    private Long productId;
+    private String productName;
+    private long units;
+    private double revenue; // rupees
+    private long orders;
+}
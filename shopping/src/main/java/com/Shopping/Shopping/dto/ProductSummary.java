@@ -0,0 +1,28 @@
+package com.Shopping.Shopping.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Catalog export row: the product's scalar columns, without images, descriptions or child collections.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSummary {
+    private Long id;
+    private String name;
+    private String brandName;
+    private String category;
+    private String subCategory;
+    private double price;
+    private Double sellingPrice;
+    private Double mrp;
+    private Double discountPercent;
+    private Boolean gstIncluded;
+    private Integer availableQuantity;
+    private String skuId;
+    private String uniqueProductId;
+    private Long sellerId;
+}
@@ -0,0 +1,23 @@
+package com.Shopping.Shopping.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A seller's sales over a date range: totals and one entry per day, days without sales included.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SellerSalesDTO {
+    private LocalDate from;
+    private LocalDate to;
+    private long totalUnits;
+    private double totalRevenue; // rupees
+    private long totalOrders;
+    private List<DailySalesDTO> days;
+}
@@ -0,0 +1,13 @@
+package com.Shopping.Shopping.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class VariantPriceView {
+    private Long id;
+    private Long productId;
+    private String variantValue;
+    private Double priceModifier;
+}
@@ -1,28 +1,58 @@
 package com.Shopping.Shopping.model;
 
+/**
+ * Read-time view of one session cart line, with the name and price resolved from the catalog.
+ * Never stored in the session - see {@link SessionCart}.
+ */
 public class CartItem {
 
-    private Product product;
+    private Long productId;
+    private Long variantId;
+    private String productName;
+    private String variantValue;
+    private double unitPrice;
     private int quantity;
+    private double subtotal;
 
-    public CartItem(Product product, int quantity) {
-        this.product = product;
+    public CartItem(Long productId, Long variantId, String productName, String variantValue,
+                    double unitPrice, int quantity, double subtotal) {
+        this.productId = productId;
+        this.variantId = variantId;
+        this.productName = productName;
+        this.variantValue = variantValue;
+        this.unitPrice = unitPrice;
         this.quantity = quantity;
+        this.subtotal = subtotal;
     }
 
-    public Product getProduct() {
-        return product;
+    public Long getProductId() {
+        return productId;
     }
 
-    public void setProduct(Product product) {
-        this.product = product;
+    public Long getVariantId() {
+        return variantId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public String getVariantValue() {
+        return variantValue;
+    }
+
+    public double getUnitPrice() {
+        return unitPrice;
     }
 
     public int getQuantity() {
         return quantity;
     }
 
-    public void setQuantity(int quantity) {
-        this.quantity = quantity;
+    /**
+     * Line total from the pricing engine, including GST added on top where the price excludes it.
+     */
+    public double getSubtotal() {
+        return subtotal;
     }
 }
@@ -0,0 +1,40 @@
+package com.Shopping.Shopping.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * What a Razorpay order was created for: the priced lines and the total charged, written next to
+ * the stock reservation at create-order. Payment success orders exactly this and deletes it;
+ * quotes never paid for are deleted after {@code checkout.quote.retention}.
+ */
+@Entity
+@Table(name = "checkout_quote", indexes = {
+    @Index(name = "idx_checkout_quote_created_at", columnList = "created_at")
+})
+@Getter
+@Setter
+public class CheckoutQuote {
+
+    @Id
+    @Column(length = 64)
+    private String reference; // Razorpay order id
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "buy_now", nullable = false)
+    private boolean buyNow;
+
+    @Column(name = "amount_paise", nullable = false)
+    private long amountPaise;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String lines; // JSON
+
+    @Column(name = "created_at", nullable = false)
+    private long createdAt; // epoch millis
+
+    public CheckoutQuote() {}
+}
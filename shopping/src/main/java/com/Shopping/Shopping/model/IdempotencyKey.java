@@ -0,0 +1,33 @@
+package com.Shopping.Shopping.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A request that has been executed, keyed by "{userId}:{Idempotency-Key or Razorpay order id}".
+ * The row is inserted in the same transaction as the work it guards, so it only becomes visible
+ * together with that work's result.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+    @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at")
+})
+@Getter
+@Setter
+public class IdempotencyKey {
+
+    @Id
+    @Column(name = "idem_key", length = 160)
+    private String idemKey;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    private String result; // what the first execution returned, replayed to retries
+
+    @Column(name = "created_at", nullable = false)
+    private long createdAt; // epoch millis
+
+    public IdempotencyKey() {}
+}
@@ -0,0 +1,48 @@
+package com.Shopping.Shopping.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * An order moved out of {@code orders} by the archiver. The columns order history shows stay plain
+ * and indexed like in {@code orders}; the rest (signature and line items) is gzipped JSON in details.
+ */
+@Entity
+@Table(name = "orders_archive", indexes = {
+    @Index(name = "idx_orders_archive_user_order_date", columnList = "user_id, order_date DESC")
+})
+@Getter
+@Setter
+public class OrderArchive {
+
+    @Id
+    private Long id; // the order's original id
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "order_date", nullable = false)
+    private LocalDateTime orderDate;
+
+    @Column(nullable = false)
+    private double amount; // paise, as in orders
+
+    @Column(name = "razorpay_order_id")
+    private String razorpayOrderId;
+
+    @Column(name = "razorpay_payment_id")
+    private String razorpayPaymentId;
+
+    private String email;
+
+    @Column(length = 1_048_576)
+    private byte[] details; // gzip of {"razorpaySignature": ..., "items": [...]}
+
+    @Column(name = "archived_at", nullable = false)
+    private long archivedAt; // epoch millis
+
+    public OrderArchive() {}
+}
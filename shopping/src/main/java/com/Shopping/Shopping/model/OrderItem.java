@@ -0,0 +1,45 @@
+package com.Shopping.Shopping.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * One purchased line, snapshotted at checkout: name, seller and prices are copied so later catalog
+ * edits or deletions do not change past orders. Amounts are in paise.
+ */
+@Entity
+@Table(name = "order_items", indexes = {
+    @Index(name = "idx_order_items_order", columnList = "order_id")
+})
+@Getter
+@Setter
+public class OrderItem {
+
+    // Sequence ids (50 per round trip) let Hibernate batch the inserts; IDENTITY would force one insert per row
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false)
+    private Orders order;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId; // no foreign key: the product may be deleted later
+
+    @Column(name = "variant_id")
+    private Long variantId;
+
+    @Column(name = "seller_id")
+    private Long sellerId;
+
+    private String productName;
+    private int quantity;
+    private long unitPricePaise;
+    private long lineTotalPaise;
+    private long taxPaise;
+
+    public OrderItem() {}
+}
@@ -6,6 +6,11 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(name = "orders", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_orders_razorpay_order_id", columnNames = "razorpay_order_id")
+}, indexes = {
+    @Index(name = "idx_orders_user_order_date", columnList = "user_id, order_date DESC")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,52 @@
+package com.Shopping.Shopping.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A side effect to run after a transaction commits, written in that same transaction.
+ * PENDING rows are picked up by the dispatcher, which leases them as PROCESSING until
+ * availableAt; they end DONE, or FAILED once the retries are used up.
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+    @Index(name = "idx_outbox_events_status_available", columnList = "status, available_at")
+})
+@Getter
+@Setter
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_type", nullable = false, length = 64)
+    private String eventType; // e.g. order.placed
+
+    @Column(name = "aggregate_id")
+    private Long aggregateId; // id of the row the event is about, e.g. the order
+
+    @Column(columnDefinition = "TEXT")
+    private String payload; // JSON
+
+    @Column(nullable = false, length = 16)
+    private String status; // PENDING, PROCESSING, DONE, FAILED
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "available_at", nullable = false)
+    private long availableAt; // epoch millis: next attempt, or lease expiry while PROCESSING
+
+    @Column(name = "created_at", nullable = false)
+    private long createdAt; // epoch millis
+
+    @Column(name = "processed_at")
+    private Long processedAt; // epoch millis
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    public OutboxEvent() {}
+}
@@ -1,14 +1,21 @@
 package com.Shopping.Shopping.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
 
 @Entity
+@DynamicUpdate
+@Table(indexes = {
+    @Index(name = "idx_product_seller_id", columnList = "seller_id"),
+    @Index(name = "idx_product_created_at", columnList = "created_at")
+})
 public class Product {
 
     @Id
@@ -75,6 +82,13 @@ public class Product {
     @Column(columnDefinition = "BYTEA")
     private byte[] image; // Primary image (legacy)
     private String uniqueProductId;
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    // Bumped by every edit, so caches holding a copy of the product can tell it is stale
+    @Column(name = "version", nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private long version;
     
     // Relationships
     @ManyToOne
@@ -130,6 +144,11 @@ public class Product {
     public Seller getSeller() { return seller; }
     public void setSeller(Seller seller) { this.seller = seller; }
 
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
     public byte[] getImage() { return image; }
     public void setImage(byte[] image) { this.image = image; }
 
@@ -0,0 +1,52 @@
+package com.Shopping.Shopping.model;
+
+import jakarta.persistence.*;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * One product's sales on one day, kept up to date as orders are placed. Revenue is in paise.
+ */
+@Entity
+@Table(name = "product_daily_sales", indexes = {
+    @Index(name = "idx_product_daily_sales_seller_date", columnList = "seller_id, sales_date")
+})
+@IdClass(ProductDailySales.Key.class)
+@Getter
+@Setter
+public class ProductDailySales {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Id
+    @Column(name = "sales_date")
+    private LocalDate salesDate;
+
+    @Column(name = "seller_id")
+    private Long sellerId;
+
+    @Column(nullable = false)
+    private long units;
+
+    @Column(name = "revenue_paise", nullable = false)
+    private long revenuePaise;
+
+    @Column(nullable = false)
+    private long orders;
+
+    public ProductDailySales() {}
+
+    @NoArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long productId;
+        private LocalDate salesDate;
+    }
+}
@@ -12,7 +12,8 @@ import org.hibernate.type.SqlTypes;
 @Setter
 public class ProductDocument {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_documents_seq")
+    @SequenceGenerator(name = "product_documents_seq", sequenceName = "product_documents_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -22,6 +23,9 @@ public class ProductDocument {
     @JdbcTypeCode(SqlTypes.BINARY)
     @Column(columnDefinition = "BYTEA")
     private byte[] documentData;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash; // SHA-256 of the data, hex
     
     private String documentName;
     private String documentType; // "brand_authorization", "trademark", "bis_certificate", "fssai", etc.
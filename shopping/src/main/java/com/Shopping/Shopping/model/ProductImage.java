@@ -12,7 +12,8 @@ import org.hibernate.type.SqlTypes;
 @Setter
 public class ProductImage {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_images_seq")
+    @SequenceGenerator(name = "product_images_seq", sequenceName = "product_images_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -22,6 +23,9 @@ public class ProductImage {
     @JdbcTypeCode(SqlTypes.BINARY)
     @Column(columnDefinition = "BYTEA")
     private byte[] imageData;  // Same as Product.image - stored in database
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash; // SHA-256 of the data, hex
     
     private String imageName;
     private String imageType; // "front", "back", "lifestyle", "detail", etc.
@@ -10,7 +10,8 @@ import lombok.Setter;
 @Setter
 public class ProductSpecification {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_specifications_seq")
+    @SequenceGenerator(name = "product_specifications_seq", sequenceName = "product_specifications_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
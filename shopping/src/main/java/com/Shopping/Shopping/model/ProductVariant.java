@@ -10,7 +10,8 @@ import lombok.Setter;
 @Setter
 public class ProductVariant {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_variants_seq")
+    @SequenceGenerator(name = "product_variants_seq", sequenceName = "product_variants_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
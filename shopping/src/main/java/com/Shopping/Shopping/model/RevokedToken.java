@@ -0,0 +1,29 @@
+package com.Shopping.Shopping.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+    @Index(name = "idx_revoked_tokens_expires_at", columnList = "expiresAt")
+})
+@Getter
+@Setter
+public class RevokedToken {
+
+    @Id
+    @Column(length = 255)
+    private String tokenKey; // "jti:<token id>" or "sub:<role>:<username>"
+
+    private long revokedAt; // epoch millis
+    private long expiresAt; // epoch millis - entry can be purged after this
+
+    public RevokedToken() {}
+
+    public RevokedToken(String tokenKey, long revokedAt, long expiresAt) {
+        this.tokenKey = tokenKey;
+        this.revokedAt = revokedAt;
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,29 @@
+package com.Shopping.Shopping.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Marks an order as counted in the daily sales rollups, so a redelivered order.placed event is not
+ * counted twice.
+ */
+@Entity
+@Table(name = "sales_rollup_orders", indexes = {
+    @Index(name = "idx_sales_rollup_orders_date", columnList = "sales_date")
+})
+@Getter
+@Setter
+public class SalesRollupOrder {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "sales_date", nullable = false)
+    private LocalDate salesDate;
+
+    public SalesRollupOrder() {}
+}
@@ -3,13 +3,21 @@ package com.Shopping.Shopping.model;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
+import java.time.LocalDateTime;
 import java.util.Base64;
 
 @Entity
-@Table(name = "sellers")
+@DynamicUpdate
+@Table(name = "sellers", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_sellers_username", columnNames = "username"),
+    @UniqueConstraint(name = "uk_sellers_email", columnNames = "email")
+}, indexes = {
+    @Index(name = "idx_sellers_created_at", columnList = "created_at")
+})
 @Getter
 @Setter
 public class Seller {
@@ -34,6 +42,9 @@ public class Seller {
     @Column(columnDefinition = "BYTEA")
     private byte[] photo;
 
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
     public String getPhotoBase64() {
         return this.photo != null ? Base64.getEncoder().encodeToString(this.photo) : null;
     }
@@ -0,0 +1,48 @@
+package com.Shopping.Shopping.model;
+
+import jakarta.persistence.*;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * One seller's sales on one day, kept up to date as orders are placed. Revenue is in paise;
+ * orders counts the orders that contained at least one of the seller's products.
+ */
+@Entity
+@Table(name = "seller_daily_sales")
+@IdClass(SellerDailySales.Key.class)
+@Getter
+@Setter
+public class SellerDailySales {
+
+    @Id
+    @Column(name = "seller_id")
+    private Long sellerId;
+
+    @Id
+    @Column(name = "sales_date")
+    private LocalDate salesDate;
+
+    @Column(nullable = false)
+    private long units;
+
+    @Column(name = "revenue_paise", nullable = false)
+    private long revenuePaise;
+
+    @Column(nullable = false)
+    private long orders;
+
+    public SellerDailySales() {}
+
+    @NoArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long sellerId;
+        private LocalDate salesDate;
+    }
+}
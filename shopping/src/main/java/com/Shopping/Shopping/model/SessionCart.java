@@ -0,0 +1,155 @@
+package com.Shopping.Shopping.model;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Session cart stored as parallel primitive arrays of (productId, variantId, quantity).
+ *
+ * Holds ids only - names and prices are resolved when the cart is read - so the session footprint
+ * is a few bytes per line and the object serializes cheaply for session persistence or replication.
+ * A variantId of 0 means "no variant".
+ */
+public class SessionCart implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private static final int INITIAL_CAPACITY = 4;
+
+    private transient long[] productIds = new long[INITIAL_CAPACITY];
+    private transient long[] variantIds = new long[INITIAL_CAPACITY];
+    private transient int[] quantities = new int[INITIAL_CAPACITY];
+    private transient int size;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long productIdAt(int index) {
+        return productIds[index];
+    }
+
+    public long variantIdAt(int index) {
+        return variantIds[index];
+    }
+
+    public int quantityAt(int index) {
+        return quantities[index];
+    }
+
+    /**
+     * Adds to the quantity of an existing line, or appends a new one.
+     */
+    public void add(long productId, long variantId, int quantity) {
+        int index = indexOf(productId, variantId);
+        if (index >= 0) {
+            quantities[index] += quantity;
+            return;
+        }
+        ensureCapacity(size + 1);
+        productIds[size] = productId;
+        variantIds[size] = variantId;
+        quantities[size] = quantity;
+        size++;
+    }
+
+    /**
+     * @return false if the line is not in the cart
+     */
+    public boolean setQuantity(long productId, long variantId, int quantity) {
+        int index = indexOf(productId, variantId);
+        if (index < 0) {
+            return false;
+        }
+        quantities[index] = quantity;
+        return true;
+    }
+
+    /**
+     * Removes every line of the product, whatever the variant.
+     */
+    public void removeProduct(long productId) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (productIds[i] != productId) {
+                productIds[kept] = productIds[i];
+                variantIds[kept] = variantIds[i];
+                quantities[kept] = quantities[i];
+                kept++;
+            }
+        }
+        size = kept;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public SessionCart copy() {
+        SessionCart copy = new SessionCart();
+        copy.ensureCapacity(size);
+        System.arraycopy(productIds, 0, copy.productIds, 0, size);
+        System.arraycopy(variantIds, 0, copy.variantIds, 0, size);
+        System.arraycopy(quantities, 0, copy.quantities, 0, size);
+        copy.size = size;
+        return copy;
+    }
+
+    public int indexOf(long productId, long variantId) {
+        for (int i = 0; i < size; i++) {
+            if (productIds[i] == productId && variantIds[i] == variantId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > productIds.length) {
+            int newLength = Math.max(capacity, productIds.length * 2);
+            productIds = Arrays.copyOf(productIds, newLength);
+            variantIds = Arrays.copyOf(variantIds, newLength);
+            quantities = Arrays.copyOf(quantities, newLength);
+        }
+    }
+
+    // Only the used part of the arrays is written
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeLong(productIds[i]);
+            out.writeLong(variantIds[i]);
+            out.writeInt(quantities[i]);
+        }
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int count = in.readInt();
+        if (count < 0) {
+            throw new InvalidObjectException("Negative cart size");
+        }
+        int capacity = Math.max(count, INITIAL_CAPACITY);
+        productIds = new long[capacity];
+        variantIds = new long[capacity];
+        quantities = new int[capacity];
+        for (int i = 0; i < count; i++) {
+            productIds[i] = in.readLong();
+            variantIds[i] = in.readLong();
+            quantities[i] = in.readInt();
+        }
+        size = count;
+    }
+}
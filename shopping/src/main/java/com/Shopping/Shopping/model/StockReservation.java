@@ -0,0 +1,50 @@
+package com.Shopping.Shopping.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Stock held for a pending payment. The units are already taken off product/variant stock;
+ * a HELD row either becomes COMMITTED when the payment succeeds or RELEASED (units returned)
+ * when it is cancelled or its expiresAt passes.
+ */
+@Entity
+@Table(name = "stock_reservation", indexes = {
+    @Index(name = "idx_stock_reservation_reference", columnList = "reference"),
+    @Index(name = "idx_stock_reservation_status_expires", columnList = "status, expires_at")
+})
+@Getter
+@Setter
+public class StockReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String reference; // Razorpay order id once the order exists, the receipt id before that
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "variant_id")
+    private Long variantId;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(nullable = false, length = 16)
+    private String status; // HELD, COMMITTED, RELEASED
+
+    @Column(name = "expires_at", nullable = false)
+    private long expiresAt; // epoch millis
+
+    @Column(name = "created_at", nullable = false)
+    private long createdAt; // epoch millis
+
+    public StockReservation() {}
+}
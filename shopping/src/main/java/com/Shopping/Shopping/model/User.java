@@ -3,13 +3,21 @@ package com.Shopping.Shopping.model;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
+import java.time.LocalDateTime;
 import java.util.Base64;
 
 @Entity
-@Table(name = "users")
+@DynamicUpdate
+@Table(name = "users", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_users_username", columnNames = "username"),
+    @UniqueConstraint(name = "uk_users_email", columnNames = "email")
+}, indexes = {
+    @Index(name = "idx_users_created_at", columnList = "created_at")
+})
 @Getter
 @Setter
 public class User {
@@ -35,6 +43,9 @@ public class User {
     @Lob
     private byte[] photo;
 
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
     public String getPhotoBase64() {
         return this.photo != null ? Base64.getEncoder().encodeToString(this.photo) : null;
     }
@@ -5,13 +5,16 @@ import lombok.Getter;
 import lombok.Setter;
 
 @Entity
-@Table(name = "wishlist")
+@Table(name = "wishlist", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_wishlist_user_product", columnNames = {"user_id", "product_id"})
+})
 @Getter
 @Setter
 public class Wishlist {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wishlist_seq")
+    @SequenceGenerator(name = "wishlist_seq", sequenceName = "wishlist_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne
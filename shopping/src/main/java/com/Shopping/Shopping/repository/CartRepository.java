@@ -1,17 +1,55 @@
 package com.Shopping.Shopping.repository;
 
+import com.Shopping.Shopping.dto.CartLineView;
+import com.Shopping.Shopping.dto.CartQuantityView;
+import com.Shopping.Shopping.dto.CheckoutLineView;
 import com.Shopping.Shopping.model.Cart;
 import com.Shopping.Shopping.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface CartRepository extends JpaRepository<Cart, Long> {
+public interface CartRepository extends JpaRepository<Cart, Long>, CartRepositoryCustom {
     List<Cart> findByUser(User user);
     Optional<Cart> findByUserAndProductId(User user, Long productId);
     void deleteByUserAndProductId(User user, Long productId);
-    void deleteByUser(User user);
+
+    /**
+     * Whole cart in one statement: lines, product summaries and image ids (no image bytes).
+     * Rows are ordered by cart line so callers can group them in a single pass.
+     */
+    @Query("SELECT new com.Shopping.Shopping.dto.CartLineView(c.id, c.quantity, p.id, p.name, p.brandName, " +
+           "p.description, p.price, p.sellingPrice, p.mrp, p.discountPercent, p.gstIncluded, p.category, " +
+           "p.uniqueProductId, i.id, i.displayOrder) " +
+           "FROM Cart c JOIN c.user u JOIN c.product p LEFT JOIN p.images i " +
+           "WHERE u.username = :username ORDER BY c.id")
+    List<CartLineView> findCartLinesByUsername(@Param("username") String username);
+
+    @Modifying
+    @Query("UPDATE Cart c SET c.quantity = :quantity WHERE c.user.id = :userId AND c.product.id = :productId")
+    int updateQuantity(@Param("userId") Long userId, @Param("productId") Long productId, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("DELETE FROM Cart c WHERE c.user.id = :userId AND c.product.id = :productId")
+    int deleteLine(@Param("userId") Long userId, @Param("productId") Long productId);
+
+    @Modifying
+    @Query("DELETE FROM Cart c WHERE c.user.id = :userId AND c.product.id IN :productIds")
+    int deleteLines(@Param("userId") Long userId, @Param("productIds") Collection<Long> productIds);
+
+    @Query("SELECT new com.Shopping.Shopping.dto.CheckoutLineView(p.id, p.name, s.id, c.quantity, p.price, " +
+           "p.sellingPrice, p.mrp, p.discountPercent, p.gstIncluded) " +
+           "FROM Cart c JOIN c.product p LEFT JOIN p.seller s WHERE c.user.id = :userId ORDER BY c.id")
+    List<CheckoutLineView> findCheckoutLinesByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT new com.Shopping.Shopping.dto.CartQuantityView(c.id, c.product.id, c.quantity) " +
+           "FROM Cart c WHERE c.user.id = :userId ORDER BY c.id")
+    List<CartQuantityView> findQuantitiesByUserId(@Param("userId") Long userId);
 }
@@ -0,0 +1,23 @@
+package com.Shopping.Shopping.repository;
+
+import java.util.Map;
+
+/**
+ * Atomic cart writes that need native SQL, mixed into {@link CartRepository}.
+ */
+public interface CartRepositoryCustom {
+
+    /**
+     * Adds {@code quantity} to the user's line for the product, creating the line if there is none.
+     * One statement, safe against concurrent adds thanks to the unique (user_id, product_id) constraint.
+     */
+    void addQuantity(Long userId, Long productId, int quantity);
+
+    /**
+     * Same as {@link #addQuantity} for several products, sent as one JDBC batch.
+     * Unlike the single add, a lost insert race on H2 is not retried and surfaces as a
+     * {@link org.springframework.dao.DataIntegrityViolationException}.
+     * @param quantities productId -> quantity to add
+     */
+    void addQuantities(Long userId, Map<Long, Integer> quantities);
+}
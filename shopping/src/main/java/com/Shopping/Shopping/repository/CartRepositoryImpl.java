@@ -0,0 +1,74 @@
+package com.Shopping.Shopping.repository;
+
+import com.Shopping.Shopping.config.DatabaseDialect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Upserts for {@link CartRepositoryCustom}.
+ *
+ * PostgreSQL resolves a concurrent insert of the same line inside ON CONFLICT. H2's MERGE can
+ * still lose the race to another transaction inserting the line and fail on the unique
+ * constraint; the line exists by then, so one retry takes the update branch.
+ *
+ * New lines take their id from cart_seq, like the ones Hibernate inserts.
+ */
+public class CartRepositoryImpl implements CartRepositoryCustom {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartRepositoryImpl.class);
+
+    static final String POSTGRES_UPSERT =
+        "INSERT INTO cart (id, user_id, product_id, quantity) VALUES (nextval('cart_seq'), ?, ?, ?) " +
+        "ON CONFLICT (user_id, product_id) DO UPDATE SET quantity = cart.quantity + EXCLUDED.quantity";
+
+    static final String MERGE_UPSERT =
+        "MERGE INTO cart c USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS INTEGER))) " +
+        "AS s (user_id, product_id, quantity) ON c.user_id = s.user_id AND c.product_id = s.product_id " +
+        "WHEN MATCHED THEN UPDATE SET quantity = c.quantity + s.quantity " +
+        "WHEN NOT MATCHED THEN INSERT (id, user_id, product_id, quantity) " +
+        "VALUES (nextval('cart_seq'), s.user_id, s.product_id, s.quantity)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile String upsertSql;
+
+    public CartRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void addQuantity(Long userId, Long productId, int quantity) {
+        String sql = upsertSql();
+        try {
+            jdbcTemplate.update(sql, userId, productId, quantity);
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Concurrent insert of cart line user={} product={}, retrying", userId, productId);
+            jdbcTemplate.update(sql, userId, productId, quantity);
+        }
+    }
+
+    @Override
+    public void addQuantities(Long userId, Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> rows.add(new Object[] {userId, productId, quantity}));
+        // No retry here: rows of a failed batch may already be applied in the caller's transaction
+        jdbcTemplate.batchUpdate(upsertSql(), rows);
+    }
+
+    private String upsertSql() {
+        String sql = upsertSql;
+        if (sql == null) {
+            sql = DatabaseDialect.detect(jdbcTemplate) == DatabaseDialect.POSTGRESQL ? POSTGRES_UPSERT : MERGE_UPSERT;
+            upsertSql = sql;
+        }
+        return sql;
+    }
+}
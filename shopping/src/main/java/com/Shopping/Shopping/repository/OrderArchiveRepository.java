@@ -0,0 +1,36 @@
+package com.Shopping.Shopping.repository;
+
+import com.Shopping.Shopping.dto.OrderDTO;
+import com.Shopping.Shopping.dto.OrderSummaryDTO;
+import com.Shopping.Shopping.model.OrderArchive;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Archived orders, read with the same shapes as {@link OrdersRepository} so history can continue
+ * from hot orders into the archive.
+ */
+public interface OrderArchiveRepository extends JpaRepository<OrderArchive, Long> {
+
+    @Query("SELECT new com.Shopping.Shopping.dto.OrderDTO(a.id, a.razorpayOrderId, a.razorpayPaymentId, a.amount, " +
+           "a.orderDate, a.email) FROM OrderArchive a WHERE a.userId = :userId ORDER BY a.orderDate DESC, a.id DESC")
+    List<OrderDTO> findOrderViewsByUserId(@Param("userId") Long userId, Pageable page);
+
+    @Query("SELECT new com.Shopping.Shopping.dto.OrderDTO(a.id, a.razorpayOrderId, a.razorpayPaymentId, a.amount, " +
+           "a.orderDate, a.email) FROM OrderArchive a WHERE a.userId = :userId " +
+           "AND (a.orderDate < :orderDate OR (a.orderDate = :orderDate AND a.id < :id)) " +
+           "ORDER BY a.orderDate DESC, a.id DESC")
+    List<OrderDTO> findOrderViewsByUserIdBefore(@Param("userId") Long userId,
+                                                @Param("orderDate") LocalDateTime orderDate,
+                                                @Param("id") Long id,
+                                                Pageable page);
+
+    @Query("SELECT new com.Shopping.Shopping.dto.OrderSummaryDTO(COUNT(a), COALESCE(SUM(a.amount), 0) / 100.0, " +
+           "MIN(a.orderDate), MAX(a.orderDate)) FROM OrderArchive a WHERE a.userId = :userId")
+    OrderSummaryDTO summarizeByUserId(@Param("userId") Long userId);
+}
@@ -0,0 +1,17 @@
+package com.Shopping.Shopping.repository;
+
+import com.Shopping.Shopping.model.OrderItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+
+    @Query("SELECT i FROM OrderItem i WHERE i.order.id = :orderId ORDER BY i.id")
+    List<OrderItem> findByOrderId(@Param("orderId") Long orderId);
+
+    @Query("SELECT DISTINCT i.productId FROM OrderItem i WHERE i.order.id = :orderId")
+    List<Long> findProductIdsByOrderId(@Param("orderId") Long orderId);
+}
@@ -1,12 +1,43 @@
 package com.Shopping.Shopping.repository;
 
+import com.Shopping.Shopping.dto.OrderDTO;
+import com.Shopping.Shopping.dto.OrderSummaryDTO;
 import com.Shopping.Shopping.model.Orders;
 import com.Shopping.Shopping.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface OrdersRepository extends JpaRepository<Orders, Long> {
     Orders findByRazorpayOrderId(String orderId);
     List<Orders> findByUser(User user);
+
+    /**
+     * Newest orders first, straight into {@link OrderDTO} (no User is loaded). Served by
+     * idx_orders_user_order_date; ties on orderDate are broken by id so keyset pages are stable.
+     */
+    @Query("SELECT new com.Shopping.Shopping.dto.OrderDTO(o.id, o.razorpayOrderId, o.razorpayPaymentId, o.amount, " +
+           "o.orderDate, o.email) FROM Orders o WHERE o.user.id = :userId ORDER BY o.orderDate DESC, o.id DESC")
+    List<OrderDTO> findOrderViewsByUserId(@Param("userId") Long userId, Pageable page);
+
+    /**
+     * The page after the order at ({@code orderDate}, {@code id}), in the same order as
+     * {@link #findOrderViewsByUserId}.
+     */
+    @Query("SELECT new com.Shopping.Shopping.dto.OrderDTO(o.id, o.razorpayOrderId, o.razorpayPaymentId, o.amount, " +
+           "o.orderDate, o.email) FROM Orders o WHERE o.user.id = :userId " +
+           "AND (o.orderDate < :orderDate OR (o.orderDate = :orderDate AND o.id < :id)) " +
+           "ORDER BY o.orderDate DESC, o.id DESC")
+    List<OrderDTO> findOrderViewsByUserIdBefore(@Param("userId") Long userId,
+                                                @Param("orderDate") LocalDateTime orderDate,
+                                                @Param("id") Long id,
+                                                Pageable page);
+
+    @Query("SELECT new com.Shopping.Shopping.dto.OrderSummaryDTO(COUNT(o), COALESCE(SUM(o.amount), 0) / 100.0, " +
+           "MIN(o.orderDate), MAX(o.orderDate)) FROM Orders o WHERE o.user.id = :userId")
+    OrderSummaryDTO summarizeByUserId(@Param("userId") Long userId);
 }
@@ -1,15 +1,35 @@
 package com.Shopping.Shopping.repository;
 
+import com.Shopping.Shopping.dto.ProductDocumentView;
 import com.Shopping.Shopping.model.Product;
 import com.Shopping.Shopping.model.ProductDocument;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ProductDocumentRepository extends JpaRepository<ProductDocument, Long> {
     List<ProductDocument> findByProduct(Product product);
     List<ProductDocument> findByProductAndDocumentType(Product product, String documentType);
-    void deleteByProduct(Product product);
+    // A bulk delete, so the rows' data is not loaded first as the derived delete would
+    @Modifying
+    @Query("DELETE FROM ProductDocument d WHERE d.product = :product")
+    void deleteByProduct(@Param("product") Product product);
+
+    @Query("SELECT new com.Shopping.Shopping.dto.ProductDocumentView(d.id, d.documentName, d.documentType) " +
+           "FROM ProductDocument d WHERE d.product.id = :productId ORDER BY d.id")
+    List<ProductDocumentView> findViewsByProductId(@Param("productId") Long productId);
+
+    @Modifying
+    @Query("UPDATE ProductDocument d SET d.documentType = :documentType WHERE d.id = :id")
+    int updateDocumentType(@Param("id") Long id, @Param("documentType") String documentType);
+
+    @Modifying
+    @Query("DELETE FROM ProductDocument d WHERE d.product.id = :productId AND d.id IN :ids")
+    int deleteByProductIdAndIdIn(@Param("productId") Long productId, @Param("ids") Collection<Long> ids);
 }
@@ -1,10 +1,15 @@
 package com.Shopping.Shopping.repository;
 
+import com.Shopping.Shopping.dto.ProductImageView;
 import com.Shopping.Shopping.model.Product;
 import com.Shopping.Shopping.model.ProductImage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -12,5 +17,22 @@ public interface ProductImageRepository extends JpaRepository<ProductImage, Long
     List<ProductImage> findByProductOrderByDisplayOrderAsc(Product product);
     List<ProductImage> findByProductAndIsPrimary(Product product, Boolean isPrimary);
     ProductImage findFirstByProductAndIsPrimary(Product product, Boolean isPrimary);
-    void deleteByProduct(Product product);
+    // A bulk delete, so the rows' data is not loaded first as the derived delete would
+    @Modifying
+    @Query("DELETE FROM ProductImage i WHERE i.product = :product")
+    void deleteByProduct(@Param("product") Product product);
+
+    @Query("SELECT new com.Shopping.Shopping.dto.ProductImageView(i.id, i.imageType, i.displayOrder, i.isPrimary) " +
+           "FROM ProductImage i WHERE i.product.id = :productId ORDER BY i.displayOrder, i.id")
+    List<ProductImageView> findViewsByProductId(@Param("productId") Long productId);
+
+    @Modifying
+    @Query("UPDATE ProductImage i SET i.imageType = :imageType, i.displayOrder = :displayOrder, i.isPrimary = :isPrimary " +
+           "WHERE i.id = :id")
+    int updateMetadata(@Param("id") Long id, @Param("imageType") String imageType,
+                       @Param("displayOrder") Integer displayOrder, @Param("isPrimary") Boolean isPrimary);
+
+    @Modifying
+    @Query("DELETE FROM ProductImage i WHERE i.product.id = :productId AND i.id IN :ids")
+    int deleteByProductIdAndIdIn(@Param("productId") Long productId, @Param("ids") Collection<Long> ids);
 }
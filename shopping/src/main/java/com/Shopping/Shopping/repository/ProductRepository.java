@@ -1,14 +1,36 @@
 package com.Shopping.Shopping.repository;
 
+import com.Shopping.Shopping.dto.AdminProductView;
+import com.Shopping.Shopping.dto.CartLineView;
+import com.Shopping.Shopping.dto.CheckoutLineView;
+import com.Shopping.Shopping.dto.ProductPriceRuleView;
+import com.Shopping.Shopping.dto.ProductPriceView;
+import com.Shopping.Shopping.dto.ProductSummary;
 import com.Shopping.Shopping.model.Product;
 import com.Shopping.Shopping.model.Seller;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    int EXPORT_FETCH_SIZE = 500;
+
+    String SUMMARY = "SELECT new com.Shopping.Shopping.dto.ProductSummary(p.id, p.name, p.brandName, p.category, " +
+        "p.subCategory, p.price, p.sellingPrice, p.mrp, p.discountPercent, p.gstIncluded, p.availableQuantity, " +
+        "p.skuId, p.uniqueProductId, s.id) FROM Product p LEFT JOIN p.seller s ";
+
     List<Product> findByNameContainingIgnoreCase(String keyword);
     
     List<Product> findByCategoryContainingIgnoreCase(String category);
@@ -26,4 +48,82 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
            "LOWER(p.category) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
            "LOWER(p.uniqueProductId) LIKE LOWER(CONCAT('%', :keyword, '%'))")
     List<Product> searchProducts(@Param("keyword") String keyword);
+
+    @Query("SELECT new com.Shopping.Shopping.dto.ProductPriceView(p.id, p.name, p.price) " +
+           "FROM Product p WHERE p.id IN :ids")
+    List<ProductPriceView> findPriceViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.Shopping.Shopping.dto.ProductPriceRuleView(p.id, p.price, p.sellingPrice, p.mrp, " +
+           "p.discountPercent, p.gstIncluded) FROM Product p WHERE p.id IN :ids")
+    List<ProductPriceRuleView> findPriceRuleViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p.id FROM Product p WHERE p.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Product summaries and image ids in the shape of the cart read query, for carts held in memory.
+     * The product id stands in for the cart line id and the quantity is left at 0 for the caller to fill.
+     */
+    @Query("SELECT new com.Shopping.Shopping.dto.CartLineView(p.id, 0, p.id, p.name, p.brandName, " +
+           "p.description, p.price, p.sellingPrice, p.mrp, p.discountPercent, p.gstIncluded, p.category, " +
+           "p.uniqueProductId, i.id, i.displayOrder) " +
+           "FROM Product p LEFT JOIN p.images i WHERE p.id IN :ids ORDER BY p.id")
+    List<CartLineView> findCartLinesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.Shopping.Shopping.dto.CheckoutLineView(p.id, p.name, s.id, 0, p.price, " +
+           "p.sellingPrice, p.mrp, p.discountPercent, p.gstIncluded) " +
+           "FROM Product p LEFT JOIN p.seller s WHERE p.id IN :ids ORDER BY p.id")
+    List<CheckoutLineView> findCheckoutLinesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Every product in id order, streamed from a cursor {@value #EXPORT_FETCH_SIZE} rows at a time.
+     * Consume inside a read-only transaction and close the stream.
+     */
+    @Query(SUMMARY + "ORDER BY p.id")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<ProductSummary> streamAllSummaries();
+
+    @Query(SUMMARY + "WHERE s.id = :sellerId ORDER BY p.id")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<ProductSummary> streamSummariesBySellerId(@Param("sellerId") Long sellerId);
+
+    String ADMIN_VIEW = "SELECT new com.Shopping.Shopping.dto.AdminProductView(p.id, p.name, p.brandName, p.category, " +
+        "p.price, p.sellingPrice, p.availableQuantity, p.uniqueProductId, s.id, s.username, p.createdAt) " +
+        "FROM Product p LEFT JOIN p.seller s ";
+
+    String ADMIN_FILTER = "WHERE (:name IS NULL OR LOWER(p.name) LIKE :name ESCAPE '!') " +
+        "AND (:category IS NULL OR LOWER(p.category) LIKE :category ESCAPE '!') " +
+        "AND (:sellerId IS NULL OR s.id = :sellerId) " +
+        "AND (:createdFrom IS NULL OR p.createdAt >= :createdFrom) " +
+        "AND (:createdTo IS NULL OR p.createdAt < :createdTo)";
+
+    /**
+     * Admin listing page with its totals. Text filters are lower-case LIKE patterns escaped with '!',
+     * createdTo is exclusive and a null filter matches everything.
+     */
+    @Query(value = ADMIN_VIEW + ADMIN_FILTER,
+           countQuery = "SELECT COUNT(p) FROM Product p LEFT JOIN p.seller s " + ADMIN_FILTER)
+    Page<AdminProductView> findAdminViews(@Param("name") String name,
+                                          @Param("category") String category,
+                                          @Param("sellerId") Long sellerId,
+                                          @Param("createdFrom") LocalDateTime createdFrom,
+                                          @Param("createdTo") LocalDateTime createdTo,
+                                          Pageable pageable);
+
+    /**
+     * {@link #findAdminViews} without the count query.
+     */
+    @Query(ADMIN_VIEW + ADMIN_FILTER)
+    Slice<AdminProductView> findAdminViewSlice(@Param("name") String name,
+                                               @Param("category") String category,
+                                               @Param("sellerId") Long sellerId,
+                                               @Param("createdFrom") LocalDateTime createdFrom,
+                                               @Param("createdTo") LocalDateTime createdTo,
+                                               Pageable pageable);
 }
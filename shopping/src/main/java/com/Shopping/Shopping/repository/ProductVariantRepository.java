@@ -1,10 +1,14 @@
 package com.Shopping.Shopping.repository;
 
+import com.Shopping.Shopping.dto.VariantPriceView;
 import com.Shopping.Shopping.model.Product;
 import com.Shopping.Shopping.model.ProductVariant;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -12,4 +16,12 @@ public interface ProductVariantRepository extends JpaRepository<ProductVariant,
     List<ProductVariant> findByProduct(Product product);
     List<ProductVariant> findByProductAndVariantType(Product product, String variantType);
     void deleteByProduct(Product product);
+
+    @Query("SELECT new com.Shopping.Shopping.dto.VariantPriceView(v.id, v.product.id, v.variantValue, v.priceModifier) " +
+           "FROM ProductVariant v WHERE v.id IN :ids")
+    List<VariantPriceView> findPriceViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.Shopping.Shopping.dto.VariantPriceView(v.id, v.product.id, v.variantValue, v.priceModifier) " +
+           "FROM ProductVariant v WHERE v.product.id IN :productIds")
+    List<VariantPriceView> findPriceViewsByProductIdIn(@Param("productIds") Collection<Long> productIds);
 }
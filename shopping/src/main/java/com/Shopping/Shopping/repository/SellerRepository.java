@@ -1,11 +1,60 @@
 package com.Shopping.Shopping.repository;
 
+import com.Shopping.Shopping.dto.AdminSellerView;
 import com.Shopping.Shopping.model.Seller;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface SellerRepository extends JpaRepository<Seller, Long> {
     Optional<Seller> findByUsername(String username);
     Optional<Seller> findByEmail(String email);
+    boolean existsByUsername(String username);
+    boolean existsByEmail(String email);
+
+    @Query("SELECT s.id FROM Seller s WHERE s.username = :username")
+    Optional<Long> findIdByUsername(@Param("username") String username);
+
+    @Query("SELECT s.username FROM Seller s WHERE s.username IS NOT NULL")
+    List<String> findAllUsernames();
+
+    @Query("SELECT s.email FROM Seller s WHERE s.email IS NOT NULL")
+    List<String> findAllEmails();
+
+    String ADMIN_VIEW = "SELECT new com.Shopping.Shopping.dto.AdminSellerView(" +
+        "s.id, s.username, s.email, s.whatsappNumber, s.businessEmail, s.gstNumber, s.createdAt) " +
+        "FROM Seller s ";
+
+    String ADMIN_FILTER = "WHERE (:username IS NULL OR LOWER(s.username) LIKE :username ESCAPE '!') " +
+        "AND (:email IS NULL OR LOWER(s.email) LIKE :email ESCAPE '!') " +
+        "AND (:createdFrom IS NULL OR s.createdAt >= :createdFrom) " +
+        "AND (:createdTo IS NULL OR s.createdAt < :createdTo)";
+
+    /**
+     * Admin listing page with its totals. Text filters are lower-case LIKE patterns escaped with '!',
+     * createdTo is exclusive and a null filter matches everything.
+     */
+    @Query(value = ADMIN_VIEW + ADMIN_FILTER, countQuery = "SELECT COUNT(s) FROM Seller s " + ADMIN_FILTER)
+    Page<AdminSellerView> findAdminViews(@Param("username") String username,
+                                         @Param("email") String email,
+                                         @Param("createdFrom") LocalDateTime createdFrom,
+                                         @Param("createdTo") LocalDateTime createdTo,
+                                         Pageable pageable);
+
+    /**
+     * {@link #findAdminViews} without the count query.
+     */
+    @Query(ADMIN_VIEW + ADMIN_FILTER)
+    Slice<AdminSellerView> findAdminViewSlice(@Param("username") String username,
+                                              @Param("email") String email,
+                                              @Param("createdFrom") LocalDateTime createdFrom,
+                                              @Param("createdTo") LocalDateTime createdTo,
+                                              Pageable pageable);
 }
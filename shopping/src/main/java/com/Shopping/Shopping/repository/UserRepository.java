@@ -1,12 +1,61 @@
 package com.Shopping.Shopping.repository;
 
 
+import com.Shopping.Shopping.dto.AdminUserView;
 import com.Shopping.Shopping.model.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
-}
\ No newline at end of file
+    boolean existsByUsername(String username);
+    boolean existsByEmail(String email);
+
+    @Query("SELECT u.id FROM User u WHERE u.username = :username")
+    Optional<Long> findIdByUsername(@Param("username") String username);
+
+    @Query("SELECT u.username FROM User u WHERE u.username IS NOT NULL")
+    List<String> findAllUsernames();
+
+    @Query("SELECT u.email FROM User u WHERE u.email IS NOT NULL")
+    List<String> findAllEmails();
+
+    String ADMIN_VIEW = "SELECT new com.Shopping.Shopping.dto.AdminUserView(" +
+        "u.id, u.username, u.email, u.phoneNumber, u.createdAt) " +
+        "FROM User u ";
+
+    String ADMIN_FILTER = "WHERE (:username IS NULL OR LOWER(u.username) LIKE :username ESCAPE '!') " +
+        "AND (:email IS NULL OR LOWER(u.email) LIKE :email ESCAPE '!') " +
+        "AND (:createdFrom IS NULL OR u.createdAt >= :createdFrom) " +
+        "AND (:createdTo IS NULL OR u.createdAt < :createdTo)";
+
+    /**
+     * Admin listing page with its totals. Text filters are lower-case LIKE patterns escaped with '!',
+     * createdTo is exclusive and a null filter matches everything.
+     */
+    @Query(value = ADMIN_VIEW + ADMIN_FILTER, countQuery = "SELECT COUNT(u) FROM User u " + ADMIN_FILTER)
+    Page<AdminUserView> findAdminViews(@Param("username") String username,
+                                       @Param("email") String email,
+                                       @Param("createdFrom") LocalDateTime createdFrom,
+                                       @Param("createdTo") LocalDateTime createdTo,
+                                       Pageable pageable);
+
+    /**
+     * {@link #findAdminViews} without the count query.
+     */
+    @Query(ADMIN_VIEW + ADMIN_FILTER)
+    Slice<AdminUserView> findAdminViewSlice(@Param("username") String username,
+                                            @Param("email") String email,
+                                            @Param("createdFrom") LocalDateTime createdFrom,
+                                            @Param("createdTo") LocalDateTime createdTo,
+                                            Pageable pageable);
+}
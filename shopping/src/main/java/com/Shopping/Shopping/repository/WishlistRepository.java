@@ -3,15 +3,25 @@ package com.Shopping.Shopping.repository;
 import com.Shopping.Shopping.model.Wishlist;
 import com.Shopping.Shopping.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface WishlistRepository extends JpaRepository<Wishlist, Long> {
+public interface WishlistRepository extends JpaRepository<Wishlist, Long>, WishlistRepositoryCustom {
     List<Wishlist> findByUser(User user);
     Optional<Wishlist> findByUserAndProductId(User user, Long productId);
     boolean existsByUserAndProductId(User user, Long productId);
     void deleteByUserAndProductId(User user, Long productId);
+
+    @Query("SELECT w.product.id FROM Wishlist w WHERE w.user.username = :username")
+    List<Long> findProductIdsByUsername(@Param("username") String username);
+
+    @Modifying
+    @Query("DELETE FROM Wishlist w WHERE w.user.id = :userId AND w.product.id = :productId")
+    int deleteLine(@Param("userId") Long userId, @Param("productId") Long productId);
 }
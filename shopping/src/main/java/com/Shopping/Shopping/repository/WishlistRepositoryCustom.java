@@ -0,0 +1,14 @@
+package com.Shopping.Shopping.repository;
+
+/**
+ * Atomic wishlist writes that need native SQL, mixed into {@link WishlistRepository}.
+ */
+public interface WishlistRepositoryCustom {
+
+    /**
+     * Adds the product to the user's wishlist unless it is already there.
+     * One statement, safe against concurrent adds thanks to the unique (user_id, product_id) constraint.
+     * @return true if a line was inserted, false if the product was already wishlisted
+     */
+    boolean addIfAbsent(Long userId, Long productId);
+}
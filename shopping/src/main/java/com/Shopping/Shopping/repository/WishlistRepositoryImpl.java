@@ -0,0 +1,57 @@
+package com.Shopping.Shopping.repository;
+
+import com.Shopping.Shopping.config.DatabaseDialect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Insert-if-absent for {@link WishlistRepositoryCustom}.
+ *
+ * PostgreSQL skips a line inserted concurrently inside ON CONFLICT DO NOTHING. H2's MERGE can still
+ * lose the race and fail on the unique constraint; the line exists by then, so the add is reported
+ * as already present.
+ *
+ * New lines take their id from wishlist_seq, like the ones Hibernate inserts.
+ */
+public class WishlistRepositoryImpl implements WishlistRepositoryCustom {
+
+    private static final Logger logger = LoggerFactory.getLogger(WishlistRepositoryImpl.class);
+
+    static final String POSTGRES_INSERT =
+        "INSERT INTO wishlist (id, user_id, product_id) VALUES (nextval('wishlist_seq'), ?, ?) " +
+        "ON CONFLICT (user_id, product_id) DO NOTHING";
+
+    static final String MERGE_INSERT =
+        "MERGE INTO wishlist w USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT))) " +
+        "AS s (user_id, product_id) ON w.user_id = s.user_id AND w.product_id = s.product_id " +
+        "WHEN NOT MATCHED THEN INSERT (id, user_id, product_id) " +
+        "VALUES (nextval('wishlist_seq'), s.user_id, s.product_id)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile String insertSql;
+
+    public WishlistRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public boolean addIfAbsent(Long userId, Long productId) {
+        try {
+            return jdbcTemplate.update(insertSql(), userId, productId) > 0;
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Concurrent insert of wishlist line user={} product={}", userId, productId);
+            return false;
+        }
+    }
+
+    private String insertSql() {
+        String sql = insertSql;
+        if (sql == null) {
+            sql = DatabaseDialect.detect(jdbcTemplate) == DatabaseDialect.POSTGRESQL ? POSTGRES_INSERT : MERGE_INSERT;
+            insertSql = sql;
+        }
+        return sql;
+    }
+}
@@ -1,5 +1,6 @@
 package com.Shopping.Shopping.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,189 +9,121 @@ import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import java.util.HashMap;
-import java.util.Map;
 
+/**
+ * Authenticates requests from the JWT access token.
+ *
+ * Only added to the Spring Security chains; the automatic servlet registration is switched off in
+ * SecurityConfig so the filter runs once per request. Public routes are skipped in shouldNotFilter.
+ */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    // Pre-serialized error bodies - rejected calls do no JSON work
+    private static final byte[] TOKEN_MISSING = errorBody("JWT token is missing");
+    private static final byte[] TOKEN_INVALID = errorBody("Invalid or expired JWT token");
+    private static final byte[] TOKEN_REVOKED = errorBody("Token has been revoked");
+    private static final byte[] TOKEN_VALIDATION_FAILED = errorBody("JWT token validation failed");
+
+    private static final String ROUTE_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".route";
+
     private final JwtTokenProvider tokenProvider;
-    private final UserDetailsService userDetailsService;
-    private final com.Shopping.Shopping.service.SellerDetailsService sellerDetailsService;
-    private final com.Shopping.Shopping.service.AdminDetailsService adminDetailsService;
-
-    public JwtAuthenticationFilter(
-            JwtTokenProvider tokenProvider,
-            @Qualifier("userDetailsServiceImpl") UserDetailsService userDetailsService,
-            com.Shopping.Shopping.service.SellerDetailsService sellerDetailsService,
-            com.Shopping.Shopping.service.AdminDetailsService adminDetailsService) {
+    private final TokenRevocationService revocationService;
+    private final RouteClassifier routeClassifier;
+
+    public JwtAuthenticationFilter(JwtTokenProvider tokenProvider,
+                                   TokenRevocationService revocationService,
+                                   RouteClassifier routeClassifier) {
         this.tokenProvider = tokenProvider;
-        this.userDetailsService = userDetailsService;
-        this.sellerDetailsService = sellerDetailsService;
-        this.adminDetailsService = adminDetailsService;
+        this.revocationService = revocationService;
+        this.routeClassifier = routeClassifier;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        RouteClassifier.Route route = routeClassifier.classify(request.getRequestURI());
+        request.setAttribute(ROUTE_ATTRIBUTE, route);
+        return route.isPublic();
     }
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain)
             throws ServletException, IOException {
 
-        String requestPath = request.getRequestURI();
-
-        // Skip JWT validation for public endpoints
-        if (requestPath.startsWith("/api/v1/products") ||
-            requestPath.startsWith("/api/v1/auth/signup") ||
-            requestPath.startsWith("/api/v1/auth/login") ||
-            requestPath.startsWith("/api/v1/seller/signup") ||
-            requestPath.startsWith("/api/v1/seller/login") ||
-            requestPath.startsWith("/api/v1/admin/login") ||
-            requestPath.startsWith("/product-image/") ||
-            requestPath.startsWith("/h2-console/") ||
-            requestPath.startsWith("/uploads/") ||
-            requestPath.startsWith("/css/") ||
-            requestPath.startsWith("/js/") ||
-            requestPath.startsWith("/images/")) {
-            filterChain.doFilter(request, response);
+        RouteClassifier.Route route = (RouteClassifier.Route) request.getAttribute(ROUTE_ATTRIBUTE);
+        if (route == null) {
+            route = routeClassifier.classify(request.getRequestURI());
+        }
+
+        byte[] error = authenticate(request);
+        if (error != null) {
+            reject(response, route, error);
             return;
         }
 
+        // Downstream failures are not authentication failures, so they propagate normally
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Verifies the token and populates the security context.
+     * @return the error body to send, or null when the request is authenticated
+     */
+    private byte[] authenticate(HttpServletRequest request) {
+        String jwt = getJwtFromRequest(request);
+        if (jwt == null || jwt.trim().isEmpty()) {
+            return TOKEN_MISSING;
+        }
+
         try {
-            String jwt = getJwtFromRequest(request);
-
-            // If no token provided, handle based on request type
-            if (jwt == null || jwt.trim().isEmpty()) {
-                // For API endpoints, return JSON error
-                if (requestPath.startsWith("/api/")) {
-                    sendUnauthorizedResponse(response, "JWT token is missing");
-                } else {
-                    // For web pages, redirect to appropriate login page
-                    if (requestPath.startsWith("/admin")) {
-                        sendUnauthorizedRedirect(response, "/admin-login");
-                    } else if (requestPath.startsWith("/seller")) {
-                        sendUnauthorizedRedirect(response, "/seller-login");
-                    } else {
-                        sendUnauthorizedRedirect(response, "/login");
-                    }
-                }
-                return;
+            // Verify signature and expiration once, then authenticate from the claims alone
+            Claims claims = tokenProvider.parseAccessToken(jwt);
+            if (claims == null || claims.getSubject() == null || claims.get("authorities") == null) {
+                return TOKEN_INVALID;
             }
 
-            // Validate token structure first (signature and expiration)
-            if (!tokenProvider.validateTokenStructure(jwt)) {
-                if (requestPath.startsWith("/api/")) {
-                    sendUnauthorizedResponse(response, "Invalid or expired JWT token");
-                } else {
-                    if (requestPath.startsWith("/admin")) {
-                        sendUnauthorizedRedirect(response, "/admin-login");
-                    } else if (requestPath.startsWith("/seller")) {
-                        sendUnauthorizedRedirect(response, "/seller-login");
-                    } else {
-                        sendUnauthorizedRedirect(response, "/login");
-                    }
-                }
-                return;
+            String username = claims.getSubject();
+            @SuppressWarnings("unchecked")
+            List<String> authorities = (List<String>) claims.get("authorities");
+            long issuedAt = claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0L;
+
+            // In-memory revocation check (logout, refresh rotation, deleted accounts) - no database access
+            if (revocationService.isRevoked(claims.getId(), username,
+                    TokenRevocationService.primaryRole(authorities), issuedAt)) {
+                return TOKEN_REVOKED;
             }
 
-            String username = tokenProvider.getUsernameFromToken(jwt);
-            @SuppressWarnings("unchecked")
-            List<String> authorities = tokenProvider.getClaimFromToken(jwt, claims -> 
-                (List<String>) claims.get("authorities"));
-
-            // Determine which UserDetailsService to use based on authorities
-            UserDetails userDetails = null;
-            try {
-                if (authorities != null) {
-                    if (authorities.contains("ROLE_ADMIN")) {
-                        userDetails = adminDetailsService.loadUserByUsername(username);
-                    } else if (authorities.contains("ROLE_SELLER")) {
-                        userDetails = sellerDetailsService.loadUserByUsername(username);
-                    } else {
-                        userDetails = userDetailsService.loadUserByUsername(username);
-                    }
-                } else {
-                    // Fallback: try all services
-                    try {
-                        userDetails = adminDetailsService.loadUserByUsername(username);
-                    } catch (Exception e) {
-                        try {
-                            userDetails = sellerDetailsService.loadUserByUsername(username);
-                        } catch (Exception e2) {
-                            userDetails = userDetailsService.loadUserByUsername(username);
-                        }
-                    }
-                }
-
-                if (userDetails != null && tokenProvider.validateToken(jwt, userDetails)) {
-                    List<SimpleGrantedAuthority> grantedAuthorities = authorities != null ?
-                        authorities.stream()
-                            .map(SimpleGrantedAuthority::new)
-                            .collect(Collectors.toList()) :
-                        userDetails.getAuthorities().stream()
-                            .map(auth -> new SimpleGrantedAuthority(auth.getAuthority()))
-                            .collect(Collectors.toList());
-
-                    UsernamePasswordAuthenticationToken authentication =
-                            new UsernamePasswordAuthenticationToken(
-                                    userDetails,
-                                    null,
-                                    grantedAuthorities);
-
-                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
-                    
-                    // Continue with the filter chain
-                    filterChain.doFilter(request, response);
-                } else {
-                    if (requestPath.startsWith("/api/")) {
-                        sendUnauthorizedResponse(response, "Invalid token or user not found");
-                    } else {
-                        if (requestPath.startsWith("/admin")) {
-                            sendUnauthorizedRedirect(response, "/admin-login");
-                        } else if (requestPath.startsWith("/seller")) {
-                            sendUnauthorizedRedirect(response, "/seller-login");
-                        } else {
-                            sendUnauthorizedRedirect(response, "/login");
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                logger.error("Error loading user details", e);
-                if (requestPath.startsWith("/api/")) {
-                    sendUnauthorizedResponse(response, "Authentication failed: " + e.getMessage());
-                } else {
-                    if (requestPath.startsWith("/admin")) {
-                        sendUnauthorizedRedirect(response, "/admin-login");
-                    } else if (requestPath.startsWith("/seller")) {
-                        sendUnauthorizedRedirect(response, "/seller-login");
-                    } else {
-                        sendUnauthorizedRedirect(response, "/login");
-                    }
-                }
+            List<SimpleGrantedAuthority> grantedAuthorities = new ArrayList<>(authorities.size());
+            for (String authority : authorities) {
+                grantedAuthorities.add(new SimpleGrantedAuthority(authority));
             }
+            UserDetails userDetails = User.withUsername(username)
+                .password("")
+                .authorities(grantedAuthorities)
+                .build();
+
+            UsernamePasswordAuthenticationToken authentication =
+                    new UsernamePasswordAuthenticationToken(
+                            userDetails,
+                            null,
+                            grantedAuthorities);
+
+            authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+            return null;
         } catch (Exception e) {
             logger.error("JWT authentication error", e);
-            if (requestPath.startsWith("/api/")) {
-                sendUnauthorizedResponse(response, "JWT token validation failed");
-            } else {
-                if (requestPath.startsWith("/admin")) {
-                    sendUnauthorizedRedirect(response, "/admin-login");
-                } else if (requestPath.startsWith("/seller")) {
-                    sendUnauthorizedRedirect(response, "/seller-login");
-                } else {
-                    sendUnauthorizedRedirect(response, "/login");
-                }
-            }
+            return TOKEN_VALIDATION_FAILED;
         }
     }
 
@@ -202,23 +135,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         return null;
     }
 
+    private void reject(HttpServletResponse response, RouteClassifier.Route route, byte[] body) throws IOException {
+        if (route.isApi()) {
+            sendUnauthorizedResponse(response, body);
+        } else {
+            sendUnauthorizedRedirect(response, route.getLoginPage() != null ? route.getLoginPage() : "/login");
+        }
+    }
 
-    private void sendUnauthorizedResponse(HttpServletResponse response, String message) throws IOException {
+    private void sendUnauthorizedResponse(HttpServletResponse response, byte[] body) throws IOException {
         response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
-
-        Map<String, Object> errorResponse = new HashMap<>();
-        errorResponse.put("success", false);
-        errorResponse.put("message", message);
-        errorResponse.put("data", null);
-
-        ObjectMapper mapper = new ObjectMapper();
-        String jsonResponse = mapper.writeValueAsString(errorResponse);
-
-        PrintWriter writer = response.getWriter();
-        writer.write(jsonResponse);
-        writer.flush();
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+        response.flushBuffer();
     }
 
     private void sendUnauthorizedRedirect(HttpServletResponse response, String loginPage) throws IOException {
@@ -226,4 +157,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
         response.sendRedirect(loginPage + "?error=Please login to access this page");
     }
+
+    private static byte[] errorBody(String message) {
+        return ("{\"success\":false,\"message\":\"" + message + "\",\"data\":null}").getBytes(StandardCharsets.UTF_8);
+    }
 }
@@ -1,6 +1,7 @@
 package com.Shopping.Shopping.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -13,36 +14,78 @@ import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Component
 public class JwtTokenProvider {
 
+    public static final String TOKEN_TYPE_CLAIM = "type";
+    public static final String ACCESS_TOKEN = "access";
+    public static final String REFRESH_TOKEN = "refresh";
+
     @Value("${jwt.secret:HSK_Shopping_Secret_Key_For_JWT_Token_Generation_2024_AdisheshaR}")
     private String jwtSecret;
 
-    @Value("${jwt.expiration:86400000}") // 24 hours in milliseconds
+    @Value("${jwt.expiration:900000}") // 15 minutes in milliseconds
     private long jwtExpiration;
 
+    @Value("${jwt.refresh-expiration:604800000}") // 7 days in milliseconds
+    private long refreshExpiration;
+
+    private volatile SecretKey signingKey;
+    private volatile JwtParser parser;
+
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        SecretKey key = signingKey;
+        if (key == null) {
+            key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+            signingKey = key;
+        }
+        return key;
+    }
+
+    private JwtParser getParser() {
+        JwtParser current = parser;
+        if (current == null) {
+            current = Jwts.parser().verifyWith(getSigningKey()).build();
+            parser = current;
+        }
+        return current;
     }
 
+    /**
+     * Short-lived access token carrying the authorities, so requests can be authenticated from the token alone.
+     */
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("authorities", userDetails.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.toList()));
-        return createToken(claims, userDetails.getUsername());
+        claims.put(TOKEN_TYPE_CLAIM, ACCESS_TOKEN);
+        return createToken(claims, userDetails.getUsername(), jwtExpiration);
     }
 
-    private String createToken(Map<String, Object> claims, String subject) {
+    /**
+     * Long-lived refresh token. Only accepted by the refresh endpoint and rotated on every use.
+     */
+    public String generateRefreshToken(UserDetails userDetails) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("authorities", userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList()));
+        claims.put(TOKEN_TYPE_CLAIM, REFRESH_TOKEN);
+        return createToken(claims, userDetails.getUsername(), refreshExpiration);
+    }
+
+    private String createToken(Map<String, Object> claims, String subject, long validityMillis) {
         Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + jwtExpiration);
+        Date expiryDate = new Date(now.getTime() + validityMillis);
 
         return Jwts.builder()
                 .claims(claims)
+                .id(UUID.randomUUID().toString())
                 .subject(subject)
                 .issuedAt(now)
                 .expiration(expiryDate)
@@ -50,6 +93,50 @@ public class JwtTokenProvider {
                 .compact();
     }
 
+    public long getAccessTokenExpiration() {
+        return jwtExpiration;
+    }
+
+    public long getRefreshTokenExpiration() {
+        return refreshExpiration;
+    }
+
+    /**
+     * Parses and verifies an access token in one pass.
+     * Tokens issued before the type claim existed are treated as access tokens.
+     * @return the claims, or null if the token is malformed, expired, badly signed or a refresh token
+     */
+    public Claims parseAccessToken(String token) {
+        Claims claims = parseClaims(token);
+        if (claims == null || REFRESH_TOKEN.equals(claims.get(TOKEN_TYPE_CLAIM))) {
+            return null;
+        }
+        return claims;
+    }
+
+    /**
+     * @return the claims of a valid refresh token, or null
+     */
+    public Claims parseRefreshToken(String token) {
+        Claims claims = parseClaims(token);
+        if (claims == null || !REFRESH_TOKEN.equals(claims.get(TOKEN_TYPE_CLAIM))) {
+            return null;
+        }
+        return claims;
+    }
+
+    private Claims parseClaims(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            // Signature and expiration are both checked by the parser
+            return getParser().parseSignedClaims(token).getPayload();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
     public String getUsernameFromToken(String token) {
         return getClaimFromToken(token, Claims::getSubject);
     }
@@ -64,9 +151,7 @@ public class JwtTokenProvider {
     }
 
     private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
+        return getParser()
                 .parseSignedClaims(token)
                 .getPayload();
     }
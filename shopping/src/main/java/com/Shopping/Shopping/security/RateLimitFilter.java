@@ -0,0 +1,168 @@
+package com.Shopping.Shopping.security;
+
+import com.Shopping.Shopping.service.MetricsService;
+import com.Shopping.Shopping.util.TokenBucket;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-IP and per-principal token buckets for the expensive or abuse-prone routes
+ * (logins, product search, seller product uploads).
+ *
+ * Registered after the Spring Security filter chain so the authenticated principal is known.
+ * Requests outside the limited route groups are not filtered at all.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    public enum RouteGroup {
+        LOGIN, SEARCH, UPLOAD
+    }
+
+    /**
+     * Bucket size and refill rate for one route group.
+     */
+    public record Limit(int capacity, int refillPerMinute) {
+        long intervalNanos() {
+            return TimeUnit.MINUTES.toNanos(1) / Math.max(refillPerMinute, 1);
+        }
+    }
+
+    private final Map<RouteGroup, Limit> limits;
+    private final boolean trustForwardedFor;
+    private final long idleNanos;
+    private final MetricsService metricsService;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    public RateLimitFilter(Map<RouteGroup, Limit> limits, boolean trustForwardedFor,
+                           long idleMillis, MetricsService metricsService) {
+        this.limits = new EnumMap<>(limits);
+        this.trustForwardedFor = trustForwardedFor;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        this.metricsService = metricsService;
+        metricsService.registerGauge("ratelimit.buckets", buckets::size);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        RouteGroup group = classify(request.getMethod(), request.getRequestURI());
+        return group == null || !limits.containsKey(group);
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        RouteGroup group = classify(request.getMethod(), request.getRequestURI());
+        Limit limit = limits.get(group);
+        long now = System.nanoTime();
+
+        // The principal's bucket goes first: a request it rejects must not spend the tokens of an IP
+        // that other clients may share
+        long wait = 0;
+        String principal = currentPrincipal();
+        if (principal != null) {
+            wait = acquire(group, limit, "user:" + principal, now);
+        }
+        if (wait == 0) {
+            wait = acquire(group, limit, "ip:" + clientIp(request), now);
+        }
+
+        String metric = "ratelimit." + group.name().toLowerCase();
+        if (wait > 0) {
+            metricsService.increment(metric + ".rejected");
+            sendTooManyRequests(response, wait);
+            return;
+        }
+        metricsService.increment(metric + ".allowed");
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Drops buckets that have refilled completely and stayed unused, bounding memory to active clients.
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.sweep-interval:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.isIdle(now, idleNanos));
+        if (before != buckets.size()) {
+            log.debug("Evicted {} idle rate limit buckets", before - buckets.size());
+        }
+    }
+
+    static RouteGroup classify(String method, String path) {
+        if ("POST".equals(method)) {
+            if (path.equals("/api/v1/auth/login")
+                    || path.equals("/api/v1/seller/login")
+                    || path.equals("/api/v1/admin/login")) {
+                return RouteGroup.LOGIN;
+            }
+            if (path.startsWith("/api/v1/seller/products")) {
+                return RouteGroup.UPLOAD;
+            }
+        } else if ("GET".equals(method)) {
+            // Availability checks are cheap but would otherwise allow bulk account enumeration
+            if (path.startsWith("/api/v1/products/search") || path.equals("/api/v1/auth/available")) {
+                return RouteGroup.SEARCH;
+            }
+        } else if (("PUT".equals(method) || "PATCH".equals(method))
+                && path.startsWith("/api/v1/seller/products/")) {
+            return RouteGroup.UPLOAD;
+        }
+        return null;
+    }
+
+    private long acquire(RouteGroup group, Limit limit, String key, long now) {
+        TokenBucket bucket = buckets.computeIfAbsent(group.name() + '|' + key,
+            k -> new TokenBucket(limit.capacity(), limit.intervalNanos(), now));
+        return bucket.tryAcquire(now);
+    }
+
+    private String clientIp(HttpServletRequest request) {
+        if (trustForwardedFor) {
+            String forwarded = request.getHeader("X-Forwarded-For");
+            if (forwarded != null && !forwarded.isBlank()) {
+                // The right-most entry was appended by our own proxy; earlier ones are client-controlled
+                int comma = forwarded.lastIndexOf(',');
+                return forwarded.substring(comma + 1).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    private void sendTooManyRequests(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+        response.setStatus(429);
+        response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write("{\"success\":false,\"message\":\"Too many requests - retry after "
+            + retryAfterSeconds + " seconds\",\"data\":null}");
+    }
+}
@@ -0,0 +1,118 @@
+package com.Shopping.Shopping.security;
+
+import com.Shopping.Shopping.service.AdminDetailsService;
+import com.Shopping.Shopping.service.SellerDetailsService;
+import com.Shopping.Shopping.service.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Issues access/refresh token pairs and rotates refresh tokens.
+ * Account lookups happen here (on login and refresh) instead of on every authenticated request.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private final JwtTokenProvider tokenProvider;
+    private final TokenRevocationService revocationService;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final SellerDetailsService sellerDetailsService;
+    private final AdminDetailsService adminDetailsService;
+
+    public RefreshTokenService(JwtTokenProvider tokenProvider,
+                               TokenRevocationService revocationService,
+                               UserDetailsServiceImpl userDetailsService,
+                               SellerDetailsService sellerDetailsService,
+                               AdminDetailsService adminDetailsService) {
+        this.tokenProvider = tokenProvider;
+        this.revocationService = revocationService;
+        this.userDetailsService = userDetailsService;
+        this.sellerDetailsService = sellerDetailsService;
+        this.adminDetailsService = adminDetailsService;
+    }
+
+    public TokenPair issueTokens(UserDetails userDetails) {
+        return new TokenPair(
+            tokenProvider.generateToken(userDetails),
+            tokenProvider.generateRefreshToken(userDetails),
+            tokenProvider.getAccessTokenExpiration() / 1000);
+    }
+
+    /**
+     * Exchanges a refresh token for a new pair and revokes the presented one.
+     * Presenting an already-rotated refresh token is treated as theft and revokes every token of the subject.
+     * @throws BadCredentialsException if the token is invalid, revoked or the account no longer exists
+     */
+    public TokenPair rotate(String refreshToken) {
+        Claims claims = tokenProvider.parseRefreshToken(refreshToken);
+        if (claims == null) {
+            throw new BadCredentialsException("Invalid or expired refresh token");
+        }
+
+        String username = claims.getSubject();
+        String role = TokenRevocationService.primaryRole(authoritiesOf(claims));
+        long issuedAt = claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0L;
+
+        if (revocationService.isRevoked(claims.getId(), username, role, issuedAt)
+                || !revocationService.revokeToken(claims.getId(), claims.getExpiration().getTime())) {
+            logger.warn("Refresh token reuse detected for {} - revoking all tokens", username);
+            revocationService.revokeSubject(username, role, tokenProvider.getRefreshTokenExpiration());
+            throw new BadCredentialsException("Refresh token has been revoked");
+        }
+
+        // Off the hot path, so confirm the account still exists before issuing new tokens
+        UserDetails userDetails = loadAccount(username, role);
+        return issueTokens(userDetails);
+    }
+
+    /**
+     * Revokes the given tokens. Invalid or expired tokens are ignored since they are unusable anyway.
+     */
+    public void logout(String accessToken, String refreshToken) {
+        Claims access = tokenProvider.parseAccessToken(accessToken);
+        if (access != null) {
+            revocationService.revokeToken(access.getId(), access.getExpiration().getTime());
+        }
+        Claims refresh = tokenProvider.parseRefreshToken(refreshToken);
+        if (refresh != null) {
+            revocationService.revokeToken(refresh.getId(), refresh.getExpiration().getTime());
+        }
+    }
+
+    /**
+     * Invalidates every outstanding token of an account, e.g. when an admin deletes it.
+     */
+    public void revokeAllTokens(String username, String role) {
+        revocationService.revokeSubject(username, role, tokenProvider.getRefreshTokenExpiration());
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<String> authoritiesOf(Claims claims) {
+        return (List<String>) claims.get("authorities");
+    }
+
+    private UserDetails loadAccount(String username, String role) {
+        if ("ROLE_ADMIN".equals(role)) {
+            return adminDetailsService.loadUserByUsername(username);
+        } else if ("ROLE_SELLER".equals(role)) {
+            return sellerDetailsService.loadUserByUsername(username);
+        }
+        return userDetailsService.loadUserByUsername(username);
+    }
+
+    @lombok.Data
+    @lombok.AllArgsConstructor
+    public static class TokenPair {
+        private String accessToken;
+        private String refreshToken;
+        private long expiresIn; // seconds until the access token expires
+    }
+}
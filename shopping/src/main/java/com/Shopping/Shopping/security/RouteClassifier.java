@@ -0,0 +1,138 @@
+package com.Shopping.Shopping.security;
+
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps a request path to its access class in one walk over the path segments.
+ *
+ * The rules are compiled once into a segment trie at startup. Exact rules win over prefix rules,
+ * and the longest matching prefix wins over shorter ones. Keep the rules in step with the
+ * authorizeHttpRequests matchers in SecurityConfig.
+ */
+@Component
+public class RouteClassifier {
+
+    public enum Route {
+        PUBLIC(false, null, null),
+        API_AUTHENTICATED(true, null, null),
+        API_USER(true, "ROLE_USER", null),
+        API_SELLER(true, "ROLE_SELLER", null),
+        API_ADMIN(true, "ROLE_ADMIN", null),
+        ADMIN_PAGE(false, "ROLE_ADMIN", "/admin-login"),
+        SELLER_PAGE(false, "ROLE_SELLER", "/seller-login"),
+        PAGE(false, null, "/login");
+
+        private final boolean api;
+        private final String requiredRole;
+        private final String loginPage;
+
+        Route(boolean api, String requiredRole, String loginPage) {
+            this.api = api;
+            this.requiredRole = requiredRole;
+            this.loginPage = loginPage;
+        }
+
+        public boolean isPublic() {
+            return this == PUBLIC;
+        }
+
+        public boolean isApi() {
+            return api;
+        }
+
+        public String getRequiredRole() {
+            return requiredRole;
+        }
+
+        public String getLoginPage() {
+            return loginPage;
+        }
+    }
+
+    private final Node root = new Node();
+
+    public RouteClassifier() {
+        // Public endpoints
+        prefix("/api/v1/products", Route.PUBLIC);
+        exact("/api/v1/auth/signup", Route.PUBLIC);
+        exact("/api/v1/auth/login", Route.PUBLIC);
+        exact("/api/v1/auth/refresh", Route.PUBLIC);
+        exact("/api/v1/auth/logout", Route.PUBLIC);
+        exact("/api/v1/auth/available", Route.PUBLIC);
+        exact("/api/v1/seller/signup", Route.PUBLIC);
+        exact("/api/v1/seller/login", Route.PUBLIC);
+        exact("/api/v1/admin/login", Route.PUBLIC);
+        prefix("/product-image", Route.PUBLIC);
+        prefix("/h2-console", Route.PUBLIC);
+        prefix("/uploads", Route.PUBLIC);
+        prefix("/css", Route.PUBLIC);
+        prefix("/js", Route.PUBLIC);
+        prefix("/images", Route.PUBLIC);
+
+        // Role-protected API
+        prefix("/api", Route.API_AUTHENTICATED);
+        prefix("/api/v1/user", Route.API_USER);
+        prefix("/api/v1/cart", Route.API_USER);
+        prefix("/api/v1/wishlist", Route.API_USER);
+        prefix("/api/v1/payment", Route.API_USER);
+        prefix("/api/v1/seller", Route.API_SELLER);
+        prefix("/api/v1/admin", Route.API_ADMIN);
+
+        // Legacy web pages
+        prefix("/admin", Route.ADMIN_PAGE);
+        prefix("/seller", Route.SELLER_PAGE);
+    }
+
+    public Route classify(String path) {
+        Node node = root;
+        Route match = Route.PAGE;
+        int length = path.length();
+        int start = 0;
+        while (start < length) {
+            if (path.charAt(start) == '/') {
+                start++;
+                continue;
+            }
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            node = node.children.get(path.substring(start, end));
+            if (node == null) {
+                return match;
+            }
+            if (node.prefixRoute != null) {
+                match = node.prefixRoute;
+            }
+            start = end;
+        }
+        return node.exactRoute != null ? node.exactRoute : match;
+    }
+
+    private void exact(String path, Route route) {
+        node(path).exactRoute = route;
+    }
+
+    private void prefix(String path, Route route) {
+        node(path).prefixRoute = route;
+    }
+
+    private Node node(String path) {
+        Node node = root;
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                node = node.children.computeIfAbsent(segment, key -> new Node());
+            }
+        }
+        return node;
+    }
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private Route exactRoute;
+        private Route prefixRoute;
+    }
+}
@@ -0,0 +1,165 @@
+package com.Shopping.Shopping.security;
+
+import com.Shopping.Shopping.model.RevokedToken;
+import com.Shopping.Shopping.repository.RevokedTokenRepository;
+import com.Shopping.Shopping.util.BloomFilter;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory revocation set for JWTs.
+ *
+ * Revoked token ids (jti) and revoked subjects are kept in an exact map that is written through
+ * to the revoked_tokens table and reloaded at startup. A Bloom filter sits in front of the map so
+ * the per-request check for a non-revoked token is a handful of bit lookups, with no database access.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+    private static final String TOKEN_PREFIX = "jti:";
+    private static final String SUBJECT_PREFIX = "sub:";
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+
+    // key -> {revokedAt, expiresAt} in epoch millis
+    private final Map<String, long[]> entries = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  @Value("${jwt.revocation.expected-entries:100000}") int expectedEntries,
+                                  @Value("${jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+    }
+
+    @PostConstruct
+    public void loadRevocations() {
+        long now = System.currentTimeMillis();
+        for (RevokedToken token : revokedTokenRepository.findByExpiresAtGreaterThan(now)) {
+            entries.put(token.getTokenKey(), new long[] {token.getRevokedAt(), token.getExpiresAt()});
+        }
+        rebuildFilter();
+        logger.info("Loaded {} active token revocations", entries.size());
+    }
+
+    /**
+     * Revoke a single token by its id.
+     * @return false if the token was already revoked (used to detect refresh token reuse)
+     */
+    public boolean revokeToken(String tokenId, long expiresAtMillis) {
+        if (tokenId == null) {
+            return false;
+        }
+        return revoke(TOKEN_PREFIX + tokenId, expiresAtMillis);
+    }
+
+    /**
+     * Revoke every token issued to the subject before the current second (logout everywhere,
+     * account deletion). JWT issued-at has second precision, so a token issued in the same second
+     * - e.g. by logging straight back in - stays valid.
+     * The entry only needs to outlive the longest-lived token that could still be presented.
+     */
+    public void revokeSubject(String username, String role, long retainForMillis) {
+        String key = subjectKey(username, role);
+        long now = System.currentTimeMillis();
+        long revokedAt = now - now % 1000;
+        long[] entry = {revokedAt, now + retainForMillis};
+        entries.put(key, entry);
+        filter.put(key);
+        revokedTokenRepository.save(new RevokedToken(key, revokedAt, entry[1]));
+        logger.info("Revoked all tokens for {} issued before {}", key, revokedAt);
+    }
+
+    /**
+     * Hot-path check. Only touches the exact map when the Bloom filter reports a possible hit.
+     */
+    public boolean isRevoked(String tokenId, String username, String role, long issuedAtMillis) {
+        BloomFilter current = filter;
+        if (tokenId != null) {
+            String key = TOKEN_PREFIX + tokenId;
+            if (current.mightContain(key) && entries.containsKey(key)) {
+                return true;
+            }
+        }
+        if (username != null) {
+            String key = subjectKey(username, role);
+            if (current.mightContain(key)) {
+                long[] entry = entries.get(key);
+                return entry != null && issuedAtMillis < entry[0];
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Expired entries can never match a valid token, so drop them and rebuild the filter
+     * (Bloom filters cannot delete).
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.sweep-interval:600000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        int before = entries.size();
+        entries.values().removeIf(entry -> entry[1] <= now);
+        rebuildFilter();
+        int deleted = revokedTokenRepository.deleteExpired(now);
+        if (before != entries.size() || deleted > 0) {
+            logger.info("Purged expired revocations - in memory: {}, database: {}", before - entries.size(), deleted);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private boolean revoke(String key, long expiresAtMillis) {
+        long now = System.currentTimeMillis();
+        if (entries.putIfAbsent(key, new long[] {now, expiresAtMillis}) != null) {
+            return false;
+        }
+        filter.put(key);
+        revokedTokenRepository.save(new RevokedToken(key, now, expiresAtMillis));
+        return true;
+    }
+
+    private void rebuildFilter() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, entries.size() * 2), falsePositiveRate);
+        entries.keySet().forEach(rebuilt::put);
+        filter = rebuilt;
+        // Keys added between the copy and the swap above must not be lost
+        entries.keySet().forEach(rebuilt::put);
+    }
+
+    /**
+     * Role used to scope subject revocations, since users, sellers and admins live in separate tables
+     * and may share a username.
+     */
+    public static String primaryRole(Collection<String> authorities) {
+        if (authorities == null) {
+            return null;
+        }
+        if (authorities.contains("ROLE_ADMIN")) {
+            return "ROLE_ADMIN";
+        }
+        if (authorities.contains("ROLE_SELLER")) {
+            return "ROLE_SELLER";
+        }
+        return "ROLE_USER";
+    }
+
+    private static String subjectKey(String username, String role) {
+        return SUBJECT_PREFIX + (role != null ? role : "") + ":" + username;
+    }
+}
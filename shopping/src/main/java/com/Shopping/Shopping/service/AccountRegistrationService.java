@@ -0,0 +1,180 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.model.Seller;
+import com.Shopping.Shopping.model.User;
+import com.Shopping.Shopping.repository.SellerRepository;
+import com.Shopping.Shopping.repository.UserRepository;
+import com.Shopping.Shopping.util.BloomFilter;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Single creation path for user and seller accounts.
+ *
+ * Uniqueness is enforced by the uk_*_username / uk_*_email constraints: signup is one INSERT, and a
+ * constraint violation is mapped back to the field that conflicted. Taken usernames and emails are
+ * mirrored into Bloom filters so availability checks for new names never reach the database.
+ */
+@Service
+public class AccountRegistrationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountRegistrationService.class);
+
+    public static final String FIELD_USERNAME = "username";
+    public static final String FIELD_EMAIL = "email";
+
+    private final UserRepository userRepository;
+    private final SellerRepository sellerRepository;
+
+    private final BloomFilter userUsernames;
+    private final BloomFilter userEmails;
+    private final BloomFilter sellerUsernames;
+    private final BloomFilter sellerEmails;
+
+    public AccountRegistrationService(UserRepository userRepository,
+                                      SellerRepository sellerRepository,
+                                      @Value("${signup.bloom.expected-entries:100000}") int expectedEntries,
+                                      @Value("${signup.bloom.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.sellerRepository = sellerRepository;
+        this.userUsernames = new BloomFilter(expectedEntries, falsePositiveRate);
+        this.userEmails = new BloomFilter(expectedEntries, falsePositiveRate);
+        this.sellerUsernames = new BloomFilter(expectedEntries, falsePositiveRate);
+        this.sellerEmails = new BloomFilter(expectedEntries, falsePositiveRate);
+    }
+
+    @PostConstruct
+    public void loadTakenNames() {
+        userRepository.findAllUsernames().forEach(name -> userUsernames.put(normalize(name)));
+        userRepository.findAllEmails().forEach(email -> userEmails.put(normalize(email)));
+        sellerRepository.findAllUsernames().forEach(name -> sellerUsernames.put(normalize(name)));
+        sellerRepository.findAllEmails().forEach(email -> sellerEmails.put(normalize(email)));
+        logger.info("Loaded taken usernames and emails into signup filters");
+    }
+
+    /**
+     * Inserts the user in one statement.
+     * @throws DuplicateAccountException naming the conflicting field if the username or email is taken
+     */
+    public User registerUser(User user) {
+        try {
+            User saved = userRepository.saveAndFlush(user);
+            recordUser(saved);
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            String field = conflictingField(e, "users");
+            if (field == null) {
+                // Constraint name not reported by the driver - fall back to indexed lookups
+                field = userRepository.existsByUsername(user.getUsername()) ? FIELD_USERNAME
+                    : userRepository.existsByEmail(user.getEmail()) ? FIELD_EMAIL : null;
+            }
+            if (field == null) {
+                throw e;
+            }
+            throw new DuplicateAccountException(field);
+        }
+    }
+
+    /**
+     * Inserts the seller in one statement.
+     * @throws DuplicateAccountException naming the conflicting field if the username or email is taken
+     */
+    public Seller registerSeller(Seller seller) {
+        try {
+            Seller saved = sellerRepository.saveAndFlush(seller);
+            recordSeller(saved);
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            String field = conflictingField(e, "sellers");
+            if (field == null) {
+                field = sellerRepository.existsByUsername(seller.getUsername()) ? FIELD_USERNAME
+                    : sellerRepository.existsByEmail(seller.getEmail()) ? FIELD_EMAIL : null;
+            }
+            if (field == null) {
+                throw e;
+            }
+            throw new DuplicateAccountException(field);
+        }
+    }
+
+    public boolean isUsernameAvailable(String username, boolean seller) {
+        if (username == null || username.isBlank()) {
+            return false;
+        }
+        BloomFilter filter = seller ? sellerUsernames : userUsernames;
+        if (!filter.mightContain(normalize(username))) {
+            return true;
+        }
+        return seller ? !sellerRepository.existsByUsername(username) : !userRepository.existsByUsername(username);
+    }
+
+    public boolean isEmailAvailable(String email, boolean seller) {
+        if (email == null || email.isBlank()) {
+            return false;
+        }
+        BloomFilter filter = seller ? sellerEmails : userEmails;
+        if (!filter.mightContain(normalize(email))) {
+            return true;
+        }
+        return seller ? !sellerRepository.existsByEmail(email) : !userRepository.existsByEmail(email);
+    }
+
+    /**
+     * Must be called after any username/email change outside this service (e.g. admin edits).
+     */
+    public void recordUser(User user) {
+        if (user.getUsername() != null) {
+            userUsernames.put(normalize(user.getUsername()));
+        }
+        if (user.getEmail() != null) {
+            userEmails.put(normalize(user.getEmail()));
+        }
+    }
+
+    public void recordSeller(Seller seller) {
+        if (seller.getUsername() != null) {
+            sellerUsernames.put(normalize(seller.getUsername()));
+        }
+        if (seller.getEmail() != null) {
+            sellerEmails.put(normalize(seller.getEmail()));
+        }
+    }
+
+    // Filters are keyed case-insensitively; a false "maybe taken" only costs a database check
+    private static String normalize(String value) {
+        return value.trim().toLowerCase();
+    }
+
+    private static String conflictingField(DataIntegrityViolationException e, String table) {
+        String constraint = null;
+        if (e.getCause() instanceof org.hibernate.exception.ConstraintViolationException violation) {
+            constraint = violation.getConstraintName();
+        }
+        String text = (constraint != null ? constraint : String.valueOf(e.getMostSpecificCause().getMessage()))
+            .toLowerCase();
+        if (text.contains("uk_" + table + "_username")) {
+            return FIELD_USERNAME;
+        }
+        if (text.contains("uk_" + table + "_email")) {
+            return FIELD_EMAIL;
+        }
+        return null;
+    }
+
+    public static class DuplicateAccountException extends RuntimeException {
+        private final String field;
+
+        public DuplicateAccountException(String field) {
+            super(FIELD_EMAIL.equals(field) ? "Email already registered" : "Username already exists");
+            this.field = field;
+        }
+
+        public String getField() {
+            return field;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.dto.AdminPage;
+import com.Shopping.Shopping.dto.AdminProductView;
+import com.Shopping.Shopping.dto.AdminSellerView;
+import com.Shopping.Shopping.dto.AdminUserView;
+import com.Shopping.Shopping.repository.ProductRepository;
+import com.Shopping.Shopping.repository.SellerRepository;
+import com.Shopping.Shopping.repository.UserRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Paged, sorted and filtered listings of users, sellers and products for the admin console.
+ *
+ * Rows are read as projections ({@link AdminUserView} etc.), so photos, images and descriptions
+ * are never loaded. The total count is a second query over the same filter; pass count=false to
+ * skip it and only learn whether there is a next page. Text filters match anywhere in the value,
+ * ignoring case; date filters are inclusive days on the creation time.
+ */
+@Service
+public class AdminListingService {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private static final Set<String> ACCOUNT_SORTS = Set.of("id", "username", "email", "createdAt");
+    private static final Set<String> PRODUCT_SORTS =
+        Set.of("id", "name", "category", "price", "sellingPrice", "availableQuantity", "createdAt");
+
+    private final UserRepository userRepository;
+    private final SellerRepository sellerRepository;
+    private final ProductRepository productRepository;
+
+    public AdminListingService(UserRepository userRepository,
+                               SellerRepository sellerRepository,
+                               ProductRepository productRepository) {
+        this.userRepository = userRepository;
+        this.sellerRepository = sellerRepository;
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * @param sort "field" or "field,asc|desc"; id descending (newest first) when null
+     * @throws IllegalArgumentException for a page, size, sort or date range out of bounds
+     */
+    @Transactional(readOnly = true)
+    public AdminPage<AdminUserView> users(String username, String email, LocalDate createdFrom, LocalDate createdTo,
+                                          int page, int size, String sort, boolean count) {
+        Pageable pageable = pageable(page, size, sort, ACCOUNT_SORTS);
+        LocalDateTime from = startOf(createdFrom, createdTo);
+        LocalDateTime to = endOf(createdTo);
+        return toPage(count
+            ? userRepository.findAdminViews(pattern(username), pattern(email), from, to, pageable)
+            : userRepository.findAdminViewSlice(pattern(username), pattern(email), from, to, pageable));
+    }
+
+    /**
+     * @see #users
+     */
+    @Transactional(readOnly = true)
+    public AdminPage<AdminSellerView> sellers(String username, String email, LocalDate createdFrom, LocalDate createdTo,
+                                              int page, int size, String sort, boolean count) {
+        Pageable pageable = pageable(page, size, sort, ACCOUNT_SORTS);
+        LocalDateTime from = startOf(createdFrom, createdTo);
+        LocalDateTime to = endOf(createdTo);
+        return toPage(count
+            ? sellerRepository.findAdminViews(pattern(username), pattern(email), from, to, pageable)
+            : sellerRepository.findAdminViewSlice(pattern(username), pattern(email), from, to, pageable));
+    }
+
+    /**
+     * @see #users
+     */
+    @Transactional(readOnly = true)
+    public AdminPage<AdminProductView> products(String name, String category, Long sellerId,
+                                                LocalDate createdFrom, LocalDate createdTo,
+                                                int page, int size, String sort, boolean count) {
+        Pageable pageable = pageable(page, size, sort, PRODUCT_SORTS);
+        LocalDateTime from = startOf(createdFrom, createdTo);
+        LocalDateTime to = endOf(createdTo);
+        return toPage(count
+            ? productRepository.findAdminViews(pattern(name), pattern(category), sellerId, from, to, pageable)
+            : productRepository.findAdminViewSlice(pattern(name), pattern(category), sellerId, from, to, pageable));
+    }
+
+    private static Pageable pageable(int page, int size, String sort, Set<String> sortable) {
+        if (page < 0) {
+            throw new IllegalArgumentException("page must not be negative");
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        Sort.Direction direction = Sort.Direction.DESC;
+        String property = "id";
+        if (sort != null && !sort.isBlank()) {
+            String[] parts = sort.split(",", 2);
+            property = parts[0].trim();
+            if (!sortable.contains(property)) {
+                throw new IllegalArgumentException("Cannot sort by " + property + ", use one of " + sortable);
+            }
+            direction = parts.length == 1 ? Sort.Direction.ASC
+                : Sort.Direction.fromOptionalString(parts[1].trim())
+                    .orElseThrow(() -> new IllegalArgumentException("Sort direction must be asc or desc"));
+        }
+        Sort order = Sort.by(direction, property);
+        if (!property.equals("id")) {
+            // Ties are broken by id so rows do not move between pages
+            order = order.and(Sort.by(direction, "id"));
+        }
+        return PageRequest.of(page, size, order);
+    }
+
+    /**
+     * Lower-case "contains" LIKE pattern, with the wildcards in the value escaped by '!'; null for no filter.
+     */
+    static String pattern(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String escaped = value.trim().toLowerCase(Locale.ROOT)
+            .replace("!", "!!").replace("%", "!%").replace("_", "!_");
+        return "%" + escaped + "%";
+    }
+
+    private static LocalDateTime startOf(LocalDate from, LocalDate to) {
+        if (from != null && to != null && to.isBefore(from)) {
+            throw new IllegalArgumentException("createdTo must not be before createdFrom");
+        }
+        return from == null ? null : from.atStartOfDay();
+    }
+
+    private static LocalDateTime endOf(LocalDate to) {
+        return to == null ? null : to.plusDays(1).atStartOfDay();
+    }
+
+    private static <T> AdminPage<T> toPage(Slice<T> slice) {
+        if (slice instanceof Page<T> page) {
+            return new AdminPage<>(page.getContent(), page.getNumber(), page.getSize(), page.hasNext(),
+                page.getTotalElements(), page.getTotalPages());
+        }
+        return new AdminPage<>(slice.getContent(), slice.getNumber(), slice.getSize(), slice.hasNext(), null, null);
+    }
+}
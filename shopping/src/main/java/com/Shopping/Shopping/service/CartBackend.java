@@ -0,0 +1,26 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.model.SessionCart;
+
+import java.util.List;
+
+/**
+ * Durable store behind {@link WriteBehindCartStore}. The database implementation is
+ * {@link DatabaseCartBackend}; a shared store can implement the same two calls.
+ */
+public interface CartBackend {
+
+    /**
+     * Durable state of one user's cart, loaded when it is first touched in memory.
+     */
+    SessionCart load(Long userId);
+
+    /**
+     * Writes absolute line quantities; a quantity of 0 deletes the line.
+     * Must be atomic: either every change is stored or none is.
+     */
+    void store(List<Change> changes);
+
+    record Change(long userId, long productId, int quantity) {
+    }
+}
@@ -0,0 +1,38 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.repository.OrderItemRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+
+/**
+ * Removes the ordered products from the buyer's cart once an order is placed. The products are
+ * read from the order's items, so the event stays small however many lines the order has.
+ * Buy-now orders never came from the cart and are skipped; removing a product twice is harmless.
+ */
+@Service
+public class CartCleanupHandler implements OutboxHandler {
+
+    private final UserCartService userCartService;
+    private final OrderItemRepository orderItemRepository;
+    private final ObjectMapper objectMapper;
+
+    public CartCleanupHandler(UserCartService userCartService, OrderItemRepository orderItemRepository,
+                              ObjectMapper objectMapper) {
+        this.userCartService = userCartService;
+        this.orderItemRepository = orderItemRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String eventType() {
+        return OutboxService.ORDER_PLACED;
+    }
+
+    @Override
+    public void handle(Event event) throws Exception {
+        CheckoutService.OrderPlaced placed = objectMapper.readValue(event.payload(), CheckoutService.OrderPlaced.class);
+        if (!placed.buyNow()) {
+            userCartService.removeProducts(placed.userId(), orderItemRepository.findProductIdsByOrderId(placed.orderId()));
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.Shopping.Shopping.service;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of cart line quantities for {@link WriteBehindCartStore}.
+ *
+ * Each record is (userId, productId, quantity) with the absolute quantity after the change,
+ * so replaying a record twice is harmless. The log is split into numbered segments: a flush
+ * seals the current segment, and sealed segments are deleted once their changes are stored.
+ * A record cut short by a crash is ignored on replay.
+ */
+class CartJournal {
+
+    static final int RECORD_BYTES = Long.BYTES + Long.BYTES + Integer.BYTES;
+    private static final String PREFIX = "cart-journal-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final boolean fsync;
+    private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_BYTES * 64);
+    private final List<Path> sealed = new ArrayList<>();
+    private FileChannel channel;
+    private Path current;
+    private long currentBytes;
+    private long nextSequence;
+
+    CartJournal(Path directory, boolean fsync) {
+        this.directory = directory;
+        this.fsync = fsync;
+        try {
+            Files.createDirectories(directory);
+            List<Path> existing = segments();
+            sealed.addAll(existing);
+            nextSequence = existing.isEmpty() ? 1 : sequenceOf(existing.get(existing.size() - 1)) + 1;
+            openSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open cart journal in " + directory, e);
+        }
+    }
+
+    /**
+     * Writes the records of one cart mutation with a single write call.
+     */
+    synchronized void append(long userId, long[] productIds, int[] quantities, int count) {
+        try {
+            int written = 0;
+            while (written < count) {
+                buffer.clear();
+                while (written < count && buffer.remaining() >= RECORD_BYTES) {
+                    buffer.putLong(userId).putLong(productIds[written]).putInt(quantities[written]);
+                    written++;
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    currentBytes += channel.write(buffer);
+                }
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cart journal write failed", e);
+        }
+    }
+
+    /**
+     * Closes the current segment and starts a new one, unless it is still empty.
+     * @return every sealed segment not deleted yet, oldest first
+     */
+    synchronized List<Path> seal() {
+        if (currentBytes == 0) {
+            return new ArrayList<>(sealed);
+        }
+        try {
+            channel.close();
+            sealed.add(current);
+            openSegment();
+            return new ArrayList<>(sealed);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cart journal rotation failed", e);
+        }
+    }
+
+    synchronized void delete(List<Path> segments) {
+        for (Path segment : segments) {
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot delete cart journal segment " + segment, e);
+            }
+            sealed.remove(segment);
+        }
+    }
+
+    /**
+     * Latest quantity per (userId, productId) across the given segments, in first-seen order.
+     */
+    static Map<List<Long>, Integer> replay(List<Path> segments) {
+        Map<List<Long>, Integer> quantities = new LinkedHashMap<>();
+        for (Path segment : segments) {
+            try (InputStream file = Files.newInputStream(segment);
+                 DataInputStream in = new DataInputStream(new BufferedInputStream(file))) {
+                while (true) {
+                    long userId = in.readLong();
+                    long productId = in.readLong();
+                    int quantity = in.readInt();
+                    quantities.put(List.of(userId, productId), quantity);
+                }
+            } catch (EOFException endOfSegment) {
+                // End of the segment, or a torn last record
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read cart journal segment " + segment, e);
+            }
+        }
+        return quantities;
+    }
+
+    synchronized void close() {
+        try {
+            channel.close();
+            if (currentBytes == 0) {
+                Files.delete(current);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close cart journal", e);
+        }
+    }
+
+    private void openSegment() throws IOException {
+        current = directory.resolve(PREFIX + String.format("%012d", nextSequence++) + SUFFIX);
+        channel = FileChannel.open(current, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND);
+        currentBytes = 0;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(path -> path.getFileName().toString().startsWith(PREFIX))
+                .filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                .sorted()
+                .toList();
+        }
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
@@ -1,8 +1,11 @@
 package com.Shopping.Shopping.service;
 
+import com.Shopping.Shopping.dto.ProductPriceView;
+import com.Shopping.Shopping.dto.VariantPriceView;
 import com.Shopping.Shopping.model.CartItem;
-import com.Shopping.Shopping.model.Product;
+import com.Shopping.Shopping.model.SessionCart;
 import com.Shopping.Shopping.repository.ProductRepository;
+import com.Shopping.Shopping.repository.ProductVariantRepository;
 import jakarta.servlet.http.HttpSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,73 +13,135 @@ import org.springframework.stereotype.Service;
 
 import java.util.*;
 
+/**
+ * Legacy session cart. The session only holds a {@link SessionCart} of ids and quantities;
+ * names are looked up in one batch per read and prices come from the {@link PricingEngine}.
+ */
 @Service
 public class CartService {
 
     private static final Logger log = LoggerFactory.getLogger(CartService.class);
     private static final String CART_SESSION_KEY = "cart";
-    
+
     private final ProductRepository productRepository;
+    private final ProductVariantRepository productVariantRepository;
+    private final PricingEngine pricingEngine;
 
-    public CartService(ProductRepository productRepository) {
+    public CartService(ProductRepository productRepository, ProductVariantRepository productVariantRepository,
+                       PricingEngine pricingEngine) {
         this.productRepository = productRepository;
+        this.productVariantRepository = productVariantRepository;
+        this.pricingEngine = pricingEngine;
     }
 
     public void addProductToCart(Long productId, int quantity, HttpSession session) {
-        log.info("Adding product {} to cart with quantity {}", productId, quantity);
-        List<CartItem> cart = getCart(session);
-        Optional<Product> productOpt = productRepository.findById(productId);
-        
-        if (productOpt.isPresent()) {
-            Product product = productOpt.get();
-            boolean found = false;
-            for (CartItem item : cart) {
-                if (item.getProduct().getId().equals(productId)) {
-                    item.setQuantity(item.getQuantity() + quantity);
-                    found = true;
-                    break;
-                }
-            }
-            if (!found) {
-                cart.add(new CartItem(product, quantity));
-            }
-            session.setAttribute(CART_SESSION_KEY, cart);
-            log.debug("Product {} added to cart successfully", productId);
-        } else {
+        addProductToCart(productId, null, quantity, session);
+    }
+
+    public void addProductToCart(Long productId, Long variantId, int quantity, HttpSession session) {
+        log.info("Adding product {} (variant {}) to cart with quantity {}", productId, variantId, quantity);
+        if (!productRepository.existsById(productId)) {
             log.warn("Product {} not found", productId);
+            return;
         }
+        SessionCart cart = getSessionCart(session);
+        cart.add(productId, variantId != null ? variantId : 0L, quantity);
+        // Re-set so replicated/persistent session stores see the change
+        session.setAttribute(CART_SESSION_KEY, cart);
+        log.debug("Product {} added to cart successfully", productId);
     }
 
+    /**
+     * Resolves names with two batched queries (products, then variants if any) and prices all lines
+     * in one engine pass. Lines whose product has been deleted are dropped.
+     */
     public List<CartItem> getCart(HttpSession session) {
-        List<CartItem> cart = (List<CartItem>) session.getAttribute(CART_SESSION_KEY);
-        if (cart == null) {
-            cart = new ArrayList<>();
-            session.setAttribute(CART_SESSION_KEY, cart);
+        SessionCart cart = getSessionCart(session);
+        if (cart.isEmpty()) {
+            return new ArrayList<>();
         }
-        return cart;
+
+        Set<Long> productIds = new HashSet<>();
+        Set<Long> variantIds = new HashSet<>();
+        for (int i = 0; i < cart.size(); i++) {
+            productIds.add(cart.productIdAt(i));
+            if (cart.variantIdAt(i) != 0L) {
+                variantIds.add(cart.variantIdAt(i));
+            }
+        }
+
+        Map<Long, ProductPriceView> products = new HashMap<>();
+        for (ProductPriceView product : productRepository.findPriceViewsByIdIn(productIds)) {
+            products.put(product.getId(), product);
+        }
+        Map<Long, VariantPriceView> variants = new HashMap<>();
+        if (!variantIds.isEmpty()) {
+            for (VariantPriceView variant : productVariantRepository.findPriceViewsByIdIn(variantIds)) {
+                variants.put(variant.getId(), variant);
+            }
+        }
+
+        long[] productIdArray = new long[cart.size()];
+        long[] variantIdArray = new long[cart.size()];
+        int[] quantities = new int[cart.size()];
+        for (int i = 0; i < cart.size(); i++) {
+            productIdArray[i] = cart.productIdAt(i);
+            VariantPriceView variant = variants.get(cart.variantIdAt(i));
+            // A variant of another product is ignored
+            variantIdArray[i] = variant != null && variant.getProductId() == cart.productIdAt(i) ? variant.getId() : 0L;
+            quantities[i] = cart.quantityAt(i);
+        }
+        PricingEngine.CartPrice price = pricingEngine.price(productIdArray, variantIdArray, quantities, cart.size());
+
+        List<CartItem> items = new ArrayList<>(cart.size());
+        for (int i = 0; i < cart.size(); i++) {
+            ProductPriceView product = products.get(cart.productIdAt(i));
+            if (product == null || !price.isPriced(i)) {
+                continue;
+            }
+            VariantPriceView variant = variantIdArray[i] != 0L ? variants.get(variantIdArray[i]) : null;
+            items.add(new CartItem(product.getId(),
+                variant != null ? variant.getId() : null,
+                product.getName(),
+                variant != null ? variant.getVariantValue() : null,
+                PricingEngine.CartPrice.toRupees(price.unitPaise(i)),
+                cart.quantityAt(i),
+                PricingEngine.CartPrice.toRupees(price.lineTotalPaise(i))));
+        }
+        return items;
     }
 
     public void removeProductFromCart(Long productId, HttpSession session) {
         log.info("Removing product {} from cart", productId);
-        List<CartItem> cart = getCart(session);
-        cart.removeIf(item -> item.getProduct().getId().equals(productId));
+        SessionCart cart = getSessionCart(session);
+        cart.removeProduct(productId);
         session.setAttribute(CART_SESSION_KEY, cart);
     }
 
     public void clearCart(HttpSession session) {
         log.info("Clearing cart");
-        session.setAttribute(CART_SESSION_KEY, new ArrayList<CartItem>());
+        session.setAttribute(CART_SESSION_KEY, new SessionCart());
     }
 
     public void updateProductQuantity(Long productId, int quantity, HttpSession session) {
-        log.info("Updating product {} quantity to {}", productId, quantity);
-        List<CartItem> cart = getCart(session);
-        for (CartItem item : cart) {
-            if (item.getProduct().getId().equals(productId)) {
-                item.setQuantity(quantity);
-                break;
-            }
+        updateProductQuantity(productId, null, quantity, session);
+    }
+
+    public void updateProductQuantity(Long productId, Long variantId, int quantity, HttpSession session) {
+        log.info("Updating product {} (variant {}) quantity to {}", productId, variantId, quantity);
+        SessionCart cart = getSessionCart(session);
+        cart.setQuantity(productId, variantId != null ? variantId : 0L, quantity);
+        session.setAttribute(CART_SESSION_KEY, cart);
+    }
+
+    private SessionCart getSessionCart(HttpSession session) {
+        Object attribute = session.getAttribute(CART_SESSION_KEY);
+        if (attribute instanceof SessionCart cart) {
+            return cart;
         }
+        // Also replaces carts left in the session by the old entity-based format
+        SessionCart cart = new SessionCart();
         session.setAttribute(CART_SESSION_KEY, cart);
+        return cart;
     }
 }
@@ -0,0 +1,211 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.config.DatabaseDialect;
+import com.Shopping.Shopping.dto.ProductSummary;
+import com.Shopping.Shopping.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Writes the catalog, or one seller's part of it, as CSV, JSONL or NDJSON straight to an output stream.
+ *
+ * Rows come from a database cursor ({@link ProductRepository#streamAllSummaries}) as
+ * {@link ProductSummary} projections and are written as they are read, so memory stays flat however
+ * many products there are. Every {@code catalog.export.flush-rows} rows the output is flushed to the
+ * client and the persistence context is cleared.
+ *
+ * PostgreSQL reads the cursor in fetch-size chunks inside the transaction. H2 materializes a result
+ * before returning its first row unless the session runs in lazy query execution mode, which is
+ * switched on for the length of the export.
+ */
+@Service
+public class CatalogExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogExportService.class);
+    private static final int WRITE_BUFFER = 64 * 1024;
+
+    static final String[] CSV_HEADER = {"id", "name", "brandName", "category", "subCategory", "price", "sellingPrice",
+        "mrp", "discountPercent", "gstIncluded", "availableQuantity", "skuId", "uniqueProductId", "sellerId"};
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        JSONL("application/jsonl", "jsonl"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        /**
+         * @throws IllegalArgumentException if the format is not csv, jsonl or ndjson
+         */
+        public static Format of(String format) {
+            String name = format == null ? "" : format.trim().toLowerCase(Locale.ROOT);
+            for (Format value : values()) {
+                if (value.extension.equals(name)) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported export format, use csv, jsonl or ndjson");
+        }
+    }
+
+    private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectWriter jsonWriter;
+    private final MetricsService metricsService;
+    private final int flushRows;
+    private volatile Boolean h2;
+
+    public CatalogExportService(ProductRepository productRepository,
+                                EntityManager entityManager,
+                                JdbcTemplate jdbcTemplate,
+                                ObjectMapper objectMapper,
+                                MetricsService metricsService,
+                                @Value("${catalog.export.flush-rows:1000}") int flushRows) {
+        this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        // One flush per batch of rows, not per row
+        this.jsonWriter = objectMapper.writerFor(ProductSummary.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.metricsService = metricsService;
+        this.flushRows = Math.max(1, flushRows);
+    }
+
+    /**
+     * Streams the products of one seller, or every product when sellerId is null, in id order.
+     * The output stream is flushed but not closed.
+     *
+     * @return the number of products written
+     */
+    @Transactional(readOnly = true)
+    public long export(Long sellerId, Format format, OutputStream out) throws IOException {
+        long started = System.currentTimeMillis();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER);
+        long rows = 0;
+        boolean lazy = isH2();
+        if (lazy) {
+            jdbcTemplate.execute("SET LAZY_QUERY_EXECUTION TRUE");
+        }
+        try (Stream<ProductSummary> products = sellerId == null
+                ? productRepository.streamAllSummaries()
+                : productRepository.streamSummariesBySellerId(sellerId)) {
+            Iterator<ProductSummary> iterator = products.iterator();
+            if (format == Format.CSV) {
+                writeCsvRow(writer, (Object[]) CSV_HEADER);
+                while (iterator.hasNext()) {
+                    ProductSummary p = iterator.next();
+                    writeCsvRow(writer, p.getId(), p.getName(), p.getBrandName(), p.getCategory(), p.getSubCategory(),
+                        p.getPrice(), p.getSellingPrice(), p.getMrp(), p.getDiscountPercent(), p.getGstIncluded(),
+                        p.getAvailableQuantity(), p.getSkuId(), p.getUniqueProductId(), p.getSellerId());
+                    if (++rows % flushRows == 0) {
+                        endBatch(writer);
+                    }
+                }
+                writer.flush();
+            } else {
+                try (JsonGenerator generator = jsonWriter.createGenerator(writer)) {
+                    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                    generator.setRootValueSeparator(null);
+                    while (iterator.hasNext()) {
+                        jsonWriter.writeValue(generator, iterator.next());
+                        generator.writeRaw('\n');
+                        if (++rows % flushRows == 0) {
+                            endBatch(generator);
+                        }
+                    }
+                }
+                writer.flush();
+            }
+        } finally {
+            if (lazy) {
+                jdbcTemplate.execute("SET LAZY_QUERY_EXECUTION FALSE");
+            }
+            metricsService.add("catalog.export.rows", rows);
+        }
+        metricsService.increment("catalog.export.completed");
+        logger.info("Exported {} products as {} for {} in {} ms", rows, format,
+            sellerId == null ? "all sellers" : "seller " + sellerId, System.currentTimeMillis() - started);
+        return rows;
+    }
+
+    /**
+     * Hands a batch of rows to the client and detaches anything the batch loaded, so neither the
+     * buffers nor the persistence context grow with the export.
+     */
+    private void endBatch(Flushable output) throws IOException {
+        output.flush();
+        entityManager.clear();
+    }
+
+    private boolean isH2() {
+        Boolean value = h2;
+        if (value == null) {
+            value = DatabaseDialect.detect(jdbcTemplate) == DatabaseDialect.H2;
+            h2 = value;
+        }
+        return value;
+    }
+
+    private static void writeCsvRow(Writer writer, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = values[i];
+            if (value != null) {
+                writeCsvField(writer, value.toString());
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,329 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.dto.CheckoutLineView;
+import com.Shopping.Shopping.model.CheckoutQuote;
+import com.Shopping.Shopping.model.OrderItem;
+import com.Shopping.Shopping.model.Orders;
+import com.Shopping.Shopping.model.User;
+import com.Shopping.Shopping.repository.ProductRepository;
+import com.Shopping.Shopping.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checkout: prices what the user is buying (the cart, or a single buy-now line), keeps that quote
+ * under the Razorpay order id at create-order and, once paid, turns it into an order in one transaction:
+ * <ol>
+ *   <li>quote - the stored quote; nothing the client sends with the payment is used</li>
+ *   <li>order - the {@link Orders} row</li>
+ *   <li>items - one {@link OrderItem} per line, JDBC-batched with sequence-allocated ids</li>
+ *   <li>stock - commits the reservation made at create-order (see {@link InventoryService})</li>
+ *   <li>outbox - an {@link OutboxService#ORDER_PLACED order.placed} event; the rest (emptying the cart, ...) runs
+ *       after commit in the {@link OutboxDispatcher}, off the request</li>
+ * </ol>
+ * Each stage's time is added to {@code checkout.stage.<stage>.micros} in the {@link MetricsService};
+ * divide by {@code checkout.orders} for the mean.
+ *
+ * The quote is deleted with the order it became; quotes never paid for are deleted once they are
+ * older than {@code checkout.quote.retention}, which outlasts the stock reservation so a late
+ * payment still finds its quote.
+ */
+@Service
+public class CheckoutService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckoutService.class);
+    private static final int ITEM_BATCH_SIZE = 50;
+    private static final TypeReference<List<QuotedLine>> QUOTED_LINES = new TypeReference<>() {};
+
+    enum Stage {
+        QUOTE, ORDER, ITEMS, STOCK, OUTBOX;
+
+        final String metric = "checkout.stage." + name().toLowerCase() + ".micros";
+    }
+
+    /**
+     * One priced line, as it becomes an {@link OrderItem}. A variantId of 0 means the product itself.
+     */
+    public record QuotedLine(long productId, long variantId, Long sellerId, String name, int quantity,
+                             long unitPaise, long lineTotalPaise, long taxPaise) {}
+
+    /**
+     * What is being bought and what it costs, priced on the server.
+     */
+    public record Quote(List<QuotedLine> items, boolean buyNow, long amountPaise) {
+
+        public List<InventoryService.StockLine> lines() {
+            return items.stream()
+                .map(item -> new InventoryService.StockLine(item.productId(), item.variantId(), item.quantity()))
+                .toList();
+        }
+    }
+
+    public record Payment(String razorpayOrderId, String razorpayPaymentId, String razorpaySignature) {}
+
+    /**
+     * @param stockSecured false if the stock reservation had expired and stock ran out before payment
+     */
+    public record PlacedOrder(Orders order, int itemCount, boolean stockSecured) {}
+
+    /**
+     * Payload of the {@link OutboxService#ORDER_PLACED} event.
+     */
+    public record OrderPlaced(long orderId, long userId, boolean buyNow, long amountPaise) {}
+
+    private record Snapshot(List<CheckoutLineView> lines, long[] variantIds, PricingEngine.CartPrice price) {
+
+        List<QuotedLine> quotedLines() {
+            List<QuotedLine> quoted = new ArrayList<>(lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                if (price.isPriced(i)) {
+                    CheckoutLineView line = lines.get(i);
+                    quoted.add(new QuotedLine(line.getProductId(), variantIds != null ? variantIds[i] : 0L,
+                        line.getSellerId(), line.getName(), line.getQuantity(),
+                        price.unitPaise(i), price.lineTotalPaise(i), price.lineTaxPaise(i)));
+                }
+            }
+            return quoted;
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+    private final UserCartService userCartService;
+    private final PricingEngine pricingEngine;
+    private final InventoryService inventoryService;
+    private final OutboxService outboxService;
+    private final MetricsService metricsService;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final long quoteRetentionMillis;
+
+    public CheckoutService(UserRepository userRepository,
+                           ProductRepository productRepository,
+                           UserCartService userCartService,
+                           PricingEngine pricingEngine,
+                           InventoryService inventoryService,
+                           OutboxService outboxService,
+                           MetricsService metricsService,
+                           ObjectMapper objectMapper,
+                           EntityManager entityManager,
+                           @Value("${checkout.quote.retention:86400000}") long quoteRetentionMillis) {
+        this.userRepository = userRepository;
+        this.productRepository = productRepository;
+        this.userCartService = userCartService;
+        this.pricingEngine = pricingEngine;
+        this.inventoryService = inventoryService;
+        this.outboxService = outboxService;
+        this.metricsService = metricsService;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.quoteRetentionMillis = quoteRetentionMillis;
+    }
+
+    /**
+     * @param buyNow the single line being bought directly, or null for the user's cart
+     * @throws IllegalArgumentException if the buy-now product does not exist
+     */
+    @Transactional(readOnly = true)
+    public Quote quote(String username, InventoryService.StockLine buyNow) {
+        Snapshot snapshot = snapshot(requireUserId(username), buyNow);
+        return new Quote(snapshot.quotedLines(), buyNow != null, snapshot.price().getTotalPaise());
+    }
+
+    /**
+     * Moves the stock reserved under {@code receipt} to the Razorpay order and stores the quote
+     * next to it, both or neither; {@link #placeOrder} orders exactly this quote.
+     */
+    @Transactional
+    public void recordQuote(String receipt, String razorpayOrderId, Long userId, Quote quote) {
+        CheckoutQuote stored = new CheckoutQuote();
+        stored.setReference(razorpayOrderId);
+        stored.setUserId(userId);
+        stored.setBuyNow(quote.buyNow());
+        stored.setAmountPaise(quote.amountPaise());
+        try {
+            stored.setLines(objectMapper.writeValueAsString(quote.items()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Quote is not serializable", e);
+        }
+        stored.setCreatedAt(System.currentTimeMillis());
+        inventoryService.rename(receipt, razorpayOrderId);
+        entityManager.persist(stored);
+    }
+
+    /**
+     * Records the paid order from the quote stored at create-order, with its items, and commits the
+     * stock, all or nothing. The cart is emptied shortly after commit by the {@link CartCleanupHandler}.
+     *
+     * @throws IllegalArgumentException if the user has no quote for the Razorpay order
+     * @throws OrderAlreadyPlacedException if the Razorpay order has already been recorded
+     */
+    @Transactional
+    public PlacedOrder placeOrder(String username, Payment payment) {
+        long started = System.nanoTime();
+        StringBuilder timings = new StringBuilder();
+        Long userId = requireUserId(username);
+
+        CheckoutQuote stored = storedQuote(payment.razorpayOrderId(), userId);
+        Quote quote = quoteOf(stored);
+        List<InventoryService.StockLine> stockLines = quote.lines();
+        long mark = record(Stage.QUOTE, started, timings);
+
+        Orders order = new Orders();
+        order.setRazorpayOrderId(payment.razorpayOrderId());
+        order.setRazorpayPaymentId(payment.razorpayPaymentId());
+        order.setRazorpaySignature(payment.razorpaySignature());
+        order.setAmount(quote.amountPaise());
+        order.setOrderDate(LocalDateTime.now());
+        order.setUser(entityManager.getReference(User.class, userId));
+        order.setEmail(username);
+        entityManager.persist(order);
+        entityManager.remove(stored);
+        mark = record(Stage.ORDER, mark, timings);
+
+        int itemCount = insertItems(order, quote.items());
+        mark = record(Stage.ITEMS, mark, timings);
+
+        boolean stockSecured = inventoryService.commit(payment.razorpayOrderId(), userId, stockLines);
+        if (!stockSecured) {
+            // The payment is already captured, so the order is still recorded
+            logger.warn("Order {} paid after its stock reservation expired and stock ran out", payment.razorpayOrderId());
+        }
+        mark = record(Stage.STOCK, mark, timings);
+
+        outboxService.publish(OutboxService.ORDER_PLACED, order.getId(),
+            new OrderPlaced(order.getId(), userId, quote.buyNow(), quote.amountPaise()));
+        record(Stage.OUTBOX, mark, timings);
+
+        metricsService.increment("checkout.orders");
+        metricsService.add("checkout.items", itemCount);
+        logger.info("Order {} placed for {}: {} items, {} paise;{}", order.getId(), username, itemCount,
+            order.getAmount(), timings);
+        return new PlacedOrder(order, itemCount, stockSecured);
+    }
+
+    /**
+     * Deletes quotes older than the retention that were never paid for.
+     */
+    @Scheduled(fixedDelayString = "${inventory.reservation.sweep-interval:30000}")
+    @Transactional
+    public void deleteExpiredQuotes() {
+        int deleted = entityManager.createQuery("DELETE FROM CheckoutQuote q WHERE q.createdAt < :cutoff")
+            .setParameter("cutoff", System.currentTimeMillis() - quoteRetentionMillis)
+            .executeUpdate();
+        if (deleted > 0) {
+            logger.info("Deleted {} expired checkout quotes", deleted);
+            metricsService.add("checkout.quotes.expired", deleted);
+        }
+    }
+
+    private CheckoutQuote storedQuote(String razorpayOrderId, Long userId) {
+        CheckoutQuote stored = entityManager.find(CheckoutQuote.class, razorpayOrderId);
+        if (stored != null && stored.getUserId().equals(userId)) {
+            return stored;
+        }
+        if (stored == null && entityManager.createQuery(
+                "SELECT COUNT(o) FROM Orders o WHERE o.razorpayOrderId = :razorpayOrderId AND o.user.id = :userId", Long.class)
+                .setParameter("razorpayOrderId", razorpayOrderId).setParameter("userId", userId).getSingleResult() > 0) {
+            throw new OrderAlreadyPlacedException(razorpayOrderId);
+        }
+        throw new IllegalArgumentException("No checkout for order " + razorpayOrderId);
+    }
+
+    private Quote quoteOf(CheckoutQuote stored) {
+        try {
+            return new Quote(objectMapper.readValue(stored.getLines(), QUOTED_LINES), stored.isBuyNow(),
+                stored.getAmountPaise());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable quote for order " + stored.getReference(), e);
+        }
+    }
+
+    /**
+     * Persists the items and flushes them as JDBC batches of {@link #ITEM_BATCH_SIZE}; the
+     * sequence hands out 50 ids per call, so a large order costs a few round trips, not one per line.
+     */
+    private int insertItems(Orders order, List<QuotedLine> lines) {
+        Session session = entityManager.unwrap(Session.class);
+        Integer previousBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(ITEM_BATCH_SIZE);
+        try {
+            for (QuotedLine line : lines) {
+                OrderItem item = new OrderItem();
+                item.setOrder(order);
+                item.setProductId(line.productId());
+                item.setVariantId(line.variantId() != 0L ? line.variantId() : null);
+                item.setSellerId(line.sellerId());
+                item.setProductName(line.name());
+                item.setQuantity(line.quantity());
+                item.setUnitPricePaise(line.unitPaise());
+                item.setLineTotalPaise(line.lineTotalPaise());
+                item.setTaxPaise(line.taxPaise());
+                entityManager.persist(item);
+            }
+            entityManager.flush();
+            return lines.size();
+        } finally {
+            session.setJdbcBatchSize(previousBatchSize);
+        }
+    }
+
+    /**
+     * Cart lines are priced from the columns of the snapshot query, as the cart page prices them;
+     * a buy-now line goes through the engine so its variant modifier applies.
+     */
+    private Snapshot snapshot(Long userId, InventoryService.StockLine buyNow) {
+        if (buyNow != null) {
+            List<CheckoutLineView> rows = productRepository.findCheckoutLinesByIdIn(List.of(buyNow.productId()));
+            if (rows.isEmpty()) {
+                throw new IllegalArgumentException("Product not found");
+            }
+            rows.get(0).setQuantity(buyNow.quantity());
+            return new Snapshot(rows, new long[] {buyNow.variantId()},
+                pricingEngine.priceLine(buyNow.productId(), buyNow.variantId(), buyNow.quantity()));
+        }
+        List<CheckoutLineView> rows = userCartService.getCheckoutLines(userId);
+        int count = rows.size();
+        PricingEngine.PriceRule[] rules = new PricingEngine.PriceRule[count];
+        int[] quantities = new int[count];
+        for (int i = 0; i < count; i++) {
+            CheckoutLineView row = rows.get(i);
+            rules[i] = pricingEngine.ruleOf(row.getPrice(), row.getSellingPrice(), row.getMrp(),
+                row.getDiscountPercent(), row.getGstIncluded());
+            quantities[i] = row.getQuantity();
+        }
+        return new Snapshot(rows, null, pricingEngine.price(rules, null, quantities, count));
+    }
+
+    private long record(Stage stage, long since, StringBuilder timings) {
+        long now = System.nanoTime();
+        long micros = (now - since) / 1_000;
+        metricsService.add(stage.metric, micros);
+        timings.append(' ').append(stage.name().toLowerCase()).append('=').append(micros).append("us");
+        return now;
+    }
+
+    private Long requireUserId(String username) {
+        return userRepository.findIdByUsername(username)
+            .orElseThrow(() -> new RuntimeException("User not found: " + username));
+    }
+
+    public static class OrderAlreadyPlacedException extends RuntimeException {
+        public OrderAlreadyPlacedException(String razorpayOrderId) {
+            super("Order " + razorpayOrderId + " has already been recorded");
+        }
+    }
+}
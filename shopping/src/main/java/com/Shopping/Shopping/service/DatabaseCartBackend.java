@@ -0,0 +1,71 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.dto.CartQuantityView;
+import com.Shopping.Shopping.model.SessionCart;
+import com.Shopping.Shopping.repository.CartRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link CartBackend} over the {@code cart} table, written with one JDBC batch per statement type.
+ */
+@Service
+public class DatabaseCartBackend implements CartBackend {
+
+    private final CartRepository cartRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public DatabaseCartBackend(CartRepository cartRepository, JdbcTemplate jdbcTemplate) {
+        this.cartRepository = cartRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SessionCart load(Long userId) {
+        SessionCart cart = new SessionCart();
+        for (CartQuantityView row : cartRepository.findQuantitiesByUserId(userId)) {
+            // Duplicate rows from before the unique constraint are summed
+            cart.add(row.getProductId(), 0L, row.getQuantity());
+        }
+        return cart;
+    }
+
+    @Override
+    @Transactional
+    public void store(List<Change> changes) {
+        List<Object[]> deletes = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        for (Change change : changes) {
+            if (change.quantity() <= 0) {
+                deletes.add(new Object[] {change.userId(), change.productId()});
+            } else {
+                updates.add(new Object[] {change.quantity(), change.userId(), change.productId()});
+            }
+        }
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM cart WHERE user_id = ? AND product_id = ?", deletes);
+        }
+        if (updates.isEmpty()) {
+            return;
+        }
+        int[] counts = jdbcTemplate.batchUpdate(
+            "UPDATE cart SET quantity = ? WHERE user_id = ? AND product_id = ?", updates);
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            // SUCCESS_NO_INFO (-2) means the driver did not report a count; the row was there
+            if (counts[i] == 0) {
+                Object[] update = updates.get(i);
+                inserts.add(new Object[] {update[1], update[2], update[0]});
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                "INSERT INTO cart (id, user_id, product_id, quantity) VALUES (nextval('cart_seq'), ?, ?, ?)", inserts);
+        }
+    }
+}
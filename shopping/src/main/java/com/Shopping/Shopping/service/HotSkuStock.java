@@ -0,0 +1,67 @@
+package com.Shopping.Shopping.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Units of one product leased from the database, split over striped counters so concurrent
+ * buyers of a hot SKU CAS different cache lines instead of queueing on one product row.
+ */
+final class HotSkuStock {
+
+    // 8 longs = 64 bytes between stripes, so two stripes never share a cache line
+    private static final int STRIDE = 8;
+
+    private final int stripes;
+    private final AtomicLongArray units;
+
+    HotSkuStock(int stripes) {
+        this.stripes = Math.max(1, stripes);
+        this.units = new AtomicLongArray(this.stripes * STRIDE);
+    }
+
+    /**
+     * Takes the units from a single stripe, starting with the caller's own.
+     *
+     * @return false if no stripe holds enough
+     */
+    boolean tryTake(int quantity) {
+        int start = stripe();
+        for (int n = 0; n < stripes; n++) {
+            int index = ((start + n) % stripes) * STRIDE;
+            long current;
+            while ((current = units.get(index)) >= quantity) {
+                if (units.compareAndSet(index, current, current - quantity)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    void give(long quantity) {
+        units.addAndGet(stripe() * STRIDE, quantity);
+    }
+
+    /**
+     * Empties every stripe and returns what they held.
+     */
+    long drain() {
+        long total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += units.getAndSet(i * STRIDE, 0);
+        }
+        return total;
+    }
+
+    long available() {
+        long total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += units.get(i * STRIDE);
+        }
+        return total;
+    }
+
+    private int stripe() {
+        return (int) (Thread.currentThread().getId() % stripes);
+    }
+}
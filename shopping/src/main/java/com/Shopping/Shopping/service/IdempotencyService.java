@@ -0,0 +1,131 @@
+package com.Shopping.Shopping.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Runs an operation at most once per key.
+ *
+ * The key row is inserted in the same transaction as the operation: a concurrent duplicate blocks
+ * on the primary key until the first commits, then fails and replays the committed result; if the
+ * operation fails, its key goes with the rollback and a retry runs it again. Results of recent
+ * keys are also held in a small LRU map so a burst of client retries does not reach the database.
+ * Keys are kept for {@code payment.idempotency.retention} ms.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final int MAX_KEY_LENGTH = 128;
+
+    public record Outcome(String result, boolean replayed) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MetricsService metricsService;
+    private final long retentionMillis;
+    private final Map<String, String> recent;
+
+    public IdempotencyService(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              MetricsService metricsService,
+                              @Value("${payment.idempotency.cache-size:10000}") int cacheSize,
+                              @Value("${payment.idempotency.retention:604800000}") long retentionMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.metricsService = metricsService;
+        this.retentionMillis = retentionMillis;
+        this.recent = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > cacheSize;
+            }
+        });
+        metricsService.registerGauge("payment.idempotency.cached_keys", recent::size);
+    }
+
+    /**
+     * @param key       client key, unique per user
+     * @param operation joins the key's transaction; its result must not be null
+     * @throws IllegalArgumentException for a blank or over-long key
+     * @throws RequestInProgressException if the same key is still running elsewhere
+     */
+    public Outcome execute(String key, Long userId, Supplier<String> operation) {
+        if (key == null || key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency key must be 1-" + MAX_KEY_LENGTH + " characters");
+        }
+        String scopedKey = userId + ":" + key;
+        String cached = recent.get(scopedKey);
+        if (cached != null) {
+            metricsService.increment("payment.idempotency.replays.cached");
+            return new Outcome(cached, true);
+        }
+        try {
+            String result = transactionTemplate.execute(status -> {
+                claim(scopedKey, userId);
+                String value = operation.get();
+                jdbcTemplate.update("UPDATE idempotency_keys SET result = ? WHERE idem_key = ?", value, scopedKey);
+                return value;
+            });
+            recent.put(scopedKey, result);
+            metricsService.increment("payment.idempotency.executions");
+            return new Outcome(result, false);
+        } catch (KeyTakenException e) {
+            List<String> stored = jdbcTemplate.queryForList(
+                "SELECT result FROM idempotency_keys WHERE idem_key = ?", String.class, scopedKey);
+            if (stored.isEmpty() || stored.get(0) == null) {
+                metricsService.increment("payment.idempotency.conflicts");
+                throw new RequestInProgressException();
+            }
+            recent.put(scopedKey, stored.get(0));
+            metricsService.increment("payment.idempotency.replays.stored");
+            return new Outcome(stored.get(0), true);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${payment.idempotency.purge-interval:3600000}")
+    public void purgeExpired() {
+        int purged = jdbcTemplate.update("DELETE FROM idempotency_keys WHERE created_at < ?",
+            System.currentTimeMillis() - retentionMillis);
+        if (purged > 0) {
+            logger.info("Purged {} idempotency keys", purged);
+        }
+    }
+
+    private void claim(String scopedKey, Long userId) {
+        try {
+            jdbcTemplate.update("INSERT INTO idempotency_keys (idem_key, user_id, result, created_at) VALUES (?, ?, NULL, ?)",
+                scopedKey, userId, System.currentTimeMillis());
+        } catch (DataIntegrityViolationException | PessimisticLockingFailureException e) {
+            // Duplicate key, or (H2) the lock wait on an uncommitted duplicate timed out
+            throw new KeyTakenException();
+        }
+    }
+
+    private static class KeyTakenException extends RuntimeException {
+        KeyTakenException() {
+            super(null, null, false, false);
+        }
+    }
+
+    public static class RequestInProgressException extends RuntimeException {
+        public RequestInProgressException() {
+            super("A request with this idempotency key is still being processed, retry shortly");
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package com.Shopping.Shopping.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stock reservations for checkout.
+ *
+ * Stock is taken with conditional updates - {@code available_quantity = available_quantity - ?
+ * WHERE id = ? AND available_quantity >= ?} - so two buyers of the last unit cannot both succeed,
+ * whatever the isolation level. A NULL quantity means stock is not tracked and always passes.
+ * Reserved units are recorded in stock_reservation with a TTL: {@link #commit} keeps them when the
+ * payment succeeds, {@link #release} and the {@link #releaseExpired()} sweeper give them back.
+ *
+ * Products listed in {@code inventory.hot-sku.product-ids} are sold from an in-memory lease:
+ * units are taken from the database {@code lease-size} at a time in their own transaction, handed
+ * out from a {@link HotSkuStock}, and unsold units go back in one batch every sync interval.
+ * Leased units always come out of committed database stock, so the lease cannot oversell; while
+ * leased they are just missing from available_quantity.
+ */
+@Service
+public class InventoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryService.class);
+
+    static final String HELD = "HELD";
+    static final String COMMITTED = "COMMITTED";
+    static final String RELEASED = "RELEASED";
+    private static final int SWEEP_BATCH = 500;
+    private static final Comparator<StockLine> LOCK_ORDER =
+        Comparator.comparingLong(StockLine::productId).thenComparingLong(StockLine::variantId);
+
+    private static final String PRODUCT_DECREMENT =
+        "UPDATE product SET available_quantity = available_quantity - ? " +
+        "WHERE id = ? AND (available_quantity IS NULL OR available_quantity >= ?)";
+    private static final String PRODUCT_LEASE =
+        "UPDATE product SET available_quantity = available_quantity - ? WHERE id = ? AND available_quantity >= ?";
+    private static final String PRODUCT_INCREMENT =
+        "UPDATE product SET available_quantity = available_quantity + ? WHERE id = ?";
+    private static final String VARIANT_DECREMENT =
+        "UPDATE product_variants SET stock_quantity = stock_quantity - ? " +
+        "WHERE id = ? AND product_id = ? AND (stock_quantity IS NULL OR stock_quantity >= ?)";
+    private static final String VARIANT_INCREMENT =
+        "UPDATE product_variants SET stock_quantity = stock_quantity + ? WHERE id = ?";
+    private static final String INSERT_RESERVATION =
+        "INSERT INTO stock_reservation (reference, user_id, product_id, variant_id, quantity, status, expires_at, created_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_HELD =
+        "SELECT id, product_id, variant_id, quantity FROM stock_reservation ";
+
+    /**
+     * One line to reserve. A variantId of 0 means the product itself.
+     */
+    public record StockLine(long productId, long variantId, int quantity) {}
+
+    private record HeldRow(long id, StockLine line) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate leaseTransaction;
+    private final MetricsService metricsService;
+    private final long ttlMillis;
+    private final int leaseSize;
+    private final Map<Long, HotSkuStock> hotSkus = new HashMap<>();
+
+    public InventoryService(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            MetricsService metricsService,
+                            @Value("${inventory.reservation.ttl:900000}") long ttlMillis,
+                            @Value("${inventory.hot-sku.product-ids:}") String hotProductIds,
+                            @Value("${inventory.hot-sku.lease-size:20}") int leaseSize,
+                            @Value("${inventory.hot-sku.stripes:8}") int stripes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.leaseTransaction = new TransactionTemplate(transactionManager);
+        this.leaseTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.metricsService = metricsService;
+        this.ttlMillis = ttlMillis;
+        this.leaseSize = Math.max(0, leaseSize);
+        for (String id : hotProductIds.split(",")) {
+            if (!id.isBlank()) {
+                hotSkus.put(Long.parseLong(id.trim()), new HotSkuStock(stripes));
+            }
+        }
+        metricsService.registerGauge("inventory.hot.leased_units",
+            () -> hotSkus.values().stream().mapToLong(HotSkuStock::available).sum());
+    }
+
+    /**
+     * Takes the lines off stock and holds them under {@code reference} until {@link #commit},
+     * {@link #release} or expiry. All or nothing.
+     *
+     * @throws OutOfStockException for the first line stock does not cover
+     */
+    @Transactional
+    public void reserve(String reference, Long userId, List<StockLine> lines) {
+        List<StockLine> merged = merge(lines);
+        try {
+            take(merged);
+        } catch (OutOfStockException e) {
+            metricsService.increment("inventory.reserve.out_of_stock");
+            throw e;
+        }
+        insertReservations(reference, userId, merged, HELD);
+        metricsService.increment("inventory.reserve.ok");
+    }
+
+    /**
+     * Moves held units to a new reference, e.g. from the receipt id to the Razorpay order id.
+     */
+    @Transactional
+    public int rename(String reference, String newReference) {
+        return jdbcTemplate.update("UPDATE stock_reservation SET reference = ? WHERE reference = ? AND status = ?",
+            newReference, reference, HELD);
+    }
+
+    /**
+     * Marks the units held under {@code reference} as sold. A hold that already expired is
+     * taken again from current stock; repeated calls for a committed reference do nothing.
+     *
+     * @return false if the hold was gone and stock no longer covers the lines
+     * @throws IllegalStateException if the units held are not exactly the lines
+     */
+    @Transactional
+    public boolean commit(String reference, Long userId, List<StockLine> lines) {
+        List<StockLine> merged = merge(lines);
+        List<StockLine> held = jdbcTemplate.query(SELECT_HELD + "WHERE reference = ? AND status = ?",
+            InventoryService::heldRow, reference, HELD).stream().map(HeldRow::line).sorted(LOCK_ORDER).toList();
+        if (!held.isEmpty() && !held.equals(merged)) {
+            metricsService.increment("inventory.commit.mismatch");
+            throw new IllegalStateException("Stock held for " + reference + " does not match the order");
+        }
+        if (!held.isEmpty() && jdbcTemplate.update("UPDATE stock_reservation SET status = ? WHERE reference = ? AND status = ?",
+                COMMITTED, reference, HELD) > 0) {
+            metricsService.increment("inventory.commit.held");
+            return true;
+        }
+        Integer committed = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM stock_reservation WHERE reference = ? AND status = ?", Integer.class, reference, COMMITTED);
+        if (committed != null && committed > 0) {
+            return true;
+        }
+        try {
+            take(merged);
+        } catch (OutOfStockException e) {
+            logger.warn("Reservation {} expired and stock no longer covers it: {}", reference, e.getMessage());
+            metricsService.increment("inventory.commit.short");
+            return false;
+        }
+        insertReservations(reference, userId, merged, COMMITTED);
+        metricsService.increment("inventory.commit.retaken");
+        return true;
+    }
+
+    /**
+     * Returns the units held under {@code reference} by the user to stock.
+     *
+     * @return number of reservation lines released
+     */
+    @Transactional
+    public int release(String reference, Long userId) {
+        return releaseRows(jdbcTemplate.query(SELECT_HELD + "WHERE reference = ? AND user_id = ? AND status = ?",
+            InventoryService::heldRow, reference, userId, HELD));
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.reservation.sweep-interval:30000}")
+    @Transactional
+    public void releaseExpired() {
+        List<HeldRow> rows = jdbcTemplate.query(
+            SELECT_HELD + "WHERE status = ? AND expires_at < ? ORDER BY expires_at FETCH FIRST " + SWEEP_BATCH + " ROWS ONLY",
+            InventoryService::heldRow, HELD, System.currentTimeMillis());
+        int released = releaseRows(rows);
+        if (released > 0) {
+            logger.info("Released {} expired stock reservations", released);
+            metricsService.add("inventory.reservations.expired", released);
+        }
+    }
+
+    /**
+     * Puts unsold leased units of hot SKUs back into available_quantity, one batch for all products.
+     */
+    @Scheduled(fixedDelayString = "${inventory.hot-sku.sync-interval:5000}")
+    public void returnLeases() {
+        if (hotSkus.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>();
+        List<HotSkuStock> drained = new ArrayList<>();
+        hotSkus.forEach((productId, stock) -> {
+            long units = stock.drain();
+            if (units > 0) {
+                rows.add(new Object[] {units, productId});
+                drained.add(stock);
+            }
+        });
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(PRODUCT_INCREMENT, rows);
+        } catch (DataAccessException e) {
+            logger.warn("Failed to return leased stock, keeping it in memory: {}", e.getMessage());
+            for (int i = 0; i < rows.size(); i++) {
+                drained.get(i).give((Long) rows.get(i)[0]);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        returnLeases();
+    }
+
+    /**
+     * Takes every line or none. Hot SKU leases go first: they commit in their own transaction
+     * and must not wait on product rows this transaction has already locked.
+     */
+    private void take(List<StockLine> lines) {
+        List<StockLine> leased = new ArrayList<>();
+        List<StockLine> products = new ArrayList<>();
+        List<StockLine> variants = new ArrayList<>();
+        for (StockLine line : lines) {
+            HotSkuStock stock = line.variantId() == 0L ? hotSkus.get(line.productId()) : null;
+            if (stock != null && takeLeased(stock, line)) {
+                leased.add(line);
+                continue;
+            }
+            products.add(line);
+            if (line.variantId() != 0L) {
+                variants.add(line);
+            }
+        }
+        try {
+            decrementAll(products, false);
+            try {
+                decrementAll(variants, true);
+            } catch (OutOfStockException e) {
+                incrementAll(products, false);
+                throw e;
+            }
+        } catch (OutOfStockException e) {
+            giveBack(leased);
+            throw e;
+        }
+        if (!leased.isEmpty() && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        giveBack(leased);
+                    }
+                }
+            });
+        }
+    }
+
+    private boolean takeLeased(HotSkuStock stock, StockLine line) {
+        if (stock.tryTake(line.quantity())) {
+            return true;
+        }
+        int wanted = line.quantity() + leaseSize;
+        Integer leased = leaseTransaction.execute(status ->
+            jdbcTemplate.update(PRODUCT_LEASE, wanted, line.productId(), wanted));
+        if (leased == null || leased == 0) {
+            // Nearly sold out (or untracked): the line goes through the row update instead
+            return false;
+        }
+        metricsService.increment("inventory.hot.leases");
+        stock.give(leaseSize);
+        return true;
+    }
+
+    private void giveBack(List<StockLine> leased) {
+        for (StockLine line : leased) {
+            hotSkus.get(line.productId()).give(line.quantity());
+        }
+    }
+
+    /**
+     * Runs the conditional decrements as one batch. If any row fails the applied ones are put back
+     * before throwing, so callers that catch the exception keep consistent stock.
+     */
+    private void decrementAll(List<StockLine> lines, boolean variants) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(lines.size());
+        for (StockLine line : lines) {
+            args.add(variants
+                ? new Object[] {line.quantity(), line.variantId(), line.productId(), line.quantity()}
+                : new Object[] {line.quantity(), line.productId(), line.quantity()});
+        }
+        int[] counts = jdbcTemplate.batchUpdate(variants ? VARIANT_DECREMENT : PRODUCT_DECREMENT, args);
+        StockLine failed = null;
+        List<StockLine> applied = new ArrayList<>(lines.size());
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                if (failed == null) {
+                    failed = lines.get(i);
+                }
+            } else {
+                applied.add(lines.get(i));
+            }
+        }
+        if (failed != null) {
+            incrementAll(applied, variants);
+            throw new OutOfStockException(failed.productId(), failed.variantId());
+        }
+    }
+
+    private void incrementAll(List<StockLine> lines, boolean variants) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(lines.size());
+        for (StockLine line : lines) {
+            args.add(new Object[] {line.quantity(), variants ? line.variantId() : line.productId()});
+        }
+        jdbcTemplate.batchUpdate(variants ? VARIANT_INCREMENT : PRODUCT_INCREMENT, args);
+    }
+
+    /**
+     * Flips HELD rows to RELEASED one by one (so the sweeper and an explicit release cannot both
+     * return the same row) and restores stock for the rows this call flipped.
+     */
+    private int releaseRows(List<HeldRow> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> args = new ArrayList<>(rows.size());
+        for (HeldRow row : rows) {
+            args.add(new Object[] {RELEASED, row.id(), HELD});
+        }
+        int[] counts = jdbcTemplate.batchUpdate("UPDATE stock_reservation SET status = ? WHERE id = ? AND status = ?", args);
+        List<StockLine> products = new ArrayList<>();
+        List<StockLine> variants = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                StockLine line = rows.get(i).line();
+                products.add(line);
+                if (line.variantId() != 0L) {
+                    variants.add(line);
+                }
+            }
+        }
+        incrementAll(products, false);
+        incrementAll(variants, true);
+        return products.size();
+    }
+
+    private void insertReservations(String reference, Long userId, List<StockLine> lines, String status) {
+        long now = System.currentTimeMillis();
+        List<Object[]> args = new ArrayList<>(lines.size());
+        for (StockLine line : lines) {
+            args.add(new Object[] {reference, userId, line.productId(),
+                line.variantId() != 0L ? line.variantId() : null, line.quantity(), status, now + ttlMillis, now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_RESERVATION, args);
+    }
+
+    /**
+     * Sums duplicate lines and sorts by (product, variant) so concurrent reservations lock rows
+     * in the same order and cannot deadlock.
+     */
+    static List<StockLine> merge(List<StockLine> lines) {
+        Map<List<Long>, Integer> quantities = new LinkedHashMap<>();
+        for (StockLine line : lines) {
+            if (line.quantity() <= 0) {
+                throw new IllegalArgumentException("Quantity must be positive");
+            }
+            quantities.merge(List.of(line.productId(), line.variantId()), line.quantity(), Integer::sum);
+        }
+        List<StockLine> merged = new ArrayList<>(quantities.size());
+        quantities.forEach((key, quantity) -> merged.add(new StockLine(key.get(0), key.get(1), quantity)));
+        merged.sort(LOCK_ORDER);
+        return merged;
+    }
+
+    private static HeldRow heldRow(ResultSet rs, int rowNum) throws SQLException {
+        // getLong maps NULL to 0, which is also "no variant"
+        return new HeldRow(rs.getLong("id"),
+            new StockLine(rs.getLong("product_id"), rs.getLong("variant_id"), rs.getInt("quantity")));
+    }
+
+    public static class OutOfStockException extends RuntimeException {
+        private final long productId;
+        private final long variantId;
+
+        public OutOfStockException(long productId, long variantId) {
+            super("Not enough stock for product " + productId + (variantId != 0L ? " variant " + variantId : ""));
+            this.productId = productId;
+            this.variantId = variantId;
+        }
+
+        public long getProductId() {
+            return productId;
+        }
+
+        public long getVariantId() {
+            return variantId;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.Shopping.Shopping.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Moves orders older than {@code orders.archive.horizon-days} from {@code orders} (and their
+ * {@code order_items}) into {@code orders_archive}, {@code batch-size} orders per transaction.
+ * The signature and items of an archived order are kept as gzipped JSON; the columns order history
+ * needs stay plain, and {@link OrderHistoryService} reads on into the archive after the hot orders.
+ *
+ * Orders are archived oldest first, so every archived order sorts before every order still in
+ * {@code orders}. On a partitioned {@code orders} table the emptied monthly partitions are dropped.
+ */
+@Service
+public class OrderArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderArchiveService.class);
+
+    public record ArchivedItem(long productId, Long variantId, Long sellerId, String productName, int quantity,
+                               long unitPricePaise, long lineTotalPaise, long taxPaise) {}
+
+    public record ArchivedOrder(long id, LocalDateTime orderDate, List<ArchivedItem> items) {}
+
+    record Details(String razorpaySignature, List<ArchivedItem> items) {}
+
+    private record HotOrder(long id, Long userId, Timestamp orderDate, double amount, String razorpayOrderId,
+                            String razorpayPaymentId, String razorpaySignature, String email) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderPartitionService partitionService;
+    private final ObjectMapper objectMapper;
+    private final MetricsService metricsService;
+    private final int horizonDays;
+    private final int batchSize;
+    private final boolean enabled;
+
+    public OrderArchiveService(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               OrderPartitionService partitionService,
+                               ObjectMapper objectMapper,
+                               MetricsService metricsService,
+                               @Value("${orders.archive.horizon-days:365}") int horizonDays,
+                               @Value("${orders.archive.batch-size:500}") int batchSize,
+                               @Value("${orders.archive.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.partitionService = partitionService;
+        this.objectMapper = objectMapper;
+        this.metricsService = metricsService;
+        this.horizonDays = horizonDays;
+        this.batchSize = Math.max(1, batchSize);
+        this.enabled = enabled;
+    }
+
+    @Scheduled(initialDelayString = "${orders.archive.initial-delay:600000}", fixedDelayString = "${orders.archive.interval:86400000}")
+    public void archiveExpired() {
+        if (enabled) {
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(horizonDays);
+            archiveOlderThan(cutoff);
+            partitionService.dropEmptyPartitionsBefore(cutoff.toLocalDate());
+        }
+    }
+
+    /**
+     * @return the number of orders archived
+     */
+    public int archiveOlderThan(LocalDateTime cutoff) {
+        long started = System.nanoTime();
+        int total = 0;
+        int archived;
+        do {
+            archived = transactionTemplate.execute(status -> archiveBatch(cutoff));
+            total += archived;
+        } while (archived == batchSize);
+        if (total > 0) {
+            metricsService.add("orders.archived", total);
+            logger.info("Archived {} orders placed before {} in {} ms", total, cutoff, (System.nanoTime() - started) / 1_000_000);
+        }
+        return total;
+    }
+
+    /**
+     * Line items of an archived order, or an empty list if the order is not archived.
+     */
+    public List<ArchivedItem> archivedItems(long orderId) {
+        List<byte[]> details = jdbcTemplate.queryForList("SELECT details FROM orders_archive WHERE id = ?", byte[].class, orderId);
+        if (details.isEmpty() || details.get(0) == null) {
+            return Collections.emptyList();
+        }
+        return gunzip(details.get(0)).items();
+    }
+
+    /**
+     * Streams the archived orders placed in [from, to) with their items, one row at a time.
+     */
+    public void forEachArchived(LocalDateTime from, LocalDateTime to, Consumer<ArchivedOrder> consumer) {
+        jdbcTemplate.query("SELECT id, order_date, details FROM orders_archive WHERE order_date >= ? AND order_date < ?",
+            rs -> {
+                byte[] details = rs.getBytes("details");
+                consumer.accept(new ArchivedOrder(rs.getLong("id"), rs.getTimestamp("order_date").toLocalDateTime(),
+                    details == null ? List.of() : gunzip(details).items()));
+            }, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    private int archiveBatch(LocalDateTime cutoff) {
+        List<HotOrder> orders = jdbcTemplate.query(
+            "SELECT id, user_id, order_date, amount, razorpay_order_id, razorpay_payment_id, razorpay_signature, email " +
+            "FROM orders WHERE order_date < ? ORDER BY order_date, id FETCH FIRST " + batchSize + " ROWS ONLY",
+            (rs, rowNum) -> new HotOrder(rs.getLong("id"), rs.getObject("user_id", Long.class),
+                rs.getTimestamp("order_date"), rs.getDouble("amount"), rs.getString("razorpay_order_id"),
+                rs.getString("razorpay_payment_id"), rs.getString("razorpay_signature"), rs.getString("email")),
+            Timestamp.valueOf(cutoff));
+        if (orders.isEmpty()) {
+            return 0;
+        }
+        String ids = String.join(",", Collections.nCopies(orders.size(), "?"));
+        Object[] idArgs = orders.stream().map(HotOrder::id).toArray();
+
+        Map<Long, List<ArchivedItem>> items = new HashMap<>();
+        jdbcTemplate.query("SELECT order_id, product_id, variant_id, seller_id, product_name, quantity, unit_price_paise, " +
+            "line_total_paise, tax_paise FROM order_items WHERE order_id IN (" + ids + ") ORDER BY id", rs -> {
+                items.computeIfAbsent(rs.getLong("order_id"), id -> new ArrayList<>()).add(new ArchivedItem(
+                    rs.getLong("product_id"), rs.getObject("variant_id", Long.class), rs.getObject("seller_id", Long.class),
+                    rs.getString("product_name"), rs.getInt("quantity"), rs.getLong("unit_price_paise"),
+                    rs.getLong("line_total_paise"), rs.getLong("tax_paise")));
+            }, idArgs);
+
+        long now = System.currentTimeMillis();
+        List<Object[]> rows = new ArrayList<>(orders.size());
+        for (HotOrder order : orders) {
+            byte[] details = gzip(new Details(order.razorpaySignature(), items.getOrDefault(order.id(), List.of())));
+            rows.add(new Object[] {order.id(), order.userId(), order.orderDate(), order.amount(), order.razorpayOrderId(),
+                order.razorpayPaymentId(), order.email(), details, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO orders_archive (id, user_id, order_date, amount, razorpay_order_id, " +
+            "razorpay_payment_id, email, details, archived_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        jdbcTemplate.update("DELETE FROM order_items WHERE order_id IN (" + ids + ")", idArgs);
+        jdbcTemplate.update("DELETE FROM orders WHERE id IN (" + ids + ")", idArgs);
+        return orders.size();
+    }
+
+    private byte[] gzip(Details details) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(out, details);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private Details gunzip(byte[] details) {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(details))) {
+            return objectMapper.readValue(in, Details.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
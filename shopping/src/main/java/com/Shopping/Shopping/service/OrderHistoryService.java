@@ -0,0 +1,109 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.dto.OrderDTO;
+import com.Shopping.Shopping.dto.OrderPage;
+import com.Shopping.Shopping.dto.OrderSummaryDTO;
+import com.Shopping.Shopping.repository.OrderArchiveRepository;
+import com.Shopping.Shopping.repository.OrdersRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * A user's order history, newest first.
+ *
+ * Pages are keyset-paginated on (orderDate, id): the cursor is the last order of the previous page,
+ * so each page is one index range scan of idx_orders_user_order_date, however deep the user pages.
+ * Archived orders all sort after the orders still in {@code orders} (see {@link OrderArchiveService}),
+ * so a page that runs out of hot orders continues into {@code orders_archive} with the same cursor.
+ */
+@Service
+public class OrderHistoryService {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private final OrdersRepository ordersRepository;
+    private final OrderArchiveRepository orderArchiveRepository;
+
+    public OrderHistoryService(OrdersRepository ordersRepository, OrderArchiveRepository orderArchiveRepository) {
+        this.ordersRepository = ordersRepository;
+        this.orderArchiveRepository = orderArchiveRepository;
+    }
+
+    /**
+     * @param cursor {@link OrderPage#getNextCursor()} of the previous page, or null for the first
+     * @throws IllegalArgumentException for a malformed cursor or a limit outside 1..{@value #MAX_PAGE_SIZE}
+     */
+    @Transactional(readOnly = true)
+    public OrderPage page(Long userId, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        // One extra row tells whether there is a next page
+        PageRequest fetch = PageRequest.of(0, limit + 1);
+        Cursor after = cursor == null || cursor.isBlank() ? null : Cursor.decode(cursor);
+        List<OrderDTO> orders = after == null
+            ? ordersRepository.findOrderViewsByUserId(userId, fetch)
+            : ordersRepository.findOrderViewsByUserIdBefore(userId, after.orderDate(), after.id(), fetch);
+        if (orders.size() <= limit) {
+            PageRequest rest = PageRequest.of(0, limit + 1 - orders.size());
+            List<OrderDTO> archived = after == null
+                ? orderArchiveRepository.findOrderViewsByUserId(userId, rest)
+                : orderArchiveRepository.findOrderViewsByUserIdBefore(userId, after.orderDate(), after.id(), rest);
+            if (!archived.isEmpty()) {
+                orders = new ArrayList<>(orders);
+                orders.addAll(archived);
+            }
+        }
+        if (orders.size() <= limit) {
+            return new OrderPage(orders, null);
+        }
+        List<OrderDTO> page = orders.subList(0, limit);
+        OrderDTO last = page.get(limit - 1);
+        return new OrderPage(List.copyOf(page), new Cursor(last.getOrderDate(), last.getId()).encode());
+    }
+
+    @Transactional(readOnly = true)
+    public OrderSummaryDTO summary(Long userId) {
+        OrderSummaryDTO hot = ordersRepository.summarizeByUserId(userId);
+        OrderSummaryDTO archived = orderArchiveRepository.summarizeByUserId(userId);
+        if (archived.getOrderCount() == 0) {
+            return hot;
+        }
+        if (hot.getOrderCount() == 0) {
+            return archived;
+        }
+        return new OrderSummaryDTO(hot.getOrderCount() + archived.getOrderCount(),
+            hot.getTotalAmount() + archived.getTotalAmount(), archived.getFirstOrderDate(), hot.getLastOrderDate());
+    }
+
+    /**
+     * Position after which the next page starts; opaque to clients.
+     */
+    record Cursor(LocalDateTime orderDate, long id) {
+
+        String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((orderDate + "|" + id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            try {
+                String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = value.lastIndexOf('|');
+                return new Cursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+    }
+}
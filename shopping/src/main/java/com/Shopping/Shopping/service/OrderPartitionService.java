@@ -0,0 +1,122 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.config.DatabaseDialect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Monthly partitions of {@code orders} on PostgreSQL.
+ *
+ * Once {@code orders} has been converted to a table partitioned by range of order_date (the opt-in
+ * orders-partitioning.sql, see ORDERS_PARTITIONING.md), this keeps a partition ready for the current
+ * month and the next {@code orders.partition.months-ahead}, and drops old partitions the archiver
+ * has emptied. Recent order queries then only scan the last few partitions. On H2, or while
+ * {@code orders} is a plain table, there is nothing to do.
+ */
+@Service
+public class OrderPartitionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderPartitionService.class);
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final String PREFIX = "orders_";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+    private volatile Boolean partitioned;
+
+    public OrderPartitionService(JdbcTemplate jdbcTemplate,
+                                 @Value("${orders.partition.months-ahead:3}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = Math.max(0, monthsAhead);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${orders.partition.check-interval:86400000}")
+    public void ensurePartitions() {
+        if (!isPartitioned()) {
+            return;
+        }
+        YearMonth month = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            try {
+                jdbcTemplate.execute(createPartitionSql(month.plusMonths(i)));
+            } catch (DataAccessException e) {
+                // e.g. rows for that month already sit in the default partition
+                logger.warn("Could not create partition {}: {}", partitionName(month.plusMonths(i)), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Drops monthly partitions that end on or before {@code cutoff} and hold no rows.
+     *
+     * @return the number of partitions dropped
+     */
+    public int dropEmptyPartitionsBefore(LocalDate cutoff) {
+        if (!isPartitioned()) {
+            return 0;
+        }
+        List<String> partitions = jdbcTemplate.queryForList(
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = 'orders'", String.class);
+        int dropped = 0;
+        for (String partition : partitions) {
+            YearMonth month = monthOf(partition);
+            if (month == null || month.plusMonths(1).atDay(1).isAfter(cutoff)) {
+                continue;
+            }
+            Boolean empty = jdbcTemplate.queryForObject("SELECT NOT EXISTS (SELECT 1 FROM " + partition + ")", Boolean.class);
+            if (Boolean.TRUE.equals(empty)) {
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                logger.info("Dropped archived order partition {}", partition);
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    public boolean isPartitioned() {
+        Boolean value = partitioned;
+        if (value == null) {
+            value = DatabaseDialect.detect(jdbcTemplate) == DatabaseDialect.POSTGRESQL
+                && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid " +
+                    "WHERE c.relname = 'orders' AND pg_table_is_visible(c.oid))", Boolean.class));
+            partitioned = value;
+        }
+        return value;
+    }
+
+    static String partitionName(YearMonth month) {
+        return PREFIX + month.format(SUFFIX);
+    }
+
+    static String createPartitionSql(YearMonth month) {
+        return "CREATE TABLE IF NOT EXISTS " + partitionName(month) + " PARTITION OF orders FOR VALUES FROM ('"
+            + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')";
+    }
+
+    /**
+     * The month of a partition named orders_yyyy_MM, or null for other partitions (the default one).
+     */
+    static YearMonth monthOf(String partition) {
+        if (!partition.startsWith(PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring(PREFIX.length()), SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
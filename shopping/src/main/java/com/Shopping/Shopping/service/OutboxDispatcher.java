@@ -0,0 +1,243 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.config.DatabaseDialect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.Shopping.Shopping.service.OutboxService.DONE;
+import static com.Shopping.Shopping.service.OutboxService.FAILED;
+import static com.Shopping.Shopping.service.OutboxService.PENDING;
+import static com.Shopping.Shopping.service.OutboxService.PROCESSING;
+
+/**
+ * Delivers outbox events to their {@link OutboxHandler}s in the background.
+ *
+ * Every {@code outbox.poll-interval} ms due events are claimed in batches of {@code batch-size}:
+ * they become PROCESSING with a lease of {@code lease} ms, after which an event whose worker died
+ * is due again. On PostgreSQL the batch is selected {@code FOR UPDATE SKIP LOCKED}, so instances
+ * polling together take disjoint batches without waiting on each other; on other databases each
+ * row is claimed with a compare-and-set update and rows another worker got first are skipped.
+ *
+ * Each event runs in its own transaction with the update marking it DONE. A failed event is
+ * retried after {@code retry.base-delay} ms, doubling up to {@code retry.max-delay}, and is left
+ * FAILED after {@code max-attempts}. Done events are purged after {@code retention} ms.
+ */
+@Service
+public class OutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcher.class);
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private static final String SELECT_DUE =
+        "SELECT id, event_type, aggregate_id, payload, attempts, created_at, status, available_at FROM outbox_events " +
+        "WHERE status IN ('" + PENDING + "', '" + PROCESSING + "') AND available_at <= ? ORDER BY id FETCH FIRST %d ROWS ONLY";
+
+    private record DueRow(OutboxHandler.Event event, String status, long availableAt) {}
+
+    private static final RowMapper<DueRow> DUE_ROW = (rs, rowNum) -> new DueRow(
+        new OutboxHandler.Event(rs.getLong("id"), rs.getString("event_type"), rs.getLong("aggregate_id"),
+            rs.getString("payload"), rs.getInt("attempts") + 1, rs.getLong("created_at")),
+        rs.getString("status"), rs.getLong("available_at"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MetricsService metricsService;
+    private final Map<String, List<OutboxHandler>> handlers = new HashMap<>();
+    private final int batchSize;
+    private final long leaseMillis;
+    private final int maxAttempts;
+    private final long retryBaseDelayMillis;
+    private final long retryMaxDelayMillis;
+    private final long retentionMillis;
+    private final boolean enabled;
+    private volatile Boolean skipLocked;
+
+    public OutboxDispatcher(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            MetricsService metricsService,
+                            List<OutboxHandler> handlers,
+                            @Value("${outbox.batch-size:100}") int batchSize,
+                            @Value("${outbox.lease:60000}") long leaseMillis,
+                            @Value("${outbox.max-attempts:10}") int maxAttempts,
+                            @Value("${outbox.retry.base-delay:1000}") long retryBaseDelayMillis,
+                            @Value("${outbox.retry.max-delay:300000}") long retryMaxDelayMillis,
+                            @Value("${outbox.retention:86400000}") long retentionMillis,
+                            @Value("${outbox.dispatcher.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.metricsService = metricsService;
+        for (OutboxHandler handler : handlers) {
+            this.handlers.computeIfAbsent(handler.eventType(), type -> new ArrayList<>()).add(handler);
+        }
+        this.batchSize = Math.max(1, batchSize);
+        this.leaseMillis = leaseMillis;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBaseDelayMillis = retryBaseDelayMillis;
+        this.retryMaxDelayMillis = retryMaxDelayMillis;
+        this.retentionMillis = retentionMillis;
+        this.enabled = enabled;
+        metricsService.registerGauge("outbox.backlog", () -> queryOrMinusOne(
+            "SELECT COUNT(*) FROM outbox_events WHERE status IN ('" + PENDING + "', '" + PROCESSING + "')"));
+        metricsService.registerGauge("outbox.lag.oldest_millis", () -> {
+            long oldest = queryOrMinusOne(
+                "SELECT COALESCE(MIN(created_at), 0) FROM outbox_events WHERE status IN ('" + PENDING + "', '" + PROCESSING + "')");
+            return oldest <= 0 ? oldest : System.currentTimeMillis() - oldest;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.poll-interval:250}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            // Keep going while batches come back full, so a backlog drains without waiting a poll interval
+            while (dispatchBatch() == batchSize) {
+                metricsService.increment("outbox.polls.full");
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Outbox poll failed: {}", e.toString());
+        }
+    }
+
+    /**
+     * Claims and runs one batch of due events.
+     *
+     * @return the number of events claimed
+     */
+    public int dispatchBatch() {
+        long now = System.currentTimeMillis();
+        List<OutboxHandler.Event> claimed = transactionTemplate.execute(status -> claim(now));
+        if (claimed == null || claimed.isEmpty()) {
+            return 0;
+        }
+        for (OutboxHandler.Event event : claimed) {
+            dispatch(event);
+        }
+        return claimed.size();
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.purge-interval:3600000}")
+    public void purgeDone() {
+        int purged = jdbcTemplate.update("DELETE FROM outbox_events WHERE status = ? AND processed_at < ?",
+            DONE, System.currentTimeMillis() - retentionMillis);
+        if (purged > 0) {
+            logger.info("Purged {} delivered outbox events", purged);
+        }
+    }
+
+    private List<OutboxHandler.Event> claim(long now) {
+        String select = String.format(SELECT_DUE, batchSize);
+        long leaseUntil = now + leaseMillis;
+        List<OutboxHandler.Event> claimed = new ArrayList<>();
+        if (skipLocked()) {
+            List<DueRow> rows = jdbcTemplate.query(select + " FOR UPDATE SKIP LOCKED", DUE_ROW, now);
+            List<Object[]> updates = new ArrayList<>(rows.size());
+            for (DueRow row : rows) {
+                updates.add(new Object[] {PROCESSING, leaseUntil, row.event().id()});
+                claimed.add(row.event());
+            }
+            jdbcTemplate.batchUpdate("UPDATE outbox_events SET status = ?, available_at = ?, attempts = attempts + 1 WHERE id = ?", updates);
+        } else {
+            for (DueRow row : jdbcTemplate.query(select, DUE_ROW, now)) {
+                int updated = jdbcTemplate.update("UPDATE outbox_events SET status = ?, available_at = ?, attempts = attempts + 1 " +
+                    "WHERE id = ? AND status = ? AND available_at = ?",
+                    PROCESSING, leaseUntil, row.event().id(), row.status(), row.availableAt());
+                if (updated == 1) {
+                    claimed.add(row.event());
+                } else {
+                    metricsService.increment("outbox.claim.lost");
+                }
+            }
+        }
+        return claimed;
+    }
+
+    private void dispatch(OutboxHandler.Event event) {
+        List<OutboxHandler> eventHandlers = handlers.get(event.type());
+        if (eventHandlers == null) {
+            fail(event, "No handler for event type " + event.type(), true);
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (OutboxHandler handler : eventHandlers) {
+                    try {
+                        handler.handle(event);
+                    } catch (RuntimeException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new HandlerException(e);
+                    }
+                }
+                jdbcTemplate.update("UPDATE outbox_events SET status = ?, processed_at = ?, last_error = NULL WHERE id = ?",
+                    DONE, System.currentTimeMillis(), event.id());
+            });
+        } catch (RuntimeException e) {
+            Throwable cause = e instanceof HandlerException ? e.getCause() : e;
+            fail(event, cause.toString(), false);
+            return;
+        } finally {
+            metricsService.add("outbox.handler." + event.type() + ".micros", (System.nanoTime() - started) / 1_000);
+        }
+        // Mean lag from commit to delivery is outbox.lag.millis / outbox.dispatched
+        metricsService.increment("outbox.dispatched");
+        metricsService.add("outbox.lag.millis", System.currentTimeMillis() - event.createdAt());
+    }
+
+    private void fail(OutboxHandler.Event event, String error, boolean permanent) {
+        String message = error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+        long now = System.currentTimeMillis();
+        if (permanent || event.attempt() >= maxAttempts) {
+            jdbcTemplate.update("UPDATE outbox_events SET status = ?, processed_at = ?, last_error = ? WHERE id = ?",
+                FAILED, now, message, event.id());
+            metricsService.increment("outbox.failed");
+            logger.error("Outbox event {} ({}) failed after {} attempts: {}", event.id(), event.type(), event.attempt(), message);
+            return;
+        }
+        long delay = Math.min(retryMaxDelayMillis, retryBaseDelayMillis << Math.min(event.attempt() - 1, 20));
+        jdbcTemplate.update("UPDATE outbox_events SET status = ?, available_at = ?, last_error = ? WHERE id = ?",
+            PENDING, now + delay, message, event.id());
+        metricsService.increment("outbox.retries");
+        logger.warn("Outbox event {} ({}) attempt {} failed, retrying in {} ms: {}", event.id(), event.type(),
+            event.attempt(), delay, message);
+    }
+
+    private boolean skipLocked() {
+        Boolean value = skipLocked;
+        if (value == null) {
+            value = DatabaseDialect.detect(jdbcTemplate) == DatabaseDialect.POSTGRESQL;
+            skipLocked = value;
+        }
+        return value;
+    }
+
+    private long queryOrMinusOne(String sql) {
+        try {
+            Long value = jdbcTemplate.queryForObject(sql, Long.class);
+            return value != null ? value : 0;
+        } catch (DataAccessException e) {
+            return -1;
+        }
+    }
+
+    private static class HandlerException extends RuntimeException {
+        HandlerException(Exception cause) {
+            super(cause);
+        }
+    }
+}
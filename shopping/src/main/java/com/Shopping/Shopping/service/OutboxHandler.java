@@ -0,0 +1,24 @@
+package com.Shopping.Shopping.service;
+
+/**
+ * Runs one type of outbox event. Every bean implementing this is registered with the
+ * {@link OutboxDispatcher}; when several handle the same type they run one after another in the
+ * same transaction, and a failure in any of them retries the event for all.
+ *
+ * Delivery is at least once: an event whose handler fails, or whose worker dies, is handed out
+ * again, so handlers must be idempotent. A handler runs in the transaction that marks its event
+ * done, so its own database writes commit or roll back with that.
+ */
+public interface OutboxHandler {
+
+    /**
+     * @param payload   the JSON written by {@link OutboxService#publish}
+     * @param attempt   1 on first delivery
+     * @param createdAt epoch millis the event was written
+     */
+    record Event(long id, String type, long aggregateId, String payload, int attempt, long createdAt) {}
+
+    String eventType();
+
+    void handle(Event event) throws Exception;
+}
@@ -0,0 +1,51 @@
+package com.Shopping.Shopping.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Writes outbox events. An event is inserted in the caller's transaction, so it exists exactly
+ * when the change it describes has committed; the {@link OutboxDispatcher} runs it afterwards.
+ */
+@Service
+public class OutboxService {
+
+    public static final String ORDER_PLACED = "order.placed";
+
+    static final String PENDING = "PENDING";
+    static final String PROCESSING = "PROCESSING";
+    static final String DONE = "DONE";
+    static final String FAILED = "FAILED";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final MetricsService metricsService;
+
+    public OutboxService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, MetricsService metricsService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.metricsService = metricsService;
+    }
+
+    /**
+     * @param payload serialized to JSON
+     * @throws org.springframework.transaction.IllegalTransactionStateException outside a transaction
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String eventType, long aggregateId, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Outbox payload is not serializable", e);
+        }
+        long now = System.currentTimeMillis();
+        jdbcTemplate.update("INSERT INTO outbox_events (event_type, aggregate_id, payload, status, attempts, available_at, created_at) " +
+            "VALUES (?, ?, ?, ?, 0, ?, ?)", eventType, aggregateId, json, PENDING, now, now);
+        metricsService.increment("outbox.published");
+    }
+}
@@ -0,0 +1,36 @@
+package com.Shopping.Shopping.service;
+
+/**
+ * Payment provider calls made while serving requests. {@link RazorpayGateway} talks to Razorpay;
+ * {@link StubPaymentGateway} ({@code payment.gateway=stub}) answers locally for offline load tests.
+ */
+public interface PaymentGateway {
+
+    record GatewayOrder(String id, long amountPaise) {}
+
+    /**
+     * @throws GatewayUnavailableException if the gateway is down, slow or shedding load - worth retrying later
+     * @throws PaymentGatewayException if the gateway rejected the request
+     */
+    GatewayOrder createOrder(long amountPaise, String currency, String receipt);
+
+    class PaymentGatewayException extends RuntimeException {
+        public PaymentGatewayException(String message) {
+            super(message);
+        }
+
+        public PaymentGatewayException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    class GatewayUnavailableException extends PaymentGatewayException {
+        public GatewayUnavailableException(String message) {
+            super(message);
+        }
+
+        public GatewayUnavailableException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.Shopping.Shopping.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+/**
+ * Checks the {@code razorpay_signature} of a completed checkout:
+ * hex(HMAC-SHA256(order_id + "|" + payment_id, key secret)).
+ *
+ * A keyed {@link Mac} is costly to look up and initialize but not thread-safe, so each thread keeps
+ * its own initialized instance and only resets it per call. Signatures are compared in constant time.
+ */
+@Service
+public class PaymentSignatureVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentSignatureVerifier.class);
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+
+    public PaymentSignatureVerifier(@Value("${razorpay.secret}") String secret) {
+        this.key = secret == null || secret.isEmpty()
+            ? null
+            : new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 unavailable", e);
+            }
+        });
+        if (key == null) {
+            logger.warn("razorpay.secret is not set: every payment signature will be rejected");
+        }
+    }
+
+    public boolean verify(String razorpayOrderId, String razorpayPaymentId, String signature) {
+        if (key == null || razorpayOrderId == null || razorpayPaymentId == null || signature == null) {
+            return false;
+        }
+        byte[] expected = sign(razorpayOrderId + "|" + razorpayPaymentId);
+        byte[] actual;
+        try {
+            actual = HexFormat.of().parseHex(signature);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    byte[] sign(String payload) {
+        // doFinal resets the Mac for the next call on this thread
+        return macs.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,287 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.dto.ProductPriceRuleView;
+import com.Shopping.Shopping.dto.VariantPriceView;
+import com.Shopping.Shopping.repository.ProductRepository;
+import com.Shopping.Shopping.repository.ProductVariantRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Server-side prices in integer paise, for carts, buy-now and payments.
+ *
+ * Rules per product:
+ * <ul>
+ *   <li>unit price = selling price (legacy {@code price} if unset); without a selling price,
+ *       MRP less {@code discountPercent}. A variant adds its {@code priceModifier}.</li>
+ *   <li>{@code gstIncluded = false}: GST at {@code pricing.gst-rate-percent} is added on top of the line.
+ *       Otherwise the price already includes GST and the tax share is only reported.</li>
+ * </ul>
+ * Rules are cached per product for {@code pricing.rule-ttl} and evicted when a product is edited.
+ * A cart is priced in one pass over parallel arrays, loading all missing rules with two queries.
+ */
+@Service
+public class PricingEngine {
+
+    private static final long BASIS_POINTS = 10_000;
+
+    private final ProductRepository productRepository;
+    private final ProductVariantRepository productVariantRepository;
+    private final long gstBasisPoints;
+    private final long ruleTtlNanos;
+    private final Map<Long, PriceRule> rules = new ConcurrentHashMap<>();
+
+    public PricingEngine(ProductRepository productRepository,
+                         ProductVariantRepository productVariantRepository,
+                         @Value("${pricing.gst-rate-percent:18}") double gstRatePercent,
+                         @Value("${pricing.rule-ttl:60000}") long ruleTtlMillis) {
+        this.productRepository = productRepository;
+        this.productVariantRepository = productVariantRepository;
+        this.gstBasisPoints = Math.round(gstRatePercent * 100);
+        this.ruleTtlNanos = ruleTtlMillis * 1_000_000;
+    }
+
+    /**
+     * Prices cart lines given as parallel arrays. A variant id of 0 means none; lines whose product
+     * no longer exists are left unpriced at 0.
+     */
+    public CartPrice price(long[] productIds, long[] variantIds, int[] quantities, int count) {
+        return price(rulesFor(productIds, count), variantIds, quantities, count);
+    }
+
+    public CartPrice priceLine(long productId, long variantId, int quantity) {
+        return price(new long[] {productId}, new long[] {variantId}, new int[] {quantity}, 1);
+    }
+
+    /**
+     * Prices lines whose rules the caller already has, e.g. built with {@link #ruleOf} from the
+     * columns of a cart query. No database access.
+     */
+    public CartPrice price(PriceRule[] lineRules, long[] variantIds, int[] quantities, int count) {
+        CartPrice result = new CartPrice(count);
+        long total = 0;
+        long tax = 0;
+        for (int i = 0; i < count; i++) {
+            PriceRule rule = lineRules[i];
+            int quantity = quantities[i];
+            if (rule == null || quantity <= 0) {
+                continue;
+            }
+            long unit = rule.unitPaise(variantIds != null ? variantIds[i] : 0L);
+            long lineTotal;
+            long lineTax;
+            if (rule.gstIncluded) {
+                lineTotal = unit * quantity;
+                lineTax = divideRounded(lineTotal * gstBasisPoints, BASIS_POINTS + gstBasisPoints);
+            } else {
+                long lineBase = unit * quantity;
+                lineTax = divideRounded(lineBase * gstBasisPoints, BASIS_POINTS);
+                lineTotal = lineBase + lineTax;
+            }
+            result.unitPaise[i] = unit;
+            result.lineTotalPaise[i] = lineTotal;
+            result.lineTaxPaise[i] = lineTax;
+            result.priced[i] = true;
+            total += lineTotal;
+            tax += lineTax;
+        }
+        result.totalPaise = total;
+        result.taxPaise = tax;
+        return result;
+    }
+
+    /**
+     * Rule of a product without variants, from its pricing columns.
+     */
+    public PriceRule ruleOf(double price, Double sellingPrice, Double mrp, Double discountPercent, Boolean gstIncluded) {
+        return new PriceRule(basePaise(price, sellingPrice, mrp, discountPercent),
+            !Boolean.FALSE.equals(gstIncluded), new long[0], new long[0], System.nanoTime());
+    }
+
+    /**
+     * Drops the product's cached rule; inside a transaction, once it commits so a concurrent
+     * read cannot cache the old price again in between.
+     */
+    public void evict(Long productId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rules.remove(productId);
+                }
+            });
+        } else {
+            rules.remove(productId);
+        }
+    }
+
+    public void evictAll() {
+        rules.clear();
+    }
+
+    private PriceRule[] rulesFor(long[] productIds, int count) {
+        PriceRule[] lineRules = new PriceRule[count];
+        long now = System.nanoTime();
+        Set<Long> missing = null;
+        for (int i = 0; i < count; i++) {
+            PriceRule rule = rules.get(productIds[i]);
+            if (rule != null && now - rule.loadedAt < ruleTtlNanos) {
+                lineRules[i] = rule;
+            } else {
+                if (missing == null) {
+                    missing = new HashSet<>();
+                }
+                missing.add(productIds[i]);
+            }
+        }
+        if (missing != null) {
+            load(missing);
+            for (int i = 0; i < count; i++) {
+                if (lineRules[i] == null) {
+                    lineRules[i] = rules.get(productIds[i]);
+                }
+            }
+        }
+        return lineRules;
+    }
+
+    private void load(Set<Long> productIds) {
+        Map<Long, List<VariantPriceView>> variantsByProduct = new HashMap<>();
+        for (VariantPriceView variant : productVariantRepository.findPriceViewsByProductIdIn(productIds)) {
+            variantsByProduct.computeIfAbsent(variant.getProductId(), id -> new ArrayList<>()).add(variant);
+        }
+        long now = System.nanoTime();
+        for (ProductPriceRuleView product : productRepository.findPriceRuleViewsByIdIn(productIds)) {
+            List<VariantPriceView> variants = variantsByProduct.getOrDefault(product.getId(), List.of());
+            if (variants.size() > 1) {
+                variants.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+            }
+            long[] variantIds = new long[variants.size()];
+            long[] modifiers = new long[variants.size()];
+            for (int i = 0; i < variants.size(); i++) {
+                variantIds[i] = variants.get(i).getId();
+                Double modifier = variants.get(i).getPriceModifier();
+                modifiers[i] = modifier != null ? Math.round(modifier * 100) : 0L;
+            }
+            rules.put(product.getId(), new PriceRule(
+                basePaise(product.getPrice(), product.getSellingPrice(), product.getMrp(), product.getDiscountPercent()),
+                !Boolean.FALSE.equals(product.getGstIncluded()), variantIds, modifiers, now));
+        }
+    }
+
+    private static long basePaise(double price, Double sellingPrice, Double mrp, Double discountPercent) {
+        if (sellingPrice != null && sellingPrice > 0) {
+            return Math.round(sellingPrice * 100);
+        }
+        if (price > 0) {
+            return Math.round(price * 100);
+        }
+        if (mrp != null && mrp > 0) {
+            long mrpPaise = Math.round(mrp * 100);
+            long discountBasisPoints = discountPercent != null ? Math.round(discountPercent * 100) : 0L;
+            discountBasisPoints = Math.max(0, Math.min(BASIS_POINTS, discountBasisPoints));
+            return divideRounded(mrpPaise * (BASIS_POINTS - discountBasisPoints), BASIS_POINTS);
+        }
+        return 0L;
+    }
+
+    // Half-up rounding for non-negative values
+    private static long divideRounded(long dividend, long divisor) {
+        return (dividend + divisor / 2) / divisor;
+    }
+
+    /**
+     * Cached pricing inputs of one product: base price, GST mode and variant modifiers
+     * (sorted variant ids with parallel modifiers, all in paise).
+     */
+    public static final class PriceRule {
+        private final long basePaise;
+        private final boolean gstIncluded;
+        private final long[] variantIds;
+        private final long[] variantModifierPaise;
+        private final long loadedAt;
+
+        PriceRule(long basePaise, boolean gstIncluded, long[] variantIds, long[] variantModifierPaise, long loadedAt) {
+            this.basePaise = basePaise;
+            this.gstIncluded = gstIncluded;
+            this.variantIds = variantIds;
+            this.variantModifierPaise = variantModifierPaise;
+            this.loadedAt = loadedAt;
+        }
+
+        /**
+         * Unit price with the variant's modifier; unknown variants price as the base product.
+         */
+        public long unitPaise(long variantId) {
+            if (variantId != 0L) {
+                int index = Arrays.binarySearch(variantIds, variantId);
+                if (index >= 0) {
+                    return Math.max(0L, basePaise + variantModifierPaise[index]);
+                }
+            }
+            return basePaise;
+        }
+    }
+
+    /**
+     * Priced lines as parallel arrays plus order totals, all in paise.
+     */
+    public static final class CartPrice {
+        private final long[] unitPaise;
+        private final long[] lineTotalPaise;
+        private final long[] lineTaxPaise;
+        private final boolean[] priced;
+        private long totalPaise;
+        private long taxPaise;
+
+        CartPrice(int size) {
+            unitPaise = new long[size];
+            lineTotalPaise = new long[size];
+            lineTaxPaise = new long[size];
+            priced = new boolean[size];
+        }
+
+        public int size() {
+            return priced.length;
+        }
+
+        public boolean isPriced(int line) {
+            return priced[line];
+        }
+
+        public long unitPaise(int line) {
+            return unitPaise[line];
+        }
+
+        public long lineTotalPaise(int line) {
+            return lineTotalPaise[line];
+        }
+
+        public long lineTaxPaise(int line) {
+            return lineTaxPaise[line];
+        }
+
+        public long getTotalPaise() {
+            return totalPaise;
+        }
+
+        public long getTaxPaise() {
+            return taxPaise;
+        }
+
+        public static double toRupees(long paise) {
+            return paise / 100.0;
+        }
+    }
+}
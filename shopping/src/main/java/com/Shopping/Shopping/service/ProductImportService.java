@@ -0,0 +1,676 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.dto.ProductImportJobDTO;
+import com.Shopping.Shopping.util.CsvReader;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk product import from a CSV file (header row first) or JSONL file (one JSON object per line).
+ *
+ * The upload is spooled to a temporary file and imported by a background job; the file is read one
+ * row at a time, so memory does not grow with its size. Each row is validated on its own, valid rows
+ * are inserted {@code product.import.batch-size} at a time as JDBC batches (products, then their
+ * specifications and variants), one transaction per batch. A batch the database rejects is retried
+ * row by row so only the offending rows fail. Failed rows are reported with their line number in the
+ * job, which is polled with {@link #job}.
+ *
+ * Jobs are kept in memory for {@code product.import.retention} ms after they finish; at most
+ * {@code threads} run at once and {@code max-queued} more wait.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    public enum Format {
+        CSV, JSONL;
+
+        /**
+         * @param format "csv" or "jsonl", or null to go by the file extension
+         * @throws IllegalArgumentException if neither names a supported format
+         */
+        static Format of(String format, String fileName) {
+            String name = format != null && !format.isBlank() ? format
+                : fileName != null && fileName.contains(".") ? fileName.substring(fileName.lastIndexOf('.') + 1) : "";
+            switch (name.trim().toLowerCase(Locale.ROOT)) {
+                case "csv":
+                    return CSV;
+                case "jsonl":
+                case "ndjson":
+                    return JSONL;
+                default:
+                    throw new IllegalArgumentException("Unsupported import format, use csv or jsonl");
+            }
+        }
+    }
+
+    public enum Status { QUEUED, RUNNING, DONE, FAILED }
+
+    public static class ImportRejectedException extends RuntimeException {
+        public ImportRejectedException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Canonical field name by normalized column name (lower case, letters and digits only); the
+     * upload form's names are accepted too.
+     */
+    private static final Map<String, String> FIELDS = new HashMap<>();
+
+    static {
+        alias("name", "name", "productname");
+        alias("brandName", "brandname", "brand");
+        alias("category", "category", "productcategory");
+        alias("subCategory", "subcategory");
+        alias("description", "description", "productdescription");
+        alias("longDescription", "longdescription");
+        alias("keyFeatures", "keyfeatures");
+        alias("mrp", "mrp");
+        alias("sellingPrice", "sellingprice", "price", "productprice");
+        alias("discountPercent", "discountpercent");
+        alias("gstIncluded", "gstincluded");
+        alias("minimumOrderQuantity", "minimumorderquantity");
+        alias("availableQuantity", "availablequantity", "stock", "quantity");
+        alias("skuId", "skuid", "sku");
+        alias("stockAvailability", "stockavailability");
+        alias("hsnCode", "hsncode");
+        alias("uniqueProductId", "uniqueproductid");
+        alias("specifications", "specifications", "specs");
+        alias("variants", "variants");
+    }
+
+    private static void alias(String field, String... names) {
+        for (String name : names) {
+            FIELDS.put(name, field);
+        }
+    }
+
+    static final String PRODUCT_INSERT =
+        "INSERT INTO product (name, brand_name, category, sub_category, description, long_description, key_features, " +
+        "mrp, selling_price, price, discount_percent, gst_included, minimum_order_quantity, available_quantity, sku_id, " +
+        "stock_availability, specifications, gst_number, hsn_code, unique_product_id, seller_id, created_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, LOCALTIMESTAMP)";
+
+    static final String SPECIFICATION_INSERT =
+        "INSERT INTO product_specifications (id, product_id, spec_key, spec_value, spec_group, display_order) " +
+        "VALUES (nextval('product_specifications_seq'), ?, ?, ?, ?, ?)";
+
+    static final String VARIANT_INSERT =
+        "INSERT INTO product_variants (id, product_id, variant_type, variant_value, price_modifier, stock_quantity, sku, " +
+        "is_available) VALUES (nextval('product_variants_seq'), ?, ?, ?, ?, ?, ?, ?)";
+
+    record VariantRow(String type, String value, double priceModifier, int stock, String sku, boolean available) {}
+
+    /**
+     * A validated row, ready to insert.
+     */
+    record ProductRow(long line, Object[] columns, Map<String, String> specifications, List<VariantRow> variants) {}
+
+    private static final class RowException extends Exception {
+        RowException(String message) {
+            super(message);
+        }
+    }
+
+    private final class Job {
+        final String id = UUID.randomUUID().toString();
+        final Long sellerId;
+        final String fileName;
+        final Format format;
+        final Path file;
+        final long totalBytes;
+        final AtomicLong bytesRead = new AtomicLong();
+        final AtomicLong rowsRead = new AtomicLong();
+        final AtomicLong imported = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final List<ProductImportJobDTO.RowError> errors = new ArrayList<>();
+        volatile Status status = Status.QUEUED;
+        volatile String message;
+        volatile Long startedAt;
+        volatile Long finishedAt;
+
+        Job(Long sellerId, String fileName, Format format, Path file, long totalBytes) {
+            this.sellerId = sellerId;
+            this.fileName = fileName;
+            this.format = format;
+            this.file = file;
+            this.totalBytes = totalBytes;
+        }
+
+        void rowFailed(long line, String error) {
+            failed.incrementAndGet();
+            synchronized (errors) {
+                if (errors.size() < maxErrors) {
+                    errors.add(new ProductImportJobDTO.RowError(line, error));
+                }
+            }
+        }
+
+        ProductImportJobDTO toDTO() {
+            List<ProductImportJobDTO.RowError> errorsCopy;
+            synchronized (errors) {
+                errorsCopy = List.copyOf(errors);
+            }
+            int progress = status == Status.DONE ? 100
+                : totalBytes == 0 ? 0 : (int) Math.min(99, bytesRead.get() * 100 / totalBytes);
+            return new ProductImportJobDTO(id, fileName, format.name(), status.name(), progress, rowsRead.get(),
+                imported.get(), failed.get(), errorsCopy, message, startedAt, finishedAt);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final MetricsService metricsService;
+    private final int batchSize;
+    private final int maxErrors;
+    private final long retentionMillis;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public ProductImportService(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper,
+                                MetricsService metricsService,
+                                @Value("${product.import.batch-size:500}") int batchSize,
+                                @Value("${product.import.threads:2}") int threads,
+                                @Value("${product.import.max-queued:8}") int maxQueued,
+                                @Value("${product.import.max-errors:1000}") int maxErrors,
+                                @Value("${product.import.retention:3600000}") long retentionMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.metricsService = metricsService;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxErrors = maxErrors;
+        this.retentionMillis = retentionMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, maxQueued)), runnable -> {
+                Thread thread = new Thread(runnable, "product-import-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        metricsService.registerGauge("product.import.active", executor::getActiveCount);
+    }
+
+    /**
+     * Spools the file and queues its import for the seller.
+     *
+     * @param format "csv" or "jsonl", or null to go by the file extension
+     * @throws IllegalArgumentException  if the file is empty or its format unsupported
+     * @throws ImportRejectedException   if too many imports are already waiting
+     */
+    public ProductImportJobDTO start(Long sellerId, MultipartFile file, String format) throws IOException {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("The import file is empty");
+        }
+        Format importFormat = Format.of(format, file.getOriginalFilename());
+        purgeFinished();
+
+        Path spooled = Files.createTempFile("product-import-", "." + importFormat.name().toLowerCase(Locale.ROOT));
+        try {
+            file.transferTo(spooled);
+            Job job = new Job(sellerId, file.getOriginalFilename(), importFormat, spooled, Files.size(spooled));
+            jobs.put(job.id, job);
+            try {
+                executor.execute(() -> run(job));
+            } catch (RejectedExecutionException e) {
+                jobs.remove(job.id);
+                metricsService.increment("product.import.rejected");
+                throw new ImportRejectedException("Too many imports in progress, please retry shortly");
+            }
+            metricsService.increment("product.import.jobs");
+            logger.info("Queued product import {} of {} ({} bytes) for seller {}", job.id, job.fileName, job.totalBytes, sellerId);
+            return job.toDTO();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spooled);
+            throw e;
+        }
+    }
+
+    /**
+     * The seller's import job, if it exists and has not expired.
+     */
+    public Optional<ProductImportJobDTO> job(String jobId, Long sellerId) {
+        Job job = jobs.get(jobId);
+        if (job == null || !job.sellerId.equals(sellerId)) {
+            return Optional.empty();
+        }
+        return Optional.of(job.toDTO());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(Job job) {
+        job.startedAt = System.currentTimeMillis();
+        job.status = Status.RUNNING;
+        long started = System.nanoTime();
+        try (Reader reader = new BufferedReader(new InputStreamReader(
+                new CountingInputStream(Files.newInputStream(job.file), job.bytesRead), StandardCharsets.UTF_8), 65536)) {
+            String gstNumber = jdbcTemplate.queryForList("SELECT gst_number FROM sellers WHERE id = ?", String.class, job.sellerId)
+                .stream().findFirst().orElse(null);
+            List<ProductRow> batch = new ArrayList<>(batchSize);
+            RowSink sink = (line, values) -> {
+                job.rowsRead.incrementAndGet();
+                try {
+                    batch.add(parse(line, values, gstNumber, job.sellerId));
+                } catch (RowException e) {
+                    job.rowFailed(line, e.getMessage());
+                }
+                if (batch.size() == batchSize) {
+                    save(job, List.copyOf(batch));
+                    batch.clear();
+                }
+            };
+            if (job.format == Format.CSV) {
+                readCsv(reader, sink);
+            } else {
+                readJsonl(reader, sink);
+            }
+            if (!batch.isEmpty()) {
+                save(job, List.copyOf(batch));
+            }
+            job.status = Status.DONE;
+        } catch (IllegalArgumentException e) {
+            job.message = e.getMessage();
+            job.status = Status.FAILED;
+        } catch (IOException | RuntimeException e) {
+            logger.error("Product import {} failed", job.id, e);
+            job.message = "Import failed: " + e.getMessage();
+            job.status = Status.FAILED;
+        } finally {
+            job.finishedAt = System.currentTimeMillis();
+            try {
+                Files.deleteIfExists(job.file);
+            } catch (IOException e) {
+                logger.warn("Could not delete spooled import {}: {}", job.file, e.toString());
+            }
+            long millis = (System.nanoTime() - started) / 1_000_000;
+            metricsService.add("product.import.rows", job.rowsRead.get());
+            metricsService.add("product.import.failed_rows", job.failed.get());
+            metricsService.add("product.import.millis", millis);
+            logger.info("Product import {} {}: {} rows, {} imported, {} failed in {} ms", job.id, job.status,
+                job.rowsRead.get(), job.imported.get(), job.failed.get(), millis);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowSink {
+        void accept(long line, Map<String, String> values);
+    }
+
+    private void readCsv(Reader reader, RowSink sink) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            throw new IllegalArgumentException("The import file is empty");
+        }
+        String[] fields = new String[header.size()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = FIELDS.get(normalize(header.get(i)));
+        }
+        List<String> columns = Arrays.asList(fields);
+        if (!columns.contains("name") || !columns.contains("sellingPrice")) {
+            throw new IllegalArgumentException("The header must have name and price columns");
+        }
+        List<String> record;
+        while ((record = csv.next()) != null) {
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            Map<String, String> values = new HashMap<>();
+            if (record.size() != fields.length) {
+                sink.accept(csv.recordLine(), null);
+                continue;
+            }
+            for (int i = 0; i < fields.length; i++) {
+                if (fields[i] != null) {
+                    values.put(fields[i], record.get(i));
+                }
+            }
+            sink.accept(csv.recordLine(), values);
+        }
+    }
+
+    private void readJsonl(Reader reader, RowSink sink) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        String line;
+        long number = 0;
+        while ((line = lines.readLine()) != null) {
+            number++;
+            if (number == 1 && line.startsWith("\uFEFF")) {
+                line = line.substring(1);
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+            Map<String, String> values = new HashMap<>();
+            try {
+                JsonNode node = objectMapper.readTree(line);
+                if (!node.isObject()) {
+                    values = null;
+                } else {
+                    Iterator<Map.Entry<String, JsonNode>> entries = node.fields();
+                    while (entries.hasNext()) {
+                        Map.Entry<String, JsonNode> entry = entries.next();
+                        String field = FIELDS.get(normalize(entry.getKey()));
+                        JsonNode value = entry.getValue();
+                        if (field != null && !value.isNull()) {
+                            values.put(field, value.isContainerNode() ? value.toString() : value.asText());
+                        }
+                    }
+                }
+            } catch (JsonProcessingException e) {
+                values = null;
+            }
+            sink.accept(number, values);
+        }
+    }
+
+    /**
+     * @param values canonical field name to value, or null if the row could not be split into fields
+     */
+    private ProductRow parse(long line, Map<String, String> values, String gstNumber, Long sellerId) throws RowException {
+        if (values == null) {
+            throw new RowException("Malformed row");
+        }
+        String name = text(values, "name");
+        if (name == null) {
+            throw new RowException("name is required");
+        }
+        Double sellingPrice = decimal(values, "sellingPrice");
+        if (sellingPrice == null || sellingPrice <= 0) {
+            throw new RowException("price must be greater than 0");
+        }
+        Double mrp = decimal(values, "mrp");
+        if (mrp != null && mrp < sellingPrice) {
+            throw new RowException("mrp must not be below the price");
+        }
+        Double discountPercent = decimal(values, "discountPercent");
+        if (discountPercent != null && (discountPercent < 0 || discountPercent > 100)) {
+            throw new RowException("discountPercent must be between 0 and 100");
+        }
+        Integer minimumOrderQuantity = integer(values, "minimumOrderQuantity");
+        if (minimumOrderQuantity != null && minimumOrderQuantity < 1) {
+            throw new RowException("minimumOrderQuantity must be at least 1");
+        }
+        Integer availableQuantity = integer(values, "availableQuantity");
+        if (availableQuantity != null && availableQuantity < 0) {
+            throw new RowException("availableQuantity must not be negative");
+        }
+        String uniqueProductId = text(values, "uniqueProductId");
+        if (uniqueProductId == null) {
+            uniqueProductId = "PROD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        }
+
+        String specificationsJson = blankToNull(values.get("specifications"));
+        Map<String, String> specifications = Map.of();
+        if (specificationsJson != null) {
+            try {
+                specifications = objectMapper.readValue(specificationsJson, new TypeReference<LinkedHashMap<String, String>>() {});
+            } catch (JsonProcessingException e) {
+                throw new RowException("specifications must be a JSON object of names to values");
+            }
+            for (Map.Entry<String, String> spec : specifications.entrySet()) {
+                if (spec.getKey().length() > MAX_TEXT_LENGTH || (spec.getValue() != null && spec.getValue().length() > MAX_TEXT_LENGTH)) {
+                    throw new RowException("specification " + abbreviate(spec.getKey()) + " is longer than " + MAX_TEXT_LENGTH + " characters");
+                }
+            }
+        }
+        List<VariantRow> variants = variants(blankToNull(values.get("variants")));
+
+        Object[] columns = {name, text(values, "brandName"), text(values, "category"), text(values, "subCategory"),
+            text(values, "description"), blankToNull(values.get("longDescription")), blankToNull(values.get("keyFeatures")),
+            mrp, sellingPrice, sellingPrice, discountPercent, bool(values, "gstIncluded"), minimumOrderQuantity,
+            availableQuantity, text(values, "skuId"), text(values, "stockAvailability"), specificationsJson, gstNumber,
+            text(values, "hsnCode"), uniqueProductId, sellerId};
+        return new ProductRow(line, columns, specifications, variants);
+    }
+
+    private List<VariantRow> variants(String json) throws RowException {
+        if (json == null) {
+            return List.of();
+        }
+        JsonNode array;
+        try {
+            array = objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            array = null;
+        }
+        if (array == null || !array.isArray()) {
+            throw new RowException("variants must be a JSON array");
+        }
+        List<VariantRow> variants = new ArrayList<>(array.size());
+        for (JsonNode variant : array) {
+            String type = variant.path("type").asText("");
+            String value = variant.path("value").asText("");
+            if (type.isBlank() || value.isBlank()) {
+                throw new RowException("every variant needs a type and a value");
+            }
+            JsonNode stock = variant.path("stock");
+            if (!stock.isMissingNode() && (!stock.canConvertToInt() || stock.asInt() < 0)) {
+                throw new RowException("variant stock must be a whole number, not negative");
+            }
+            JsonNode priceModifier = variant.path("priceModifier");
+            if (!priceModifier.isMissingNode() && !priceModifier.isNull() && !priceModifier.isNumber()) {
+                throw new RowException("variant priceModifier must be a number");
+            }
+            String sku = variant.path("sku").asText("");
+            if (type.length() > MAX_TEXT_LENGTH || value.length() > MAX_TEXT_LENGTH || sku.length() > MAX_TEXT_LENGTH) {
+                throw new RowException("variant fields must not be longer than " + MAX_TEXT_LENGTH + " characters");
+            }
+            variants.add(new VariantRow(type, value, priceModifier.asDouble(0.0), stock.asInt(0), sku,
+                variant.path("isAvailable").asBoolean(true)));
+        }
+        return variants;
+    }
+
+    /**
+     * Inserts the rows in one transaction; if the database rejects the batch, each row is tried
+     * alone and the rows it still rejects are reported.
+     */
+    private void save(Job job, List<ProductRow> rows) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(rows));
+            job.imported.addAndGet(rows.size());
+        } catch (DataAccessException e) {
+            if (rows.size() == 1) {
+                Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+                job.rowFailed(rows.get(0).line(), "Could not be saved: " + cause.getMessage());
+                return;
+            }
+            logger.debug("Import batch of {} rows rejected, retrying row by row: {}", rows.size(), e.getMessage());
+            for (ProductRow row : rows) {
+                save(job, List.of(row));
+            }
+        }
+    }
+
+    private void insert(List<ProductRow> rows) {
+        GeneratedKeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(PRODUCT_INSERT, new String[] {"id"}),
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    new ArgumentPreparedStatementSetter(rows.get(i).columns()).setValues(ps);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return rows.size();
+                }
+            }, keys);
+
+        List<Map<String, Object>> keyList = keys.getKeyList();
+        List<Object[]> specifications = new ArrayList<>();
+        List<Object[]> variants = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            long productId = ((Number) keyList.get(i).values().iterator().next()).longValue();
+            int order = 0;
+            for (Map.Entry<String, String> spec : rows.get(i).specifications().entrySet()) {
+                specifications.add(new Object[] {productId, spec.getKey(), spec.getValue(), "General", order++});
+            }
+            for (VariantRow variant : rows.get(i).variants()) {
+                variants.add(new Object[] {productId, variant.type(), variant.value(), variant.priceModifier(),
+                    variant.stock(), variant.sku(), variant.available()});
+            }
+        }
+        if (!specifications.isEmpty()) {
+            jdbcTemplate.batchUpdate(SPECIFICATION_INSERT, specifications);
+        }
+        if (!variants.isEmpty()) {
+            jdbcTemplate.batchUpdate(VARIANT_INSERT, variants);
+        }
+    }
+
+    private void purgeFinished() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt < cutoff);
+    }
+
+    private static String normalize(String column) {
+        return column.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static String text(Map<String, String> values, String field) throws RowException {
+        String value = blankToNull(values.get(field));
+        if (value != null && value.length() > MAX_TEXT_LENGTH) {
+            throw new RowException(field + " is longer than " + MAX_TEXT_LENGTH + " characters");
+        }
+        return value;
+    }
+
+    private static Double decimal(Map<String, String> values, String field) throws RowException {
+        String value = blankToNull(values.get(field));
+        if (value == null) {
+            return null;
+        }
+        try {
+            double number = Double.parseDouble(value);
+            if (!Double.isFinite(number)) {
+                throw new NumberFormatException();
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new RowException(field + " must be a number");
+        }
+    }
+
+    private static Integer integer(Map<String, String> values, String field) throws RowException {
+        String value = blankToNull(values.get(field));
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new RowException(field + " must be a whole number");
+        }
+    }
+
+    private static Boolean bool(Map<String, String> values, String field) throws RowException {
+        String value = blankToNull(values.get(field));
+        if (value == null) {
+            return null;
+        }
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "true", "yes", "y", "1":
+                return true;
+            case "false", "no", "n", "0":
+                return false;
+            default:
+                throw new RowException(field + " must be true or false");
+        }
+    }
+
+    private static String abbreviate(String value) {
+        return value.length() <= 40 ? value : value.substring(0, 40) + "...";
+    }
+
+    /**
+     * Counts the bytes read from the spooled file, for the job's progress.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private final AtomicLong count;
+
+        CountingInputStream(InputStream in, AtomicLong count) {
+            super(in);
+            this.count = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count.addAndGet(n);
+            }
+            return n;
+        }
+    }
+}
@@ -1,10 +1,8 @@
 package com.Shopping.Shopping.service;
 
 import com.Shopping.Shopping.model.Product;
-import com.Shopping.Shopping.model.ProductImage;
 import com.Shopping.Shopping.model.ProductSpecification;
 import com.Shopping.Shopping.model.ProductVariant;
-import com.Shopping.Shopping.model.ProductDocument;
 import com.Shopping.Shopping.repository.ProductRepository;
 import com.Shopping.Shopping.repository.ProductImageRepository;
 import com.Shopping.Shopping.repository.ProductSpecificationRepository;
@@ -45,6 +43,9 @@ public class ProductService {
     @Autowired
     private ProductDocumentRepository productDocumentRepository;
 
+    @Autowired
+    private UploadIngestService uploadIngestService;
+
     public List<Product> searchProducts(String keyword) {
         logger.info("=== SEARCH PRODUCTS METHOD STARTED ===");
         logger.info("Search keyword: '{}'", keyword);
@@ -97,6 +98,8 @@ public class ProductService {
         
         try {
             // Store image in database instead of filesystem (persists across restarts)
+            UploadIngestService.SpooledUpload spooled = null;
+            String imageName = null;
             if (productImage != null && !productImage.isEmpty()) {
                 logger.info("Processing image file - Name: '{}', Size: {} bytes, Content Type: '{}'", 
                            productImage.getOriginalFilename(), productImage.getSize(), productImage.getContentType());
@@ -105,9 +108,9 @@ public class ProductService {
                 validateImageFile(productImage);
                 
                 try {
-                    // Save image data to database
-                    product.setImage(productImage.getBytes());
-                    logger.info("Image data saved to database ({} bytes)", productImage.getBytes().length);
+                    // Spool to disk; the data goes to product_images only, which every reader prefers
+                    spooled = uploadIngestService.spool(productImage);
+                    product.setImage(null);
                     
                     // Keep imageName for backward compatibility (ensure .jpg extension)
                     String imageExtension = getFileExtension(productImage.getOriginalFilename());
@@ -115,7 +118,7 @@ public class ProductService {
                     if (!imageExtension.equalsIgnoreCase(".jpg") && !imageExtension.equalsIgnoreCase(".jpeg")) {
                         imageExtension = ".jpg"; // Default to .jpg
                     }
-                    String imageName = UUID.randomUUID().toString() + imageExtension;
+                    imageName = UUID.randomUUID().toString() + imageExtension;
                     product.setImageName(imageName);
                     logger.info("Image name set to: {}", imageName);
                 } catch (IOException e) {
@@ -129,23 +132,16 @@ public class ProductService {
             }
 
             logger.info("Saving product to database...");
-            Product savedProduct = productRepository.save(product);
-            
-            // Also save to ProductImage table for new functionality (backward compatibility)
-            if (productImage != null && !productImage.isEmpty() && savedProduct.getImage() != null) {
-                try {
-                    ProductImage productImageEntity = new ProductImage();
-                    productImageEntity.setProduct(savedProduct);
-                    productImageEntity.setImageData(savedProduct.getImage());
-                    productImageEntity.setImageName(savedProduct.getImageName());
-                    productImageEntity.setImageType("primary");
-                    productImageEntity.setDisplayOrder(0);
-                    productImageEntity.setIsPrimary(true);
-                    productImageRepository.save(productImageEntity);
-                    logger.info("Image also saved to ProductImage table for backward compatibility");
-                } catch (Exception e) {
-                    logger.warn("Failed to save to ProductImage table, continuing with legacy storage", e);
+            Product savedProduct;
+            try (UploadIngestService.SpooledUpload upload = spooled) {
+                savedProduct = productRepository.save(product);
+                if (upload != null) {
+                    uploadIngestService.insertProductImage(savedProduct.getId(), upload, imageName, "primary", 0, true);
+                    logger.info("Image data saved to database ({} bytes)", upload.getSize());
                 }
+            } catch (IOException e) {
+                logger.error("Failed to store image file: '{}'", productImage.getOriginalFilename(), e);
+                throw new RuntimeException("Failed to process image file: " + e.getMessage(), e);
             }
             
             logger.info("Product saved successfully with ID: {}", savedProduct.getId());
@@ -242,49 +238,45 @@ public class ProductService {
         // imageTypes is already a List<String> from the controller
         List<String> types = (imageTypes != null && !imageTypes.isEmpty()) ? imageTypes : new ArrayList<>();
         
-        // Save each image (same validation and storage as current implementation)
+        // Validate every image before storing any
         for (int i = 0; i < imageFiles.size(); i++) {
             MultipartFile imageFile = imageFiles.get(i);
             if (imageFile != null && !imageFile.isEmpty()) {
                 try {
-                    // Validate image (same as current validateImageFile)
                     validateImageFile(imageFile);
-                    
-                    // Create ProductImage entity
-                    ProductImage productImage = new ProductImage();
-                    productImage.setProduct(product);
-                    
-                    // Save image data to database (same as current: product.setImage())
-                    productImage.setImageData(imageFile.getBytes());
-                    logger.info("Image data saved to database ({} bytes)", imageFile.getBytes().length);
-                    
+                } catch (IllegalArgumentException e) {
+                    logger.error("Invalid image {} for product ID: {} - {}", i + 1, product.getId(), e.getMessage());
+                    throw e; // Re-throw validation errors
+                }
+            }
+        }
+        
+        // One at a time, so at most one upload is spooled on disk
+        int saved = 0;
+        for (int i = 0; i < imageFiles.size(); i++) {
+            MultipartFile imageFile = imageFiles.get(i);
+            if (imageFile != null && !imageFile.isEmpty()) {
+                try (UploadIngestService.SpooledUpload upload = uploadIngestService.spool(imageFile)) {
                     // Keep imageName (same as current implementation)
                     String imageExtension = getFileExtension(imageFile.getOriginalFilename());
                     if (!imageExtension.equalsIgnoreCase(".jpg") && !imageExtension.equalsIgnoreCase(".jpeg")) {
                         imageExtension = ".jpg"; // Default to .jpg (same as current)
                     }
                     String imageName = UUID.randomUUID().toString() + imageExtension;
-                    productImage.setImageName(imageName);
-                    
-                    productImage.setImageType(i < types.size() ? types.get(i).trim() : "general");
-                    productImage.setDisplayOrder(i);
-                    productImage.setIsPrimary(i == 0); // First image is primary
-                    
-                    // Save to database
-                    productImageRepository.save(productImage);
-                    logger.info("Saved image {} for product ID: {} - Name: {}", i + 1, product.getId(), imageName);
+                    String imageType = i < types.size() ? types.get(i).trim() : "general";
                     
+                    // First image is primary
+                    uploadIngestService.insertProductImage(product.getId(), upload, imageName, imageType, i, i == 0);
+                    logger.info("Image data saved to database ({} bytes)", upload.getSize());
+                    saved++;
                 } catch (IOException e) {
                     logger.error("Failed to save image {} for product ID: {}", i + 1, product.getId(), e);
                     throw new RuntimeException("Failed to process image file: " + e.getMessage(), e);
-                } catch (IllegalArgumentException e) {
-                    logger.error("Invalid image {} for product ID: {} - {}", i + 1, product.getId(), e.getMessage());
-                    throw e; // Re-throw validation errors
                 }
             }
         }
         
-        logger.info("All {} images saved successfully for product ID: {}", imageFiles.size(), product.getId());
+        logger.info("All {} images saved successfully for product ID: {}", saved, product.getId());
     }
     
     /**
@@ -299,6 +291,7 @@ public class ProductService {
             ObjectMapper mapper = new ObjectMapper();
             Map<String, String> specs = mapper.readValue(specificationsJson, new TypeReference<Map<String, String>>() {});
             
+            List<ProductSpecification> rows = new ArrayList<>(specs.size());
             int order = 0;
             for (Map.Entry<String, String> entry : specs.entrySet()) {
                 ProductSpecification spec = new ProductSpecification();
@@ -307,8 +300,9 @@ public class ProductService {
                 spec.setSpecValue(entry.getValue());
                 spec.setSpecGroup("General");
                 spec.setDisplayOrder(order++);
-                productSpecificationRepository.save(spec);
+                rows.add(spec);
             }
+            productSpecificationRepository.saveAll(rows);
             
             logger.info("Saved {} specifications for product ID: {}", specs.size(), product.getId());
         } catch (Exception e) {
@@ -329,6 +323,7 @@ public class ProductService {
             ObjectMapper mapper = new ObjectMapper();
             List<Map<String, Object>> variants = mapper.readValue(variantsJson, new TypeReference<List<Map<String, Object>>>() {});
             
+            List<ProductVariant> rows = new ArrayList<>(variants.size());
             for (Map<String, Object> variantData : variants) {
                 ProductVariant variant = new ProductVariant();
                 variant.setProduct(product);
@@ -346,8 +341,9 @@ public class ProductService {
                 Object isAvail = variantData.get("isAvailable");
                 variant.setIsAvailable(isAvail != null ? (Boolean) isAvail : true);
                 
-                productVariantRepository.save(variant);
+                rows.add(variant);
             }
+            productVariantRepository.saveAll(rows);
             
             logger.info("Saved {} variants for product ID: {}", variants.size(), product.getId());
         } catch (Exception e) {
@@ -370,14 +366,9 @@ public class ProductService {
         for (int i = 0; i < documentFiles.size(); i++) {
             MultipartFile docFile = documentFiles.get(i);
             if (docFile != null && !docFile.isEmpty()) {
-                try {
-                    ProductDocument document = new ProductDocument();
-                    document.setProduct(product);
-                    document.setDocumentData(docFile.getBytes());
-                    document.setDocumentName(docFile.getOriginalFilename());
-                    document.setDocumentType(i < types.size() ? types.get(i).trim() : "other");
-                    document.setMimeType(docFile.getContentType());
-                    productDocumentRepository.save(document);
+                try (UploadIngestService.SpooledUpload upload = uploadIngestService.spool(docFile)) {
+                    uploadIngestService.insertProductDocument(product.getId(), upload, docFile.getOriginalFilename(),
+                        i < types.size() ? types.get(i).trim() : "other", docFile.getContentType());
                 } catch (IOException e) {
                     logger.error("Failed to save document: {}", docFile.getOriginalFilename(), e);
                 }
@@ -0,0 +1,559 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.dto.ProductDocumentView;
+import com.Shopping.Shopping.dto.ProductImageView;
+import com.Shopping.Shopping.model.Product;
+import com.Shopping.Shopping.model.ProductSpecification;
+import com.Shopping.Shopping.model.ProductVariant;
+import com.Shopping.Shopping.repository.ProductDocumentRepository;
+import com.Shopping.Shopping.repository.ProductImageRepository;
+import com.Shopping.Shopping.repository.ProductRepository;
+import com.Shopping.Shopping.repository.ProductSpecificationRepository;
+import com.Shopping.Shopping.repository.ProductVariantRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Edits a product by diffing the requested state against the stored one, instead of deleting and
+ * re-inserting its children.
+ *
+ * {@link #apply} takes a JSON merge patch (RFC 7386) using the field names of ProductDTO: an absent
+ * field is left alone and null clears it. Specifications are a map, so a key set to null removes
+ * that one specification. Variants, images and documents are arrays and, as in any merge patch, give
+ * the complete new list: an element is matched to an existing row by its id (a variant also by type
+ * and value) and changes only the fields it carries, and rows left out are deleted. Rows that match
+ * without changing are not written and keep their ids.
+ *
+ * Image and document data is never read or rewritten here: their type, order and primary flag are
+ * updated in place, and new files are still uploaded with the multipart PUT.
+ * Every edit that changes something bumps the product's version.
+ */
+@Service
+public class ProductUpdateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductUpdateService.class);
+
+    /**
+     * What an edit changed: whether any product field did, and how many child rows were added,
+     * changed or removed.
+     */
+    public static final class Changes {
+        private boolean fields;
+        private int added;
+        private int changed;
+        private int removed;
+
+        public boolean isFields() { return fields; }
+        public int getAdded() { return added; }
+        public int getChanged() { return changed; }
+        public int getRemoved() { return removed; }
+
+        public boolean isEmpty() {
+            return !fields && added == 0 && changed == 0 && removed == 0;
+        }
+
+        @Override
+        public String toString() {
+            return "fields " + (fields ? "changed" : "unchanged") + ", " + added + " added, "
+                + changed + " changed, " + removed + " removed";
+        }
+    }
+
+    @FunctionalInterface
+    private interface Field {
+        /**
+         * @return whether the product changed
+         */
+        boolean apply(Product product, String name, JsonNode value);
+    }
+
+    private static final Map<String, Field> FIELDS = new HashMap<>();
+
+    static {
+        FIELDS.put("name", field(Product::getName, Product::setName, ProductUpdateService::text));
+        FIELDS.put("brandName", field(Product::getBrandName, Product::setBrandName, ProductUpdateService::text));
+        FIELDS.put("category", field(Product::getCategory, Product::setCategory, ProductUpdateService::text));
+        FIELDS.put("subCategory", field(Product::getSubCategory, Product::setSubCategory, ProductUpdateService::text));
+        FIELDS.put("description", field(Product::getDescription, Product::setDescription, ProductUpdateService::text));
+        FIELDS.put("longDescription", field(Product::getLongDescription, Product::setLongDescription, ProductUpdateService::text));
+        FIELDS.put("keyFeatures", field(Product::getKeyFeatures, Product::setKeyFeatures, ProductUpdateService::text));
+        FIELDS.put("mrp", field(Product::getMrp, Product::setMrp, ProductUpdateService::decimal));
+        // Both set the selling price and the legacy price, which carts and payments charge, as PUT does
+        FIELDS.put("sellingPrice", ProductUpdateService::price);
+        FIELDS.put("price", ProductUpdateService::price);
+        FIELDS.put("discountPercent", field(Product::getDiscountPercent, Product::setDiscountPercent, ProductUpdateService::decimal));
+        FIELDS.put("gstIncluded", field(Product::getGstIncluded, Product::setGstIncluded, ProductUpdateService::bool));
+        FIELDS.put("minimumOrderQuantity", field(Product::getMinimumOrderQuantity, Product::setMinimumOrderQuantity, ProductUpdateService::integer));
+        FIELDS.put("availableQuantity", field(Product::getAvailableQuantity, Product::setAvailableQuantity, ProductUpdateService::integer));
+        FIELDS.put("skuId", field(Product::getSkuId, Product::setSkuId, ProductUpdateService::text));
+        FIELDS.put("stockAvailability", field(Product::getStockAvailability, Product::setStockAvailability, ProductUpdateService::text));
+        FIELDS.put("uniqueProductId", field(Product::getUniqueProductId, Product::setUniqueProductId, ProductUpdateService::text));
+        FIELDS.put("packageWeight", field(Product::getPackageWeight, Product::setPackageWeight, ProductUpdateService::decimal));
+        FIELDS.put("packageLength", field(Product::getPackageLength, Product::setPackageLength, ProductUpdateService::decimal));
+        FIELDS.put("packageWidth", field(Product::getPackageWidth, Product::setPackageWidth, ProductUpdateService::decimal));
+        FIELDS.put("packageHeight", field(Product::getPackageHeight, Product::setPackageHeight, ProductUpdateService::decimal));
+        FIELDS.put("pickupAddress", field(Product::getPickupAddress, Product::setPickupAddress, ProductUpdateService::text));
+        FIELDS.put("deliveryMethod", field(Product::getDeliveryMethod, Product::setDeliveryMethod, ProductUpdateService::text));
+        FIELDS.put("gstNumber", field(Product::getGstNumber, Product::setGstNumber, ProductUpdateService::text));
+        FIELDS.put("hsnCode", field(Product::getHsnCode, Product::setHsnCode, ProductUpdateService::text));
+        FIELDS.put("invoiceRequired", field(Product::getInvoiceRequired, Product::setInvoiceRequired, ProductUpdateService::bool));
+        FIELDS.put("brandAuthorized", field(Product::getBrandAuthorized, Product::setBrandAuthorized, ProductUpdateService::bool));
+        FIELDS.put("trademarkVerified", field(Product::getTrademarkVerified, Product::setTrademarkVerified, ProductUpdateService::bool));
+        FIELDS.put("complianceCertificates", field(Product::getComplianceCertificates, Product::setComplianceCertificates, ProductUpdateService::textArray));
+        FIELDS.put("returnPolicy", field(Product::getReturnPolicy, Product::setReturnPolicy, ProductUpdateService::text));
+        FIELDS.put("replacementAvailable", field(Product::getReplacementAvailable, Product::setReplacementAvailable, ProductUpdateService::bool));
+        FIELDS.put("warrantyDetails", field(Product::getWarrantyDetails, Product::setWarrantyDetails, ProductUpdateService::text));
+    }
+
+    private final ProductRepository productRepository;
+    private final ProductSpecificationRepository productSpecificationRepository;
+    private final ProductVariantRepository productVariantRepository;
+    private final ProductImageRepository productImageRepository;
+    private final ProductDocumentRepository productDocumentRepository;
+    private final PricingEngine pricingEngine;
+    private final ObjectMapper objectMapper;
+
+    public ProductUpdateService(ProductRepository productRepository,
+                                ProductSpecificationRepository productSpecificationRepository,
+                                ProductVariantRepository productVariantRepository,
+                                ProductImageRepository productImageRepository,
+                                ProductDocumentRepository productDocumentRepository,
+                                PricingEngine pricingEngine,
+                                ObjectMapper objectMapper) {
+        this.productRepository = productRepository;
+        this.productSpecificationRepository = productSpecificationRepository;
+        this.productVariantRepository = productVariantRepository;
+        this.productImageRepository = productImageRepository;
+        this.productDocumentRepository = productDocumentRepository;
+        this.pricingEngine = pricingEngine;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Applies a JSON merge patch to a product. Nothing is written, and the version stays, when the
+     * patch matches what is stored.
+     *
+     * @throws IllegalArgumentException for an unknown field, a value of the wrong type, or a child id
+     *                                  that does not belong to the product; nothing is changed then
+     */
+    @Transactional
+    public Changes apply(Long productId, JsonNode patch) {
+        if (patch == null || !patch.isObject()) {
+            throw new IllegalArgumentException("A product patch must be a JSON object");
+        }
+        Product product = productRepository.findById(productId)
+            .orElseThrow(() -> new IllegalArgumentException("Product not found with id: " + productId));
+        Changes changes = new Changes();
+        Iterator<Map.Entry<String, JsonNode>> entries = patch.fields();
+        while (entries.hasNext()) {
+            Map.Entry<String, JsonNode> entry = entries.next();
+            String name = entry.getKey();
+            JsonNode value = entry.getValue();
+            switch (name) {
+                case "specifications" -> {
+                    if (value.isNull()) {
+                        diffSpecifications(product, Map.of(), true, changes);
+                    } else {
+                        diffSpecifications(product, specificationMap(value), false, changes);
+                    }
+                }
+                case "variants" -> diffVariants(product, list(name, value), changes);
+                case "images" -> diffImages(product, list(name, value), changes);
+                case "documents" -> diffDocuments(product, list(name, value), changes);
+                default -> {
+                    Field field = FIELDS.get(name);
+                    if (field == null) {
+                        throw new IllegalArgumentException("Unknown or read-only product field: " + name);
+                    }
+                    changes.fields |= field.apply(product, name, value);
+                }
+            }
+        }
+        if (!changes.isEmpty()) {
+            product.setVersion(product.getVersion() + 1);
+            pricingEngine.evict(productId);
+        }
+        logger.info("Patched product {}: {}", productId, changes);
+        return changes;
+    }
+
+    /**
+     * Makes the product's specifications exactly the given JSON object, keeping the rows of keys that
+     * stay. Invalid JSON is logged and ignored, as the multipart upload has always done.
+     * Runs in the caller's transaction.
+     */
+    public Changes replaceSpecifications(Product product, String specificationsJson) {
+        Changes changes = new Changes();
+        try {
+            diffSpecifications(product, specificationMap(objectMapper.readTree(specificationsJson)), true, changes);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            logger.error("Failed to parse specifications for product ID: {}", product.getId(), e);
+        }
+        return changes;
+    }
+
+    /**
+     * Makes the product's variants the given JSON array, matching existing rows by id or by type and
+     * value. Invalid JSON is logged and ignored, as the multipart upload has always done.
+     * Runs in the caller's transaction.
+     */
+    public Changes replaceVariants(Product product, String variantsJson) {
+        Changes changes = new Changes();
+        try {
+            diffVariants(product, list("variants", objectMapper.readTree(variantsJson)), changes);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            logger.error("Failed to parse variants for product ID: {}", product.getId(), e);
+        }
+        return changes;
+    }
+
+    /**
+     * @param target values by key; a null value removes the key
+     * @param replace also remove the keys that are not in target
+     */
+    private void diffSpecifications(Product product, Map<String, String> target, boolean replace, Changes changes) {
+        List<ProductSpecification> existing = productSpecificationRepository.findByProductOrderByDisplayOrderAsc(product);
+        Map<String, ProductSpecification> byKey = new LinkedHashMap<>();
+        List<ProductSpecification> added = new ArrayList<>();
+        List<ProductSpecification> removed = new ArrayList<>();
+        int nextOrder = 0;
+        for (ProductSpecification spec : existing) {
+            if (byKey.putIfAbsent(spec.getSpecKey(), spec) != null) {
+                removed.add(spec); // a duplicate key, which the map view of the product never showed
+            }
+            if (spec.getDisplayOrder() != null) {
+                nextOrder = Math.max(nextOrder, spec.getDisplayOrder() + 1);
+            }
+        }
+        int changed = 0;
+        for (Map.Entry<String, String> entry : target.entrySet()) {
+            ProductSpecification spec = byKey.get(entry.getKey());
+            if (entry.getValue() == null) {
+                if (spec != null) {
+                    byKey.remove(entry.getKey());
+                    removed.add(spec);
+                }
+            } else if (spec == null) {
+                spec = new ProductSpecification();
+                spec.setProduct(product);
+                spec.setSpecKey(entry.getKey());
+                spec.setSpecValue(entry.getValue());
+                spec.setSpecGroup("General");
+                spec.setDisplayOrder(nextOrder++);
+                byKey.put(entry.getKey(), spec);
+                added.add(spec);
+            } else if (set(spec.getSpecValue(), entry.getValue(), spec::setSpecValue)) {
+                changed++;
+            }
+        }
+        if (replace) {
+            Iterator<Map.Entry<String, ProductSpecification>> stored = byKey.entrySet().iterator();
+            while (stored.hasNext()) {
+                Map.Entry<String, ProductSpecification> entry = stored.next();
+                if (!target.containsKey(entry.getKey())) {
+                    removed.add(entry.getValue());
+                    stored.remove();
+                }
+            }
+        }
+        if (added.isEmpty() && removed.isEmpty() && changed == 0) {
+            return;
+        }
+        productSpecificationRepository.saveAll(added);
+        productSpecificationRepository.deleteAll(removed);
+        // Keep the JSON copy on the product in step with the rows
+        Map<String, String> values = new LinkedHashMap<>();
+        byKey.forEach((key, spec) -> values.put(key, spec.getSpecValue()));
+        try {
+            product.setSpecifications(objectMapper.writeValueAsString(values));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        changes.added += added.size();
+        changes.changed += changed;
+        changes.removed += removed.size();
+    }
+
+    private void diffVariants(Product product, List<JsonNode> target, Changes changes) {
+        List<ProductVariant> existing = productVariantRepository.findByProduct(product);
+        Map<Long, ProductVariant> unmatched = new LinkedHashMap<>();
+        existing.forEach(variant -> unmatched.put(variant.getId(), variant));
+        List<ProductVariant> added = new ArrayList<>();
+        int changed = 0;
+        for (JsonNode element : target) {
+            Long id = id("variants", element);
+            ProductVariant variant;
+            if (id != null) {
+                variant = unmatched.remove(id);
+                if (variant == null) {
+                    throw new IllegalArgumentException("Variant " + id + " does not belong to this product or is listed twice");
+                }
+            } else {
+                variant = removeByNaturalKey(unmatched, text("type", element.get("type")), text("value", element.get("value")));
+            }
+            if (variant == null) {
+                variant = new ProductVariant();
+                variant.setProduct(product);
+                variant.setPriceModifier(0.0);
+                variant.setStockQuantity(0);
+                variant.setSku("");
+                variant.setIsAvailable(true);
+                applyVariant(variant, element);
+                added.add(variant);
+            } else if (applyVariant(variant, element)) {
+                changed++;
+            }
+        }
+        productVariantRepository.saveAll(added);
+        productVariantRepository.deleteAll(unmatched.values());
+        changes.added += added.size();
+        changes.changed += changed;
+        changes.removed += unmatched.size();
+    }
+
+    private static ProductVariant removeByNaturalKey(Map<Long, ProductVariant> variants, String type, String value) {
+        Iterator<ProductVariant> iterator = variants.values().iterator();
+        while (iterator.hasNext()) {
+            ProductVariant variant = iterator.next();
+            if (Objects.equals(variant.getVariantType(), type) && Objects.equals(variant.getVariantValue(), value)) {
+                iterator.remove();
+                return variant;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return whether the variant changed
+     */
+    private static boolean applyVariant(ProductVariant variant, JsonNode element) {
+        boolean changed = false;
+        if (element.has("type")) {
+            changed |= set(variant.getVariantType(), text("type", element.get("type")), variant::setVariantType);
+        }
+        if (element.has("value")) {
+            changed |= set(variant.getVariantValue(), text("value", element.get("value")), variant::setVariantValue);
+        }
+        if (element.has("priceModifier")) {
+            changed |= set(variant.getPriceModifier(), decimal("priceModifier", element.get("priceModifier")), variant::setPriceModifier);
+        }
+        if (element.has("stock")) {
+            changed |= set(variant.getStockQuantity(), integer("stock", element.get("stock")), variant::setStockQuantity);
+        }
+        if (element.has("sku")) {
+            changed |= set(variant.getSku(), text("sku", element.get("sku")), variant::setSku);
+        }
+        if (element.has("isAvailable")) {
+            changed |= set(variant.getIsAvailable(), bool("isAvailable", element.get("isAvailable")), variant::setIsAvailable);
+        }
+        return changed;
+    }
+
+    private void diffImages(Product product, List<JsonNode> target, Changes changes) {
+        Map<Long, ProductImageView> unmatched = new LinkedHashMap<>();
+        productImageRepository.findViewsByProductId(product.getId()).forEach(image -> unmatched.put(image.getId(), image));
+        for (JsonNode element : target) {
+            ProductImageView image = unmatched.remove(existingId("images", element));
+            if (image == null) {
+                throw new IllegalArgumentException("Image " + element.get("id") + " does not belong to this product or is listed twice");
+            }
+            String imageType = element.has("imageType") ? text("imageType", element.get("imageType")) : image.getImageType();
+            Integer displayOrder = element.has("displayOrder") ? integer("displayOrder", element.get("displayOrder")) : image.getDisplayOrder();
+            Boolean isPrimary = element.has("isPrimary") ? bool("isPrimary", element.get("isPrimary")) : image.getIsPrimary();
+            if (!Objects.equals(imageType, image.getImageType()) || !Objects.equals(displayOrder, image.getDisplayOrder())
+                    || !Objects.equals(isPrimary, image.getIsPrimary())) {
+                productImageRepository.updateMetadata(image.getId(), imageType, displayOrder, isPrimary);
+                changes.changed++;
+            }
+        }
+        if (!unmatched.isEmpty()) {
+            changes.removed += productImageRepository.deleteByProductIdAndIdIn(product.getId(), unmatched.keySet());
+        }
+    }
+
+    private void diffDocuments(Product product, List<JsonNode> target, Changes changes) {
+        Map<Long, ProductDocumentView> unmatched = new LinkedHashMap<>();
+        productDocumentRepository.findViewsByProductId(product.getId()).forEach(document -> unmatched.put(document.getId(), document));
+        for (JsonNode element : target) {
+            ProductDocumentView document = unmatched.remove(existingId("documents", element));
+            if (document == null) {
+                throw new IllegalArgumentException("Document " + element.get("id") + " does not belong to this product or is listed twice");
+            }
+            if (element.has("documentType")) {
+                String documentType = text("documentType", element.get("documentType"));
+                if (!Objects.equals(documentType, document.getDocumentType())) {
+                    productDocumentRepository.updateDocumentType(document.getId(), documentType);
+                    changes.changed++;
+                }
+            }
+        }
+        if (!unmatched.isEmpty()) {
+            changes.removed += productDocumentRepository.deleteByProductIdAndIdIn(product.getId(), unmatched.keySet());
+        }
+    }
+
+    private static <T> Field field(Function<Product, T> getter, BiConsumer<Product, T> setter,
+                                   BiFunction<String, JsonNode, T> reader) {
+        return (product, name, value) -> {
+            T next = reader.apply(name, value);
+            if (Objects.equals(getter.apply(product), next)) {
+                return false;
+            }
+            setter.accept(product, next);
+            return true;
+        };
+    }
+
+    private static boolean price(Product product, String name, JsonNode value) {
+        Double price = decimal(name, value);
+        if (price == null || price <= 0) {
+            throw new IllegalArgumentException(name + " must be a positive number");
+        }
+        if (price.equals(product.getSellingPrice()) && price == product.getPrice()) {
+            return false;
+        }
+        product.setSellingPrice(price);
+        product.setPrice(price);
+        return true;
+    }
+
+    private static <T> boolean set(T current, T next, Consumer<T> setter) {
+        if (Objects.equals(current, next)) {
+            return false;
+        }
+        setter.accept(next);
+        return true;
+    }
+
+    /**
+     * A null or absent list means no rows.
+     */
+    private static List<JsonNode> list(String name, JsonNode value) {
+        List<JsonNode> elements = new ArrayList<>();
+        if (value == null || value.isNull()) {
+            return elements;
+        }
+        if (!value.isArray()) {
+            throw new IllegalArgumentException(name + " must be an array");
+        }
+        for (JsonNode element : value) {
+            if (!element.isObject()) {
+                throw new IllegalArgumentException(name + " must hold objects");
+            }
+            elements.add(element);
+        }
+        return elements;
+    }
+
+    private static Map<String, String> specificationMap(JsonNode value) {
+        Map<String, String> specs = new LinkedHashMap<>();
+        if (value == null || !value.isObject()) {
+            throw new IllegalArgumentException("specifications must be an object");
+        }
+        Iterator<Map.Entry<String, JsonNode>> entries = value.fields();
+        while (entries.hasNext()) {
+            Map.Entry<String, JsonNode> entry = entries.next();
+            JsonNode spec = entry.getValue();
+            if (!spec.isNull() && !spec.isValueNode()) {
+                throw new IllegalArgumentException("Specification " + entry.getKey() + " must be a string");
+            }
+            specs.put(entry.getKey(), spec.isNull() ? null : spec.asText());
+        }
+        return specs;
+    }
+
+    private static Long id(String name, JsonNode element) {
+        JsonNode id = element.get("id");
+        if (id == null || id.isNull()) {
+            return null;
+        }
+        if (!id.canConvertToLong() || !id.isIntegralNumber()) {
+            throw new IllegalArgumentException(name + " ids must be whole numbers");
+        }
+        return id.asLong();
+    }
+
+    private static Long existingId(String name, JsonNode element) {
+        Long id = id(name, element);
+        if (id == null) {
+            throw new IllegalArgumentException("Every element of " + name + " needs the id of an existing row; "
+                + "new files are uploaded with PUT /api/v1/seller/products/{id}");
+        }
+        return id;
+    }
+
+    private static String text(String name, JsonNode value) {
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        if (!value.isTextual()) {
+            throw new IllegalArgumentException(name + " must be a string");
+        }
+        return value.asText();
+    }
+
+    private static Double decimal(String name, JsonNode value) {
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        if (!value.isNumber()) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+        return value.asDouble();
+    }
+
+    private static Integer integer(String name, JsonNode value) {
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        if (!value.isIntegralNumber() || !value.canConvertToInt()) {
+            throw new IllegalArgumentException(name + " must be a whole number");
+        }
+        return value.asInt();
+    }
+
+    private static Boolean bool(String name, JsonNode value) {
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        if (!value.isBoolean()) {
+            throw new IllegalArgumentException(name + " must be true or false");
+        }
+        return value.asBoolean();
+    }
+
+    /**
+     * A JSON array of strings, stored as its JSON text.
+     */
+    private static String textArray(String name, JsonNode value) {
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        if (!value.isArray()) {
+            throw new IllegalArgumentException(name + " must be an array of strings");
+        }
+        for (JsonNode element : value) {
+            if (!element.isTextual()) {
+                throw new IllegalArgumentException(name + " must be an array of strings");
+            }
+        }
+        return value.toString();
+    }
+}
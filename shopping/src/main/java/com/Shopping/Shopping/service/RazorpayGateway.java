@@ -0,0 +1,172 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.util.CircuitBreaker;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Razorpay Orders API over one shared {@link HttpClient}, whose connection pool keeps TLS sessions
+ * alive between requests (the SDK client built per request paid a handshake every time).
+ *
+ * Every call is bounded three ways so a slow gateway cannot take the request threads with it:
+ * <ul>
+ *   <li>connect and read timeouts ({@code payment.gateway.connect-timeout} / {@code read-timeout})</li>
+ *   <li>a bulkhead of {@code max-concurrent} calls; callers wait at most {@code bulkhead-wait} for a slot</li>
+ *   <li>a {@link CircuitBreaker} that fails fast after {@code breaker.failure-threshold} consecutive
+ *       timeouts or 5xx, for {@code breaker.open-duration}</li>
+ * </ul>
+ * 4xx answers mean the gateway is healthy and rejected the request, so they do not count as failures.
+ */
+@Service
+@ConditionalOnProperty(name = "payment.gateway", havingValue = "razorpay", matchIfMissing = true)
+public class RazorpayGateway implements PaymentGateway {
+
+    private static final Logger logger = LoggerFactory.getLogger(RazorpayGateway.class);
+
+    private final URI ordersUri;
+    private final String authorization;
+    private final Duration readTimeout;
+    private final long bulkheadWaitMillis;
+    private final Semaphore bulkhead;
+    private final int maxConcurrent;
+    private final CircuitBreaker circuitBreaker;
+    private final ObjectMapper objectMapper;
+    private final MetricsService metricsService;
+    private final HttpClient httpClient;
+    private final AtomicLong maxLatencyMicros = new AtomicLong();
+
+    public RazorpayGateway(@Value("${razorpay.key}") String key,
+                           @Value("${razorpay.secret}") String secret,
+                           @Value("${payment.gateway.base-url:https://api.razorpay.com/v1}") String baseUrl,
+                           @Value("${payment.gateway.connect-timeout:2000}") long connectTimeoutMillis,
+                           @Value("${payment.gateway.read-timeout:5000}") long readTimeoutMillis,
+                           @Value("${payment.gateway.max-concurrent:20}") int maxConcurrent,
+                           @Value("${payment.gateway.bulkhead-wait:200}") long bulkheadWaitMillis,
+                           @Value("${payment.gateway.breaker.failure-threshold:5}") int failureThreshold,
+                           @Value("${payment.gateway.breaker.open-duration:30000}") long openDurationMillis,
+                           ObjectMapper objectMapper,
+                           MetricsService metricsService) {
+        this.ordersUri = URI.create(baseUrl + "/orders");
+        this.authorization = "Basic " + Base64.getEncoder()
+            .encodeToString((key + ":" + secret).getBytes(StandardCharsets.UTF_8));
+        this.readTimeout = Duration.ofMillis(readTimeoutMillis);
+        this.bulkheadWaitMillis = bulkheadWaitMillis;
+        this.maxConcurrent = maxConcurrent;
+        this.bulkhead = new Semaphore(maxConcurrent);
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, TimeUnit.MILLISECONDS.toNanos(openDurationMillis));
+        this.objectMapper = objectMapper;
+        this.metricsService = metricsService;
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+            .build();
+        metricsService.registerGauge("payment.gateway.in_flight", () -> this.maxConcurrent - bulkhead.availablePermits());
+        metricsService.registerGauge("payment.gateway.circuit_open",
+            () -> circuitBreaker.getState() == CircuitBreaker.State.CLOSED ? 0 : 1);
+        metricsService.registerGauge("payment.gateway.latency.max_micros", maxLatencyMicros::get);
+    }
+
+    @Override
+    public GatewayOrder createOrder(long amountPaise, String currency, String receipt) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("amount", amountPaise);
+        body.put("currency", currency);
+        body.put("receipt", receipt);
+        JsonNode order = post(body);
+        return new GatewayOrder(order.path("id").asText(), order.path("amount").asLong(amountPaise));
+    }
+
+    private JsonNode post(Map<String, Object> body) {
+        try {
+            if (!bulkhead.tryAcquire(bulkheadWaitMillis, TimeUnit.MILLISECONDS)) {
+                metricsService.increment("payment.gateway.rejected.bulkhead");
+                throw new GatewayUnavailableException("Payment gateway is busy, please retry");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GatewayUnavailableException("Interrupted waiting for the payment gateway", e);
+        }
+        try {
+            if (!circuitBreaker.tryAcquire(System.nanoTime())) {
+                metricsService.increment("payment.gateway.rejected.circuit");
+                throw new GatewayUnavailableException("Payment gateway is unavailable, please retry shortly");
+            }
+            return send(body);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private JsonNode send(Map<String, Object> body) {
+        long started = System.nanoTime();
+        metricsService.increment("payment.gateway.calls");
+        try {
+            HttpRequest request = HttpRequest.newBuilder(ordersUri)
+                .timeout(readTimeout)
+                .header("Authorization", authorization)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            int status = response.statusCode();
+            if (status >= 500 || status == 429) {
+                circuitBreaker.onFailure(System.nanoTime());
+                metricsService.increment("payment.gateway.errors");
+                throw new GatewayUnavailableException("Payment gateway error (HTTP " + status + ")");
+            }
+            circuitBreaker.onSuccess();
+            JsonNode json = objectMapper.readTree(response.body());
+            if (status >= 400) {
+                metricsService.increment("payment.gateway.rejected");
+                throw new PaymentGatewayException("Payment gateway rejected the request: "
+                    + json.path("error").path("description").asText("HTTP " + status));
+            }
+            return json;
+        } catch (HttpTimeoutException e) {
+            circuitBreaker.onFailure(System.nanoTime());
+            metricsService.increment("payment.gateway.timeouts");
+            throw new GatewayUnavailableException("Payment gateway timed out", e);
+        } catch (IOException e) {
+            circuitBreaker.onFailure(System.nanoTime());
+            metricsService.increment("payment.gateway.errors");
+            logger.warn("Payment gateway call failed: {}", e.toString());
+            throw new GatewayUnavailableException("Payment gateway unreachable", e);
+        } catch (InterruptedException e) {
+            circuitBreaker.onFailure(System.nanoTime());
+            Thread.currentThread().interrupt();
+            throw new GatewayUnavailableException("Interrupted calling the payment gateway", e);
+        } catch (PaymentGatewayException e) {
+            throw e; // outcome already reported above
+        } catch (RuntimeException e) {
+            // Any other failure must still be reported, or a HALF_OPEN probe would never end
+            circuitBreaker.onFailure(System.nanoTime());
+            metricsService.increment("payment.gateway.errors");
+            logger.warn("Payment gateway call failed: {}", e.toString());
+            throw e;
+        } finally {
+            long micros = (System.nanoTime() - started) / 1_000;
+            metricsService.add("payment.gateway.latency.micros", micros);
+            maxLatencyMicros.accumulateAndGet(micros, Math::max);
+        }
+    }
+}
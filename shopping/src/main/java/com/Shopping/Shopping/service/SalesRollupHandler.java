@@ -0,0 +1,26 @@
+package com.Shopping.Shopping.service;
+
+import org.springframework.stereotype.Service;
+
+/**
+ * Adds each placed order to the daily seller and product sales rollups.
+ */
+@Service
+public class SalesRollupHandler implements OutboxHandler {
+
+    private final SalesRollupService salesRollupService;
+
+    public SalesRollupHandler(SalesRollupService salesRollupService) {
+        this.salesRollupService = salesRollupService;
+    }
+
+    @Override
+    public String eventType() {
+        return OutboxService.ORDER_PLACED;
+    }
+
+    @Override
+    public void handle(Event event) {
+        salesRollupService.applyOrder(event.aggregateId());
+    }
+}
@@ -0,0 +1,344 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.config.DatabaseDialect;
+import com.Shopping.Shopping.dto.DailySalesDTO;
+import com.Shopping.Shopping.dto.ProductSalesDTO;
+import com.Shopping.Shopping.dto.SellerSalesDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Daily sales per seller ({@code seller_daily_sales}) and per product ({@code product_daily_sales}),
+ * so the seller dashboard reads at most one row per day and product instead of scanning order items.
+ *
+ * The rollups are updated incrementally by the {@link SalesRollupHandler} as each order.placed event
+ * is dispatched. An order is counted once: its id goes into {@code sales_rollup_orders} in the same
+ * transaction as the increments, and an order already there is skipped. {@link #rebuild} recounts a
+ * date range from {@code orders} and {@code orders_archive}, for backfills and repairs, one day per
+ * transaction.
+ *
+ * Rows are upserted in key order, so two transactions adding to the same days take their row locks
+ * in the same order. On H2 a concurrent first insert of a row can still fail on the key; the event
+ * is then retried by the outbox.
+ */
+@Service
+public class SalesRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesRollupService.class);
+
+    public static final int DEFAULT_RANGE_DAYS = 30;
+    public static final int MAX_RANGE_DAYS = 366;
+    public static final int DEFAULT_TOP_PRODUCTS = 10;
+    public static final int MAX_TOP_PRODUCTS = 100;
+
+    static final String POSTGRES_SELLER_UPSERT =
+        "INSERT INTO seller_daily_sales (seller_id, sales_date, units, revenue_paise, orders) VALUES (?, ?, ?, ?, ?) " +
+        "ON CONFLICT (seller_id, sales_date) DO UPDATE SET units = seller_daily_sales.units + EXCLUDED.units, " +
+        "revenue_paise = seller_daily_sales.revenue_paise + EXCLUDED.revenue_paise, " +
+        "orders = seller_daily_sales.orders + EXCLUDED.orders";
+
+    static final String MERGE_SELLER_UPSERT =
+        "MERGE INTO seller_daily_sales t USING (VALUES (CAST(? AS BIGINT), CAST(? AS DATE), CAST(? AS BIGINT), " +
+        "CAST(? AS BIGINT), CAST(? AS BIGINT))) AS s (seller_id, sales_date, units, revenue_paise, orders) " +
+        "ON t.seller_id = s.seller_id AND t.sales_date = s.sales_date " +
+        "WHEN MATCHED THEN UPDATE SET units = t.units + s.units, revenue_paise = t.revenue_paise + s.revenue_paise, " +
+        "orders = t.orders + s.orders " +
+        "WHEN NOT MATCHED THEN INSERT (seller_id, sales_date, units, revenue_paise, orders) " +
+        "VALUES (s.seller_id, s.sales_date, s.units, s.revenue_paise, s.orders)";
+
+    static final String POSTGRES_PRODUCT_UPSERT =
+        "INSERT INTO product_daily_sales (product_id, sales_date, seller_id, units, revenue_paise, orders) " +
+        "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (product_id, sales_date) DO UPDATE SET " +
+        "seller_id = EXCLUDED.seller_id, units = product_daily_sales.units + EXCLUDED.units, " +
+        "revenue_paise = product_daily_sales.revenue_paise + EXCLUDED.revenue_paise, " +
+        "orders = product_daily_sales.orders + EXCLUDED.orders";
+
+    static final String MERGE_PRODUCT_UPSERT =
+        "MERGE INTO product_daily_sales t USING (VALUES (CAST(? AS BIGINT), CAST(? AS DATE), CAST(? AS BIGINT), " +
+        "CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT))) " +
+        "AS s (product_id, sales_date, seller_id, units, revenue_paise, orders) " +
+        "ON t.product_id = s.product_id AND t.sales_date = s.sales_date " +
+        "WHEN MATCHED THEN UPDATE SET seller_id = s.seller_id, units = t.units + s.units, " +
+        "revenue_paise = t.revenue_paise + s.revenue_paise, orders = t.orders + s.orders " +
+        "WHEN NOT MATCHED THEN INSERT (product_id, sales_date, seller_id, units, revenue_paise, orders) " +
+        "VALUES (s.product_id, s.sales_date, s.seller_id, s.units, s.revenue_paise, s.orders)";
+
+    private static final String ORDER_LINES =
+        "SELECT o.id, o.order_date, i.product_id, i.seller_id, i.quantity, i.line_total_paise " +
+        "FROM orders o JOIN order_items i ON i.order_id = o.id ";
+
+    /**
+     * One order line, as counted in the rollups.
+     */
+    record Line(long productId, Long sellerId, int quantity, long lineTotalPaise) {}
+
+    private record SellerDay(long sellerId, LocalDate date) {}
+
+    private record ProductDay(long productId, LocalDate date) {}
+
+    /**
+     * Sums orders per seller/day and product/day before they are written, so a rebuild writes each
+     * row once and an order writes one row per seller and product in it.
+     */
+    static final class Rollup {
+
+        private final Map<SellerDay, long[]> sellers = new TreeMap<>(
+            Comparator.comparingLong(SellerDay::sellerId).thenComparing(SellerDay::date));
+        private final Map<ProductDay, long[]> products = new TreeMap<>(
+            Comparator.comparingLong(ProductDay::productId).thenComparing(ProductDay::date));
+        private final Map<ProductDay, Long> productSellers = new HashMap<>();
+
+        void add(LocalDate date, List<Line> lines) {
+            Set<Long> orderSellers = new HashSet<>();
+            Set<Long> orderProducts = new HashSet<>();
+            for (Line line : lines) {
+                ProductDay productDay = new ProductDay(line.productId(), date);
+                long[] product = products.computeIfAbsent(productDay, key -> new long[3]);
+                product[0] += line.quantity();
+                product[1] += line.lineTotalPaise();
+                if (orderProducts.add(line.productId())) {
+                    product[2]++;
+                }
+                if (line.sellerId() != null) {
+                    productSellers.put(productDay, line.sellerId());
+                    long[] seller = sellers.computeIfAbsent(new SellerDay(line.sellerId(), date), key -> new long[3]);
+                    seller[0] += line.quantity();
+                    seller[1] += line.lineTotalPaise();
+                    if (orderSellers.add(line.sellerId())) {
+                        seller[2]++;
+                    }
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return products.isEmpty();
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate dayTransaction;
+    private final OrderArchiveService orderArchiveService;
+    private final MetricsService metricsService;
+    private volatile Boolean postgres;
+
+    public SalesRollupService(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              OrderArchiveService orderArchiveService,
+                              MetricsService metricsService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dayTransaction = new TransactionTemplate(transactionManager);
+        this.orderArchiveService = orderArchiveService;
+        this.metricsService = metricsService;
+    }
+
+    /**
+     * Adds a placed order to the rollups of the day it was placed.
+     *
+     * @return false if the order was already counted, or no longer exists in {@code orders}
+     */
+    @Transactional
+    public boolean applyOrder(long orderId) {
+        List<Line> lines = new ArrayList<>();
+        LocalDateTime[] orderDate = new LocalDateTime[1];
+        jdbcTemplate.query(ORDER_LINES + "WHERE o.id = ?", rs -> {
+            orderDate[0] = rs.getTimestamp("order_date").toLocalDateTime();
+            lines.add(new Line(rs.getLong("product_id"), rs.getObject("seller_id", Long.class),
+                rs.getInt("quantity"), rs.getLong("line_total_paise")));
+        }, orderId);
+        if (lines.isEmpty()) {
+            logger.debug("Order {} has no items in orders, not counted in sales rollups", orderId);
+            return false;
+        }
+        LocalDate salesDate = orderDate[0].toLocalDate();
+        int claimed = jdbcTemplate.update("INSERT INTO sales_rollup_orders (order_id, sales_date) " +
+            "SELECT CAST(? AS BIGINT), CAST(? AS DATE) WHERE NOT EXISTS (SELECT 1 FROM sales_rollup_orders WHERE order_id = ?)",
+            orderId, Date.valueOf(salesDate), orderId);
+        if (claimed == 0) {
+            metricsService.increment("sales.rollup.duplicates");
+            return false;
+        }
+        Rollup rollup = new Rollup();
+        rollup.add(salesDate, lines);
+        write(rollup);
+        metricsService.increment("sales.rollup.orders");
+        return true;
+    }
+
+    /**
+     * Recounts the rollups of the days from..to (inclusive) from the orders and archived orders placed
+     * on them, replacing what was there. Each day is rebuilt in its own transaction, so row locks and
+     * memory are held for one day's orders at a time; if a day fails, the days before it stay rebuilt
+     * and the call can be repeated. Orders placed meanwhile are claimed through
+     * {@code sales_rollup_orders} by either the rebuild or the handler, never both.
+     *
+     * @return the number of orders counted
+     * @throws IllegalArgumentException if the range is reversed or longer than {@value #MAX_RANGE_DAYS} days
+     */
+    public int rebuild(LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        long started = System.nanoTime();
+        int counted = 0;
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            LocalDate day = date;
+            Integer dayCount = dayTransaction.execute(status -> rebuildDay(day));
+            counted += dayCount != null ? dayCount : 0;
+        }
+        metricsService.increment("sales.rollup.rebuilds");
+        logger.info("Rebuilt sales rollups for {}..{} from {} orders in {} ms", from, to, counted,
+            (System.nanoTime() - started) / 1_000_000);
+        return counted;
+    }
+
+    private int rebuildDay(LocalDate day) {
+        Date date = Date.valueOf(day);
+        jdbcTemplate.update("DELETE FROM seller_daily_sales WHERE sales_date = ?", date);
+        jdbcTemplate.update("DELETE FROM product_daily_sales WHERE sales_date = ?", date);
+        jdbcTemplate.update("DELETE FROM sales_rollup_orders WHERE sales_date = ?", date);
+
+        Rollup rollup = new Rollup();
+        List<Object[]> counted = new ArrayList<>();
+        LocalDateTime start = day.atStartOfDay();
+        LocalDateTime end = day.plusDays(1).atStartOfDay();
+
+        // Lines arrive grouped by order; each group is added when the next order starts
+        List<Line> lines = new ArrayList<>();
+        long[] current = {-1L};
+        LocalDate[] currentDate = new LocalDate[1];
+        jdbcTemplate.query(ORDER_LINES + "WHERE o.order_date >= ? AND o.order_date < ? ORDER BY o.id", rs -> {
+            long orderId = rs.getLong("id");
+            if (orderId != current[0]) {
+                if (!lines.isEmpty()) {
+                    rollup.add(currentDate[0], lines);
+                    counted.add(new Object[] {current[0], Date.valueOf(currentDate[0])});
+                    lines.clear();
+                }
+                current[0] = orderId;
+                currentDate[0] = rs.getTimestamp("order_date").toLocalDateTime().toLocalDate();
+            }
+            lines.add(new Line(rs.getLong("product_id"), rs.getObject("seller_id", Long.class),
+                rs.getInt("quantity"), rs.getLong("line_total_paise")));
+        }, Timestamp.valueOf(start), Timestamp.valueOf(end));
+        if (!lines.isEmpty()) {
+            rollup.add(currentDate[0], lines);
+            counted.add(new Object[] {current[0], Date.valueOf(currentDate[0])});
+        }
+
+        orderArchiveService.forEachArchived(start, end, order -> {
+            if (order.items().isEmpty()) {
+                return;
+            }
+            LocalDate salesDate = order.orderDate().toLocalDate();
+            rollup.add(salesDate, order.items().stream()
+                .map(item -> new Line(item.productId(), item.sellerId(), item.quantity(), item.lineTotalPaise()))
+                .toList());
+            counted.add(new Object[] {order.id(), Date.valueOf(salesDate)});
+        });
+
+        write(rollup);
+        jdbcTemplate.batchUpdate("INSERT INTO sales_rollup_orders (order_id, sales_date) VALUES (?, ?)", counted);
+        return counted.size();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the range is reversed or longer than {@value #MAX_RANGE_DAYS} days
+     */
+    @Transactional(readOnly = true)
+    public SellerSalesDTO sellerSales(Long sellerId, LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        Map<LocalDate, DailySalesDTO> byDate = new HashMap<>();
+        jdbcTemplate.query("SELECT sales_date, units, revenue_paise, orders FROM seller_daily_sales " +
+            "WHERE seller_id = ? AND sales_date BETWEEN ? AND ?", rs -> {
+                LocalDate date = rs.getDate("sales_date").toLocalDate();
+                byDate.put(date, new DailySalesDTO(date, rs.getLong("units"), rs.getLong("revenue_paise") / 100.0,
+                    rs.getLong("orders")));
+            }, sellerId, Date.valueOf(from), Date.valueOf(to));
+
+        List<DailySalesDTO> days = new ArrayList<>();
+        long units = 0;
+        double revenue = 0;
+        long orders = 0;
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            DailySalesDTO day = byDate.getOrDefault(date, new DailySalesDTO(date, 0, 0, 0));
+            units += day.getUnits();
+            revenue += day.getRevenue();
+            orders += day.getOrders();
+            days.add(day);
+        }
+        return new SellerSalesDTO(from, to, units, revenue, orders, days);
+    }
+
+    /**
+     * The seller's best-selling products by revenue over the range.
+     *
+     * @throws IllegalArgumentException for a bad range or a limit outside 1..{@value #MAX_TOP_PRODUCTS}
+     */
+    @Transactional(readOnly = true)
+    public List<ProductSalesDTO> topProducts(Long sellerId, LocalDate from, LocalDate to, int limit) {
+        checkRange(from, to);
+        if (limit < 1 || limit > MAX_TOP_PRODUCTS) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_TOP_PRODUCTS);
+        }
+        return jdbcTemplate.query("SELECT d.product_id, p.name, SUM(d.units) AS units, SUM(d.revenue_paise) AS revenue_paise, " +
+            "SUM(d.orders) AS orders FROM product_daily_sales d LEFT JOIN product p ON p.id = d.product_id " +
+            "WHERE d.seller_id = ? AND d.sales_date BETWEEN ? AND ? GROUP BY d.product_id, p.name " +
+            "ORDER BY SUM(d.revenue_paise) DESC, d.product_id FETCH FIRST " + limit + " ROWS ONLY",
+            (rs, rowNum) -> new ProductSalesDTO(rs.getLong("product_id"), rs.getString("name"), rs.getLong("units"),
+                rs.getLong("revenue_paise") / 100.0, rs.getLong("orders")),
+            sellerId, Date.valueOf(from), Date.valueOf(to));
+    }
+
+    private void write(Rollup rollup) {
+        if (rollup.isEmpty()) {
+            return;
+        }
+        boolean pg = isPostgres();
+        List<Object[]> sellerRows = new ArrayList<>(rollup.sellers.size());
+        rollup.sellers.forEach((key, totals) -> sellerRows.add(new Object[] {key.sellerId(), Date.valueOf(key.date()),
+            totals[0], totals[1], totals[2]}));
+        List<Object[]> productRows = new ArrayList<>(rollup.products.size());
+        rollup.products.forEach((key, totals) -> productRows.add(new Object[] {key.productId(), Date.valueOf(key.date()),
+            rollup.productSellers.get(key), totals[0], totals[1], totals[2]}));
+        if (!sellerRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(pg ? POSTGRES_SELLER_UPSERT : MERGE_SELLER_UPSERT, sellerRows);
+        }
+        jdbcTemplate.batchUpdate(pg ? POSTGRES_PRODUCT_UPSERT : MERGE_PRODUCT_UPSERT, productRows);
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("to must not be before from");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("The range must not exceed " + MAX_RANGE_DAYS + " days");
+        }
+    }
+
+    private boolean isPostgres() {
+        Boolean value = postgres;
+        if (value == null) {
+            value = DatabaseDialect.detect(jdbcTemplate) == DatabaseDialect.POSTGRESQL;
+            postgres = value;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,50 @@
+package com.Shopping.Shopping.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local gateway for load-testing checkout offline ({@code payment.gateway=stub}). Orders are
+ * created in memory after {@code payment.gateway.stub-latency} ms, so the rest of the flow -
+ * stock reservation, payment success, order items - runs against the real database.
+ * Never enable it in production: no money is collected.
+ */
+@Service
+@ConditionalOnProperty(name = "payment.gateway", havingValue = "stub")
+public class StubPaymentGateway implements PaymentGateway {
+
+    private static final Logger logger = LoggerFactory.getLogger(StubPaymentGateway.class);
+
+    private final long latencyMillis;
+    private final MetricsService metricsService;
+
+    public StubPaymentGateway(@Value("${payment.gateway.stub-latency:0}") long latencyMillis,
+                              MetricsService metricsService) {
+        this.latencyMillis = latencyMillis;
+        this.metricsService = metricsService;
+        logger.warn("Stub payment gateway active: orders are not sent to Razorpay");
+    }
+
+    @Override
+    public GatewayOrder createOrder(long amountPaise, String currency, String receipt) {
+        long started = System.nanoTime();
+        if (latencyMillis > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new GatewayUnavailableException("Interrupted", e);
+            }
+        }
+        metricsService.increment("payment.gateway.calls");
+        metricsService.add("payment.gateway.latency.micros", (System.nanoTime() - started) / 1_000);
+        // Random rather than counted, so ids stay unique across restarts against the same database
+        return new GatewayOrder("order_stub" + UUID.randomUUID().toString().replace("-", ""), amountPaise);
+    }
+}
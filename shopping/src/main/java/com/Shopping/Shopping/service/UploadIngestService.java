@@ -0,0 +1,169 @@
+package com.Shopping.Shopping.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Stores uploaded files without holding them on the heap.
+ *
+ * An upload is first spooled to a temporary file under {@code app.upload.spool-dir}, through a small
+ * fixed buffer, and its SHA-256 is computed on the way. The row is then written with the file bound by
+ * {@link PreparedStatement#setBinaryStream}, so the JDBC driver reads it from disk as it sends it.
+ * MultipartFile.getBytes() and Hibernate's byte[] binding would each hold a full copy instead.
+ * Product images and documents keep the hash in content_hash.
+ *
+ * New image and document rows take their ids from the same sequences as the ones Hibernate inserts.
+ */
+@Service
+public class UploadIngestService {
+
+    private static final String IMAGE_INSERT =
+        "INSERT INTO product_images (id, image_data, content_hash, product_id, image_name, image_type, " +
+        "display_order, is_primary) VALUES (nextval('product_images_seq'), ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DOCUMENT_INSERT =
+        "INSERT INTO product_documents (id, document_data, content_hash, product_id, document_name, " +
+        "document_type, mime_type) VALUES (nextval('product_documents_seq'), ?, ?, ?, ?, ?, ?)";
+    private static final String USER_PHOTO_UPDATE = "UPDATE users SET photo = ? WHERE id = ?";
+    private static final String SELLER_PHOTO_UPDATE = "UPDATE sellers SET photo = ? WHERE id = ?";
+
+    /**
+     * An upload on disk. Closing it deletes the file.
+     */
+    public static final class SpooledUpload implements Closeable {
+        private final Path file;
+        private final long size;
+        private final String sha256;
+
+        SpooledUpload(Path file, long size, String sha256) {
+            this.file = file;
+            this.size = size;
+            this.sha256 = sha256;
+        }
+
+        public long getSize() { return size; }
+
+        /**
+         * Lower-case hex SHA-256 of the content.
+         */
+        public String getSha256() { return sha256; }
+
+        public InputStream open() throws IOException {
+            return Files.newInputStream(file);
+        }
+
+        /**
+         * The content as base64, for responses that return it.
+         */
+        public String toBase64() throws IOException {
+            return Base64.getEncoder().encodeToString(Files.readAllBytes(file));
+        }
+
+        @Override
+        public void close() throws IOException {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Binder {
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path spoolDir;
+
+    public UploadIngestService(JdbcTemplate jdbcTemplate,
+                               @Value("${app.upload.spool-dir:${java.io.tmpdir}}") String spoolDir) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.spoolDir = Paths.get(spoolDir);
+    }
+
+    /**
+     * Copies the upload to a temporary file, hashing it as it goes. Close the result when done.
+     */
+    public SpooledUpload spool(MultipartFile file) throws IOException {
+        Files.createDirectories(spoolDir);
+        Path spooled = Files.createTempFile(spoolDir, "upload-", ".part");
+        MessageDigest digest = sha256();
+        long size;
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest);
+             OutputStream out = Files.newOutputStream(spooled)) {
+            size = in.transferTo(out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spooled);
+            throw e;
+        }
+        return new SpooledUpload(spooled, size, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    public void insertProductImage(Long productId, SpooledUpload upload, String imageName, String imageType,
+                                   int displayOrder, boolean primary) throws IOException {
+        write(IMAGE_INSERT, upload, statement -> {
+            statement.setString(2, upload.getSha256());
+            statement.setLong(3, productId);
+            statement.setString(4, imageName);
+            statement.setString(5, imageType);
+            statement.setInt(6, displayOrder);
+            statement.setBoolean(7, primary);
+        });
+    }
+
+    public void insertProductDocument(Long productId, SpooledUpload upload, String documentName,
+                                      String documentType, String mimeType) throws IOException {
+        write(DOCUMENT_INSERT, upload, statement -> {
+            statement.setString(2, upload.getSha256());
+            statement.setLong(3, productId);
+            statement.setString(4, documentName);
+            statement.setString(5, documentType);
+            statement.setString(6, mimeType);
+        });
+    }
+
+    public void updateUserPhoto(Long userId, SpooledUpload upload) throws IOException {
+        write(USER_PHOTO_UPDATE, upload, statement -> statement.setLong(2, userId));
+    }
+
+    public void updateSellerPhoto(Long sellerId, SpooledUpload upload) throws IOException {
+        write(SELLER_PHOTO_UPDATE, upload, statement -> statement.setLong(2, sellerId));
+    }
+
+    /**
+     * Runs a statement whose first parameter is the upload, streamed from its file.
+     */
+    private void write(String sql, SpooledUpload upload, Binder binder) throws IOException {
+        try (InputStream content = upload.open()) {
+            jdbcTemplate.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql);
+                // The int overload: uploads are far below 2 GB and every driver implements it
+                statement.setBinaryStream(1, content, (int) upload.getSize());
+                binder.bind(statement);
+                return statement;
+            });
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.dto.CartDTO;
+import com.Shopping.Shopping.dto.CartItemDTO;
+import com.Shopping.Shopping.dto.CartLineView;
+import com.Shopping.Shopping.dto.CartOperationDTO;
+import com.Shopping.Shopping.dto.CartQuantityView;
+import com.Shopping.Shopping.dto.CheckoutLineView;
+import com.Shopping.Shopping.dto.ProductDTO;
+import com.Shopping.Shopping.model.SessionCart;
+import com.Shopping.Shopping.repository.CartRepository;
+import com.Shopping.Shopping.repository.ProductRepository;
+import com.Shopping.Shopping.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Cart of API users. Backed by the {@code cart} table, or by the {@link WriteBehindCartStore}
+ * when {@code cart.write-behind.enabled=true}.
+ */
+@Service
+public class UserCartService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserCartService.class);
+
+    public static final int MAX_BATCH_OPERATIONS = 200;
+
+    private final CartRepository cartRepository;
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PricingEngine pricingEngine;
+    private final WriteBehindCartStore writeBehindStore;
+
+    public UserCartService(CartRepository cartRepository,
+                           ProductRepository productRepository,
+                           UserRepository userRepository,
+                           JdbcTemplate jdbcTemplate,
+                           PricingEngine pricingEngine,
+                           ObjectProvider<WriteBehindCartStore> writeBehindStore) {
+        this.cartRepository = cartRepository;
+        this.productRepository = productRepository;
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.pricingEngine = pricingEngine;
+        this.writeBehindStore = writeBehindStore.getIfAvailable();
+    }
+
+    /**
+     * Reads the cart with one query; prices come from the {@link PricingEngine} using the product
+     * columns of the same rows.
+     */
+    @Transactional(readOnly = true)
+    public CartDTO getCart(String username) {
+        if (writeBehindStore != null) {
+            return getMemoryCart(username);
+        }
+        List<CartLineView> rows = cartRepository.findCartLinesByUsername(username);
+
+        List<List<CartLineView>> lines = new ArrayList<>();
+        int start = 0;
+        while (start < rows.size()) {
+            CartLineView line = rows.get(start);
+            int end = start + 1;
+            while (end < rows.size() && rows.get(end).getCartId().equals(line.getCartId())) {
+                end++;
+            }
+            lines.add(rows.subList(start, end));
+            start = end;
+        }
+        return buildCart(lines);
+    }
+
+    /**
+     * Adds to the user's line for the product with a single upsert (or in memory with write-behind).
+     * @return false if the product does not exist
+     * @throws IllegalArgumentException if the quantity is not positive
+     */
+    @Transactional
+    public boolean addItem(String username, Long productId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        Long userId = requireUserId(username);
+        if (!productRepository.existsById(productId)) {
+            return false;
+        }
+        if (writeBehindStore != null) {
+            writeBehindStore.update(userId, cart -> cart.add(productId, 0L, quantity));
+        } else {
+            cartRepository.addQuantity(userId, productId, quantity);
+        }
+        return true;
+    }
+
+    /**
+     * Sets the quantity of a line already in the cart; zero or less removes it.
+     * @return false if the product is not in the cart
+     */
+    @Transactional
+    public boolean updateQuantity(String username, Long productId, int quantity) {
+        Long userId = requireUserId(username);
+        if (writeBehindStore != null) {
+            boolean[] found = new boolean[1];
+            writeBehindStore.update(userId, cart -> {
+                found[0] = cart.indexOf(productId, 0L) >= 0;
+                if (quantity <= 0) {
+                    cart.removeProduct(productId);
+                } else {
+                    cart.setQuantity(productId, 0L, quantity);
+                }
+            });
+            return found[0];
+        }
+        return quantity <= 0
+            ? cartRepository.deleteLine(userId, productId) > 0
+            : cartRepository.updateQuantity(userId, productId, quantity) > 0;
+    }
+
+    @Transactional
+    public void removeItem(String username, Long productId) {
+        Long userId = requireUserId(username);
+        if (writeBehindStore != null) {
+            writeBehindStore.update(userId, cart -> cart.removeProduct(productId));
+        } else {
+            cartRepository.deleteLine(userId, productId);
+        }
+    }
+
+    /**
+     * Cart lines with seller and pricing columns for checkout, in one query (quantities from memory
+     * with write-behind). Lines whose product was deleted are left out.
+     */
+    @Transactional(readOnly = true)
+    public List<CheckoutLineView> getCheckoutLines(Long userId) {
+        if (writeBehindStore == null) {
+            return cartRepository.findCheckoutLinesByUserId(userId);
+        }
+        SessionCart cart = writeBehindStore.read(userId);
+        if (cart.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (int i = 0; i < cart.size(); i++) {
+            quantities.merge(cart.productIdAt(i), cart.quantityAt(i), Integer::sum);
+        }
+        Map<Long, CheckoutLineView> rows = new HashMap<>();
+        for (CheckoutLineView row : productRepository.findCheckoutLinesByIdIn(quantities.keySet())) {
+            rows.put(row.getProductId(), row);
+        }
+        List<CheckoutLineView> lines = new ArrayList<>(rows.size());
+        quantities.forEach((productId, quantity) -> {
+            CheckoutLineView row = rows.get(productId);
+            if (row != null) {
+                row.setQuantity(quantity);
+                lines.add(row);
+            }
+        });
+        return lines;
+    }
+
+    /**
+     * Removes the given products from the cart with one bulk delete, e.g. the lines of a placed
+     * order; products added since stay. With write-behind the memory cart changes once the
+     * surrounding transaction commits.
+     */
+    @Transactional
+    public void removeProducts(Long userId, Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        if (writeBehindStore == null) {
+            cartRepository.deleteLines(userId, productIds);
+        } else if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    writeBehindStore.update(userId, cart -> productIds.forEach(cart::removeProduct));
+                }
+            });
+        } else {
+            writeBehindStore.update(userId, cart -> productIds.forEach(cart::removeProduct));
+        }
+    }
+
+    /**
+     * Applies add / set / remove operations in order and returns the resulting cart.
+     *
+     * Product ids are validated with one IN query, the operations are folded in memory over the
+     * current quantities, and only the net inserts (as upserts), updates and deletes are written as
+     * JDBC batches.
+     * Everything runs in one transaction: an invalid operation leaves the cart untouched.
+     * @throws IllegalArgumentException for malformed operations or unknown products
+     */
+    @Transactional
+    public CartDTO applyBatch(String username, List<CartOperationDTO> operations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new IllegalArgumentException("No cart operations provided");
+        }
+        if (operations.size() > MAX_BATCH_OPERATIONS) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_OPERATIONS + " cart operations per request");
+        }
+        Long userId = requireUserId(username);
+
+        Set<Long> productIds = new HashSet<>();
+        for (CartOperationDTO operation : operations) {
+            if (operation == null || operation.getProductId() == null || operation.getOp() == null) {
+                throw new IllegalArgumentException("Each operation needs an op and a productId");
+            }
+            productIds.add(operation.getProductId());
+        }
+        Set<Long> existing = new HashSet<>(productRepository.findExistingIds(productIds));
+        for (Long productId : productIds) {
+            if (!existing.contains(productId)) {
+                throw new IllegalArgumentException("Product not found: " + productId);
+            }
+        }
+
+        if (writeBehindStore != null) {
+            writeBehindStore.update(userId, cart -> {
+                Map<Long, Integer> target = new LinkedHashMap<>();
+                for (int i = 0; i < cart.size(); i++) {
+                    target.merge(cart.productIdAt(i), cart.quantityAt(i), Integer::sum);
+                }
+                // Throws before the cart is touched, so an invalid batch changes nothing
+                fold(operations, target);
+                cart.clear();
+                target.forEach((productId, quantity) -> {
+                    if (quantity > 0) {
+                        cart.add(productId, 0L, quantity);
+                    }
+                });
+            });
+            logger.info("Applied {} cart operations for {} in memory", operations.size(), username);
+            return getCart(username);
+        }
+
+        // Current state: productId -> cart row. Duplicate rows for one product are folded into the first
+        Map<Long, CartQuantityView> current = new LinkedHashMap<>();
+        Map<Long, Integer> target = new LinkedHashMap<>();
+        List<Object[]> deletes = new ArrayList<>();
+        for (CartQuantityView row : cartRepository.findQuantitiesByUserId(userId)) {
+            if (current.putIfAbsent(row.getProductId(), row) != null) {
+                deletes.add(new Object[] {row.getCartId()});
+            }
+            target.merge(row.getProductId(), row.getQuantity(), Integer::sum);
+        }
+        fold(operations, target);
+
+        Map<Long, Integer> inserts = new LinkedHashMap<>();
+        List<Object[]> updates = new ArrayList<>();
+        target.forEach((productId, quantity) -> {
+            CartQuantityView row = current.get(productId);
+            if (row == null) {
+                if (quantity > 0) {
+                    inserts.put(productId, quantity);
+                }
+            } else if (quantity <= 0) {
+                deletes.add(new Object[] {row.getCartId()});
+            } else if (quantity != row.getQuantity()) {
+                updates.add(new Object[] {quantity, row.getCartId()});
+            }
+        });
+
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM cart WHERE id = ?", deletes);
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE cart SET quantity = ? WHERE id = ?", updates);
+        }
+        // Upserts rather than plain inserts, so a line committed since the read is merged, not a constraint violation
+        cartRepository.addQuantities(userId, inserts);
+        logger.info("Applied {} cart operations for {}: {} inserted, {} updated, {} deleted",
+            operations.size(), username, inserts.size(), updates.size(), deletes.size());
+
+        return getCart(username);
+    }
+
+    /**
+     * Folds the operations in order over target quantities (productId -> quantity, 0 = removed).
+     */
+    private static void fold(List<CartOperationDTO> operations, Map<Long, Integer> target) {
+        for (CartOperationDTO operation : operations) {
+            Long productId = operation.getProductId();
+            switch (operation.getOp().toLowerCase()) {
+                case "add" -> {
+                    int quantity = operation.getQuantity() != null ? operation.getQuantity() : 1;
+                    if (quantity <= 0) {
+                        throw new IllegalArgumentException("Quantity to add must be positive for product " + productId);
+                    }
+                    target.merge(productId, quantity, Integer::sum);
+                }
+                case "set" -> {
+                    if (operation.getQuantity() == null || operation.getQuantity() < 0) {
+                        throw new IllegalArgumentException("Quantity to set must be zero or more for product " + productId);
+                    }
+                    target.put(productId, operation.getQuantity());
+                }
+                case "remove" -> target.put(productId, 0);
+                default -> throw new IllegalArgumentException("Unknown cart operation: " + operation.getOp());
+            }
+        }
+    }
+
+    /**
+     * Cart held by the write-behind store: quantities from memory, product summaries in one query.
+     */
+    private CartDTO getMemoryCart(String username) {
+        Optional<Long> userId = userRepository.findIdByUsername(username);
+        if (userId.isEmpty()) {
+            return new CartDTO(new ArrayList<>(), 0, 0, 0);
+        }
+        SessionCart cart = writeBehindStore.read(userId.get());
+        if (cart.isEmpty()) {
+            return new CartDTO(new ArrayList<>(), 0, 0, 0);
+        }
+        List<Long> productIds = new ArrayList<>(cart.size());
+        for (int i = 0; i < cart.size(); i++) {
+            productIds.add(cart.productIdAt(i));
+        }
+        Map<Long, List<CartLineView>> rowsByProduct = new HashMap<>();
+        for (CartLineView row : productRepository.findCartLinesByIdIn(productIds)) {
+            rowsByProduct.computeIfAbsent(row.getProductId(), id -> new ArrayList<>()).add(row);
+        }
+
+        List<List<CartLineView>> lines = new ArrayList<>(cart.size());
+        for (int i = 0; i < cart.size(); i++) {
+            List<CartLineView> rows = rowsByProduct.get(cart.productIdAt(i));
+            if (rows == null) {
+                // Product deleted since it was added
+                continue;
+            }
+            rows.get(0).setQuantity(cart.quantityAt(i));
+            lines.add(rows);
+        }
+        return buildCart(lines);
+    }
+
+    /**
+     * @param lines rows of each cart line; the first row of a line carries its quantity
+     */
+    private CartDTO buildCart(List<List<CartLineView>> lines) {
+        int count = lines.size();
+        PricingEngine.PriceRule[] rules = new PricingEngine.PriceRule[count];
+        int[] quantities = new int[count];
+        for (int i = 0; i < count; i++) {
+            CartLineView line = lines.get(i).get(0);
+            rules[i] = pricingEngine.ruleOf(line.getPrice(), line.getSellingPrice(), line.getMrp(),
+                line.getDiscountPercent(), line.getGstIncluded());
+            quantities[i] = line.getQuantity();
+        }
+        PricingEngine.CartPrice price = pricingEngine.price(rules, null, quantities, count);
+
+        List<CartItemDTO> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(toCartItem(lines.get(i), price.lineTotalPaise(i)));
+        }
+        return new CartDTO(items, PricingEngine.CartPrice.toRupees(price.getTotalPaise()),
+            price.getTotalPaise(), PricingEngine.CartPrice.toRupees(price.getTaxPaise()));
+    }
+
+    private Long requireUserId(String username) {
+        return userRepository.findIdByUsername(username)
+            .orElseThrow(() -> new RuntimeException("User not found: " + username));
+    }
+
+    private CartItemDTO toCartItem(List<CartLineView> lineRows, long subtotalPaise) {
+        CartLineView line = lineRows.get(0);
+
+        ProductDTO product = new ProductDTO();
+        product.setId(line.getProductId());
+        product.setName(line.getName());
+        product.setBrandName(line.getBrandName());
+        product.setDescription(line.getDescription());
+        product.setPrice(line.getPrice());
+        product.setSellingPrice(line.getSellingPrice() != null ? line.getSellingPrice() : line.getPrice());
+        product.setCategory(line.getCategory());
+        product.setUniqueProductId(line.getUniqueProductId());
+
+        List<CartLineView> images = new ArrayList<>(lineRows.size());
+        for (CartLineView row : lineRows) {
+            if (row.getImageId() != null) {
+                images.add(row);
+            }
+        }
+        if (!images.isEmpty()) {
+            images.sort(Comparator.comparingInt(row ->
+                row.getImageDisplayOrder() != null ? row.getImageDisplayOrder() : 0));
+            List<String> imageUrls = new ArrayList<>(images.size());
+            for (CartLineView image : images) {
+                imageUrls.add("/product-image/" + line.getProductId() + "/" + image.getImageId());
+            }
+            product.setImageUrls(imageUrls);
+            product.setPrimaryImageUrl(imageUrls.get(0));
+            product.setImageUrl(imageUrls.get(0));
+        } else {
+            product.setImageUrl("/product-image/" + line.getProductId());
+        }
+
+        CartItemDTO item = new CartItemDTO();
+        item.setProduct(product);
+        item.setQuantity(line.getQuantity());
+        item.setSubtotal(PricingEngine.CartPrice.toRupees(subtotalPaise));
+        return item;
+    }
+}
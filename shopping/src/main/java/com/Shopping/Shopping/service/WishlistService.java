@@ -0,0 +1,160 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.repository.ProductRepository;
+import com.Shopping.Shopping.repository.UserRepository;
+import com.Shopping.Shopping.repository.WishlistRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wishlist writes and membership checks.
+ *
+ * Membership is cached per user as a sorted long[] of product ids, loaded with one query on first
+ * use and replaced copy-on-write after each committed add or remove, so checking a page of product
+ * cards is a few binary searches. Loads run inside {@code computeIfAbsent} and updates inside
+ * {@code computeIfPresent}, which serializes an update behind an in-flight load of the same user.
+ */
+@Service
+public class WishlistService {
+
+    public static final int MAX_CHECK_IDS = 500;
+
+    public enum AddResult { ADDED, ALREADY_PRESENT, PRODUCT_NOT_FOUND }
+
+    private final WishlistRepository wishlistRepository;
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final MetricsService metricsService;
+    private final int maxCachedUsers;
+    private final Map<String, long[]> memberships = new ConcurrentHashMap<>();
+
+    public WishlistService(WishlistRepository wishlistRepository,
+                           ProductRepository productRepository,
+                           UserRepository userRepository,
+                           MetricsService metricsService,
+                           @Value("${wishlist.membership.max-users:10000}") int maxCachedUsers) {
+        this.wishlistRepository = wishlistRepository;
+        this.productRepository = productRepository;
+        this.userRepository = userRepository;
+        this.metricsService = metricsService;
+        this.maxCachedUsers = maxCachedUsers;
+        metricsService.registerGauge("wishlist.membership.users", () -> memberships.size());
+    }
+
+    public boolean contains(String username, Long productId) {
+        return Arrays.binarySearch(membership(username), productId) >= 0;
+    }
+
+    /**
+     * @return productId -> in wishlist, in request order
+     * @throws IllegalArgumentException for more than {@link #MAX_CHECK_IDS} ids
+     */
+    public Map<Long, Boolean> check(String username, Collection<Long> productIds) {
+        if (productIds.size() > MAX_CHECK_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_CHECK_IDS + " product ids per check");
+        }
+        long[] members = membership(username);
+        Map<Long, Boolean> result = new LinkedHashMap<>();
+        for (Long productId : productIds) {
+            if (productId != null) {
+                result.put(productId, Arrays.binarySearch(members, productId) >= 0);
+            }
+        }
+        return result;
+    }
+
+    @Transactional
+    public AddResult add(String username, Long productId) {
+        if (contains(username, productId)) {
+            return AddResult.ALREADY_PRESENT;
+        }
+        if (!productRepository.existsById(productId)) {
+            return AddResult.PRODUCT_NOT_FOUND;
+        }
+        Long userId = userRepository.findIdByUsername(username)
+            .orElseThrow(() -> new RuntimeException("User not found"));
+        // The cached membership can be stale; the insert itself decides, against the unique constraint
+        boolean added = wishlistRepository.addIfAbsent(userId, productId);
+        afterCommit(username, productId, true);
+        return added ? AddResult.ADDED : AddResult.ALREADY_PRESENT;
+    }
+
+    @Transactional
+    public void remove(String username, Long productId) {
+        Long userId = userRepository.findIdByUsername(username)
+            .orElseThrow(() -> new RuntimeException("User not found"));
+        wishlistRepository.deleteLine(userId, productId);
+        afterCommit(username, productId, false);
+    }
+
+    long[] membership(String username) {
+        long[] members = memberships.get(username);
+        if (members != null) {
+            return members;
+        }
+        if (memberships.size() >= maxCachedUsers) {
+            evictSome();
+        }
+        return memberships.computeIfAbsent(username, key -> {
+            metricsService.increment("wishlist.membership.loads");
+            List<Long> ids = wishlistRepository.findProductIdsByUsername(key);
+            return ids.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+        });
+    }
+
+    private void afterCommit(String username, Long productId, boolean added) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                memberships.computeIfPresent(username, (key, members) -> added
+                    ? withId(members, productId)
+                    : withoutId(members, productId));
+            }
+        });
+    }
+
+    static long[] withId(long[] members, long productId) {
+        int index = Arrays.binarySearch(members, productId);
+        if (index >= 0) {
+            return members;
+        }
+        int insertAt = -index - 1;
+        long[] updated = new long[members.length + 1];
+        System.arraycopy(members, 0, updated, 0, insertAt);
+        updated[insertAt] = productId;
+        System.arraycopy(members, insertAt, updated, insertAt + 1, members.length - insertAt);
+        return updated;
+    }
+
+    static long[] withoutId(long[] members, long productId) {
+        int index = Arrays.binarySearch(members, productId);
+        if (index < 0) {
+            return members;
+        }
+        long[] updated = new long[members.length - 1];
+        System.arraycopy(members, 0, updated, 0, index);
+        System.arraycopy(members, index + 1, updated, index, members.length - index - 1);
+        return updated;
+    }
+
+    // Drops an arbitrary tenth of the cached users; they reload on their next check
+    private void evictSome() {
+        int toEvict = Math.max(1, maxCachedUsers / 10);
+        Iterator<String> iterator = memberships.keySet().iterator();
+        while (toEvict-- > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+}
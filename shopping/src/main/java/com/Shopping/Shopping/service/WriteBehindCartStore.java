@@ -0,0 +1,305 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.model.SessionCart;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind cart engine, enabled with {@code cart.write-behind.enabled=true}.
+ *
+ * Carts live in memory as {@link SessionCart}s in a striped map and are the authoritative state
+ * while loaded. Every mutation is journaled before it returns, marks its lines dirty, and the
+ * scheduled {@link #flush()} writes the latest quantity of each dirty line to the {@link CartBackend}
+ * in one batch - a hundred quantity clicks between two flushes cost one row write.
+ * Journal segments left by a crash are replayed into the backend on startup.
+ *
+ * Only one instance may own the carts: with several app instances the memory states would diverge.
+ */
+@Service
+@ConditionalOnProperty(name = "cart.write-behind.enabled", havingValue = "true")
+public class WriteBehindCartStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindCartStore.class);
+    private static final int STRIPES = 64;
+
+    private final CartBackend backend;
+    private final CartJournal journal;
+    private final MetricsService metricsService;
+    private final long idleTimeoutMillis;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public WriteBehindCartStore(CartBackend backend,
+                                MetricsService metricsService,
+                                @Value("${cart.write-behind.journal-dir}") String journalDir,
+                                @Value("${cart.write-behind.journal-fsync:false}") boolean fsync,
+                                @Value("${cart.write-behind.idle-timeout:600000}") long idleTimeoutMillis) {
+        this.backend = backend;
+        this.metricsService = metricsService;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.journal = new CartJournal(Path.of(journalDir), fsync);
+        recover();
+        metricsService.registerGauge("cart.writebehind.carts", this::cartCount);
+        metricsService.registerGauge("cart.writebehind.dirty_lines", this::dirtyLineCount);
+    }
+
+    /**
+     * @return a copy of the user's cart; variant ids are always 0
+     */
+    public SessionCart read(Long userId) {
+        Stripe stripe = stripeOf(userId);
+        Entry entry = lockEntry(stripe, userId);
+        try {
+            entry.lastAccess = System.currentTimeMillis();
+            return entry.cart.copy();
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Applies a mutation to the user's cart, journals the lines it changed and marks them dirty.
+     * If the mutation throws, the cart is left as it was.
+     */
+    public void update(Long userId, Consumer<SessionCart> mutation) {
+        Stripe stripe = stripeOf(userId);
+        Entry entry = lockEntry(stripe, userId);
+        try {
+            SessionCart updated = entry.cart.copy();
+            mutation.accept(updated);
+
+            // Changed lines: new or different quantities, plus removed lines at 0
+            int capacity = updated.size() + entry.cart.size();
+            long[] productIds = new long[capacity];
+            int[] quantities = new int[capacity];
+            int changed = 0;
+            for (int i = 0; i < updated.size(); i++) {
+                int before = entry.cart.indexOf(updated.productIdAt(i), 0L);
+                if (before < 0 || entry.cart.quantityAt(before) != updated.quantityAt(i)) {
+                    productIds[changed] = updated.productIdAt(i);
+                    quantities[changed++] = updated.quantityAt(i);
+                }
+            }
+            for (int i = 0; i < entry.cart.size(); i++) {
+                if (updated.indexOf(entry.cart.productIdAt(i), 0L) < 0) {
+                    productIds[changed] = entry.cart.productIdAt(i);
+                    quantities[changed++] = 0;
+                }
+            }
+            if (changed == 0) {
+                return;
+            }
+
+            journal.append(userId, productIds, quantities, changed);
+            entry.cart = updated;
+            entry.lastAccess = System.currentTimeMillis();
+            Set<Long> dirty = stripe.dirty.computeIfAbsent(userId, id -> new HashSet<>());
+            for (int i = 0; i < changed; i++) {
+                dirty.add(productIds[i]);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        metricsService.increment("cart.writebehind.mutations");
+    }
+
+    public void clear(Long userId) {
+        update(userId, SessionCart::clear);
+    }
+
+    /**
+     * Writes the latest quantity of every dirty line to the backend in one batch, then drops the
+     * journal segments that are covered. On failure the lines stay dirty for the next run.
+     */
+    @Scheduled(fixedDelayString = "${cart.write-behind.flush-interval:5000}")
+    public void flush() {
+        // Seal first: a mutation journaled in a sealed segment marked its lines dirty under its
+        // stripe lock, so the sweep below is guaranteed to pick it up
+        List<Path> segments = journal.seal();
+        List<CartBackend.Change> changes = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                stripe.dirty.forEach((userId, productIds) -> {
+                    SessionCart cart = stripe.carts.get(userId).cart;
+                    for (Long productId : productIds) {
+                        int index = cart.indexOf(productId, 0L);
+                        changes.add(new CartBackend.Change(userId, productId, index >= 0 ? cart.quantityAt(index) : 0));
+                    }
+                });
+                stripe.dirty.clear();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+
+        if (!changes.isEmpty()) {
+            long start = System.nanoTime();
+            try {
+                store(changes);
+            } catch (RuntimeException e) {
+                logger.warn("Cart flush of {} lines failed, retrying next run: {}", changes.size(), e.getMessage());
+                metricsService.increment("cart.writebehind.flush_failures");
+                markDirty(changes);
+                return;
+            }
+            metricsService.increment("cart.writebehind.flushes");
+            metricsService.add("cart.writebehind.flushed_lines", changes.size());
+            logger.debug("Flushed {} cart lines in {} ms", changes.size(), (System.nanoTime() - start) / 1_000_000);
+        }
+        journal.delete(segments);
+        evictIdle();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        journal.close();
+    }
+
+    /**
+     * A line whose product was deleted in the meantime fails the foreign key and would fail every
+     * batch it is in, so on a constraint violation the lines are stored one by one and failures dropped.
+     */
+    private void store(List<CartBackend.Change> changes) {
+        try {
+            backend.store(changes);
+        } catch (DataIntegrityViolationException e) {
+            for (CartBackend.Change change : changes) {
+                try {
+                    backend.store(List.of(change));
+                } catch (DataIntegrityViolationException rejected) {
+                    logger.warn("Dropping cart line user={} product={}: {}", change.userId(), change.productId(),
+                        rejected.getMessage());
+                    metricsService.increment("cart.writebehind.dropped_lines");
+                }
+            }
+        }
+    }
+
+    private void recover() {
+        List<Path> segments = journal.seal();
+        Map<List<Long>, Integer> replayed = CartJournal.replay(segments);
+        if (!replayed.isEmpty()) {
+            List<CartBackend.Change> changes = new ArrayList<>(replayed.size());
+            replayed.forEach((line, quantity) -> changes.add(new CartBackend.Change(line.get(0), line.get(1), quantity)));
+            // Fails startup rather than serving carts that miss journaled changes
+            store(changes);
+            logger.info("Recovered {} cart lines from the journal", changes.size());
+        }
+        journal.delete(segments);
+    }
+
+    private void markDirty(List<CartBackend.Change> changes) {
+        for (CartBackend.Change change : changes) {
+            Stripe stripe = stripeOf(change.userId());
+            stripe.lock.lock();
+            try {
+                stripe.dirty.computeIfAbsent(change.userId(), id -> new HashSet<>()).add(change.productId());
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                Iterator<Map.Entry<Long, Entry>> iterator = stripe.carts.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<Long, Entry> cart = iterator.next();
+                    if (cart.getValue().lastAccess < cutoff && !stripe.dirty.containsKey(cart.getKey())) {
+                        iterator.remove();
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the user's cart with the stripe lock held, loading it from the backend if needed.
+     */
+    private Entry lockEntry(Stripe stripe, Long userId) {
+        stripe.lock.lock();
+        Entry entry = stripe.carts.get(userId);
+        if (entry != null) {
+            return entry;
+        }
+        stripe.lock.unlock();
+        // Loaded outside the lock so a slow query does not block the other carts of the stripe
+        SessionCart loaded = backend.load(userId);
+        metricsService.increment("cart.writebehind.loads");
+        stripe.lock.lock();
+        return stripe.carts.computeIfAbsent(userId, id -> new Entry(loaded));
+    }
+
+    private Stripe stripeOf(Long userId) {
+        return stripes[(Long.hashCode(userId) & 0x7fffffff) % STRIPES];
+    }
+
+    private long cartCount() {
+        long count = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                count += stripe.carts.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return count;
+    }
+
+    private long dirtyLineCount() {
+        long count = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                for (Set<Long> lines : stripe.dirty.values()) {
+                    count += lines.size();
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return count;
+    }
+
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<Long, Entry> carts = new HashMap<>();
+        final Map<Long, Set<Long>> dirty = new HashMap<>();
+    }
+
+    private static final class Entry {
+        SessionCart cart;
+        long lastAccess = System.currentTimeMillis();
+
+        Entry(SessionCart cart) {
+            this.cart = cart;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.Shopping.Shopping.util;
+
+/**
+ * Consecutive-failure circuit breaker.
+ *
+ * CLOSED lets every call through; {@code failureThreshold} failures in a row open it. OPEN rejects
+ * calls until {@code openNanos} have passed, then lets a single probe through (HALF_OPEN): its
+ * success closes the breaker, its failure opens it for another period. Times are passed in, as in
+ * {@link TokenBucket}, so tests do not sleep.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    public CircuitBreaker(int failureThreshold, long openNanos) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = openNanos;
+    }
+
+    /**
+     * @return false if the call must not be attempted; otherwise report its outcome with
+     *         {@link #onSuccess()} or {@link #onFailure(long)}
+     */
+    public synchronized boolean tryAcquire(long nowNanos) {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (nowNanos - openedAt < openNanos) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                return true;
+            default:
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    public synchronized void onFailure(long nowNanos) {
+        probeInFlight = false;
+        if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = nowNanos;
+            consecutiveFailures = 0;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
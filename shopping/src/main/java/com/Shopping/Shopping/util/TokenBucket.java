@@ -0,0 +1,48 @@
+package com.Shopping.Shopping.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket.
+ *
+ * Implemented as a generic cell rate algorithm: the whole bucket state is one "theoretical arrival time"
+ * updated with a single CAS, which is equivalent to a bucket of {@code capacity} tokens refilled one token
+ * every {@code intervalNanos}.
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(int capacity, long intervalNanos, long nowNanos) {
+        this.intervalNanos = intervalNanos;
+        this.burstNanos = intervalNanos * Math.max(capacity, 1);
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes one token.
+     * @return 0 if a token was available, otherwise the nanoseconds until the next token is available
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, nowNanos) + intervalNanos;
+            long wait = next - nowNanos - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * A bucket that has been full for longer than {@code idleNanos} carries no state worth keeping.
+     */
+    public boolean isIdle(long nowNanos, long idleNanos) {
+        return nowNanos - theoreticalArrival.get() > idleNanos;
+    }
+}
@@ -0,0 +1,87 @@
+package com.Shopping.Shopping.benchmark;
+
+import com.Shopping.Shopping.dto.ProductPriceRuleView;
+import com.Shopping.Shopping.dto.VariantPriceView;
+import com.Shopping.Shopping.repository.ProductRepository;
+import com.Shopping.Shopping.repository.ProductVariantRepository;
+import com.Shopping.Shopping.service.PricingEngine;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pricing a 50-line cart (every third line with a variant) through the pricing engine.
+ * "cachedRules" is the steady state; "rulesFromRepository" reloads every rule through
+ * stubbed repositories, so it measures rule building without database latency.
+ *
+ * Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.Shopping.Shopping.benchmark.CartPricingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartPricingBenchmark {
+
+    private static final int LINES = 50;
+
+    private PricingEngine pricingEngine;
+    private final long[] productIds = new long[LINES];
+    private final long[] variantIds = new long[LINES];
+    private final int[] quantities = new int[LINES];
+
+    @Setup
+    public void setUp() {
+        List<ProductPriceRuleView> products = new ArrayList<>();
+        List<VariantPriceView> variants = new ArrayList<>();
+        for (int i = 0; i < LINES; i++) {
+            long productId = i + 1;
+            products.add(new ProductPriceRuleView(productId, 99.0 + i, 99.0 + i, 150.0 + i, 10.0, i % 2 == 0));
+            productIds[i] = productId;
+            quantities[i] = 1 + i % 4;
+            if (i % 3 == 0) {
+                long variantId = 1000 + i;
+                variants.add(new VariantPriceView(variantId, productId, "V" + i, 12.5));
+                variantIds[i] = variantId;
+            }
+        }
+        ProductRepository productRepository = mock(ProductRepository.class);
+        ProductVariantRepository productVariantRepository = mock(ProductVariantRepository.class);
+        when(productRepository.findPriceRuleViewsByIdIn(anyCollection())).thenReturn(products);
+        when(productVariantRepository.findPriceViewsByProductIdIn(anyCollection())).thenReturn(variants);
+
+        pricingEngine = new PricingEngine(productRepository, productVariantRepository, 18, Long.MAX_VALUE / 1_000_000);
+        pricingEngine.price(productIds, variantIds, quantities, LINES);
+    }
+
+    @Benchmark
+    public long cachedRules() {
+        return pricingEngine.price(productIds, variantIds, quantities, LINES).getTotalPaise();
+    }
+
+    @Benchmark
+    public long rulesFromRepository() {
+        pricingEngine.evictAll();
+        return pricingEngine.price(productIds, variantIds, quantities, LINES).getTotalPaise();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(CartPricingBenchmark.class.getSimpleName())
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,98 @@
+package com.Shopping.Shopping.benchmark;
+
+import com.Shopping.Shopping.repository.RevokedTokenRepository;
+import com.Shopping.Shopping.security.JwtAuthenticationFilter;
+import com.Shopping.Shopping.security.JwtTokenProvider;
+import com.Shopping.Shopping.security.RouteClassifier;
+import com.Shopping.Shopping.security.TokenRevocationService;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of JwtAuthenticationFilter per request on public, protected and rejected routes.
+ *
+ * Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.Shopping.Shopping.benchmark.JwtAuthenticationFilterBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private JwtAuthenticationFilter filter;
+    private RouteClassifier classifier;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwtTokenProvider tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret",
+            "Benchmark_Secret_Key_For_JWT_Token_Generation_At_Least_256_Bits");
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpiration", 900000L);
+        ReflectionTestUtils.setField(tokenProvider, "refreshExpiration", 604800000L);
+
+        TokenRevocationService revocationService =
+            new TokenRevocationService(Mockito.mock(RevokedTokenRepository.class), 100000, 0.01);
+        classifier = new RouteClassifier();
+        filter = new JwtAuthenticationFilter(tokenProvider, revocationService, classifier);
+
+        token = tokenProvider.generateToken(User.withUsername("benchmark")
+            .password("")
+            .authorities(List.of(new SimpleGrantedAuthority("ROLE_USER")))
+            .build());
+    }
+
+    @Benchmark
+    public MockHttpServletResponse publicRoute() throws Exception {
+        return run(new MockHttpServletRequest("GET", "/api/v1/products/42"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse protectedRoute() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/cart");
+        request.addHeader("Authorization", "Bearer " + token);
+        return run(request);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse protectedRouteWithoutToken() throws Exception {
+        return run(new MockHttpServletRequest("GET", "/api/v1/cart"));
+    }
+
+    @Benchmark
+    public RouteClassifier.Route classifyOnly() {
+        return classifier.classify("/api/v1/seller/products/42");
+    }
+
+    private MockHttpServletResponse run(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        SecurityContextHolder.clearContext();
+        return response;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(JwtAuthenticationFilterBenchmark.class.getSimpleName())
+            .build();
+        new Runner(options).run();
+    }
+}
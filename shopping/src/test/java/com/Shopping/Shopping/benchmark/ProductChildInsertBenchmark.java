@@ -0,0 +1,118 @@
+package com.Shopping.Shopping.benchmark;
+
+import com.Shopping.Shopping.ShoppingApplication;
+import com.Shopping.Shopping.model.Product;
+import com.Shopping.Shopping.repository.ProductRepository;
+import com.Shopping.Shopping.service.ProductService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving a product with 30 specifications and 20 variants through ProductService, against an
+ * in-memory H2 database. batchSize 0 turns Hibernate's JDBC batching off for comparison.
+ * The "statements" secondary result counts the JDBC statements prepared while saving one product:
+ * under a dozen with batching (one per batch and sequence call) against over a hundred without.
+ * Scheduled jobs in the same context can add a few to either.
+ *
+ * Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.Shopping.Shopping.benchmark.ProductChildInsertBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductChildInsertBenchmark {
+
+    private static final int SPECIFICATIONS = 30;
+    private static final int VARIANTS = 20;
+
+    @Param({"50", "0"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private ProductRepository productRepository;
+    private TransactionTemplate transactionTemplate;
+    private Statistics statistics;
+    private String specificationsJson;
+    private String variantsJson;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RoundTrips {
+        public long statements;
+    }
+
+    @Setup
+    public void setUp() {
+        // Arguments, unlike default properties, take precedence over application.properties
+        context = new SpringApplicationBuilder(ShoppingApplication.class).run(
+            "--server.port=0",
+            "--spring.datasource.url=jdbc:h2:mem:product-child-insert-benchmark;DB_CLOSE_DELAY=-1",
+            "--spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+            "--spring.jpa.properties.hibernate.generate_statistics=true",
+            "--spring.jpa.show-sql=false",
+            "--logging.level.root=WARN",
+            "--outbox.dispatcher.enabled=false",
+            "--orders.archive.enabled=false");
+        productService = context.getBean(ProductService.class);
+        productRepository = context.getBean(ProductRepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        StringBuilder specs = new StringBuilder("{");
+        for (int i = 0; i < SPECIFICATIONS; i++) {
+            specs.append(i == 0 ? "" : ",").append("\"Spec ").append(i).append("\":\"Value ").append(i).append('"');
+        }
+        specificationsJson = specs.append('}').toString();
+        StringBuilder variants = new StringBuilder("[");
+        for (int i = 0; i < VARIANTS; i++) {
+            variants.append(i == 0 ? "" : ",").append("{\"type\":\"size\",\"value\":\"S").append(i)
+                .append("\",\"priceModifier\":").append(i * 10).append(",\"stock\":5}");
+        }
+        variantsJson = variants.append(']').toString();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Long saveProductWithChildren(RoundTrips roundTrips) {
+        long before = statistics.getPrepareStatementCount();
+        Long id = transactionTemplate.execute(status -> {
+            Product product = new Product();
+            product.setName("Benchmark product");
+            product.setPrice(499.0);
+            product = productRepository.save(product);
+            productService.saveProductSpecifications(product, specificationsJson);
+            productService.saveProductVariants(product, variantsJson);
+            return product.getId();
+        });
+        roundTrips.statements = statistics.getPrepareStatementCount() - before;
+        return id;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(ProductChildInsertBenchmark.class.getSimpleName())
+            .build();
+        new Runner(options).run();
+    }
+}
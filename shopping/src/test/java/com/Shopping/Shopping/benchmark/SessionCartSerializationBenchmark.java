@@ -0,0 +1,82 @@
+package com.Shopping.Shopping.benchmark;
+
+import com.Shopping.Shopping.model.SessionCart;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization cost and per-session footprint of the session cart.
+ * The "bytes" secondary result is the serialized size of one cart.
+ *
+ * Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.Shopping.Shopping.benchmark.SessionCartSerializationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionCartSerializationBenchmark {
+
+    @Param({"1", "10", "50"})
+    private int lines;
+
+    private SessionCart cart;
+    private byte[] serialized;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long bytes;
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        cart = new SessionCart();
+        for (int i = 1; i <= lines; i++) {
+            cart.add(i, i % 3 == 0 ? i * 10L : 0L, 1 + i % 5);
+        }
+        serialized = serialize(cart);
+    }
+
+    @Benchmark
+    public byte[] serializeCart(Footprint footprint) throws IOException {
+        byte[] bytes = serialize(cart);
+        footprint.bytes = bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public SessionCart deserializeCart() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return (SessionCart) in.readObject();
+        }
+    }
+
+    private static byte[] serialize(SessionCart cart) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(buffer)) {
+            out.writeObject(cart);
+        }
+        return buffer.toByteArray();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(SessionCartSerializationBenchmark.class.getSimpleName())
+            .build();
+        new Runner(options).run();
+    }
+}
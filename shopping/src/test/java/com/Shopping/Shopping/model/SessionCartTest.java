@@ -0,0 +1,61 @@
+package com.Shopping.Shopping.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SessionCartTest {
+
+    @Test
+    void testAddMergesSameLineAndKeepsVariantsApart() {
+        SessionCart cart = new SessionCart();
+        cart.add(1L, 0L, 1);
+        cart.add(1L, 0L, 2);
+        cart.add(1L, 7L, 1);
+
+        assertThat(cart.size()).isEqualTo(2);
+        assertThat(cart.quantityAt(cart.indexOf(1L, 0L))).isEqualTo(3);
+        assertThat(cart.quantityAt(cart.indexOf(1L, 7L))).isEqualTo(1);
+
+        cart.removeProduct(1L);
+        assertThat(cart.isEmpty()).isTrue();
+    }
+
+    @Test
+    void testSerializationRoundTripAndFootprint() throws Exception {
+        SessionCart cart = new SessionCart();
+        for (int i = 1; i <= 50; i++) {
+            cart.add(i, i % 3 == 0 ? i * 10L : 0L, i);
+        }
+
+        byte[] bytes = serialize(cart);
+        SessionCart copy = deserialize(bytes);
+
+        assertThat(copy.size()).isEqualTo(50);
+        assertThat(copy.productIdAt(49)).isEqualTo(50L);
+        assertThat(copy.variantIdAt(2)).isEqualTo(30L);
+        assertThat(copy.quantityAt(9)).isEqualTo(10);
+        // 20 bytes per line plus the class descriptor - independent of product images or descriptions
+        assertThat(bytes.length).isLessThan(50 * 20 + 200);
+    }
+
+    static byte[] serialize(SessionCart cart) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(buffer)) {
+            out.writeObject(cart);
+        }
+        return buffer.toByteArray();
+    }
+
+    static SessionCart deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (SessionCart) in.readObject();
+        }
+    }
+}
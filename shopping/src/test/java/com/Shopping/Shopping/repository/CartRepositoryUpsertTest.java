@@ -0,0 +1,166 @@
+package com.Shopping.Shopping.repository;
+
+import com.Shopping.Shopping.dto.CartQuantityView;
+import com.Shopping.Shopping.model.Product;
+import com.Shopping.Shopping.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs outside a test transaction so every add commits on its own, as it does in production.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CartRepositoryUpsertTest {
+
+    private static final AtomicLong PREPARED_STATEMENTS = new AtomicLong();
+
+    @TestConfiguration
+    static class StatementCountingConfig {
+        @Bean
+        static BeanPostProcessor statementCountingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? countingProxy(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private User user;
+    private final List<Product> products = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        User newUser = new User();
+        newUser.setUsername("upsert-" + System.nanoTime());
+        newUser.setEmail(newUser.getUsername() + "@example.com");
+        newUser.setPassword("hash");
+        user = userRepository.save(newUser);
+        for (int i = 0; i < 3; i++) {
+            Product product = new Product();
+            product.setName("upsert product " + i);
+            product.setPrice(10.0);
+            products.add(productRepository.save(product));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        cartRepository.deleteAll(cartRepository.findByUser(user));
+        productRepository.deleteAll(products);
+        userRepository.delete(user);
+    }
+
+    @Test
+    void testConcurrentAddsAccumulateOnOneLine() throws Exception {
+        int threads = 8;
+        int addsPerThread = 25;
+        Long productId = products.get(0).getId();
+        // Resolves the dialect before counting
+        cartRepository.addQuantity(user.getId(), products.get(1).getId(), 1);
+
+        PREPARED_STATEMENTS.set(0);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < addsPerThread; i++) {
+                    cartRepository.addQuantity(user.getId(), productId, 1);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        long statements = PREPARED_STATEMENTS.get();
+
+        List<CartQuantityView> lines = cartRepository.findQuantitiesByUserId(user.getId()).stream()
+            .filter(line -> line.getProductId().equals(productId))
+            .toList();
+        assertThat(lines).hasSize(1);
+        assertThat(lines.get(0).getQuantity()).isEqualTo(threads * addsPerThread);
+        // One statement per add; only adds that lose the race to create the line are retried once
+        assertThat(statements).isBetween((long) threads * addsPerThread, (long) threads * addsPerThread + threads - 1);
+    }
+
+    @Test
+    void testBatchAddInsertsNewLinesAndIncrementsExistingOnes() {
+        cartRepository.addQuantity(user.getId(), products.get(0).getId(), 2);
+
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(products.get(0).getId(), 3);
+        quantities.put(products.get(1).getId(), 4);
+        cartRepository.addQuantities(user.getId(), quantities);
+
+        assertThat(cartRepository.findQuantitiesByUserId(user.getId()))
+            .extracting(CartQuantityView::getQuantity)
+            .containsExactly(5, 4);
+    }
+
+    private static DataSource countingProxy(DataSource target) {
+        return (DataSource) Proxy.newProxyInstance(CartRepositoryUpsertTest.class.getClassLoader(),
+            new Class<?>[] {DataSource.class}, (proxy, method, args) -> {
+                Object result = invoke(target, method, args);
+                return result instanceof Connection connection ? countingProxy(connection) : result;
+            });
+    }
+
+    private static Connection countingProxy(Connection target) {
+        return (Connection) Proxy.newProxyInstance(CartRepositoryUpsertTest.class.getClassLoader(),
+            new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                if (method.getName().equals("prepareStatement")) {
+                    PREPARED_STATEMENTS.incrementAndGet();
+                }
+                return invoke(target, method, args);
+            });
+    }
+
+    private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
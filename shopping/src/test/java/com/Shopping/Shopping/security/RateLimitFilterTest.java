@@ -0,0 +1,103 @@
+package com.Shopping.Shopping.security;
+
+import com.Shopping.Shopping.security.RateLimitFilter.Limit;
+import com.Shopping.Shopping.security.RateLimitFilter.RouteGroup;
+import com.Shopping.Shopping.service.MetricsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private MetricsService metricsService;
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        metricsService = new MetricsService();
+        filter = new RateLimitFilter(Map.of(RouteGroup.LOGIN, new Limit(2, 1)), true, 600000, metricsService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testRejectsOnceBucketIsEmpty() throws Exception {
+        assertThat(login("10.0.0.1").getStatus()).isEqualTo(200);
+        assertThat(login("10.0.0.1").getStatus()).isEqualTo(200);
+
+        MockHttpServletResponse rejected = login("10.0.0.1");
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(Long.parseLong(rejected.getHeader("Retry-After"))).isBetween(1L, 60L);
+        assertThat(rejected.getContentAsString()).contains("\"success\":false");
+        assertThat(metricsService.snapshot())
+            .containsEntry("ratelimit.login.allowed", 2L)
+            .containsEntry("ratelimit.login.rejected", 1L);
+    }
+
+    @Test
+    void testClientsHaveIndependentBuckets() throws Exception {
+        login("10.0.0.1");
+        login("10.0.0.1");
+
+        assertThat(login("10.0.0.1").getStatus()).isEqualTo(429);
+        assertThat(login("10.0.0.2").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void testRequestsRejectedForThePrincipalDoNotSpendTheSharedIpBucket() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(
+            UsernamePasswordAuthenticationToken.authenticated("alice", null, List.of()));
+        login("10.0.0.1");
+        login("10.0.0.1");
+        assertThat(login("10.0.0.2").getStatus()).isEqualTo(429);
+        assertThat(login("10.0.0.2").getStatus()).isEqualTo(429);
+
+        // Other clients behind 10.0.0.2 still have its full bucket
+        SecurityContextHolder.clearContext();
+        assertThat(login("10.0.0.2").getStatus()).isEqualTo(200);
+        assertThat(login("10.0.0.2").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void testUnlimitedRoutesAreNotFiltered() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/products");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request, response, new MockFilterChain());
+            assertThat(response.getStatus()).isEqualTo(200);
+        }
+        assertThat(metricsService.snapshot()).containsEntry("ratelimit.buckets", 0L);
+    }
+
+    @Test
+    void testClassifiesRouteGroups() {
+        assertThat(RateLimitFilter.classify("POST", "/api/v1/seller/login")).isEqualTo(RouteGroup.LOGIN);
+        assertThat(RateLimitFilter.classify("GET", "/api/v1/products/search")).isEqualTo(RouteGroup.SEARCH);
+        assertThat(RateLimitFilter.classify("POST", "/api/v1/seller/products")).isEqualTo(RouteGroup.UPLOAD);
+        assertThat(RateLimitFilter.classify("PUT", "/api/v1/seller/products/7")).isEqualTo(RouteGroup.UPLOAD);
+        assertThat(RateLimitFilter.classify("PATCH", "/api/v1/seller/products/7")).isEqualTo(RouteGroup.UPLOAD);
+        assertThat(RateLimitFilter.classify("GET", "/api/v1/seller/products")).isNull();
+    }
+
+    private MockHttpServletResponse login(String forwardedFor) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/auth/login");
+        request.addHeader("X-Forwarded-For", forwardedFor);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,42 @@
+package com.Shopping.Shopping.security;
+
+import com.Shopping.Shopping.security.RouteClassifier.Route;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RouteClassifierTest {
+
+    private final RouteClassifier classifier = new RouteClassifier();
+
+    @Test
+    void testPublicRoutes() {
+        assertThat(classifier.classify("/api/v1/products")).isEqualTo(Route.PUBLIC);
+        assertThat(classifier.classify("/api/v1/products/search")).isEqualTo(Route.PUBLIC);
+        assertThat(classifier.classify("/api/v1/auth/login")).isEqualTo(Route.PUBLIC);
+        assertThat(classifier.classify("/api/v1/seller/signup")).isEqualTo(Route.PUBLIC);
+        assertThat(classifier.classify("/product-image/7")).isEqualTo(Route.PUBLIC);
+    }
+
+    @Test
+    void testExactPublicRulesDoNotLeakToSubpaths() {
+        assertThat(classifier.classify("/api/v1/admin/login")).isEqualTo(Route.PUBLIC);
+        assertThat(classifier.classify("/api/v1/admin/login/extra")).isEqualTo(Route.API_ADMIN);
+        assertThat(classifier.classify("/api/v1/productsfoo")).isEqualTo(Route.API_AUTHENTICATED);
+    }
+
+    @Test
+    void testProtectedRoutes() {
+        assertThat(classifier.classify("/api/v1/cart/add/3")).isEqualTo(Route.API_USER);
+        assertThat(classifier.classify("/api/v1/seller/products")).isEqualTo(Route.API_SELLER);
+        assertThat(classifier.classify("/api/v1/admin/users/1")).isEqualTo(Route.API_ADMIN);
+        assertThat(classifier.classify("/api/v1/auth/me")).isEqualTo(Route.API_AUTHENTICATED);
+    }
+
+    @Test
+    void testPageRoutesCarryLoginPage() {
+        assertThat(classifier.classify("/admin/dashboard").getLoginPage()).isEqualTo("/admin-login");
+        assertThat(classifier.classify("/seller").getLoginPage()).isEqualTo("/seller-login");
+        assertThat(classifier.classify("/").getLoginPage()).isEqualTo("/login");
+    }
+}
@@ -0,0 +1,93 @@
+package com.Shopping.Shopping.security;
+
+import com.Shopping.Shopping.model.RevokedToken;
+import com.Shopping.Shopping.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationServiceTest {
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private TokenRevocationService revocationService;
+
+    @BeforeEach
+    void setUp() {
+        revocationService = new TokenRevocationService(revokedTokenRepository, 1000, 0.01);
+    }
+
+    @Test
+    void testRevokedTokenIsRejected() {
+        long expiresAt = System.currentTimeMillis() + 60_000;
+
+        assertThat(revocationService.revokeToken("abc", expiresAt)).isTrue();
+
+        assertThat(revocationService.isRevoked("abc", "testuser", "ROLE_USER", 0L)).isTrue();
+        assertThat(revocationService.isRevoked("other", "testuser", "ROLE_USER", 0L)).isFalse();
+        verify(revokedTokenRepository, times(1)).save(any(RevokedToken.class));
+    }
+
+    @Test
+    void testSecondRevocationOfSameTokenReportsReuse() {
+        long expiresAt = System.currentTimeMillis() + 60_000;
+
+        assertThat(revocationService.revokeToken("abc", expiresAt)).isTrue();
+        assertThat(revocationService.revokeToken("abc", expiresAt)).isFalse();
+    }
+
+    @Test
+    void testSubjectRevocationOnlyAffectsEarlierTokensOfSameRole() {
+        long issuedBefore = System.currentTimeMillis() - 1000;
+
+        revocationService.revokeSubject("testuser", "ROLE_USER", 60_000);
+
+        assertThat(revocationService.isRevoked("t1", "testuser", "ROLE_USER", issuedBefore)).isTrue();
+        assertThat(revocationService.isRevoked("t2", "testuser", "ROLE_USER", System.currentTimeMillis() + 1000)).isFalse();
+        assertThat(revocationService.isRevoked("t3", "testuser", "ROLE_SELLER", issuedBefore)).isFalse();
+    }
+
+    @Test
+    void testTokenIssuedInTheSameSecondAsTheSubjectRevocationIsAccepted() {
+        long before = System.currentTimeMillis();
+        revocationService.revokeSubject("testuser", "ROLE_USER", 60_000);
+        ArgumentCaptor<RevokedToken> saved = ArgumentCaptor.forClass(RevokedToken.class);
+        verify(revokedTokenRepository).save(saved.capture());
+        // A JWT issued in the second of the revocation carries that second as iat
+        long issuedThisSecond = saved.getValue().getRevokedAt();
+
+        assertThat(issuedThisSecond % 1000).isZero();
+        assertThat(issuedThisSecond).isGreaterThan(before - 1000);
+
+        assertThat(revocationService.isRevoked("t1", "testuser", "ROLE_USER", issuedThisSecond)).isFalse();
+        assertThat(revocationService.isRevoked("t2", "testuser", "ROLE_USER", issuedThisSecond - 1000)).isTrue();
+    }
+
+    @Test
+    void testRevocationsSurviveRestartAndExpire() {
+        long now = System.currentTimeMillis();
+        when(revokedTokenRepository.findByExpiresAtGreaterThan(anyLong()))
+                .thenReturn(List.of(new RevokedToken("jti:persisted", now, now + 60_000)));
+
+        revocationService.loadRevocations();
+        assertThat(revocationService.isRevoked("persisted", null, null, 0L)).isTrue();
+
+        revocationService.revokeToken("short", now - 1);
+        revocationService.purgeExpired();
+
+        assertThat(revocationService.isRevoked("short", null, null, 0L)).isFalse();
+        assertThat(revocationService.size()).isEqualTo(1);
+        verify(revokedTokenRepository).deleteExpired(anyLong());
+    }
+}
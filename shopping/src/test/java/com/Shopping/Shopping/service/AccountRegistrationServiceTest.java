@@ -0,0 +1,77 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.model.Seller;
+import com.Shopping.Shopping.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Import(AccountRegistrationService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AccountRegistrationServiceTest {
+
+    @Autowired
+    private AccountRegistrationService registrationService;
+
+    @Test
+    void testDuplicateUsernameIsReported() {
+        registrationService.registerUser(user("alice", "alice@example.com"));
+
+        assertThatThrownBy(() -> registrationService.registerUser(user("alice", "other@example.com")))
+            .isInstanceOf(AccountRegistrationService.DuplicateAccountException.class)
+            .hasMessage("Username already exists")
+            .extracting("field").isEqualTo("username");
+    }
+
+    @Test
+    void testDuplicateEmailIsReported() {
+        registrationService.registerUser(user("bob", "bob@example.com"));
+
+        assertThatThrownBy(() -> registrationService.registerUser(user("bobby", "bob@example.com")))
+            .isInstanceOf(AccountRegistrationService.DuplicateAccountException.class)
+            .extracting("field").isEqualTo("email");
+    }
+
+    @Test
+    void testAvailabilityReflectsRegistrations() {
+        assertThat(registrationService.isUsernameAvailable("carol", false)).isTrue();
+
+        registrationService.registerUser(user("carol", "carol@example.com"));
+
+        assertThat(registrationService.isUsernameAvailable("carol", false)).isFalse();
+        assertThat(registrationService.isEmailAvailable("carol@example.com", false)).isFalse();
+        // Users and sellers are separate account spaces
+        assertThat(registrationService.isUsernameAvailable("carol", true)).isTrue();
+    }
+
+    @Test
+    void testSellerDuplicateUsernameIsReported() {
+        Seller seller = new Seller();
+        seller.setUsername("shop");
+        seller.setEmail("shop@example.com");
+        registrationService.registerSeller(seller);
+
+        Seller duplicate = new Seller();
+        duplicate.setUsername("shop");
+        duplicate.setEmail("shop2@example.com");
+
+        assertThatThrownBy(() -> registrationService.registerSeller(duplicate))
+            .isInstanceOf(AccountRegistrationService.DuplicateAccountException.class)
+            .extracting("field").isEqualTo("username");
+    }
+
+    private static User user(String username, String email) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setPassword("hash");
+        return user;
+    }
+}
@@ -0,0 +1,156 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.dto.AdminPage;
+import com.Shopping.Shopping.dto.AdminProductView;
+import com.Shopping.Shopping.dto.AdminSellerView;
+import com.Shopping.Shopping.dto.AdminUserView;
+import com.Shopping.Shopping.model.Product;
+import com.Shopping.Shopping.model.Seller;
+import com.Shopping.Shopping.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(AdminListingService.class)
+class AdminListingServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 2, 1);
+
+    @Autowired
+    private AdminListingService adminListingService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void testUserPagesAreFilteredSortedAndSkipTheCountOnRequest() {
+        for (int i = 0; i < 7; i++) {
+            user("listing-user-" + i, i % 2 == 0 ? "even" + i + "@shop.test" : "odd" + i + "@mail.test", DAY.plusDays(i));
+        }
+        user("listing_other", "other@shop.test", DAY);
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        AdminPage<AdminUserView> first = adminListingService.users("LISTING-user", "@shop.test", null, null,
+            0, 2, "createdAt,desc", true);
+
+        assertThat(first.getItems()).extracting(AdminUserView::getUsername)
+            .containsExactly("listing-user-6", "listing-user-4");
+        assertThat(first.getTotalElements()).isEqualTo(4);
+        assertThat(first.getTotalPages()).isEqualTo(2);
+        assertThat(first.isHasNext()).isTrue();
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(2);
+
+        statistics.clear();
+        AdminPage<AdminUserView> last = adminListingService.users("listing-user", "@shop.test", null, null,
+            1, 2, "createdAt,desc", false);
+
+        assertThat(last.getItems()).extracting(AdminUserView::getUsername)
+            .containsExactly("listing-user-2", "listing-user-0");
+        assertThat(last.isHasNext()).isFalse();
+        assertThat(last.getTotalElements()).isNull();
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(1);
+        // Projections only: no User (or its photo) is loaded
+        assertThat(statistics.getEntityLoadCount()).isZero();
+
+        // '_' is matched literally, not as a wildcard
+        assertThat(adminListingService.users("listing_", null, null, null, 0, 10, null, true).getItems())
+            .extracting(AdminUserView::getUsername).containsExactly("listing_other");
+        assertThat(adminListingService.users(null, null, DAY.plusDays(2), DAY.plusDays(3), 0, 10, "username", true)
+            .getItems()).extracting(AdminUserView::getUsername).containsExactly("listing-user-2", "listing-user-3");
+    }
+
+    @Test
+    void testSellersAreFilteredByEmailAndCreationDate() {
+        seller("listing-seller-a", "a@sellers.test", DAY);
+        seller("listing-seller-b", "b@sellers.test", DAY.plusDays(5));
+        seller("listing-seller-c", "c@elsewhere.test", DAY.plusDays(5));
+        entityManager.flush();
+
+        AdminPage<AdminSellerView> page = adminListingService.sellers(null, "SELLERS.test", DAY.plusDays(1), null,
+            0, 10, null, true);
+
+        assertThat(page.getItems()).extracting(AdminSellerView::getUsername).containsExactly("listing-seller-b");
+        assertThat(page.getTotalElements()).isEqualTo(1);
+    }
+
+    @Test
+    void testProductsAreFilteredBySellerAndCategory() {
+        Seller seller = seller("listing-product-seller", "ps@sellers.test", DAY);
+        Seller other = seller("listing-product-other", "po@sellers.test", DAY);
+        product("Cotton Shirt", "Clothing", 499, seller);
+        product("Linen Shirt", "Clothing", 899, seller);
+        product("Desk Lamp", "Home", 1299, seller);
+        product("Silk Shirt", "Clothing", 1999, other);
+        entityManager.flush();
+        entityManager.clear();
+
+        AdminPage<AdminProductView> page = adminListingService.products(null, "cloth", seller.getId(), null, null,
+            0, 10, "price,desc", true);
+
+        assertThat(page.getItems()).extracting(AdminProductView::getName).containsExactly("Linen Shirt", "Cotton Shirt");
+        assertThat(page.getItems().get(0).getSellerUsername()).isEqualTo("listing-product-seller");
+        assertThat(page.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void testInvalidPagingIsRejected() {
+        assertThatThrownBy(() -> adminListingService.users(null, null, null, null, -1, 10, null, true))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> adminListingService.users(null, null, null, null, 0, AdminListingService.MAX_PAGE_SIZE + 1, null, true))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> adminListingService.users(null, null, null, null, 0, 10, "password", true))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> adminListingService.products(null, null, null, null, null, 0, 10, "name,sideways", true))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> adminListingService.sellers(null, null, DAY, DAY.minusDays(1), 0, 10, null, true))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void user(String username, String email, LocalDate created) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setPassword("hash");
+        user.setPhoto(new byte[1024]);
+        user.setCreatedAt(created.atTime(10, 0));
+        entityManager.persist(user);
+    }
+
+    private Seller seller(String username, String email, LocalDate created) {
+        Seller seller = new Seller();
+        seller.setUsername(username);
+        seller.setEmail(email);
+        seller.setPassword("hash");
+        seller.setCreatedAt(created.atTime(10, 0));
+        entityManager.persist(seller);
+        return seller;
+    }
+
+    private void product(String name, String category, double price, Seller seller) {
+        Product product = new Product();
+        product.setName(name);
+        product.setCategory(category);
+        product.setPrice(price);
+        product.setSeller(seller);
+        product.setCreatedAt(LocalDateTime.of(2026, 2, 1, 10, 0));
+        entityManager.persist(product);
+    }
+}
@@ -0,0 +1,207 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.model.Seller;
+import com.Shopping.Shopping.repository.SellerRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs outside a test transaction: the large exports read committed rows through a cursor.
+ * The million-row heap test is tagged {@code slow} and only runs with {@code mvn test -Pslow-tests}.
+ */
+@DataJpaTest
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({CatalogExportService.class, MetricsService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CatalogExportServiceTest {
+
+    private static final int LARGE_CATALOG = 1_000_000;
+    private static final int STREAMED_CATALOG = 10_000;
+    private static final int FLUSH_ROWS = 1000;
+
+    @Autowired
+    private CatalogExportService catalogExportService;
+
+    @Autowired
+    private SellerRepository sellerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Seller seller;
+
+    @BeforeEach
+    void setUp() {
+        seller = new Seller();
+        seller.setUsername("export-seller");
+        seller.setEmail("export-seller@example.com");
+        seller.setPassword("hash");
+        seller = sellerRepository.save(seller);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM product WHERE seller_id = ?", seller.getId());
+        sellerRepository.delete(seller);
+    }
+
+    @Test
+    void testCsvIsQuotedAndLimitedToTheSeller() throws Exception {
+        insertProduct("Shirt, \"slim\" fit", 499.0, "Line one\nline two");
+        insertProduct("Socks", 79.0, null);
+        jdbcTemplate.update("INSERT INTO product (name, price) VALUES ('Unowned', 10)");
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            long rows = catalogExportService.export(seller.getId(), CatalogExportService.Format.CSV, out);
+
+            String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+            assertThat(rows).isEqualTo(2);
+            assertThat(lines).hasSize(3);
+            assertThat(lines[0]).isEqualTo(String.join(",", CatalogExportService.CSV_HEADER));
+            assertThat(lines[1]).contains(",\"Shirt, \"\"slim\"\" fit\",").contains(",499.0,")
+                .endsWith("," + seller.getId());
+            assertThat(lines[2]).contains(",Socks,,");
+        } finally {
+            jdbcTemplate.update("DELETE FROM product WHERE name = 'Unowned'");
+        }
+    }
+
+    @Test
+    void testJsonLinesHoldOneProductEach() throws Exception {
+        insertProduct("Lamp", 1299.5, "Warm\nwhite");
+        insertProduct("Desk", 4999.0, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        catalogExportService.export(seller.getId(), CatalogExportService.Format.NDJSON, out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(2);
+        JsonNode lamp = objectMapper.readTree(lines.get(0));
+        assertThat(lamp.get("name").asText()).isEqualTo("Lamp");
+        assertThat(lamp.get("price").asDouble()).isEqualTo(1299.5);
+        assertThat(lamp.get("category").asText()).isEqualTo("Warm\nwhite");
+        assertThat(lamp.get("sellerId").asLong()).isEqualTo(seller.getId());
+        assertThat(objectMapper.readTree(lines.get(1)).get("name").asText()).isEqualTo("Desk");
+        assertThat(out.toString(StandardCharsets.UTF_8)).endsWith("}\n");
+    }
+
+    @Test
+    void testUnknownFormatIsRejected() {
+        assertThat(CatalogExportService.Format.of(" JSONL ")).isEqualTo(CatalogExportService.Format.JSONL);
+        assertThatThrownBy(() -> CatalogExportService.Format.of("xlsx"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testExportIsHandedOverInBatchesWhileStreaming() throws Exception {
+        insertSyntheticProducts(STREAMED_CATALOG);
+        HeapSamplingOutputStream out = new HeapSamplingOutputStream(ManagementFactory.getMemoryMXBean(), Long.MAX_VALUE);
+
+        long rows = catalogExportService.export(seller.getId(), CatalogExportService.Format.JSONL, out);
+
+        assertThat(rows).isEqualTo(STREAMED_CATALOG);
+        assertThat(out.lines).isEqualTo(STREAMED_CATALOG);
+        // One flush per catalog.export.flush-rows rows, plus the final one
+        assertThat(out.flushes).isGreaterThanOrEqualTo(STREAMED_CATALOG / FLUSH_ROWS);
+        assertThat(out.linesAtFirstFlush).isLessThanOrEqualTo(2L * FLUSH_ROWS);
+    }
+
+    @Test
+    @Tag("slow")
+    void testMillionRowExportKeepsTheHeapFlat() throws Exception {
+        insertSyntheticProducts(LARGE_CATALOG);
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long baseline = liveHeap(memory);
+        HeapSamplingOutputStream out = new HeapSamplingOutputStream(memory, LARGE_CATALOG / 10);
+
+        long rows = catalogExportService.export(seller.getId(), CatalogExportService.Format.JSONL, out);
+
+        assertThat(rows).isEqualTo(LARGE_CATALOG);
+        assertThat(out.lines).isEqualTo(LARGE_CATALOG);
+        assertThat(out.samples).isGreaterThanOrEqualTo(9);
+        // A materialized result adds about 70 MB here
+        assertThat(out.maxLiveHeap - baseline).isLessThan(32L * 1024 * 1024);
+    }
+
+    private void insertSyntheticProducts(int count) {
+        jdbcTemplate.update("INSERT INTO product (name, brand_name, category, price, selling_price, available_quantity, " +
+            "sku_id, seller_id) SELECT CONCAT('Synthetic product ', X), 'Brand', 'Bulk', 100 + MOD(X, 50), " +
+            "100 + MOD(X, 50), 5, CONCAT('SKU-', X), ? FROM SYSTEM_RANGE(1, " + count + ")", seller.getId());
+    }
+
+    private void insertProduct(String name, double price, String category) {
+        jdbcTemplate.update("INSERT INTO product (name, price, category, seller_id) VALUES (?, ?, ?, ?)",
+            name, price, category, seller.getId());
+    }
+
+    private static long liveHeap(MemoryMXBean memory) {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Discards the export, counting lines and flushes and sampling the live heap every sampleEvery lines.
+     */
+    private static final class HeapSamplingOutputStream extends OutputStream {
+        private final MemoryMXBean memory;
+        private final long sampleEvery;
+        long lines;
+        int samples;
+        long maxLiveHeap;
+        int flushes;
+        long linesAtFirstFlush = -1;
+
+        HeapSamplingOutputStream(MemoryMXBean memory, long sampleEvery) {
+            this.memory = memory;
+            this.sampleEvery = sampleEvery;
+        }
+
+        @Override
+        public void write(int b) {
+            if (b == '\n' && ++lines % sampleEvery == 0) {
+                samples++;
+                maxLiveHeap = Math.max(maxLiveHeap, liveHeap(memory));
+            }
+        }
+
+        @Override
+        public void flush() {
+            if (flushes++ == 0) {
+                linesAtFirstFlush = lines;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+    }
+}
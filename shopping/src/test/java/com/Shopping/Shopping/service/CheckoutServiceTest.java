@@ -0,0 +1,276 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.model.Cart;
+import com.Shopping.Shopping.model.OrderItem;
+import com.Shopping.Shopping.model.Product;
+import com.Shopping.Shopping.model.Seller;
+import com.Shopping.Shopping.model.User;
+import com.Shopping.Shopping.repository.CartRepository;
+import com.Shopping.Shopping.repository.OrderItemRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({CheckoutService.class, UserCartService.class, PricingEngine.class, InventoryService.class, OutboxService.class,
+    CartCleanupHandler.class, MetricsService.class})
+class CheckoutServiceTest {
+
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartCleanupHandler cartCleanupHandler;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MetricsService metricsService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Fixtures fixtures;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        fixtures = new Fixtures(entityManager);
+    }
+
+    @Test
+    void testOrderSnapshotsLinesCommitsStockAndClearsCart() throws Exception {
+        User user = fixtures.user("checkout-cart");
+        List<Product> products = createCart(user, 3);
+        entityManager.flush();
+        entityManager.clear();
+
+        CheckoutService.Quote quote = createOrder(user, "order_cart", null);
+        CheckoutService.PlacedOrder placed = checkoutService.placeOrder("checkout-cart", payment("order_cart"));
+        entityManager.clear();
+
+        // Line i: 10*i rupees (GST included), quantity i, 100 in stock
+        assertThat(quote.amountPaise()).isEqualTo((10 * 1 + 20 * 2 + 30 * 3) * 100L);
+        assertThat(placed.order().getAmount()).isEqualTo(quote.amountPaise());
+        assertThat(placed.stockSecured()).isTrue();
+        List<OrderItem> items = orderItemRepository.findByOrderId(placed.order().getId());
+        assertThat(items).extracting(OrderItem::getProductId).containsExactlyElementsOf(products.stream().map(Product::getId).toList());
+        assertThat(items.get(1).getQuantity()).isEqualTo(2);
+        assertThat(items.get(1).getUnitPricePaise()).isEqualTo(2000);
+        assertThat(items.get(1).getLineTotalPaise()).isEqualTo(4000);
+        assertThat(items.get(1).getProductName()).isEqualTo("checkout-cart product 2");
+        assertThat(items.get(1).getSellerId()).isEqualTo(products.get(1).getSeller().getId());
+        // The cart is emptied by the order.placed event, not by the checkout transaction
+        assertThat(cartRepository.findQuantitiesByUserId(user.getId())).hasSize(3);
+        cartCleanupHandler.handle(placedEvent(placed.order().getId()));
+        assertThat(cartRepository.findQuantitiesByUserId(user.getId())).isEmpty();
+        assertThat(entityManager.find(Product.class, products.get(2).getId()).getAvailableQuantity()).isEqualTo(97);
+        assertThat(metricsService.snapshot()).containsKeys("checkout.stage.quote.micros", "checkout.stage.items.micros");
+    }
+
+    @Test
+    void testStatementCountDoesNotGrowWithLines() {
+        User small = fixtures.user("small-order");
+        User large = fixtures.user("large-order");
+        createCart(small, 2);
+        createCart(large, 60);
+        entityManager.flush();
+        entityManager.clear();
+        createOrder(small, "order_small", null);
+        createOrder(large, "order_large", null);
+
+        statistics.clear();
+        checkoutService.placeOrder("large-order", payment("order_large"));
+        long largeStatements = statistics.getPrepareStatementCount();
+        long largeInserts = statistics.getEntityInsertCount();
+
+        statistics.clear();
+        checkoutService.placeOrder("small-order", payment("order_small"));
+        long smallStatements = statistics.getPrepareStatementCount();
+
+        // user id, quote, order insert, sequence (50 ids per call), batched item insert
+        assertThat(largeInserts).isEqualTo(61);
+        assertThat(largeStatements).isLessThanOrEqualTo(8);
+        assertThat(smallStatements).isLessThanOrEqualTo(largeStatements);
+    }
+
+    @Test
+    void testOrderWithHundredsOfLinesIsPlacedAndClearedFromTheCart() throws Exception {
+        User user = fixtures.user("checkout-huge");
+        createCart(user, 300);
+        entityManager.flush();
+        entityManager.clear();
+        // Line i has quantity i
+        jdbcTemplate.update("UPDATE product SET available_quantity = 1000 WHERE name LIKE 'checkout-huge %'");
+        createOrder(user, "order_huge", null);
+
+        CheckoutService.PlacedOrder placed = checkoutService.placeOrder("checkout-huge", payment("order_huge"));
+        entityManager.clear();
+
+        assertThat(placed.itemCount()).isEqualTo(300);
+        OutboxHandler.Event event = placedEvent(placed.order().getId());
+        assertThat(event.payload()).doesNotContain("productIds");
+        cartCleanupHandler.handle(event);
+        assertThat(cartRepository.findQuantitiesByUserId(user.getId())).isEmpty();
+    }
+
+    @Test
+    void testBuyNowKeepsTheCart() throws Exception {
+        User user = fixtures.user("checkout-buy-now");
+        List<Product> products = createCart(user, 2);
+        entityManager.flush();
+        entityManager.clear();
+
+        createOrder(user, "order_buy_now", new InventoryService.StockLine(products.get(0).getId(), 0L, 4));
+        CheckoutService.PlacedOrder placed = checkoutService.placeOrder("checkout-buy-now", payment("order_buy_now"));
+
+        assertThat(placed.itemCount()).isEqualTo(1);
+        assertThat(placed.order().getAmount()).isEqualTo(4 * 1000L);
+        cartCleanupHandler.handle(placedEvent(placed.order().getId()));
+        assertThat(cartRepository.findQuantitiesByUserId(user.getId())).hasSize(2);
+        assertThatThrownBy(() -> checkoutService.quote("checkout-buy-now", new InventoryService.StockLine(-1L, 0L, 1)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testOrderIsPlacedFromTheQuoteNotWhatChangedAfterCreateOrder() {
+        User user = fixtures.user("checkout-quoted");
+        List<Product> products = createCart(user, 2);
+        fixtures.user("checkout-other");
+        entityManager.flush();
+        entityManager.clear();
+        createOrder(user, "order_quoted_cart", null);
+        createOrder(user, "order_quoted_buy_now", new InventoryService.StockLine(products.get(0).getId(), 0L, 1));
+
+        // Between create-order and success: the cart quantities go up and a line is added
+        jdbcTemplate.update("UPDATE cart SET quantity = 50 WHERE user_id = ?", user.getId());
+        Product extra = new Product();
+        extra.setName("checkout-quoted extra");
+        extra.setPrice(500.0);
+        extra.setAvailableQuantity(100);
+        entityManager.persist(extra);
+        entityManager.persist(new Cart(entityManager.getReference(User.class, user.getId()), extra, 1));
+        entityManager.flush();
+        entityManager.clear();
+
+        CheckoutService.PlacedOrder cart = checkoutService.placeOrder("checkout-quoted", payment("order_quoted_cart"));
+        CheckoutService.PlacedOrder buyNow = checkoutService.placeOrder("checkout-quoted", payment("order_quoted_buy_now"));
+        entityManager.clear();
+
+        assertThat(cart.order().getAmount()).isEqualTo((10 * 1 + 20 * 2) * 100L);
+        assertThat(orderItemRepository.findByOrderId(cart.order().getId()))
+            .extracting(OrderItem::getProductId, OrderItem::getQuantity)
+            .containsExactly(tuple(products.get(0).getId(), 1), tuple(products.get(1).getId(), 2));
+        assertThat(buyNow.order().getAmount()).isEqualTo(1000L);
+        assertThat(orderItemRepository.findByOrderId(buyNow.order().getId()))
+            .extracting(OrderItem::getQuantity).containsExactly(1);
+        // 100 in stock, 1 + 1 quoted for the first product, 2 for the second
+        assertThat(entityManager.find(Product.class, products.get(0).getId()).getAvailableQuantity()).isEqualTo(98);
+        assertThat(entityManager.find(Product.class, products.get(1).getId()).getAvailableQuantity()).isEqualTo(98);
+        assertThat(entityManager.find(Product.class, extra.getId()).getAvailableQuantity()).isEqualTo(100);
+
+        // Only the user who created the Razorpay order can complete it, and only through create-order
+        assertThatThrownBy(() -> checkoutService.placeOrder("checkout-other", payment("order_quoted_cart")))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> checkoutService.placeOrder("checkout-quoted", payment("order_never_created")))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testQuoteIsDeletedWithItsOrderAndWhenStale() {
+        User user = fixtures.user("checkout-quote-cleanup");
+        createCart(user, 1);
+        entityManager.flush();
+        entityManager.clear();
+        createOrder(user, "order_paid", null);
+        createOrder(user, "order_abandoned", null);
+
+        checkoutService.placeOrder("checkout-quote-cleanup", payment("order_paid"));
+        entityManager.flush();
+
+        assertThat(quotes()).containsExactly("order_abandoned");
+        // Recorded under another idempotency key: a conflict, not an unknown order
+        assertThatThrownBy(() -> checkoutService.placeOrder("checkout-quote-cleanup", payment("order_paid")))
+            .isInstanceOf(CheckoutService.OrderAlreadyPlacedException.class);
+
+        checkoutService.deleteExpiredQuotes();
+        assertThat(quotes()).containsExactly("order_abandoned");
+        jdbcTemplate.update("UPDATE checkout_quote SET created_at = 0 WHERE reference = 'order_abandoned'");
+        checkoutService.deleteExpiredQuotes();
+        assertThat(quotes()).isEmpty();
+    }
+
+    private List<String> quotes() {
+        return jdbcTemplate.queryForList("SELECT reference FROM checkout_quote WHERE reference IN ('order_paid', 'order_abandoned')", String.class);
+    }
+
+    /**
+     * What create-order does: quote, reserve under a receipt, then keep the quote under the Razorpay order id.
+     */
+    private CheckoutService.Quote createOrder(User user, String razorpayOrderId, InventoryService.StockLine buyNow) {
+        CheckoutService.Quote quote = checkoutService.quote(user.getUsername(), buyNow);
+        inventoryService.reserve("receipt_" + razorpayOrderId, user.getId(), quote.lines());
+        checkoutService.recordQuote("receipt_" + razorpayOrderId, razorpayOrderId, user.getId(), quote);
+        entityManager.flush();
+        entityManager.clear();
+        return quote;
+    }
+
+    private OutboxHandler.Event placedEvent(Long orderId) {
+        return jdbcTemplate.queryForObject("SELECT id, payload FROM outbox_events WHERE event_type = ? AND aggregate_id = ?",
+            (rs, rowNum) -> new OutboxHandler.Event(rs.getLong("id"), OutboxService.ORDER_PLACED, orderId,
+                rs.getString("payload"), 1, 0L), OutboxService.ORDER_PLACED, orderId);
+    }
+
+    private static CheckoutService.Payment payment(String razorpayOrderId) {
+        return new CheckoutService.Payment(razorpayOrderId, "pay_" + razorpayOrderId, "signature");
+    }
+
+    private List<Product> createCart(User user, int lines) {
+        Seller seller = fixtures.seller(user.getUsername() + "-seller");
+
+        List<Product> products = new ArrayList<>();
+        for (int i = 1; i <= lines; i++) {
+            Product product = new Product();
+            product.setName(user.getUsername() + " product " + i);
+            product.setPrice(10.0 * i);
+            product.setAvailableQuantity(100);
+            product.setSeller(seller);
+            entityManager.persist(product);
+            entityManager.persist(new Cart(user, product, i));
+            products.add(product);
+        }
+        return products;
+    }
+}
@@ -0,0 +1,67 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.model.OrderItem;
+import com.Shopping.Shopping.model.Orders;
+import com.Shopping.Shopping.model.Seller;
+import com.Shopping.Shopping.model.User;
+import jakarta.persistence.EntityManager;
+
+import java.time.LocalDateTime;
+
+/**
+ * Persists the buyers, sellers and orders the checkout and order tests start from.
+ */
+final class Fixtures {
+
+    private final EntityManager entityManager;
+
+    Fixtures(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("hash");
+        entityManager.persist(user);
+        return user;
+    }
+
+    Seller seller(String username) {
+        Seller seller = new Seller();
+        seller.setUsername(username);
+        seller.setEmail(username + "@example.com");
+        seller.setPassword("hash");
+        entityManager.persist(seller);
+        return seller;
+    }
+
+    /**
+     * An order without items; the Razorpay order id is unique per user, date and amount.
+     */
+    Orders order(User user, LocalDateTime orderDate, long amountPaise) {
+        Orders order = new Orders();
+        order.setUser(user);
+        order.setOrderDate(orderDate);
+        order.setAmount(amountPaise);
+        order.setEmail(user.getEmail());
+        order.setRazorpayOrderId("order_" + user.getUsername() + "_" + orderDate + "_" + amountPaise);
+        order.setRazorpaySignature("signature");
+        entityManager.persist(order);
+        return order;
+    }
+
+    OrderItem item(Orders order, long productId, Long sellerId, String productName, int quantity, long lineTotalPaise) {
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setProductId(productId);
+        item.setSellerId(sellerId);
+        item.setProductName(productName);
+        item.setQuantity(quantity);
+        item.setUnitPricePaise(lineTotalPaise / quantity);
+        item.setLineTotalPaise(lineTotalPaise);
+        entityManager.persist(item);
+        return item;
+    }
+}
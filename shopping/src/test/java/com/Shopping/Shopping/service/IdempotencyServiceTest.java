@@ -0,0 +1,112 @@
+package com.Shopping.Shopping.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs outside a test transaction so each execution commits its key like a real request.
+ */
+@DataJpaTest
+@Import({IdempotencyService.class, MetricsService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyServiceTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM idempotency_keys");
+    }
+
+    @Test
+    void testConcurrentRetriesExecuteOnce() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<IdempotencyService.Outcome>> futures = new ArrayList<>();
+        List<IdempotencyService.Outcome> outcomes = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    while (true) {
+                        try {
+                            return idempotencyService.execute("order_race", 1L,
+                                () -> String.valueOf(executions.incrementAndGet()));
+                        } catch (IdempotencyService.RequestInProgressException e) {
+                            Thread.sleep(5); // a client backing off before retrying
+                        }
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<IdempotencyService.Outcome> future : futures) {
+                outcomes.add(future.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(outcomes).extracting(IdempotencyService.Outcome::result).containsOnly("1");
+        assertThat(outcomes).filteredOn(outcome -> !outcome.replayed()).hasSize(1);
+    }
+
+    @Test
+    void testFailedExecutionReleasesTheKey() {
+        assertThatThrownBy(() -> idempotencyService.execute("order_retry", 1L, () -> {
+            throw new IllegalStateException("stock commit failed");
+        })).isInstanceOf(IllegalStateException.class);
+
+        IdempotencyService.Outcome retried = idempotencyService.execute("order_retry", 1L, () -> "42");
+        IdempotencyService.Outcome replayed = idempotencyService.execute("order_retry", 1L, () -> "43");
+
+        assertThat(retried.replayed()).isFalse();
+        assertThat(replayed.replayed()).isTrue();
+        assertThat(replayed.result()).isEqualTo("42");
+    }
+
+    @Test
+    void testKeysAreScopedPerUserAndReplayedFromTheTable() {
+        IdempotencyService restarted = new IdempotencyService(jdbcTemplate,
+            transactionManager,
+            new MetricsService(), 10, 60_000L);
+
+        idempotencyService.execute("shared-key", 1L, () -> "first");
+
+        assertThat(idempotencyService.execute("shared-key", 2L, () -> "second").replayed()).isFalse();
+        // A fresh instance has an empty cache and reads the stored result
+        assertThat(restarted.execute("shared-key", 1L, () -> "again"))
+            .isEqualTo(new IdempotencyService.Outcome("first", true));
+        assertThatThrownBy(() -> idempotencyService.execute("x".repeat(129), 1L, () -> "long"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
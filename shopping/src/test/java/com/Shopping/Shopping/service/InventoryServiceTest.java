@@ -0,0 +1,189 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.model.Product;
+import com.Shopping.Shopping.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs outside a test transaction so every reservation commits on its own and concurrent
+ * reservations really race on the product rows.
+ */
+@DataJpaTest
+@Import({InventoryService.class, MetricsService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryServiceTest {
+
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 10;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Product> products = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        for (Product product : products) {
+            jdbcTemplate.update("DELETE FROM stock_reservation WHERE product_id = ?", product.getId());
+        }
+        productRepository.deleteAll(products);
+    }
+
+    @Test
+    void testConcurrentReservationsNeverOversell() throws Exception {
+        Product product = product(50);
+
+        int reserved = race(reference -> inventoryService.reserve(reference, 1L,
+            List.of(new InventoryService.StockLine(product.getId(), 0L, 1))));
+
+        assertThat(reserved).isEqualTo(50);
+        assertThat(stock(product)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT SUM(quantity) FROM stock_reservation WHERE product_id = ? AND status = 'HELD'",
+            Integer.class, product.getId())).isEqualTo(50);
+    }
+
+    @Test
+    void testHotSkuLeaseNeverOversells() throws Exception {
+        Product product = product(53);
+        InventoryService hotInventory = new InventoryService(jdbcTemplate, transactionManager, new MetricsService(),
+            900_000L, String.valueOf(product.getId()), 5, 4);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        int reserved = race(reference -> transaction.executeWithoutResult(status -> hotInventory.reserve(reference, 1L,
+            List.of(new InventoryService.StockLine(product.getId(), 0L, 1)))));
+        hotInventory.returnLeases();
+
+        // Units still leased when the attempts ran out are back in the table after the sync
+        assertThat(reserved).isPositive().isLessThanOrEqualTo(53);
+        assertThat(stock(product)).isEqualTo(53 - reserved);
+    }
+
+    @Test
+    void testReservationIsAllOrNothing() {
+        Product plenty = product(5);
+        Product scarce = product(1);
+
+        assertThatThrownBy(() -> inventoryService.reserve("all-or-nothing", 1L, List.of(
+                new InventoryService.StockLine(plenty.getId(), 0L, 2),
+                new InventoryService.StockLine(scarce.getId(), 0L, 2))))
+            .isInstanceOf(InventoryService.OutOfStockException.class)
+            .hasMessageContaining(String.valueOf(scarce.getId()));
+
+        assertThat(stock(plenty)).isEqualTo(5);
+        assertThat(stock(scarce)).isEqualTo(1);
+    }
+
+    @Test
+    void testReleaseSweepAndCommitAfterExpiry() {
+        Product product = product(10);
+        List<InventoryService.StockLine> lines = List.of(new InventoryService.StockLine(product.getId(), 0L, 4));
+
+        inventoryService.reserve("cancelled", 7L, lines);
+        assertThat(inventoryService.release("cancelled", 99L)).isZero();
+        assertThat(inventoryService.release("cancelled", 7L)).isEqualTo(1);
+        assertThat(inventoryService.release("cancelled", 7L)).isZero();
+        assertThat(stock(product)).isEqualTo(10);
+
+        inventoryService.reserve("receipt", 7L, lines);
+        inventoryService.rename("receipt", "expired");
+        jdbcTemplate.update("UPDATE stock_reservation SET expires_at = 0 WHERE reference = 'expired'");
+        inventoryService.releaseExpired();
+        assertThat(stock(product)).isEqualTo(10);
+
+        // Paid after the sweep: the units are taken again, and a repeated success takes nothing more
+        assertThat(inventoryService.commit("expired", 7L, lines)).isTrue();
+        assertThat(inventoryService.commit("expired", 7L, lines)).isTrue();
+        assertThat(stock(product)).isEqualTo(6);
+    }
+
+    @Test
+    void testCommitRejectsLinesThatWereNotHeld() {
+        Product product = product(10);
+        inventoryService.reserve("held", 7L, List.of(new InventoryService.StockLine(product.getId(), 0L, 1)));
+
+        assertThatThrownBy(() -> inventoryService.commit("held", 7L,
+                List.of(new InventoryService.StockLine(product.getId(), 0L, 5))))
+            .isInstanceOf(IllegalStateException.class);
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM stock_reservation WHERE reference = 'held'", String.class))
+            .isEqualTo("HELD");
+
+        assertThat(inventoryService.commit("held", 7L, List.of(new InventoryService.StockLine(product.getId(), 0L, 1)))).isTrue();
+        assertThat(stock(product)).isEqualTo(9);
+    }
+
+    private int race(Consumer<String> reservation) throws Exception {
+        AtomicInteger succeeded = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                        try {
+                            reservation.accept("race-" + thread + "-" + i);
+                            succeeded.incrementAndGet();
+                        } catch (InventoryService.OutOfStockException e) {
+                            // sold out
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return succeeded.get();
+    }
+
+    private Product product(int availableQuantity) {
+        Product product = new Product();
+        product.setName("inventory product " + products.size());
+        product.setPrice(10.0);
+        product.setAvailableQuantity(availableQuantity);
+        Product saved = productRepository.save(product);
+        products.add(saved);
+        return saved;
+    }
+
+    private int stock(Product product) {
+        return jdbcTemplate.queryForObject("SELECT available_quantity FROM product WHERE id = ?", Integer.class, product.getId());
+    }
+}
@@ -0,0 +1,134 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.dto.OrderDTO;
+import com.Shopping.Shopping.dto.OrderPage;
+import com.Shopping.Shopping.dto.OrderSummaryDTO;
+import com.Shopping.Shopping.model.Orders;
+import com.Shopping.Shopping.model.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({OrderArchiveService.class, OrderPartitionService.class, OrderHistoryService.class, MetricsService.class})
+class OrderArchiveServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 6, 15, 10, 0);
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private OrderPartitionService orderPartitionService;
+
+    @Autowired
+    private OrderHistoryService orderHistoryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Fixtures fixtures;
+
+    @BeforeEach
+    void setUp() {
+        fixtures = new Fixtures(entityManager);
+    }
+
+    @Test
+    void testOldOrdersMoveToTheArchiveWithTheirItems() {
+        User buyer = fixtures.user("archive-buyer");
+        Orders old = order(buyer, NOW.minusDays(400), 3);
+        Orders recent = order(buyer, NOW.minusDays(10), 1);
+        entityManager.flush();
+        entityManager.clear();
+
+        int archived = orderArchiveService.archiveOlderThan(NOW.minusDays(365));
+
+        assertThat(archived).isEqualTo(1);
+        assertThat(count("orders", buyer)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_items WHERE order_id = ?", Integer.class, old.getId()))
+            .isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT razorpay_order_id FROM orders_archive WHERE id = ?", String.class, old.getId()))
+            .isEqualTo(old.getRazorpayOrderId());
+        List<OrderArchiveService.ArchivedItem> items = orderArchiveService.archivedItems(old.getId());
+        assertThat(items).extracting(OrderArchiveService.ArchivedItem::productName)
+            .containsExactly("item 0", "item 1", "item 2");
+        assertThat(items.get(2).lineTotalPaise()).isEqualTo(300);
+        assertThat(orderArchiveService.archivedItems(recent.getId())).isEmpty();
+        assertThat(orderArchiveService.archiveOlderThan(NOW.minusDays(365))).isZero();
+    }
+
+    @Test
+    void testHistoryReadsAcrossHotAndArchivedOrders() {
+        User buyer = fixtures.user("archive-history");
+        for (int i = 0; i < 12; i++) {
+            order(buyer, NOW.minusDays(30L * i), 1);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        OrderSummaryDTO before = orderHistoryService.summary(buyer.getId());
+
+        // 5 newest stay hot, 7 are archived
+        orderArchiveService.archiveOlderThan(NOW.minusDays(135));
+
+        List<OrderDTO> walked = new ArrayList<>();
+        String cursor = null;
+        do {
+            OrderPage page = orderHistoryService.page(buyer.getId(), cursor, 4);
+            walked.addAll(page.getOrders());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(count("orders", buyer)).isEqualTo(5);
+        assertThat(walked).extracting(OrderDTO::getOrderDate)
+            .containsExactlyElementsOf(orderDatesNewestFirst(12));
+        assertThat(orderHistoryService.summary(buyer.getId())).isEqualTo(before);
+    }
+
+    @Test
+    void testPartitionsAreOnlyManagedOnPartitionedPostgres() {
+        assertThat(orderPartitionService.isPartitioned()).isFalse();
+        assertThat(orderPartitionService.dropEmptyPartitionsBefore(NOW.toLocalDate())).isZero();
+        assertThat(OrderPartitionService.createPartitionSql(YearMonth.of(2026, 12))).isEqualTo(
+            "CREATE TABLE IF NOT EXISTS orders_2026_12 PARTITION OF orders FOR VALUES FROM ('2026-12-01') TO ('2027-01-01')");
+        assertThat(OrderPartitionService.monthOf("orders_2026_12")).isEqualTo(YearMonth.of(2026, 12));
+        assertThat(OrderPartitionService.monthOf("orders_default")).isNull();
+    }
+
+    private List<LocalDateTime> orderDatesNewestFirst(int count) {
+        List<LocalDateTime> dates = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            dates.add(NOW.minusDays(30L * i));
+        }
+        return dates;
+    }
+
+    private int count(String table, User user) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE user_id = ?", Integer.class, user.getId());
+    }
+
+    private Orders order(User user, LocalDateTime orderDate, int itemCount) {
+        Orders order = fixtures.order(user, orderDate, 100L * itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            fixtures.item(order, 1000L + i, null, "item " + i, i + 1, 100L * (i + 1));
+        }
+        return order;
+    }
+}
@@ -0,0 +1,105 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.dto.OrderDTO;
+import com.Shopping.Shopping.dto.OrderPage;
+import com.Shopping.Shopping.dto.OrderSummaryDTO;
+import com.Shopping.Shopping.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(OrderHistoryService.class)
+class OrderHistoryServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    @Autowired
+    private OrderHistoryService orderHistoryService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Fixtures fixtures;
+
+    @BeforeEach
+    void setUp() {
+        fixtures = new Fixtures(entityManager);
+    }
+
+    @Test
+    void testPagesWalkAllOrdersNewestFirstWithoutLoadingUsers() {
+        User buyer = fixtures.user("history-buyer");
+        User other = fixtures.user("history-other");
+        // 25 orders, pairs sharing an order date so the id tie-break matters
+        for (int i = 0; i < 25; i++) {
+            fixtures.order(buyer, START.plusDays(i / 2), 1000 * (i + 1));
+        }
+        fixtures.order(other, START.plusDays(30), 500);
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<OrderDTO> walked = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            OrderPage page = orderHistoryService.page(buyer.getId(), cursor, 10);
+            walked.addAll(page.getOrders());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(walked).hasSize(25);
+        assertThat(walked).extracting(OrderDTO::getId).doesNotHaveDuplicates();
+        assertThat(walked.get(0).getAmount()).isEqualTo(250.0);
+        for (int i = 1; i < walked.size(); i++) {
+            OrderDTO newer = walked.get(i - 1);
+            OrderDTO older = walked.get(i);
+            assertThat(older.getOrderDate().isBefore(newer.getOrderDate())
+                || (older.getOrderDate().equals(newer.getOrderDate()) && older.getId() < newer.getId())).isTrue();
+        }
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        // One query per page, plus one into the (empty) archive when the last page runs out of orders
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+    }
+
+    @Test
+    void testSummaryAndCursorValidation() {
+        User buyer = fixtures.user("summary-buyer");
+        fixtures.order(buyer, START, 10_000);
+        fixtures.order(buyer, START.plusDays(3), 2_550);
+        User empty = fixtures.user("summary-empty");
+        entityManager.flush();
+
+        OrderSummaryDTO summary = orderHistoryService.summary(buyer.getId());
+
+        assertThat(summary.getOrderCount()).isEqualTo(2);
+        assertThat(summary.getTotalAmount()).isEqualTo(125.5);
+        assertThat(summary.getFirstOrderDate()).isEqualTo(START);
+        assertThat(summary.getLastOrderDate()).isEqualTo(START.plusDays(3));
+        assertThat(orderHistoryService.summary(empty.getId()).getOrderCount()).isZero();
+        assertThatThrownBy(() -> orderHistoryService.page(buyer.getId(), "not-a-cursor", 10))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> orderHistoryService.page(buyer.getId(), null, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
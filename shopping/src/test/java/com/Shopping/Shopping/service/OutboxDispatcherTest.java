@@ -0,0 +1,178 @@
+package com.Shopping.Shopping.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs outside a test transaction so published events commit and dispatchers claim them like
+ * separate workers would.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxDispatcherTest {
+
+    private static final String TYPE = "test.event";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final MetricsService metricsService = new MetricsService();
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM outbox_events");
+    }
+
+    @Test
+    void testEventsAreDeliveredOnlyAfterCommit() {
+        List<Long> delivered = new ArrayList<>();
+        OutboxDispatcher dispatcher = dispatcher(event -> delivered.add(event.aggregateId()), 3);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        transaction.executeWithoutResult(status -> {
+            publish(1);
+            status.setRollbackOnly();
+        });
+        transaction.executeWithoutResult(status -> publish(2));
+        dispatcher.dispatchBatch();
+
+        assertThat(delivered).containsExactly(2L);
+        assertThat(statusOf(2)).isEqualTo(OutboxService.DONE);
+        assertThat(metricsService.snapshot()).containsEntry("outbox.dispatched", 1L)
+            .containsEntry("outbox.backlog", 0L)
+            .containsKey("outbox.lag.millis");
+    }
+
+    @Test
+    void testFailuresAreRetriedWithBackoffThenGivenUp() {
+        AtomicInteger calls = new AtomicInteger();
+        OutboxDispatcher dispatcher = dispatcher(event -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("downstream unavailable");
+        }, 2);
+        publishCommitted(1);
+
+        dispatcher.dispatchBatch();
+        // Backing off: not due again yet
+        assertThat(dispatcher.dispatchBatch()).isZero();
+        assertThat(statusOf(1)).isEqualTo(OutboxService.PENDING);
+
+        jdbcTemplate.update("UPDATE outbox_events SET available_at = 0");
+        dispatcher.dispatchBatch();
+
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(statusOf(1)).isEqualTo(OutboxService.FAILED);
+        assertThat(jdbcTemplate.queryForObject("SELECT last_error FROM outbox_events", String.class))
+            .contains("downstream unavailable");
+        assertThat(metricsService.snapshot()).containsEntry("outbox.retries", 1L).containsEntry("outbox.failed", 1L);
+    }
+
+    @Test
+    void testExpiredLeaseIsClaimedAgain() {
+        List<Long> delivered = new ArrayList<>();
+        publishCommitted(1);
+        // A worker that claimed the event and died
+        jdbcTemplate.update("UPDATE outbox_events SET status = ?, attempts = 1, available_at = ?",
+            OutboxService.PROCESSING, System.currentTimeMillis() - 1);
+
+        dispatcher(event -> delivered.add((long) event.attempt()), 3).dispatchBatch();
+
+        assertThat(delivered).containsExactly(2L);
+        assertThat(statusOf(1)).isEqualTo(OutboxService.DONE);
+    }
+
+    @Test
+    void testConcurrentDispatchersDeliverEachEventOnce() throws Exception {
+        int events = 300;
+        for (int i = 1; i <= events; i++) {
+            publishCommitted(i);
+        }
+        Map<Long, AtomicInteger> deliveries = new ConcurrentHashMap<>();
+        Consumer<OutboxHandler.Event> handler =
+            event -> deliveries.computeIfAbsent(event.aggregateId(), id -> new AtomicInteger()).incrementAndGet();
+
+        int workers = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                OutboxDispatcher dispatcher = dispatcher(handler, 3);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    while (dispatcher.dispatchBatch() > 0 || backlog() > 0) {
+                        Thread.onSpinWait();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(deliveries).hasSize(events);
+        assertThat(deliveries.values()).allMatch(count -> count.get() == 1);
+    }
+
+    private OutboxDispatcher dispatcher(Consumer<OutboxHandler.Event> handler, int maxAttempts) {
+        OutboxHandler outboxHandler = new OutboxHandler() {
+            @Override
+            public String eventType() {
+                return TYPE;
+            }
+
+            @Override
+            public void handle(Event event) {
+                handler.accept(event);
+            }
+        };
+        return new OutboxDispatcher(jdbcTemplate, transactionManager, metricsService, List.of(outboxHandler),
+            20, 60_000L, maxAttempts, 60_000L, 600_000L, 86_400_000L, false);
+    }
+
+    private void publishCommitted(long aggregateId) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> publish(aggregateId));
+    }
+
+    private void publish(long aggregateId) {
+        new OutboxService(jdbcTemplate, new ObjectMapper(), metricsService).publish(TYPE, aggregateId, Map.of("n", aggregateId));
+    }
+
+    private String statusOf(long aggregateId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM outbox_events WHERE aggregate_id = ?", String.class, aggregateId);
+    }
+
+    private long backlog() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_events WHERE status <> ?", Long.class,
+            OutboxService.DONE);
+    }
+}
@@ -0,0 +1,28 @@
+package com.Shopping.Shopping.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentSignatureVerifierTest {
+
+    @Test
+    void testAcceptsOnlyTheSignatureOfThisOrderAndPayment() {
+        PaymentSignatureVerifier verifier = new PaymentSignatureVerifier("secret");
+        // HMAC-SHA256 of "order_1|pay_1" keyed with "secret"
+        String signature = "52115a0d3400de9e86aade1f1b6eba9e8974604f4e267a9e9a16633a4c8dd2cb";
+
+        assertThat(verifier.verify("order_1", "pay_1", signature)).isTrue();
+        // The cached Mac is reset between calls
+        assertThat(verifier.verify("order_1", "pay_1", signature)).isTrue();
+        assertThat(verifier.verify("order_1", "pay_2", signature)).isFalse();
+        assertThat(verifier.verify("order_1", "pay_1", "not-hex")).isFalse();
+    }
+
+    @Test
+    void testRejectsEverythingWithoutASecret() {
+        PaymentSignatureVerifier verifier = new PaymentSignatureVerifier("");
+
+        assertThat(verifier.verify("order_1", "pay_1", "00")).isFalse();
+    }
+}
@@ -0,0 +1,77 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.dto.ProductPriceRuleView;
+import com.Shopping.Shopping.dto.VariantPriceView;
+import com.Shopping.Shopping.repository.ProductRepository;
+import com.Shopping.Shopping.repository.ProductVariantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PricingEngineTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductVariantRepository productVariantRepository;
+
+    private PricingEngine pricingEngine;
+
+    @BeforeEach
+    void setUp() {
+        pricingEngine = new PricingEngine(productRepository, productVariantRepository, 18, 60000);
+    }
+
+    @Test
+    void testVariantModifierAndGstAddedOnTop() {
+        // Product 1: 100.00 incl. GST with a +25.50 variant; product 2: 200.00 excl. GST
+        when(productRepository.findPriceRuleViewsByIdIn(anyCollection())).thenReturn(List.of(
+            new ProductPriceRuleView(1L, 100.0, 100.0, 150.0, 33.0, true),
+            new ProductPriceRuleView(2L, 200.0, 200.0, null, null, false)));
+        when(productVariantRepository.findPriceViewsByProductIdIn(anyCollection())).thenReturn(List.of(
+            new VariantPriceView(11L, 1L, "XL", 25.5)));
+
+        PricingEngine.CartPrice price = pricingEngine.price(
+            new long[] {1L, 1L, 2L, 3L}, new long[] {0L, 11L, 0L, 0L}, new int[] {2, 1, 3, 1}, 4);
+
+        assertThat(price.lineTotalPaise(0)).isEqualTo(20000);
+        assertThat(price.lineTaxPaise(0)).isEqualTo(3051);          // 20000 * 18 / 118
+        assertThat(price.unitPaise(1)).isEqualTo(12550);
+        assertThat(price.lineTotalPaise(2)).isEqualTo(60000 + 10800);
+        assertThat(price.isPriced(3)).isFalse();                     // unknown product
+        assertThat(price.getTotalPaise()).isEqualTo(20000 + 12550 + 70800);
+    }
+
+    @Test
+    void testDiscountAppliesToMrpWithoutSellingPrice() {
+        PricingEngine.PriceRule rule = pricingEngine.ruleOf(0, null, 999.99, 10.0, null);
+
+        assertThat(rule.unitPaise(0L)).isEqualTo(89999);              // 99999 * 0.9, rounded half-up
+    }
+
+    @Test
+    void testRulesAreCachedUntilEvicted() {
+        when(productRepository.findPriceRuleViewsByIdIn(anyCollection())).thenReturn(List.of(
+            new ProductPriceRuleView(1L, 10.0, null, null, null, null)));
+
+        pricingEngine.priceLine(1L, 0L, 1);
+        pricingEngine.priceLine(1L, 0L, 2);
+        verify(productRepository, times(1)).findPriceRuleViewsByIdIn(anyCollection());
+
+        pricingEngine.evict(1L);
+        assertThat(pricingEngine.priceLine(1L, 0L, 3).getTotalPaise()).isEqualTo(3000);
+        verify(productRepository, times(2)).findPriceRuleViewsByIdIn(anyCollection());
+    }
+}
@@ -0,0 +1,183 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.dto.ProductImportJobDTO;
+import com.Shopping.Shopping.model.Seller;
+import com.Shopping.Shopping.repository.SellerRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs outside a test transaction: imports run on background threads and must see the seller.
+ */
+@DataJpaTest(properties = "product.import.batch-size=4")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({ProductImportService.class, MetricsService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductImportServiceTest {
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private SellerRepository sellerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Seller seller;
+
+    @BeforeEach
+    void setUp() {
+        seller = new Seller();
+        seller.setUsername("import-seller");
+        seller.setEmail("import-seller@example.com");
+        seller.setPassword("hash");
+        seller.setGstNumber("GST-IMPORT");
+        seller = sellerRepository.save(seller);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM product_specifications WHERE product_id IN (SELECT id FROM product WHERE seller_id = ?)", seller.getId());
+        jdbcTemplate.update("DELETE FROM product_variants WHERE product_id IN (SELECT id FROM product WHERE seller_id = ?)", seller.getId());
+        jdbcTemplate.update("DELETE FROM product WHERE seller_id = ?", seller.getId());
+        sellerRepository.delete(seller);
+    }
+
+    @Test
+    void testCsvRowsAreImportedAndBadRowsReported() throws Exception {
+        String csv = "Name,Selling Price,MRP,Category,Description,Available Quantity,Specifications,Variants\r\n"
+            + "Cotton Shirt,499,799,Clothing,\"Soft, breathable\",10,\"{\"\"Fabric\"\":\"\"Cotton\"\",\"\"Fit\"\":\"\"Slim\"\"}\","
+            + "\"[{\"\"type\"\":\"\"size\"\",\"\"value\"\":\"\"M\"\",\"\"stock\"\":4},{\"\"type\"\":\"\"size\"\",\"\"value\"\":\"\"L\"\"}]\"\r\n"
+            + ",199,,Clothing,no name,1,,\r\n"
+            + "Desk Lamp,0,,Home,free,1,,\r\n"
+            + "\"Two\nline\",149,,Home,\"multi\nline\",2,,\r\n"
+            + "Mug,99,,Kitchen,bad variants,3,,not json\r\n"
+            + "Short Row,99\r\n"
+            + "Socks,79,,Clothing,,20,,\r\n";
+
+        ProductImportJobDTO job = await(productImportService.start(seller.getId(), csv("catalog.csv", csv), null));
+
+        assertThat(job.getStatus()).isEqualTo("DONE");
+        assertThat(job.getProgressPercent()).isEqualTo(100);
+        assertThat(job.getRowsRead()).isEqualTo(7);
+        assertThat(job.getImported()).isEqualTo(3);
+        assertThat(job.getFailed()).isEqualTo(4);
+        // Line numbers count the line breaks inside quoted fields
+        assertThat(job.getErrors()).extracting(ProductImportJobDTO.RowError::getLine).containsExactly(3L, 4L, 8L, 9L);
+        assertThat(job.getErrors().get(0).getError()).isEqualTo("name is required");
+        assertThat(job.getErrors().get(2).getError()).isEqualTo("variants must be a JSON array");
+
+        Long shirt = jdbcTemplate.queryForObject("SELECT id FROM product WHERE seller_id = ? AND name = 'Cotton Shirt'",
+            Long.class, seller.getId());
+        assertThat(jdbcTemplate.queryForMap("SELECT description, price, mrp, gst_number, available_quantity FROM product WHERE id = ?", shirt))
+            .containsEntry("DESCRIPTION", "Soft, breathable").containsEntry("PRICE", 499.0).containsEntry("GST_NUMBER", "GST-IMPORT");
+        assertThat(jdbcTemplate.queryForList("SELECT spec_value FROM product_specifications WHERE product_id = ? ORDER BY display_order",
+            String.class, shirt)).containsExactly("Cotton", "Slim");
+        assertThat(jdbcTemplate.queryForList("SELECT stock_quantity FROM product_variants WHERE product_id = ? ORDER BY variant_value",
+            Integer.class, shirt)).containsExactly(0, 4);
+        assertThat(jdbcTemplate.queryForObject("SELECT description FROM product WHERE name = 'Two\nline' AND seller_id = ?",
+            String.class, seller.getId())).isEqualTo("multi\nline");
+    }
+
+    @Test
+    void testJsonlImport() throws Exception {
+        String jsonl = "{\"name\":\"Headphones\",\"price\":1999.5,\"gstIncluded\":true,\"specifications\":{\"Driver\":\"40mm\"}}\n"
+            + "\n"
+            + "[1, 2]\n"
+            + "{\"name\":\"Cable\",\"sellingPrice\":\"abc\"}\n"
+            + "{\"productName\":\"Charger\",\"productPrice\":899,\"variants\":[{\"type\":\"plug\",\"value\":\"UK\",\"priceModifier\":50}]}\n";
+
+        ProductImportJobDTO job = await(productImportService.start(seller.getId(), csv("catalog.jsonl", jsonl), null));
+
+        assertThat(job.getStatus()).isEqualTo("DONE");
+        assertThat(job.getImported()).isEqualTo(2);
+        assertThat(job.getErrors()).extracting(ProductImportJobDTO.RowError::getLine).containsExactly(3L, 4L);
+        assertThat(job.getErrors().get(1).getError()).isEqualTo("sellingPrice must be a number");
+        assertThat(jdbcTemplate.queryForObject("SELECT gst_included FROM product WHERE name = 'Headphones' AND seller_id = ?",
+            Boolean.class, seller.getId())).isTrue();
+        assertThat(jdbcTemplate.queryForObject("SELECT v.price_modifier FROM product_variants v JOIN product p ON p.id = v.product_id " +
+            "WHERE p.name = 'Charger' AND p.seller_id = ?", Double.class, seller.getId())).isEqualTo(50.0);
+    }
+
+    @Test
+    void testRowsTheDatabaseRejectsFailAloneAndTheRestOfTheBatchIsSaved() throws Exception {
+        jdbcTemplate.execute("CREATE UNIQUE INDEX uk_import_test_unique_product_id ON product (unique_product_id)");
+        try {
+            StringBuilder csv = new StringBuilder("name,price,uniqueProductId\n");
+            for (int i = 0; i < 5; i++) {
+                csv.append("Item ").append(i).append(",10,").append(i == 1 || i == 3 ? "DUP-1" : "IMPORT-" + i).append('\n');
+            }
+
+            ProductImportJobDTO job = await(productImportService.start(seller.getId(), csv("dup.csv", csv.toString()), null));
+
+            assertThat(job.getImported()).isEqualTo(4);
+            // Line 5 fails the first batch; its other rows are saved one by one
+            assertThat(job.getErrors()).extracting(ProductImportJobDTO.RowError::getLine).containsExactly(5L);
+            assertThat(job.getErrors().get(0).getError()).startsWith("Could not be saved");
+        } finally {
+            jdbcTemplate.execute("DROP INDEX uk_import_test_unique_product_id");
+        }
+    }
+
+    @Test
+    void testTenThousandRowsWithinAMinute() throws Exception {
+        StringBuilder csv = new StringBuilder("name,price,category,availableQuantity,specifications\n");
+        for (int i = 0; i < 10_000; i++) {
+            csv.append("Bulk product ").append(i).append(",").append(100 + i % 50).append(",Bulk,5,")
+                .append("\"{\"\"Batch\"\":\"\"").append(i / 500).append("\"\"}\"\n");
+        }
+        long started = System.nanoTime();
+
+        ProductImportJobDTO job = await(productImportService.start(seller.getId(), csv("bulk.csv", csv.toString()), null));
+
+        assertThat(job.getImported()).isEqualTo(10_000);
+        assertThat((System.nanoTime() - started) / 1_000_000_000).isLessThan(60);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM product_specifications s JOIN product p ON p.id = s.product_id " +
+            "WHERE p.seller_id = ?", Integer.class, seller.getId())).isEqualTo(10_000);
+    }
+
+    @Test
+    void testUnsupportedInputIsRejected() throws Exception {
+        assertThatThrownBy(() -> productImportService.start(seller.getId(), csv("catalog.xlsx", "x"), null))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> productImportService.start(seller.getId(), csv("catalog.csv", ""), null))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        ProductImportJobDTO job = await(productImportService.start(seller.getId(), csv("catalog.txt", "title,cost\nA,1\n"), "csv"));
+        assertThat(job.getStatus()).isEqualTo("FAILED");
+        assertThat(job.getMessage()).contains("name and price");
+        assertThat(productImportService.job(job.getJobId(), seller.getId() + 1)).isEmpty();
+    }
+
+    private ProductImportJobDTO await(ProductImportJobDTO started) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (System.currentTimeMillis() < deadline) {
+            ProductImportJobDTO job = productImportService.job(started.getJobId(), seller.getId()).orElseThrow();
+            if (job.getStatus().equals("DONE") || job.getStatus().equals("FAILED")) {
+                return job;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Import did not finish");
+    }
+
+    private static MockMultipartFile csv(String fileName, String content) {
+        return new MockMultipartFile("file", fileName, "text/plain", content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,7 +1,11 @@
 package com.Shopping.Shopping.service;
 
 import com.Shopping.Shopping.model.Product;
+import com.Shopping.Shopping.model.ProductSpecification;
+import com.Shopping.Shopping.model.ProductVariant;
 import com.Shopping.Shopping.repository.ProductRepository;
+import com.Shopping.Shopping.repository.ProductSpecificationRepository;
+import com.Shopping.Shopping.repository.ProductVariantRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,6 +16,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -25,6 +31,15 @@ class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private ProductSpecificationRepository productSpecificationRepository;
+
+    @Mock
+    private ProductVariantRepository productVariantRepository;
+
+    @Mock
+    private UploadIngestService uploadIngestService;
+
     @Mock
     private MultipartFile multipartFile;
 
@@ -67,10 +82,12 @@ class ProductServiceTest {
         
         // Use JPG format as per new validation requirements
         when(multipartFile.getOriginalFilename()).thenReturn("image.jpg");
-        when(multipartFile.getBytes()).thenReturn("dummy".getBytes());
         when(multipartFile.isEmpty()).thenReturn(false);
         when(multipartFile.getSize()).thenReturn(1024L); // 1KB - under 10MB limit
         when(multipartFile.getContentType()).thenReturn("image/jpeg");
+        Path spooled = Files.createTempFile("product-service-test-", ".part");
+        when(uploadIngestService.spool(multipartFile))
+            .thenReturn(new UploadIngestService.SpooledUpload(spooled, 5, "hash"));
         
         // Mock the repository.save() to return the product (fixes NullPointerException)
         when(productRepository.save(any(Product.class))).thenAnswer(invocation -> {
@@ -86,6 +103,10 @@ class ProductServiceTest {
         Product savedProduct = captor.getValue();
         assertThat(savedProduct.getImageName()).isNotNull();
         assertThat(savedProduct.getImageName()).endsWith(".jpg");
+        verify(uploadIngestService).insertProductImage(eq(1L), any(UploadIngestService.SpooledUpload.class),
+            eq(savedProduct.getImageName()), eq("primary"), eq(0), eq(true));
+        // The spooled file is removed once stored
+        assertThat(spooled).doesNotExist();
     }
     
     @Test
@@ -170,4 +191,31 @@ class ProductServiceTest {
         assertThat(result).isNull();
         verify(productRepository, times(1)).findById(2L);
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSpecificationsAreSavedInOneCall() {
+        productService.saveProductSpecifications(product, "{\"Fabric\":\"Cotton\",\"Fit\":\"Slim\",\"Sleeve\":\"Half\"}");
+
+        ArgumentCaptor<List<ProductSpecification>> captor = ArgumentCaptor.forClass(List.class);
+        verify(productSpecificationRepository, times(1)).saveAll(captor.capture());
+        verify(productSpecificationRepository, never()).save(any());
+        assertThat(captor.getValue()).extracting(ProductSpecification::getSpecKey).containsExactly("Fabric", "Fit", "Sleeve");
+        assertThat(captor.getValue()).extracting(ProductSpecification::getDisplayOrder).containsExactly(0, 1, 2);
+        assertThat(captor.getValue()).allSatisfy(spec -> assertThat(spec.getProduct()).isSameAs(product));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testVariantsAreSavedInOneCall() {
+        productService.saveProductVariants(product,
+            "[{\"type\":\"size\",\"value\":\"M\",\"stock\":4},{\"type\":\"size\",\"value\":\"L\",\"priceModifier\":50}]");
+
+        ArgumentCaptor<List<ProductVariant>> captor = ArgumentCaptor.forClass(List.class);
+        verify(productVariantRepository, times(1)).saveAll(captor.capture());
+        verify(productVariantRepository, never()).save(any());
+        assertThat(captor.getValue()).extracting(ProductVariant::getVariantValue).containsExactly("M", "L");
+        assertThat(captor.getValue()).extracting(ProductVariant::getStockQuantity).containsExactly(4, 0);
+        assertThat(captor.getValue().get(1).getPriceModifier()).isEqualTo(50.0);
+    }
 }
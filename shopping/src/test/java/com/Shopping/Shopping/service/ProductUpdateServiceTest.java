@@ -0,0 +1,264 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.model.Product;
+import com.Shopping.Shopping.model.ProductImage;
+import com.Shopping.Shopping.model.ProductSpecification;
+import com.Shopping.Shopping.model.ProductVariant;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({ProductUpdateService.class, PricingEngine.class})
+class ProductUpdateServiceTest {
+
+    @Autowired
+    private ProductUpdateService productUpdateService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Product product;
+    private ProductSpecification fabric;
+    private ProductSpecification fit;
+    private ProductSpecification care;
+    private ProductVariant small;
+    private ProductVariant large;
+    private ProductImage front;
+    private ProductImage back;
+
+    @BeforeEach
+    void setUp() {
+        product = new Product();
+        product.setName("Linen Shirt");
+        product.setSellingPrice(899.0);
+        entityManager.persist(product);
+        fabric = spec("Fabric", "Linen", 0);
+        fit = spec("Fit", "Slim", 1);
+        care = spec("Care", "Hand wash", 2);
+        small = variant("S", 10);
+        large = variant("L", 4);
+        front = new ProductImage(product, new byte[]{1, 2, 3}, "front.jpg", "front", 0, true);
+        back = new ProductImage(product, new byte[]{4, 5, 6}, "back.jpg", "back", 1, false);
+        entityManager.persist(front);
+        entityManager.persist(back);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testPatchWritesOnlyTheChangedRowsAndKeepsTheirIds() throws Exception {
+        Statistics statistics = statistics();
+
+        ProductUpdateService.Changes changes = productUpdateService.apply(product.getId(), json("""
+            {
+              "sellingPrice": 799.0,
+              "specifications": { "Fit": "Regular", "Care": null, "Origin": "India" },
+              "variants": [
+                { "id": %d },
+                { "type": "size", "value": "L", "stock": 9 },
+                { "type": "size", "value": "XL", "stock": 2 }
+              ],
+              "images": [ { "id": %d, "displayOrder": 0, "isPrimary": true } ]
+            }
+            """.formatted(small.getId(), back.getId())));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(changes.isFields()).isTrue();
+        assertThat(changes.getAdded()).isEqualTo(2);   // Origin, XL
+        assertThat(changes.getChanged()).isEqualTo(3); // Fit, L, back image
+        assertThat(changes.getRemoved()).isEqualTo(2); // Care, front image
+        assertThat(statistics.getEntityStatistics(ProductSpecification.class.getName()).getUpdateCount()).isEqualTo(1);
+        assertThat(statistics.getEntityStatistics(ProductVariant.class.getName()).getUpdateCount()).isEqualTo(1);
+        // Image rows are edited without reading their data
+        assertThat(statistics.getEntityStatistics(ProductImage.class.getName()).getLoadCount()).isZero();
+
+        Product updated = entityManager.find(Product.class, product.getId());
+        assertThat(updated.getVersion()).isEqualTo(1);
+        assertThat(updated.getPrice()).isEqualTo(799.0);
+        assertThat(updated.getSpecificationsList()).extracting(ProductSpecification::getId, ProductSpecification::getSpecValue)
+            .containsExactlyInAnyOrder(
+                tuple(fabric.getId(), "Linen"),
+                tuple(fit.getId(), "Regular"),
+                tuple(idOf("Origin", updated), "India"));
+        assertThat(objectMapper.readTree(updated.getSpecifications()).get("Origin").asText()).isEqualTo("India");
+        assertThat(updated.getVariants()).extracting(ProductVariant::getVariantValue).containsExactlyInAnyOrder("S", "L", "XL");
+        assertThat(entityManager.find(ProductVariant.class, large.getId()).getStockQuantity()).isEqualTo(9);
+        assertThat(entityManager.find(ProductImage.class, front.getId())).isNull();
+        ProductImage kept = entityManager.find(ProductImage.class, back.getId());
+        assertThat(kept.getIsPrimary()).isTrue();
+        assertThat(kept.getImageData()).containsExactly(4, 5, 6);
+    }
+
+    @Test
+    void testPatchMatchingTheStoredProductWritesNothing() throws Exception {
+        Statistics statistics = statistics();
+
+        ProductUpdateService.Changes changes = productUpdateService.apply(product.getId(), json("""
+            {
+              "name": "Linen Shirt",
+              "sellingPrice": 899.0,
+              "specifications": { "Fabric": "Linen", "Unknown": null },
+              "variants": [ { "id": %d, "stock": 10 }, { "type": "size", "value": "L" } ],
+              "images": [ { "id": %d }, { "id": %d, "imageType": "back" } ]
+            }
+            """.formatted(small.getId(), front.getId(), back.getId())));
+        entityManager.flush();
+
+        assertThat(changes.isEmpty()).isTrue();
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+        assertThat(statistics.getEntityInsertCount()).isZero();
+        assertThat(statistics.getEntityDeleteCount()).isZero();
+        assertThat(entityManager.find(Product.class, product.getId()).getVersion()).isZero();
+    }
+
+    @Test
+    void testRepeatingAPriceChangeIsANoOp() throws Exception {
+        // A legacy row whose price was never copied to the selling price
+        Product legacy = entityManager.find(Product.class, product.getId());
+        legacy.setSellingPrice(null);
+        legacy.setPrice(650.0);
+        entityManager.flush();
+        entityManager.clear();
+
+        ProductUpdateService.Changes first = productUpdateService.apply(product.getId(), json("{\"price\": 749.0}"));
+        entityManager.flush();
+        entityManager.clear();
+        ProductUpdateService.Changes second = productUpdateService.apply(product.getId(), json("{\"price\": 749.0}"));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(first.isFields()).isTrue();
+        assertThat(second.isEmpty()).isTrue();
+        Product updated = entityManager.find(Product.class, product.getId());
+        assertThat(updated.getVersion()).isEqualTo(1);
+        assertThat(updated.getPrice()).isEqualTo(749.0);
+        assertThat(updated.getSellingPrice()).isEqualTo(749.0);
+    }
+
+    @Test
+    void testReplacingSpecificationsFromTheUploadFormKeepsUnchangedRows() {
+        Product managed = entityManager.find(Product.class, product.getId());
+
+        ProductUpdateService.Changes changes =
+            productUpdateService.replaceSpecifications(managed, "{\"Fabric\": \"Linen\", \"Fit\": \"Relaxed\"}");
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(changes.getChanged()).isEqualTo(1);
+        assertThat(changes.getRemoved()).isEqualTo(1);
+        assertThat(entityManager.find(ProductSpecification.class, fabric.getId()).getSpecValue()).isEqualTo("Linen");
+        assertThat(entityManager.find(ProductSpecification.class, fit.getId()).getSpecValue()).isEqualTo("Relaxed");
+        assertThat(entityManager.find(ProductSpecification.class, care.getId())).isNull();
+    }
+
+    @Test
+    void testResendingTheStoredUploadFormChangesNothing() {
+        Statistics statistics = statistics();
+        Product managed = entityManager.find(Product.class, product.getId());
+
+        ProductUpdateService.Changes specifications = productUpdateService.replaceSpecifications(managed,
+            "{\"Fabric\": \"Linen\", \"Fit\": \"Slim\", \"Care\": \"Hand wash\"}");
+        ProductUpdateService.Changes variants = productUpdateService.replaceVariants(managed,
+            "[{\"type\": \"size\", \"value\": \"S\", \"stock\": 10}, {\"type\": \"size\", \"value\": \"L\", \"stock\": 4}]");
+        entityManager.flush();
+
+        // The seller PUT bumps the version only when one of these, or a form field, changed
+        assertThat(specifications.isEmpty()).isTrue();
+        assertThat(variants.isEmpty()).isTrue();
+        assertThat(statistics.getEntityInsertCount() + statistics.getEntityUpdateCount()
+            + statistics.getEntityDeleteCount()).isZero();
+    }
+
+    @Test
+    void testInvalidPatchesAreRejected() {
+        Product other = new Product();
+        other.setName("Other");
+        entityManager.persist(other);
+        ProductVariant foreign = new ProductVariant();
+        foreign.setProduct(other);
+        foreign.setVariantType("size");
+        foreign.setVariantValue("M");
+        entityManager.persist(foreign);
+        entityManager.flush();
+
+        assertThatThrownBy(() -> productUpdateService.apply(product.getId(), json("{\"id\": 5}")))
+            .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("id");
+        assertThatThrownBy(() -> productUpdateService.apply(product.getId(), json("{\"name\": 5}")))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> productUpdateService.apply(product.getId(), json("{\"price\": 0}")))
+            .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("positive");
+        assertThatThrownBy(() -> productUpdateService.apply(product.getId(), json("{\"sellingPrice\": -1}")))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> productUpdateService.apply(product.getId(),
+                json("{\"variants\": [{\"id\": " + foreign.getId() + ", \"stock\": 1}]}")))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> productUpdateService.apply(product.getId(), json("{\"images\": [{\"imageType\": \"side\"}]}")))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> productUpdateService.apply(product.getId(), json("[]")))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private ProductSpecification spec(String key, String value, int order) {
+        ProductSpecification spec = new ProductSpecification();
+        spec.setProduct(product);
+        spec.setSpecKey(key);
+        spec.setSpecValue(value);
+        spec.setSpecGroup("General");
+        spec.setDisplayOrder(order);
+        entityManager.persist(spec);
+        return spec;
+    }
+
+    private ProductVariant variant(String value, int stock) {
+        ProductVariant variant = new ProductVariant();
+        variant.setProduct(product);
+        variant.setVariantType("size");
+        variant.setVariantValue(value);
+        variant.setPriceModifier(0.0);
+        variant.setStockQuantity(stock);
+        variant.setSku("");
+        variant.setIsAvailable(true);
+        entityManager.persist(variant);
+        return variant;
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    private JsonNode json(String json) throws Exception {
+        return objectMapper.readTree(json);
+    }
+
+    private static Long idOf(String key, Product product) {
+        List<ProductSpecification> specs = product.getSpecificationsList();
+        return specs.stream().filter(spec -> spec.getSpecKey().equals(key)).findFirst().orElseThrow().getId();
+    }
+}
@@ -0,0 +1,170 @@
+package com.Shopping.Shopping.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the gateway against a local HTTP server standing in for Razorpay.
+ */
+class RazorpayGatewayTest {
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int status = 200;
+    private volatile long delayMillis;
+    private volatile String authorization;
+    private final MetricsService metricsService = new MetricsService();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/v1/orders", exchange -> {
+            requests.incrementAndGet();
+            authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = (status == 200
+                ? "{\"id\":\"order_test1\",\"amount\":50000,\"currency\":\"INR\"}"
+                : "{\"error\":{\"description\":\"amount too small\"}}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void testCreatesOrderWithBasicAuth() {
+        PaymentGateway.GatewayOrder order = gateway(5, 1).createOrder(50000, "INR", "txn_1");
+
+        assertThat(order.id()).isEqualTo("order_test1");
+        assertThat(order.amountPaise()).isEqualTo(50000);
+        assertThat(authorization).startsWith("Basic ");
+        assertThat(metricsService.snapshot()).containsEntry("payment.gateway.calls", 1L);
+    }
+
+    @Test
+    void testTimeoutsOpenTheCircuit() {
+        RazorpayGateway gateway = gateway(5, 2);
+        delayMillis = 500;
+
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> gateway.createOrder(50000, "INR", "txn"))
+                .isInstanceOf(PaymentGateway.GatewayUnavailableException.class)
+                .hasMessageContaining("timed out");
+        }
+        int before = requests.get();
+        assertThatThrownBy(() -> gateway.createOrder(50000, "INR", "txn"))
+            .isInstanceOf(PaymentGateway.GatewayUnavailableException.class);
+
+        // Rejected without another request reaching the gateway
+        assertThat(requests.get()).isEqualTo(before);
+        assertThat(metricsService.snapshot()).containsEntry("payment.gateway.rejected.circuit", 1L)
+            .containsEntry("payment.gateway.circuit_open", 1L);
+    }
+
+    @Test
+    void testClientErrorsDoNotOpenTheCircuit() {
+        RazorpayGateway gateway = gateway(5, 1);
+        status = 400;
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> gateway.createOrder(1, "INR", "txn"))
+                .isInstanceOf(PaymentGateway.PaymentGatewayException.class)
+                .isNotInstanceOf(PaymentGateway.GatewayUnavailableException.class)
+                .hasMessageContaining("amount too small");
+        }
+        assertThat(requests.get()).isEqualTo(3);
+    }
+
+    @Test
+    void testProbeFailingWithAnUnexpectedExceptionReopensTheCircuit() throws Exception {
+        AtomicBoolean brokenSerializer = new AtomicBoolean();
+        ObjectMapper objectMapper = new ObjectMapper() {
+            @Override
+            public byte[] writeValueAsBytes(Object value) throws JsonProcessingException {
+                if (brokenSerializer.get()) {
+                    throw new IllegalStateException("serializer broken");
+                }
+                return super.writeValueAsBytes(value);
+            }
+        };
+        RazorpayGateway gateway = new RazorpayGateway("key", "secret",
+            "http://127.0.0.1:" + server.getAddress().getPort() + "/v1",
+            1000, 1000, 5, 10, 1, 50, objectMapper, metricsService);
+        status = 503;
+        assertThatThrownBy(() -> gateway.createOrder(50000, "INR", "txn"))
+            .isInstanceOf(PaymentGateway.GatewayUnavailableException.class);
+
+        // The HALF_OPEN probe fails outside the gateway's own error handling
+        Thread.sleep(80);
+        brokenSerializer.set(true);
+        assertThatThrownBy(() -> gateway.createOrder(50000, "INR", "txn"))
+            .isInstanceOf(IllegalStateException.class);
+
+        // Reopened rather than stuck: the next probe goes through and closes the circuit
+        Thread.sleep(80);
+        brokenSerializer.set(false);
+        status = 200;
+        assertThat(gateway.createOrder(50000, "INR", "txn").id()).isEqualTo("order_test1");
+        assertThat(metricsService.snapshot()).containsEntry("payment.gateway.circuit_open", 0L);
+    }
+
+    @Test
+    void testBulkheadShedsExcessCalls() throws Exception {
+        RazorpayGateway gateway = gateway(1, 5, 5000);
+        delayMillis = 300;
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<PaymentGateway.GatewayOrder> slow = CompletableFuture.supplyAsync(() -> {
+            started.countDown();
+            return gateway.createOrder(50000, "INR", "txn_slow");
+        });
+        started.await();
+        while (requests.get() == 0) {
+            Thread.onSpinWait();
+        }
+
+        assertThatThrownBy(() -> gateway.createOrder(50000, "INR", "txn_shed"))
+            .isInstanceOf(PaymentGateway.GatewayUnavailableException.class)
+            .hasMessageContaining("busy");
+        assertThat(slow.get(5, TimeUnit.SECONDS).id()).isEqualTo("order_test1");
+        assertThat(metricsService.snapshot()).containsEntry("payment.gateway.rejected.bulkhead", 1L);
+    }
+
+    private RazorpayGateway gateway(int maxConcurrent, int failureThreshold) {
+        return gateway(maxConcurrent, failureThreshold, 200);
+    }
+
+    private RazorpayGateway gateway(int maxConcurrent, int failureThreshold, long readTimeoutMillis) {
+        return new RazorpayGateway("key", "secret", "http://127.0.0.1:" + server.getAddress().getPort() + "/v1",
+            1000, readTimeoutMillis, maxConcurrent, 10, failureThreshold, 60_000, new ObjectMapper(), metricsService);
+    }
+}
@@ -0,0 +1,169 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.dto.ProductSalesDTO;
+import com.Shopping.Shopping.dto.SellerSalesDTO;
+import com.Shopping.Shopping.model.Orders;
+import com.Shopping.Shopping.model.Product;
+import com.Shopping.Shopping.model.Seller;
+import com.Shopping.Shopping.model.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({SalesRollupService.class, OrderArchiveService.class, OrderPartitionService.class, MetricsService.class})
+class SalesRollupServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 10);
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Fixtures fixtures;
+
+    @BeforeEach
+    void setUp() {
+        fixtures = new Fixtures(entityManager);
+    }
+
+    @Test
+    void testAppliedOrdersAreCountedOnce() {
+        Seller seller = fixtures.seller("rollup-once");
+        Product shirt = product(seller, "shirt");
+        Product socks = product(seller, "socks");
+        User buyer = fixtures.user("rollup-once-buyer");
+        Orders first = order(buyer, DAY.atTime(9, 0), line(shirt, 2, 50_000), line(socks, 1, 20_000), line(shirt, 1, 25_000));
+        Orders second = order(buyer, DAY.atTime(18, 0), line(shirt, 1, 25_000));
+        entityManager.flush();
+
+        assertThat(salesRollupService.applyOrder(first.getId())).isTrue();
+        assertThat(salesRollupService.applyOrder(first.getId())).isFalse();
+        assertThat(salesRollupService.applyOrder(second.getId())).isTrue();
+        assertThat(salesRollupService.applyOrder(-1L)).isFalse();
+
+        SellerSalesDTO sales = salesRollupService.sellerSales(seller.getId(), DAY, DAY);
+        assertThat(sales.getTotalUnits()).isEqualTo(5);
+        assertThat(sales.getTotalRevenue()).isEqualTo(1200.0);
+        assertThat(sales.getTotalOrders()).isEqualTo(2);
+
+        List<ProductSalesDTO> top = salesRollupService.topProducts(seller.getId(), DAY, DAY, 10);
+        assertThat(top).extracting(ProductSalesDTO::getProductName).containsExactly("shirt", "socks");
+        // Two shirt lines in the first order count as one order
+        assertThat(top.get(0).getUnits()).isEqualTo(4);
+        assertThat(top.get(0).getRevenue()).isEqualTo(1000.0);
+        assertThat(top.get(0).getOrders()).isEqualTo(2);
+        assertThat(top.get(1).getOrders()).isEqualTo(1);
+    }
+
+    @Test
+    void testRebuildMatchesIncrementalCountsAndIncludesArchivedOrders() {
+        Seller seller = fixtures.seller("rollup-rebuild");
+        Seller other = fixtures.seller("rollup-rebuild-other");
+        Product lamp = product(seller, "lamp");
+        Product desk = product(other, "desk");
+        User buyer = fixtures.user("rollup-rebuild-buyer");
+        List<Orders> orders = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            orders.add(order(buyer, DAY.minusDays(i % 3).atTime(12, i), line(lamp, i + 1, 10_000L * (i + 1)),
+                line(desk, 1, 90_000)));
+        }
+        entityManager.flush();
+        for (Orders order : orders) {
+            salesRollupService.applyOrder(order.getId());
+        }
+        List<Map<String, Object>> sellerRows = rows("seller_daily_sales", "seller_id");
+        List<Map<String, Object>> productRows = rows("product_daily_sales", "product_id");
+
+        // Orders of the oldest day move to the archive; the rebuild must still count them
+        orderArchiveService.archiveOlderThan(DAY.minusDays(1).atStartOfDay());
+        int counted = salesRollupService.rebuild(DAY.minusDays(2), DAY);
+
+        assertThat(counted).isEqualTo(6);
+        assertThat(rows("seller_daily_sales", "seller_id")).isEqualTo(sellerRows);
+        assertThat(rows("product_daily_sales", "product_id")).isEqualTo(productRows);
+        assertThat(salesRollupService.applyOrder(orders.get(0).getId())).isFalse();
+        assertThat(salesRollupService.sellerSales(other.getId(), DAY.minusDays(2), DAY).getTotalOrders()).isEqualTo(6);
+        // Multi-year backfills go one year per call
+        assertThatThrownBy(() -> salesRollupService.rebuild(DAY.minusYears(3), DAY))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testDailySeriesFillsDaysWithoutSales() {
+        Seller seller = fixtures.seller("rollup-series");
+        Product mug = product(seller, "mug");
+        Orders order = order(fixtures.user("rollup-series-buyer"), DAY.atTime(8, 0), line(mug, 3, 30_000));
+        entityManager.flush();
+        salesRollupService.applyOrder(order.getId());
+
+        SellerSalesDTO sales = salesRollupService.sellerSales(seller.getId(), DAY.minusDays(6), DAY);
+
+        assertThat(sales.getDays()).hasSize(7);
+        assertThat(sales.getDays().get(0).getUnits()).isZero();
+        assertThat(sales.getDays().get(6).getUnits()).isEqualTo(3);
+        assertThat(sales.getTotalRevenue()).isEqualTo(300.0);
+        assertThatThrownBy(() -> salesRollupService.sellerSales(seller.getId(), DAY, DAY.minusDays(1)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> salesRollupService.sellerSales(seller.getId(), DAY.minusDays(400), DAY))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> salesRollupService.topProducts(seller.getId(), DAY, DAY, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private record Line(Product product, int quantity, long lineTotalPaise) {}
+
+    private static Line line(Product product, int quantity, long lineTotalPaise) {
+        return new Line(product, quantity, lineTotalPaise);
+    }
+
+    private List<Map<String, Object>> rows(String table, String key) {
+        return jdbcTemplate.queryForList("SELECT * FROM " + table + " ORDER BY " + key + ", sales_date");
+    }
+
+    private Product product(Seller seller, String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(100.0);
+        product.setSeller(seller);
+        entityManager.persist(product);
+        return product;
+    }
+
+    private Orders order(User user, LocalDateTime orderDate, Line... lines) {
+        long amount = 0;
+        for (Line line : lines) {
+            amount += line.lineTotalPaise();
+        }
+        Orders order = fixtures.order(user, orderDate, amount);
+        for (Line line : lines) {
+            fixtures.item(order, line.product().getId(), line.product().getSeller().getId(), line.product().getName(),
+                line.quantity(), line.lineTotalPaise());
+        }
+        return order;
+    }
+}
@@ -0,0 +1,264 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.model.Product;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class UploadIngestServiceTest {
+
+    private static final int UPLOADS = 20;
+    private static final int UPLOAD_SIZE = 10 * 1024 * 1024;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @TempDir
+    private Path spoolDir;
+
+    @Test
+    void testImagesAreStoredWithTheirHashAndTheSpoolFileIsRemoved() throws Exception {
+        Product product = new Product();
+        product.setName("Desk Lamp");
+        entityManager.persist(product);
+        entityManager.flush();
+        UploadIngestService uploadIngestService = new UploadIngestService(jdbcTemplate, spoolDir.toString());
+        byte[] data = "not really a jpeg".getBytes();
+
+        UploadIngestService.SpooledUpload upload;
+        try (UploadIngestService.SpooledUpload spooled =
+                 uploadIngestService.spool(new MockMultipartFile("image", "lamp.jpg", "image/jpeg", data))) {
+            upload = spooled;
+            uploadIngestService.insertProductImage(product.getId(), spooled, "lamp.jpg", "front", 0, true);
+        }
+
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+            "SELECT image_data, content_hash, image_name, is_primary FROM product_images WHERE product_id = ?",
+            product.getId());
+        assertThat((byte[]) row.get("image_data")).isEqualTo(data);
+        assertThat(row.get("content_hash")).isEqualTo(sha256(data)).isEqualTo(upload.getSha256());
+        assertThat(row.get("image_name")).isEqualTo("lamp.jpg");
+        assertThat(row.get("is_primary")).isEqualTo(true);
+        assertThat(upload.getSize()).isEqualTo(data.length);
+        try (var files = Files.list(spoolDir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void testConcurrentLargeUploadsDoNotHoldTheirContentOnTheHeap() throws Exception {
+        // H2 keeps blobs in memory, so the statements go to a driver stub that, like PostgreSQL's,
+        // reads the bound stream as it sends it.
+        // Every upload pauses at the end of its request body and again once the driver has read it:
+        // a service buffering the content would hold all of it at one of those two points
+        AtomicLong peak = new AtomicLong();
+        Runnable measure = () -> peak.accumulateAndGet(usedHeapAfterGc(), Math::max);
+        CyclicBarrier bodiesRead = new CyclicBarrier(UPLOADS, measure);
+        CyclicBarrier rowsWritten = new CyclicBarrier(UPLOADS, measure);
+        Map<Long, String> received = new ConcurrentHashMap<>();
+        UploadIngestService service = new UploadIngestService(
+            new JdbcTemplate(streamingDataSource(received, rowsWritten)), spoolDir.toString());
+
+        long baseline = usedHeapAfterGc();
+        ExecutorService executor = Executors.newFixedThreadPool(UPLOADS);
+        try {
+            List<Future<String>> hashes = new ArrayList<>();
+            for (int i = 0; i < UPLOADS; i++) {
+                long productId = i;
+                hashes.add(executor.submit(() -> {
+                    try (UploadIngestService.SpooledUpload upload =
+                             service.spool(new GeneratedUpload(productId, bodiesRead))) {
+                        service.insertProductImage(productId, upload, "upload.jpg", "front", 0, true);
+                        return upload.getSha256();
+                    }
+                }));
+            }
+            for (int i = 0; i < UPLOADS; i++) {
+                String expected = sha256(new GeneratedStream(i, null));
+                assertThat(hashes.get(i).get(60, TimeUnit.SECONDS)).isEqualTo(expected);
+                assertThat(received.get((long) i)).isEqualTo(expected);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // A buffering service would have held UPLOADS * UPLOAD_SIZE = 200 MB here
+        assertThat(peak.get() - baseline).isLessThan(40L * 1024 * 1024);
+        try (var files = Files.list(spoolDir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    /**
+     * A DataSource whose statements drain the stream bound to parameter 1 and record its SHA-256
+     * against the product id bound as a long, then wait at the barrier before returning.
+     */
+    private static DataSource streamingDataSource(Map<Long, String> received, CyclicBarrier afterExecute) {
+        return stub(DataSource.class, (method, args) -> {
+            if (!method.equals("getConnection")) {
+                return null;
+            }
+            return stub(Connection.class, (connectionMethod, connectionArgs) -> {
+                if (!connectionMethod.equals("prepareStatement")) {
+                    return null;
+                }
+                String[] hash = new String[1];
+                long[] productId = new long[1];
+                return stub(PreparedStatement.class, (statementMethod, statementArgs) -> {
+                    switch (statementMethod) {
+                        case "setBinaryStream" -> hash[0] = sha256((InputStream) statementArgs[1]);
+                        case "setLong" -> productId[0] = (Long) statementArgs[1];
+                        case "executeUpdate" -> {
+                            received.put(productId[0], hash[0]);
+                            await(afterExecute);
+                            return 1;
+                        }
+                        default -> { }
+                    }
+                    return null;
+                });
+            });
+        });
+    }
+
+    private interface Handler {
+        Object handle(String method, Object[] args) throws Exception;
+    }
+
+    private static <T> T stub(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Object result = handler.handle(method.getName(), args);
+            if (result == null && method.getReturnType().isPrimitive()) {
+                Class<?> returnType = method.getReturnType();
+                if (returnType == boolean.class) return false;
+                if (returnType == int.class) return 0;
+                if (returnType == long.class) return 0L;
+            }
+            return result;
+        }));
+    }
+
+    /**
+     * UPLOAD_SIZE pseudo-random bytes, generated as they are read.
+     */
+    private static final class GeneratedUpload implements MultipartFile {
+        private final long seed;
+        private final CyclicBarrier endOfBody;
+
+        GeneratedUpload(long seed, CyclicBarrier endOfBody) {
+            this.seed = seed;
+            this.endOfBody = endOfBody;
+        }
+
+        @Override public String getName() { return "image"; }
+        @Override public String getOriginalFilename() { return "upload.jpg"; }
+        @Override public String getContentType() { return "image/jpeg"; }
+        @Override public boolean isEmpty() { return false; }
+        @Override public long getSize() { return UPLOAD_SIZE; }
+        @Override public InputStream getInputStream() { return new GeneratedStream(seed, endOfBody); }
+
+        @Override
+        public byte[] getBytes() {
+            throw new UnsupportedOperationException("uploads must be streamed");
+        }
+
+        @Override
+        public void transferTo(File dest) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static final class GeneratedStream extends InputStream {
+        private final SplittableRandom random;
+        private final CyclicBarrier endOfBody;
+        private int remaining = UPLOAD_SIZE;
+
+        GeneratedStream(long seed, CyclicBarrier endOfBody) {
+            this.random = new SplittableRandom(seed);
+            this.endOfBody = endOfBody;
+        }
+
+        @Override
+        public int read() {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (remaining == 0) {
+                if (endOfBody != null) {
+                    await(endOfBody);
+                }
+                return -1;
+            }
+            int count = Math.min(length, remaining);
+            for (int i = 0; i < count; i++) {
+                buffer[offset + i] = (byte) random.nextInt(256);
+            }
+            remaining -= count;
+            return count;
+        }
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(60, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static String sha256(byte[] data) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+
+    private static String sha256(InputStream in) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] buffer = new byte[8192];
+        for (int read; (read = in.read(buffer)) >= 0; ) {
+            digest.update(buffer, 0, read);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,170 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.dto.CartDTO;
+import com.Shopping.Shopping.dto.CartOperationDTO;
+import com.Shopping.Shopping.model.Cart;
+import com.Shopping.Shopping.model.Product;
+import com.Shopping.Shopping.model.ProductImage;
+import com.Shopping.Shopping.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({UserCartService.class, PricingEngine.class})
+class UserCartServiceTest {
+
+    @Autowired
+    private UserCartService userCartService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void testCartReadIsOneStatementRegardlessOfSize() {
+        createCart("small-cart", 1);
+        createCart("large-cart", 25);
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics.clear();
+        CartDTO small = userCartService.getCart("small-cart");
+        long smallStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        CartDTO large = userCartService.getCart("large-cart");
+        long largeStatements = statistics.getPrepareStatementCount();
+
+        assertThat(small.getItems()).hasSize(1);
+        assertThat(large.getItems()).hasSize(25);
+        assertThat(smallStatements).isEqualTo(1);
+        assertThat(largeStatements).isEqualTo(1);
+    }
+
+    @Test
+    void testItemsTotalsAndImageOrder() {
+        Product first = createCart("totals-cart", 3).get(0);
+        entityManager.flush();
+        entityManager.clear();
+        List<String> expectedUrls = entityManager.createQuery(
+                "SELECT i.id FROM ProductImage i WHERE i.product.id = :productId ORDER BY i.displayOrder", Long.class)
+            .setParameter("productId", first.getId())
+            .getResultStream()
+            .map(id -> "/product-image/" + first.getId() + "/" + id)
+            .toList();
+
+        CartDTO cart = userCartService.getCart("totals-cart");
+
+        // Line i has price 10*i, quantity i and two images stored in reverse display order
+        assertThat(cart.getTotal()).isEqualTo(10 * 1 + 20 * 2 + 30 * 3);
+        assertThat(cart.getItems().get(1).getSubtotal()).isEqualTo(40.0);
+        assertThat(cart.getItems().get(0).getProduct().getImageUrls()).containsExactlyElementsOf(expectedUrls);
+        assertThat(cart.getItems().get(0).getProduct().getPrimaryImageUrl()).isEqualTo(expectedUrls.get(0));
+        assertThat(userCartService.getCart("nobody").getItems()).isEmpty();
+    }
+
+    @Test
+    void testBatchAppliesOperationsInOrder() {
+        List<Product> products = createCart("batch-cart", 3);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<CartOperationDTO> operations = List.of(
+            operation("add", products.get(0).getId(), 2),      // 1 -> 3
+            operation("set", products.get(1).getId(), 5),      // 2 -> 5
+            operation("remove", products.get(2).getId(), null),
+            operation("add", products.get(2).getId(), null));  // removed, then re-added with 1
+
+        CartDTO cart = userCartService.applyBatch("batch-cart", operations);
+
+        assertThat(cart.getItems()).extracting(item -> item.getQuantity()).containsExactly(3, 5, 1);
+        assertThat(cart.getTotal()).isEqualTo(10 * 3 + 20 * 5 + 30 * 1);
+    }
+
+    @Test
+    void testBatchStatementCountDoesNotGrowWithOperations() {
+        List<Product> products = createCart("bulk-cart", 20);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<CartOperationDTO> operations = new ArrayList<>();
+        for (Product product : products) {
+            operations.add(operation("add", product.getId(), 1));
+        }
+        statistics.clear();
+        CartDTO cart = userCartService.applyBatch("bulk-cart", operations);
+
+        assertThat(cart.getItems()).hasSize(20);
+        // user id, product IN check, current quantities, one update batch, final cart read
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(5);
+    }
+
+    @Test
+    void testBatchWithUnknownProductIsRejected() {
+        List<Product> products = createCart("invalid-cart", 1);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThatThrownBy(() -> userCartService.applyBatch("invalid-cart", List.of(
+            operation("add", products.get(0).getId(), 1),
+            operation("add", -1L, 1))))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("-1");
+
+        assertThat(userCartService.getCart("invalid-cart").getItems().get(0).getQuantity()).isEqualTo(1);
+    }
+
+    private static CartOperationDTO operation(String op, Long productId, Integer quantity) {
+        CartOperationDTO operation = new CartOperationDTO();
+        operation.setOp(op);
+        operation.setProductId(productId);
+        operation.setQuantity(quantity);
+        return operation;
+    }
+
+    private List<Product> createCart(String username, int lines) {
+        List<Product> products = new ArrayList<>();
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("hash");
+        entityManager.persist(user);
+
+        for (int i = 1; i <= lines; i++) {
+            Product product = new Product();
+            product.setName(username + " product " + i);
+            product.setPrice(10.0 * i);
+            entityManager.persist(product);
+
+            for (int order = 1; order >= 0; order--) {
+                ProductImage image = new ProductImage(product, new byte[] {1, 2, 3}, "img" + order, "front", order, order == 0);
+                entityManager.persist(image);
+            }
+            entityManager.persist(new Cart(user, product, i));
+            products.add(product);
+        }
+        return products;
+    }
+}
@@ -0,0 +1,175 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.model.Product;
+import com.Shopping.Shopping.model.User;
+import com.Shopping.Shopping.model.Wishlist;
+import com.Shopping.Shopping.repository.ProductRepository;
+import com.Shopping.Shopping.repository.UserRepository;
+import com.Shopping.Shopping.repository.WishlistRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs without a test transaction: membership is only updated once an add or remove commits.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({WishlistService.class, MetricsService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class WishlistServiceTest {
+
+    @Autowired
+    private WishlistService wishlistService;
+
+    @Autowired
+    private WishlistRepository wishlistRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User user;
+    private final List<Product> products = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        User newUser = new User();
+        newUser.setUsername("wishlist-" + System.nanoTime());
+        newUser.setEmail(newUser.getUsername() + "@example.com");
+        newUser.setPassword("hash");
+        user = userRepository.save(newUser);
+        for (int i = 0; i < 40; i++) {
+            Product product = new Product();
+            product.setName("wishlist product " + i);
+            product.setPrice(10.0);
+            products.add(productRepository.save(product));
+        }
+        // Every fourth product is wishlisted
+        for (int i = 0; i < products.size(); i += 4) {
+            wishlistRepository.save(new Wishlist(user, products.get(i)));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        wishlistRepository.deleteAll(wishlistRepository.findByUser(user));
+        productRepository.deleteAll(products);
+        userRepository.delete(user);
+    }
+
+    @Test
+    void testPageCheckIsOneQueryThenServedFromMemory() {
+        List<Long> ids = products.stream().map(Product::getId).toList();
+
+        statistics.clear();
+        Map<Long, Boolean> first = wishlistService.check(user.getUsername(), ids);
+        long firstStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        Map<Long, Boolean> second = wishlistService.check(user.getUsername(), ids);
+
+        assertThat(firstStatements).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(first).hasSize(40).isEqualTo(second);
+        assertThat(first.keySet()).containsExactlyElementsOf(ids);
+        assertThat(first.values().stream().filter(Boolean::booleanValue).count()).isEqualTo(10);
+        assertThat(first.get(ids.get(0))).isTrue();
+        assertThat(first.get(ids.get(1))).isFalse();
+    }
+
+    @Test
+    void testAddAndRemoveUpdateCachedMembership() {
+        String username = user.getUsername();
+        Long notYet = products.get(1).getId();
+        Long already = products.get(0).getId();
+        assertThat(wishlistService.contains(username, notYet)).isFalse();
+
+        assertThat(wishlistService.add(username, notYet)).isEqualTo(WishlistService.AddResult.ADDED);
+        assertThat(wishlistService.add(username, already)).isEqualTo(WishlistService.AddResult.ALREADY_PRESENT);
+        assertThat(wishlistService.add(username, -1L)).isEqualTo(WishlistService.AddResult.PRODUCT_NOT_FOUND);
+        wishlistService.remove(username, already);
+
+        statistics.clear();
+        assertThat(wishlistService.contains(username, notYet)).isTrue();
+        assertThat(wishlistService.contains(username, already)).isFalse();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(wishlistRepository.findProductIdsByUsername(username)).contains(notYet).doesNotContain(already);
+    }
+
+    @Test
+    void testConcurrentAddsOfTheSameProductInsertOneLine() throws Exception {
+        String username = user.getUsername();
+        Long productId = products.get(2).getId();
+        wishlistService.contains(username, productId);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<WishlistService.AddResult>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return wishlistService.add(username, productId);
+                }));
+            }
+            start.countDown();
+            List<WishlistService.AddResult> outcomes = new ArrayList<>();
+            for (Future<WishlistService.AddResult> result : results) {
+                outcomes.add(result.get(30, TimeUnit.SECONDS));
+            }
+
+            assertThat(outcomes).containsOnly(WishlistService.AddResult.ADDED, WishlistService.AddResult.ALREADY_PRESENT)
+                .filteredOn(outcome -> outcome == WishlistService.AddResult.ADDED).hasSize(1);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(wishlistRepository.findProductIdsByUsername(username)).filteredOn(productId::equals).hasSize(1);
+    }
+
+    @Test
+    void testAddWithStaleMembershipDoesNotDuplicateTheLine() {
+        String username = user.getUsername();
+        Long productId = products.get(3).getId();
+        assertThat(wishlistService.contains(username, productId)).isFalse();
+        // Added behind the cache's back, as another instance would
+        assertThat(wishlistRepository.addIfAbsent(user.getId(), productId)).isTrue();
+
+        assertThat(wishlistService.add(username, productId)).isEqualTo(WishlistService.AddResult.ALREADY_PRESENT);
+        assertThat(wishlistService.contains(username, productId)).isTrue();
+        assertThat(wishlistRepository.findProductIdsByUsername(username)).filteredOn(productId::equals).hasSize(1);
+    }
+
+    @Test
+    void testSortedArrayInsertAndRemove() {
+        long[] members = {3, 7, 9};
+        assertThat(WishlistService.withId(members, 5)).containsExactly(3, 5, 7, 9);
+        assertThat(WishlistService.withId(members, 7)).isSameAs(members);
+        assertThat(WishlistService.withoutId(members, 3)).containsExactly(7, 9);
+        assertThat(WishlistService.withoutId(members, 4)).isSameAs(members);
+    }
+}
@@ -0,0 +1,126 @@
+package com.Shopping.Shopping.service;
+
+import com.Shopping.Shopping.model.SessionCart;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WriteBehindCartStoreTest {
+
+    @TempDir
+    Path journalDir;
+
+    private final FakeBackend backend = new FakeBackend();
+
+    @Test
+    void testFlushCoalescesMutationsIntoOneWritePerLine() {
+        WriteBehindCartStore store = newStore();
+        for (int i = 0; i < 100; i++) {
+            store.update(1L, cart -> cart.add(10L, 0L, 1));
+        }
+        store.update(1L, cart -> cart.add(11L, 0L, 2));
+        store.update(1L, cart -> cart.removeProduct(11L));
+
+        assertThat(store.read(1L).quantityAt(0)).isEqualTo(100);
+        assertThat(backend.batches).isEmpty();
+
+        store.flush();
+
+        assertThat(backend.batches).hasSize(1);
+        assertThat(backend.batches.get(0)).containsExactlyInAnyOrder(
+            new CartBackend.Change(1L, 10L, 100),
+            new CartBackend.Change(1L, 11L, 0));
+        assertThat(backend.quantity(1L, 10L)).isEqualTo(100);
+
+        store.flush();
+        assertThat(backend.batches).hasSize(1);
+    }
+
+    @Test
+    void testUnflushedChangesAreReplayedAfterACrash() {
+        WriteBehindCartStore crashed = newStore();
+        crashed.update(2L, cart -> cart.add(20L, 0L, 3));
+        crashed.update(2L, cart -> cart.setQuantity(20L, 0L, 5));
+        // No flush and no shutdown: the process died
+
+        newStore();
+
+        assertThat(backend.batches).hasSize(1);
+        assertThat(backend.quantity(2L, 20L)).isEqualTo(5);
+    }
+
+    @Test
+    void testFailedFlushKeepsChangesForTheNextRun() {
+        WriteBehindCartStore store = newStore();
+        store.update(3L, cart -> cart.add(30L, 0L, 1));
+
+        backend.failing = true;
+        store.flush();
+        assertThat(backend.quantity(3L, 30L)).isNull();
+
+        backend.failing = false;
+        store.flush();
+        assertThat(backend.quantity(3L, 30L)).isEqualTo(1);
+    }
+
+    @Test
+    void testFailingMutationLeavesCartUntouched() {
+        WriteBehindCartStore store = newStore();
+        store.update(4L, cart -> cart.add(40L, 0L, 2));
+
+        assertThatThrownBy(() -> store.update(4L, cart -> {
+            cart.clear();
+            throw new IllegalArgumentException("invalid");
+        })).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(store.read(4L).quantityAt(0)).isEqualTo(2);
+    }
+
+    private WriteBehindCartStore newStore() {
+        return new WriteBehindCartStore(backend, new MetricsService(), journalDir.toString(), false, 600000);
+    }
+
+    private static final class FakeBackend implements CartBackend {
+        final Map<List<Long>, Integer> rows = new HashMap<>();
+        final List<List<Change>> batches = new ArrayList<>();
+        boolean failing;
+
+        @Override
+        public SessionCart load(Long userId) {
+            SessionCart cart = new SessionCart();
+            rows.forEach((line, quantity) -> {
+                if (line.get(0).equals(userId)) {
+                    cart.add(line.get(1), 0L, quantity);
+                }
+            });
+            return cart;
+        }
+
+        @Override
+        public void store(List<Change> changes) {
+            if (failing) {
+                throw new IllegalStateException("database unavailable");
+            }
+            batches.add(new ArrayList<>(changes));
+            for (Change change : changes) {
+                if (change.quantity() > 0) {
+                    rows.put(List.of(change.userId(), change.productId()), change.quantity());
+                } else {
+                    rows.remove(List.of(change.userId(), change.productId()));
+                }
+            }
+        }
+
+        Integer quantity(long userId, long productId) {
+            return rows.get(List.of(userId, productId));
+        }
+    }
+}